@@ -0,0 +1,130 @@
+package gov.usgs.wma.statistics.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.usgs.ngwmn.model.Elevation;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The benchmark inputs. A series name is either one of the sample-data site files, by its
+ * file name without the _WATERLEVEL.xml suffix, or a sample count for a synthetic series.
+ *
+ * The synthetic series are seeded so every run measures the same data. They span fifty years
+ * ending today, so the monthly statistics qualify, with a seasonal cycle, a long term trend,
+ * noise, a few provisional samples at the end, and the two decimal places of a tape measurement.
+ */
+public class BenchmarkData {
+
+	public static final String SAMPLE_DATA = "/sample-data/";
+	public static final String SAMPLE_DATA_SUFFIX = "_WATERLEVEL.xml";
+
+	/** the sample-data sites used by the benchmarks, a small, a typical, and the largest file */
+	public static final String SITE_SMALL   = "USGS_402734087033401";
+	public static final String SITE_TYPICAL = "MBMG_122340";
+	public static final String SITE_LARGE   = "USGS_401229074290001";
+
+	public static final String SYNTHETIC_10K  = "10000";
+	public static final String SYNTHETIC_100K = "100000";
+	public static final String SYNTHETIC_1M   = "1000000";
+
+	private static final long SEED = 20181017L;
+	private static final int YEARS = 50;
+	private static final int PROVISIONAL = 5;
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+	private BenchmarkData() {}
+
+	/**
+	 * @return the service properties loaded from the application.properties resource
+	 */
+	public static Properties properties() {
+		try {
+			return Properties.fromResource("/application.properties");
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not load application.properties", e);
+		}
+	}
+
+	/**
+	 * @param series a sample-data site name or a synthetic sample count
+	 * @return a new list of the series samples in date order
+	 */
+	public static List<WLSample> samples(String series) {
+		if (series.matches("\\d+")) {
+			return synthetic(Integer.parseInt(series));
+		}
+		return sampleData(series);
+	}
+
+	/**
+	 * @param site the sample-data file name without the _WATERLEVEL.xml suffix
+	 * @return the samples extracted from the file
+	 */
+	public static List<WLSample> sampleData(String site) {
+		String[] parts = site.split("_");
+		Elevation elevation = new Elevation(new BigDecimal("100.0"), "NAVD88");
+		try (InputStream in = BenchmarkData.class.getResourceAsStream(SAMPLE_DATA + site + SAMPLE_DATA_SUFFIX);
+				Reader xml = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+			return WLSample.extractSamples(xml, parts[0], parts[1], elevation);
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not load sample data " + site, e);
+		}
+	}
+
+	/**
+	 * @param count the number of samples
+	 * @return a seeded synthetic series of the given size in date order
+	 */
+	public static List<WLSample> synthetic(int count) {
+		Random random = new Random(SEED);
+		LocalDateTime end = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+		LocalDateTime start = end.minusYears(YEARS);
+		long span = end.toEpochSecond(ZoneOffset.UTC) - start.toEpochSecond(ZoneOffset.UTC);
+
+		List<WLSample> samples = new ArrayList<>(count);
+		for (int s=0; s<count; s++) {
+			long offset = span * s / Math.max(1, count-1);
+			LocalDateTime time = start.plusSeconds(offset);
+			double season = 3 * Math.sin(2 * Math.PI * time.getDayOfYear() / 365.25);
+			double trend  = 5.0 * offset / span;
+			double depth  = 20 + season + trend + random.nextGaussian();
+
+			BigDecimal value = BigDecimal.valueOf(Math.round(depth * 100), 2);
+			BigDecimal aboveDatum = new BigDecimal("100.00").subtract(value);
+			WLSample sample = new WLSample(time.format(TIME_FORMAT), value, "ft", value, "", true, "72019", aboveDatum);
+			sample.setProvsional(s >= count - PROVISIONAL);
+			samples.add(sample);
+		}
+		return samples;
+	}
+
+	/**
+	 * @param samples the samples to write
+	 * @return the samples as the service CSV input, time,value,aging
+	 */
+	public static String csv(List<WLSample> samples) {
+		StringBuilder csv = new StringBuilder(samples.size() * 32);
+		for (WLSample sample : samples) {
+			if (sample.value == null) {
+				continue;
+			}
+			csv.append(sample.time).append(',')
+				.append(sample.value.toPlainString()).append(',')
+				.append(sample.isProvisional() ?Value.PROVISIONAL_CODE :Value.APPROVED_CODE).append('\n');
+		}
+		return csv.toString();
+	}
+}
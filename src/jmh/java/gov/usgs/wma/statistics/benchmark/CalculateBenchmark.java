@@ -0,0 +1,72 @@
+package gov.usgs.wma.statistics.benchmark;
+
+import static gov.usgs.wma.statistics.benchmark.BenchmarkData.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.ngwmn.logic.WaterLevelStatistics;
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.logic.MonthlyStatistics;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+/**
+ * The entire statistics calculation and the monthly statistics portion of it.
+ * Each invocation calculates from a fresh builder and a copy of the series because
+ * the calculation removes samples and collects its results in the builder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateBenchmark {
+
+	@Param({SITE_SMALL, SITE_TYPICAL, SITE_LARGE, SYNTHETIC_10K, SYNTHETIC_100K, SYNTHETIC_1M})
+	public String series;
+
+	Properties env;
+	List<WLSample> samples;
+	List<WLSample> sortedByValue;
+
+	@Setup
+	public void setup() {
+		env = properties();
+		samples = samples(series);
+
+		JsonDataBuilder builder = new JsonDataBuilder(env).mediation(MediationType.BelowLand);
+		sortedByValue = new ArrayList<>(samples);
+		new MonthlyStatistics<WLSample>(env, builder).sortValueByQualifier(sortedByValue);
+	}
+
+	@Benchmark
+	public JsonData calculate() {
+		JsonDataBuilder builder = new JsonDataBuilder(env).mediation(MediationType.BelowLand);
+		return new WaterLevelStatistics(env, builder).calculate(new Specifier(), new ArrayList<>(samples));
+	}
+
+	@Benchmark
+	public JsonData monthlyStats() {
+		JsonDataBuilder builder = new JsonDataBuilder(env).mediation(MediationType.BelowLand);
+		new MonthlyStatistics<WLSample>(env, builder).monthlyStats(sortedByValue);
+		return builder.build();
+	}
+}
@@ -0,0 +1,57 @@
+package gov.usgs.wma.statistics.benchmark;
+
+import static gov.usgs.wma.statistics.benchmark.BenchmarkData.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.control.StatsService;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+/**
+ * The validation and parse of the CSV form data posted to the calculate service.
+ * The sample-data sites are written as CSV so they parse the same values as the XML.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvParseBenchmark {
+
+	@Param({SITE_SMALL, SITE_TYPICAL, SITE_LARGE, SYNTHETIC_10K, SYNTHETIC_100K, SYNTHETIC_1M})
+	public String series;
+
+	Properties env;
+	StatsService service;
+	String csv;
+
+	@Setup
+	public void setup() {
+		env = properties();
+		service = new StatsService().setProperties(env);
+		csv = csv(samples(series));
+	}
+
+	@Benchmark
+	public List<WLSample> validateAndParseCsvData() {
+		JsonDataBuilder builder = new JsonDataBuilder(env).mediation(MediationType.BelowLand);
+		return service.validateAndParseCsvData(csv, builder);
+	}
+}
@@ -0,0 +1,81 @@
+package gov.usgs.wma.statistics.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.logic.SortedRuns;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The overall median of the monthly medians of long records, the intermediate values of the
+ * latest month and the twelve months, each in BelowLand value order. The median is measured by
+ * copying and sorting the values, as it was, and by merging the month runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverallMedianBenchmark {
+
+	private static final long SEED = 20181017L;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int years;
+
+	StatisticsCalculator<WLSample> calculator;
+	List<Value> intermediateValues;
+
+	@Setup
+	public void setup() {
+		Properties env = BenchmarkData.properties();
+		calculator = new StatisticsCalculator<>(env, new JsonDataBuilder(env));
+		Random random = new Random(SEED);
+		intermediateValues = new ArrayList<>();
+		for (int month=0; month<13; month++) {
+			List<Value> medians = new ArrayList<>();
+			for (int year=0; year<years; year++) {
+				BigDecimal value = new BigDecimal(random.nextInt(10000)).movePointLeft(2);
+				medians.add(new Value("2000-01-15", value));
+			}
+			StatisticsCalculator.sortByValueOrderDescending(medians);
+			intermediateValues.addAll(medians);
+		}
+	}
+
+	@Benchmark
+	public BigDecimal median_copied() {
+		List<WLSample> normalized = intermediateValues.stream()
+				.map(value -> new WLSample(value.value))
+				.collect(Collectors.toList());
+		StatisticsCalculator.sortByValueOrderDescending(normalized);
+		return calculator.valueOfPercentile(normalized, StatisticsCalculator.MEDIAN_PERCENTILE, Value::valueOf);
+	}
+
+	@Benchmark
+	public BigDecimal median_merged() {
+		SortedRuns<Value> medians = new SortedRuns<>(intermediateValues, Value.SORT_VALUE_DESCENDING);
+		return StatisticsCalculator.valueOfPercentile(medians, StatisticsCalculator.MEDIAN_PERCENTILE);
+	}
+}
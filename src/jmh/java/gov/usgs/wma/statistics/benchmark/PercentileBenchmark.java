@@ -0,0 +1,76 @@
+package gov.usgs.wma.statistics.benchmark;
+
+import static gov.usgs.wma.statistics.benchmark.BenchmarkData.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The percentile interpolation of the five monthly percentiles on a sample list already
+ * sorted by value, and the median of a date ordered sample list including its sort.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercentileBenchmark {
+
+	private static final BigDecimal[] PERCENTILES = {
+			new BigDecimal(".1"), new BigDecimal(".25"), new BigDecimal(".5"),
+			new BigDecimal(".75"), new BigDecimal(".9")};
+
+	@Param({SITE_SMALL, SITE_TYPICAL, SITE_LARGE, SYNTHETIC_10K, SYNTHETIC_100K, SYNTHETIC_1M})
+	public String series;
+
+	StatisticsCalculator<WLSample> calculator;
+	List<WLSample> sortedByValue;
+	List<WLSample> samplesByDate;
+
+	@Setup
+	public void setup() {
+		Properties env = properties();
+		calculator = new StatisticsCalculator<>(env, new JsonDataBuilder(env));
+		List<WLSample> samples = samples(series);
+
+		sortedByValue = new ArrayList<>(samples);
+		StatisticsCalculator.sortByValueOrderAscending(sortedByValue);
+		samplesByDate = samples;
+	}
+
+	@Benchmark
+	public void valueOfPercentile_list(Blackhole blackhole) {
+		for (BigDecimal percentile : PERCENTILES) {
+			blackhole.consume( calculator.valueOfPercentile(sortedByValue, percentile, Value::valueOf) );
+		}
+	}
+
+	@Benchmark
+	public BigDecimal median_sorted() {
+		List<WLSample> sorted = new ArrayList<>(samplesByDate);
+		StatisticsCalculator.sortByValueOrderAscending(sorted);
+		return calculator.valueOfPercentile(sorted, StatisticsCalculator.MEDIAN_PERCENTILE, Value::valueOf);
+	}
+}
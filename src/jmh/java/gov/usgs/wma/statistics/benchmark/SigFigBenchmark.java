@@ -0,0 +1,81 @@
+package gov.usgs.wma.statistics.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import gov.usgs.wma.statistics.logic.SigFigMathUtil;
+
+/**
+ * The significant figure operations on measurement like operands, two to four significant
+ * figures with two decimal places, and on percentile fractions. The scores are per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SigFigBenchmark {
+
+	private static final int OPERANDS = 1024;
+
+	BigDecimal[] measurements;
+	BigDecimal[] fractions;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(20181017L);
+		measurements = new BigDecimal[OPERANDS];
+		fractions    = new BigDecimal[OPERANDS];
+		for (int o=0; o<OPERANDS; o++) {
+			measurements[o] = BigDecimal.valueOf(1 + random.nextInt(9999), 2);
+			fractions[o]    = BigDecimal.valueOf(1 + random.nextInt(99), 2);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERANDS)
+	public void sigFigAdd(Blackhole blackhole) {
+		for (int o=0; o<OPERANDS; o++) {
+			blackhole.consume( SigFigMathUtil.sigFigAdd(measurements[o], measurements[OPERANDS-1-o]) );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERANDS)
+	public void sigFigSubtract(Blackhole blackhole) {
+		for (int o=0; o<OPERANDS; o++) {
+			blackhole.consume( SigFigMathUtil.sigFigSubtract(measurements[o], measurements[OPERANDS-1-o]) );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERANDS)
+	public void sigFigMultiply(Blackhole blackhole) {
+		for (int o=0; o<OPERANDS; o++) {
+			blackhole.consume( SigFigMathUtil.sigFigMultiply(measurements[o], fractions[o]) );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OPERANDS)
+	public void sigFigDivide(Blackhole blackhole) {
+		for (int o=0; o<OPERANDS; o++) {
+			blackhole.consume( SigFigMathUtil.sigFigDivide(measurements[o], measurements[OPERANDS-1-o]) );
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package gov.usgs.ngwmn.logic;
+
+import static gov.usgs.wma.statistics.app.Properties.*;
+import static org.apache.commons.lang.StringUtils.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
+import gov.usgs.wma.statistics.model.QuantileSketch;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * Approximate water level statistics in constant memory for very long series, like decades of
+ * 15 minute sensor readings. The samples are accepted one at a time, as they are parsed, and each
+ * is added to a {@link QuantileSketch} of its month and year. No sample list is held or sorted.
+ *
+ * The year medians of each month are estimated from the sketches and the monthly percentiles,
+ * P50_MIN and P50_MAX, the overall median of the monthly medians, and the LATEST_PCTILE are then
+ * calculated from them exactly as a full calculation would. The overall MIN_VALUE and MAX_VALUE,
+ * the dates, and the counts are exact. The sketches of every month and year merge for the overall
+ * median of all samples. The RANK_ERROR of the overall statistics is the normalized rank error
+ * bound of the year medians; it is zero, and the statistics are those of the full calculation,
+ * while every month and year has no more than about k samples.
+ *
+ * The conditioning is the same as the full calculation. A provisional sample is held until the
+ * next sample shows it is not the last. The mediation must be known before the samples are
+ * accepted; it is that of the builder, or the most prevalent of the samples of a calculate(spec, samples).
+ *
+ * Each instance calculates once.
+ */
+public class ApproximateWaterLevelStatistics extends WaterLevelStatistics implements Consumer<WLSample> {
+	private static final MathContext RANK_ERROR_DIGITS = new MathContext(2);
+
+	private final int k;
+
+	// the conditioning tallies and messages, see StatisticsCalculator.conditioning
+	private int rows;
+	private int retainedCount;
+	private final ConditioningTallies tallies = new ConditioningTallies();
+
+	// the last sample accepted when it is provisional
+	private WLSample provisional;
+
+	// the sketches, by month and year, of the samples retained
+	private MediationType prevalent;
+	private Boolean ascending;
+	private final List<Map<String, QuantileSketch<WLSample>>> byMonth = new ArrayList<>(12);
+	private final int[] monthCount = new int[12];
+	private QuantileSketch<WLSample> noMonth;
+	private int sampleCount;
+	private WLSample firstSample;
+	private WLSample latestSample;
+
+	public ApproximateWaterLevelStatistics(Properties env, JsonDataBuilder builder) {
+		this(env, builder, QuantileSketch.DEFAULT_K);
+	}
+	/**
+	 * @param k the sketch accuracy, see {@link QuantileSketch}
+	 */
+	public ApproximateWaterLevelStatistics(Properties env, JsonDataBuilder builder, int k) {
+		super(env, builder);
+		this.k = k;
+		for (int m=1; m<=12; m++) {
+			byMonth.add(new HashMap<>());
+		}
+	}
+
+	@Override
+	public JsonData calculate(Specifier spec, List<WLSample> samples) {
+		if (spec.hasAgency()) {
+			List<WLSample> present = samples.stream()
+					.filter(sample -> sample != null && sample.value != null && sample.time != null)
+					.collect(Collectors.toList());
+			// it is given to the builder after the conditioning like the full calculation
+			prevalent = findMostPrevalentMediation(spec, present);
+		}
+		for (WLSample sample : samples) {
+			accept(sample);
+		}
+		return calculate(spec);
+	}
+
+	/**
+	 * Conditions the next sample and adds it to the sketch of its month and year.
+	 * @param sample the next sample in the order given, its value is mediated and its time fixed
+	 */
+	@Override
+	public void accept(WLSample sample) {
+		int row = ++rows;
+		if (sample == null || sample.value == null || sample.time == null) {
+			tallies.omitNull(row);
+			return;
+		}
+		if (provisional != null) {
+			// the provisional sample is no longer the last and is removed
+			tallies.notLast();
+			provisional = null;
+		}
+		if (sample.isProvisional()) {
+			provisional = sample;
+			// the provisional sample would be the last of the retained samples
+			String error = checkDate(sample, retainedCount+1);
+			tallies.provisional(fixDate(env, sample, retainedCount+1), error);
+			return;
+		}
+		retainedCount++;
+		String error = checkDate(sample, retainedCount);
+		if (error != null) {
+			tallies.dateError(error);
+			return;
+		}
+		tallies.dateMessage( fixDate(env, sample, retainedCount) );
+		index(sample);
+	}
+
+	// the errors of StatisticsCalculator.checkAllDates
+	private String checkDate(WLSample sample, int row) {
+		if ( isBlank(sample.time) ) {
+			return env.getError(ENV_INVALID_ROW_DATE_BLANK, row);
+		} else if ( today().compareTo(sample.time) == -1 ) {
+			return env.getError(ENV_INVALID_ROW_DATE_FUTURE, row, sample.time);
+		}
+		return null;
+	}
+
+	// the builder mediation unless it is the default and there is a prevalent mediation
+	private MediationType mediation() {
+		MediationType mediation = builder.mediation();
+		if (prevalent != null && MediationType.DEFAULT.equals(mediation)) {
+			return prevalent;
+		}
+		return mediation;
+	}
+
+	private void index(WLSample sample) {
+		if (ascending == null) {
+			ascending = ! MediationType.BelowLand.equalSortOrder( mediation() );
+			noMonth = new QuantileSketch<>(k, ascending);
+		}
+		sample.value = mediatedValue(sample, mediation());
+		sampleCount++;
+		// the first of the earliest and the last of the latest, as the stable date sort
+		if (firstSample == null || sample.time.compareTo(firstSample.time) < 0) {
+			firstSample = sample;
+		}
+		if (latestSample == null || sample.time.compareTo(latestSample.time) >= 0) {
+			latestSample = sample;
+		}
+		int month = MonthlyBuckets.monthOf(sample);
+		if (month == 0) {
+			noMonth.add(sample);
+			return;
+		}
+		monthCount[month-1]++;
+		String year = Value.yearUTC(sample.time);
+		QuantileSketch<WLSample> sketch = byMonth.get(month-1).get(year);
+		if (sketch == null) {
+			sketch = new QuantileSketch<>(k, ascending);
+			byMonth.get(month-1).put(year, sketch);
+		}
+		sketch.add(sample);
+	}
+
+	/**
+	 * @param spec the site, for logging
+	 * @return the statistics of the samples accepted
+	 */
+	public JsonData calculate(Specifier spec) {
+		// the parse errors of the samples
+		if (builder.hasErrors()) {
+			return builder.build();
+		}
+		tallies.report(env, builder);
+		if (builder.hasErrors()) {
+			return builder.build();
+		}
+		if (prevalent != null) {
+			builder.mediation(prevalent);
+		}
+
+		WLSample latest = latestSample;
+		if (provisional != null) {
+			if (latestSample == null || provisional.time.compareTo(latestSample.time) >= 0) {
+				// it is the last by date, used for the latest percentile and not the statistics
+				provisional.value = mediatedValue(provisional, mediation());
+				latest = provisional;
+			} else {
+				// it is kept with the others as it is not the most recent
+				index(provisional);
+			}
+		}
+		if (sampleCount == 0) {
+			// there is nothing to sketch
+			return super.calculate(spec, new ArrayList<>());
+		}
+
+		// the whole site is the merge of the months and years
+		QuantileSketch<WLSample> overall = new QuantileSketch<>(k, ascending);
+		overall.merge(noMonth);
+		double rankError = 0;
+		for (Map<String, QuantileSketch<WLSample>> years : byMonth) {
+			for (QuantileSketch<WLSample> sketch : years.values()) {
+				overall.merge(sketch);
+				rankError = Math.max(rankError, sketch.rankError());
+			}
+		}
+		builder.rankError(new BigDecimal(rankError).round(RANK_ERROR_DIGITS).toPlainString());
+		return calculateIndexed(spec, new Sketches(overall.asList()), latest, latest == provisional);
+	}
+
+	/**
+	 * The sketches as the month and year index of calculateIndexed.
+	 */
+	private class Sketches implements MonthYearIndex {
+		private final List<WLSample> sortedByValue;
+
+		Sketches(List<WLSample> sortedByValue) {
+			this.sortedByValue = sortedByValue;
+		}
+
+		@Override
+		public WLSample firstSample() {
+			return firstSample;
+		}
+		@Override
+		public List<WLSample> sortedByValue() {
+			return sortedByValue;
+		}
+		@Override
+		public int sampleCount() {
+			return sampleCount;
+		}
+		@Override
+		public int monthCount(int month) {
+			return monthCount[month-1];
+		}
+		@Override
+		public Map<String, List<WLSample>> yearsByValue(int month) {
+			return yearSamples(month, null, false);
+		}
+		@Override
+		public Map<String, List<WLSample>> yearsByDate(int month, WLSample extra) {
+			return yearSamples(month, extra, true);
+		}
+	}
+
+	/**
+	 * The year map of the month as MonthlyStatistics.sortSamplesByYear would make it. For the monthly
+	 * statistics the month is in value order and each year is first seen at its first value; equal values
+	 * are in date order. For the latest percentile the month is in date order; an exact year is in date
+	 * order too while an approximate year is in value order.
+	 * @param month the month number 1 to 12
+	 * @param extra a sample to add to the end of its year, or null
+	 * @param byDate true for the latest percentile years
+	 * @return each year of the month as a List of its samples
+	 */
+	private Map<String, List<WLSample>> yearSamples(int month, WLSample extra, boolean byDate) {
+		Map<String, QuantileSketch<WLSample>> sketches = byMonth.get(month-1);
+		List<String> years = new ArrayList<>(sketches.keySet());
+		String extraYear = (extra == null) ?null :Value.yearUTC(extra.time);
+		if (extraYear != null && ! sketches.containsKey(extraYear)) {
+			years.add(extraYear);
+		}
+		if (byDate) {
+			Collections.sort(years);
+		} else {
+			sortYearsByValue(years, year -> sketches.get(year).sampleOfRank(0));
+		}
+
+		Map<String, List<WLSample>> yearSamples = new HashMap<>();
+		for (String year : years) {
+			QuantileSketch<WLSample> sketch = sketches.get(year);
+			List<WLSample> samples;
+			if (byDate && (sketch == null || sketch.isExact())) {
+				samples = (sketch == null) ?new ArrayList<>() :sketch.samples();
+				sortByDateOrder(samples);
+				if (year.equals(extraYear)) {
+					samples.add(extra);
+				}
+			} else if (year.equals(extraYear)) {
+				// a copy of the year with the extra sample
+				QuantileSketch<WLSample> copy = new QuantileSketch<>(k, ascending);
+				copy.merge(sketch);
+				copy.add(extra);
+				samples = copy.asList();
+			} else {
+				samples = sketch.asList();
+			}
+			yearSamples.put(year, samples);
+		}
+		return yearSamples;
+	}
+}
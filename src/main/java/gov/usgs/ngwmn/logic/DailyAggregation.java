@@ -0,0 +1,223 @@
+package gov.usgs.ngwmn.logic;
+
+import static gov.usgs.wma.statistics.app.Properties.*;
+import static gov.usgs.wma.statistics.logic.SigFigMathUtil.*;
+import static gov.usgs.wma.statistics.logic.StatisticsCalculator.*;
+import static org.apache.commons.lang.StringUtils.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.SampleDate;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * Reduces high frequency samples, like a continuous sensor feed, to one value per day before
+ * they reach the statistics. A sensor reporting every 15 minutes puts about 35k samples a year
+ * through the conditioning, sorting, and overall statistics only for the monthly statistics to
+ * collapse them to a median per year and month; this makes that about 365.
+ *
+ * The samples of a day and pcode are replaced by a sample of their median or mean at the time
+ * of the middle sample. Samples are aggregated as they are received: the days before the latest
+ * day received are passed on as soon as a later day arrives, so only about a day of samples is
+ * held for data in date order. A sample of a day that was already passed on starts a new value.
+ *
+ * The latest sample of the series is always passed on as it was received so that the LATEST_VALUE
+ * and the LATEST_PCTILE are of the raw value. Samples the conditioning reports on, null values,
+ * provisional values, and blank, partial, or future dates, are also passed on as they are. When
+ * one of those is the latest sample, like a provisional latest value, then the latest day is
+ * aggregated like any other.
+ */
+public class DailyAggregation implements Consumer<WLSample> {
+
+	public enum Method {
+		NONE,
+		MEDIAN,
+		MEAN;
+
+		public static String validMethods() {
+			StringBuilder values = new StringBuilder();
+			String sep = "";
+			for (Method method : Method.values()) {
+				values.append(sep).append(method.toString().toLowerCase());
+				sep = ", ";
+			}
+			return values.toString();
+		}
+	}
+
+	private static final Comparator<WLSample> ABOVE_DATUM_ASCENDING = (a, b) -> a.valueAboveDatum.compareTo(b.valueAboveDatum);
+
+	private final Properties env;
+	private final JsonDataBuilder builder;
+	private final Method method;
+	private final Consumer<WLSample> next;
+	private final String today = today();
+
+	// the samples of each day and pcode not yet passed on, all are from the latest day or earlier
+	private final Map<String, List<WLSample>> pending = new LinkedHashMap<>();
+	private long latestDay = SampleDate.NO_DATE;
+	// the latest aggregable sample, and the latest of the series after the conditioning
+	private WLSample latest;
+	private WLSample latestApproved;
+	private WLSample lastReceived;
+	private int aggregated;
+	private int dailyValues;
+
+	/**
+	 * @param method the daily value, NONE passes each sample on as it is received
+	 * @param next receives the samples and daily values
+	 */
+	public DailyAggregation(Properties env, JsonDataBuilder builder, Method method, Consumer<WLSample> next) {
+		this.env = env;
+		this.builder = builder;
+		this.method = method;
+		this.next = next;
+	}
+
+	@Override
+	public void accept(WLSample sample) {
+		if (method != Method.NONE) {
+			track(sample);
+		}
+		if (method == Method.NONE || ! isAggregable(sample)) {
+			next.accept(sample);
+			return;
+		}
+		long day = sample.date().epochDay();
+		if (day > latestDay) {
+			flush();
+			latestDay = day;
+		}
+		if (day == latestDay && (latest == null || Value.TIME_COMPARATOR.compare(sample, latest) >= 0)) {
+			latest = sample;
+		}
+		String key = sample.time.substring(0, 10) + "\t" + sample.pcode;
+		pending.computeIfAbsent(key, k -> new ArrayList<>()).add(sample);
+	}
+
+	/**
+	 * Passes on the remaining samples, it must be called after the last sample.
+	 */
+	public void finish() {
+		if (latest != null && latest != seriesLatest()) {
+			latest = null; // it is aggregated with its day
+		}
+		if (latest != null) {
+			for (List<WLSample> samples : pending.values()) {
+				if (samples.remove(latest)) {
+					break;
+				}
+			}
+		}
+		flush();
+		if (latest != null) {
+			next.accept(latest);
+			latest = null;
+		}
+		if (aggregated > 0) {
+			String msg = env.getMessage(ENV_MESSAGE_DAILY_AGGREGATE, aggregated, dailyValues, method.toString().toLowerCase());
+			builder.message(msg);
+		}
+	}
+
+	/**
+	 * Follows the sample the conditioning leaves as the latest of the series: null values are
+	 * removed, and a provisional value is removed unless it is the last received.
+	 */
+	private void track(WLSample sample) {
+		if (sample == null || sample.value == null || isBlank(sample.time)) {
+			return;
+		}
+		lastReceived = sample;
+		// on equal times the date sort leaves the last received as the latest
+		if ( ! sample.isProvisional() && (latestApproved == null || compareTime(sample, latestApproved) >= 0)) {
+			latestApproved = sample;
+		}
+	}
+	private WLSample seriesLatest() {
+		if (lastReceived != null && lastReceived.isProvisional()
+				&& (latestApproved == null || compareTime(lastReceived, latestApproved) >= 0)) {
+			return lastReceived;
+		}
+		return latestApproved;
+	}
+	// the conditioning fixes a partial date before the date sort
+	private static int compareTime(WLSample a, WLSample b) {
+		return fixedTime(a).compareTo(fixedTime(b));
+	}
+	private static String fixedTime(WLSample sample) {
+		return sample.date().isFullDate() ?sample.time :fixMissingMonthAndDay(sample.time);
+	}
+
+	private boolean isAggregable(WLSample sample) {
+		return sample != null
+				&& sample.value != null
+				&& ! sample.isProvisional()
+				&& isNotBlank(sample.time)
+				&& sample.date().isFullDate()
+				&& today.compareTo(sample.time) >= 0;
+	}
+
+	private void flush() {
+		for (List<WLSample> samples : pending.values()) {
+			if (samples.size() == 1) {
+				next.accept(samples.get(0));
+			} else if (samples.size() > 1) {
+				next.accept(aggregate(samples));
+				aggregated += samples.size();
+				dailyValues++;
+			}
+		}
+		pending.clear();
+	}
+
+	/**
+	 * @param samples the samples of a day and pcode in the order received
+	 * @return a sample of their median or mean at the time of the middle sample
+	 */
+	protected WLSample aggregate(List<WLSample> samples) {
+		WLSample base = samples.get(samples.size()/2);
+		boolean hasAboveDatum = samples.stream().allMatch(sample -> sample.valueAboveDatum != null);
+
+		BigDecimal value;
+		BigDecimal aboveDatum = null;
+		if (method == Method.MEAN) {
+			value = mean(samples, Value::valueOf);
+			if (hasAboveDatum) {
+				aboveDatum = mean(samples, WLSample::valueOfAboveDatum);
+			}
+		} else {
+			// each value in the order of its mediation
+			value = median(samples, WLSample.DEPTH_BELOW_SURFACE_COMPARATOR, Value::valueOf);
+			if (hasAboveDatum) {
+				aboveDatum = median(samples, ABOVE_DATUM_ASCENDING, WLSample::valueOfAboveDatum);
+			}
+		}
+		return new WLSample(value, aboveDatum, base);
+	}
+
+	private BigDecimal median(List<WLSample> samples, Comparator<? super WLSample> order, Function<WLSample, BigDecimal> valueOf) {
+		List<WLSample> sorted = new ArrayList<>(samples);
+		Collections.sort(sorted, order);
+		return valueOfPercentile(sorted.size(), MEDIAN_PERCENTILE, index -> valueOf.apply(sorted.get(index)));
+	}
+
+	private BigDecimal mean(List<WLSample> samples, Function<WLSample, BigDecimal> valueOf) {
+		List<BigDecimal> values = new ArrayList<>(samples.size());
+		for (WLSample sample : samples) {
+			values.add(valueOf.apply(sample));
+		}
+		return sigFigDivideByExact(sigFigAdd(values), new BigDecimal(values.size()));
+	}
+}
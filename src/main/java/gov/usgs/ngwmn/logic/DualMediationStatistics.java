@@ -0,0 +1,67 @@
+package gov.usgs.ngwmn.logic;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+/**
+ * The statistics of both mediations of one series, BelowLand and AboveDatum, each sample carries
+ * both values. The samples are conditioned once, the nulls and provisional samples removed, the
+ * dates checked and sorted, and then each mediation is calculated from them in turn. Only the
+ * value dependent sorts, medians, and percentiles are calculated twice.
+ *
+ * The results are the same as a calculation of each mediation with its own copy of the samples.
+ * The samples are given the values of each mediation in turn and are left with the AboveDatum.
+ */
+public class DualMediationStatistics {
+
+	private final JsonDataBuilder belowLandBuilder;
+	private final JsonDataBuilder aboveDatumBuilder;
+	private final WaterLevelStatistics belowLand;
+	private final WaterLevelStatistics aboveDatum;
+
+	/**
+	 * @param env the messages and errors
+	 * @param belowLandBuilder collects the BelowLand statistics, its mediation is set
+	 * @param aboveDatumBuilder collects the AboveDatum statistics, its mediation is set
+	 */
+	public DualMediationStatistics(Properties env, JsonDataBuilder belowLandBuilder, JsonDataBuilder aboveDatumBuilder) {
+		this.belowLandBuilder  = belowLandBuilder.mediation(MediationType.BelowLand);
+		this.aboveDatumBuilder = aboveDatumBuilder.mediation(MediationType.AboveDatum);
+		belowLand  = new WaterLevelStatistics(env, belowLandBuilder);
+		aboveDatum = new WaterLevelStatistics(env, aboveDatumBuilder);
+	}
+
+	/**
+	 * @param spec the site of the samples
+	 * @param samples the samples, they are conditioned in place
+	 * @return the BelowLand and the AboveDatum statistics, in that order
+	 */
+	public Map<MediationType, JsonData> calculate(Specifier spec, List<WLSample> samples) {
+		List<WLSample> samplesByDate = belowLand.conditioning(spec, samples);
+		// the conditioning messages and errors are those of both
+		aboveDatumBuilder.messages(belowLandBuilder.messages().collect(Collectors.toList()));
+		aboveDatumBuilder.errors(belowLandBuilder.errors().collect(Collectors.toList()));
+
+		Map<MediationType, JsonData> results = new LinkedHashMap<>();
+		if (belowLandBuilder.hasErrors()) {
+			results.put(MediationType.BelowLand,  belowLandBuilder.build());
+			results.put(MediationType.AboveDatum, aboveDatumBuilder.build());
+			return results;
+		}
+		// each calculation removes the most recent provisional sample from its list
+		List<WLSample> aboveDatumByDate = new ArrayList<>(samplesByDate);
+		results.put(MediationType.BelowLand,  belowLand.calculateConditioned(spec, samplesByDate));
+		results.put(MediationType.AboveDatum, aboveDatum.calculateConditioned(spec, aboveDatumByDate));
+		return results;
+	}
+}
@@ -0,0 +1,349 @@
+package gov.usgs.ngwmn.logic;
+
+import static org.apache.commons.lang.StringUtils.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
+import gov.usgs.wma.statistics.model.RankedSamples;
+import gov.usgs.wma.statistics.model.SampleDate;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The water level statistics of a site that grows a sample at a time. A new reading arrives every
+ * day or so and recalculating the entire period of record for it repeats the date sort, the value
+ * sort, and the sort of every month.
+ *
+ * Instead, the samples are indexed as they are appended: the overall samples and the samples of
+ * each year of each month are held in value order in {@link RankedSamples} order statistic trees,
+ * and by date for the latest percentile. Appending a sample in date order is O(log n). Calculating
+ * the statistics finds the overall min, max, and median, and each year median, by rank in O(log n)
+ * and then the monthly statistics, P50_MIN, P50_MAX, the overall median of the monthly medians, and
+ * the LATEST_PCTILE from the yearly medians with the same MonthlyStatistics methods as a full
+ * calculation, so the work is proportional to the years on record rather than the samples.
+ *
+ * The JsonData is the same as {@link WaterLevelStatistics#calculate(Specifier, List)} of all the
+ * samples appended, messages and intermediate values included. The rare cases the index does not
+ * model fall back to that full calculation: dates that are blank, not YYYY-MM-DD after the missing
+ * month and day are fixed, or in the future; a provisional latest sample that is not the most recent;
+ * and a series with no samples retained. A sample appended out of date order, or a change in the
+ * prevalent mediation, rebuilds the index on the next calculation.
+ *
+ * This is not thread safe, each site should have its own instance.
+ */
+public class IncrementalWaterLevelStatistics {
+	/**
+	 * The samples of one year of one month, by date and by value.
+	 */
+	private static class YearBucket {
+		final List<WLSample> byDate = new ArrayList<>();
+		final RankedSamples<WLSample> byValue;
+		YearBucket(boolean ascending) {
+			byValue = new RankedSamples<>(ascending);
+		}
+	}
+
+	private final Properties env;
+	private final Specifier spec;
+
+	// a copy of every sample as it was appended, for the full calculation
+	private final List<WLSample> appended = new ArrayList<>();
+
+	// the conditioning tallies, see StatisticsCalculator.conditioning
+	private final WaterLevelStatistics.ConditioningTallies tallies = new WaterLevelStatistics.ConditioningTallies();
+
+	// the retained samples, not null or provisional, in the order appended with their dates fixed
+	private final List<WLSample> retained = new ArrayList<>();
+	private final List<WLSample> future = new ArrayList<>();
+	private int irregular;
+	private String latestTime;
+	private int belowLand;
+	private int aboveDatum;
+
+	// the last sample appended when it is provisional, it is only retained while it is the last
+	private WLSample provisional;
+	private WLSample provisionalAppended;
+	private boolean provisionalIrregular;
+
+	// the index of the retained samples, indexed is the mediation of its values or null to rebuild it
+	private MediationType indexed;
+	private List<WLSample> byDate;
+	private RankedSamples<WLSample> byValue;
+	private List<Map<String, YearBucket>> byMonth;
+	private int[] monthCount;
+
+	public IncrementalWaterLevelStatistics(Properties env, Specifier spec) {
+		this.env  = env;
+		this.spec = spec;
+	}
+
+	/**
+	 * @return the number of samples appended
+	 */
+	public int size() {
+		return appended.size();
+	}
+
+	public void appendAll(List<WLSample> samples) {
+		for (WLSample sample : samples) {
+			append(sample);
+		}
+	}
+
+	/**
+	 * Appends a sample to the series as if it were added to the end of the sample list. The sample
+	 * is copied and not modified.
+	 * @param sample the sample to append, O(log n) when it is not before the most recent sample
+	 */
+	public void append(WLSample sample) {
+		WLSample copy = copy(sample);
+		appended.add(copy);
+		int row = appended.size();
+
+		if (copy == null || copy.value == null || copy.time == null) {
+			// nulls are removed before the provisional samples so a provisional sample is still the last
+			tallies.omitNull(row);
+			return;
+		}
+		if (provisional != null) {
+			// the provisional sample is no longer the last and is removed
+			tallies.notLast();
+			provisional = null;
+			provisionalAppended = null;
+			provisionalIrregular = false;
+		}
+
+		WLSample working = copy(copy);
+		String today = StatisticsCalculator.today();
+		boolean isIrregular = isBlank(working.time);
+		String fix = null;
+		if ( ! isIrregular ) {
+			if (today.compareTo(working.time) < 0 && ! copy.isProvisional()) {
+				future.add(copy);
+			}
+			// a provisional sample would be the last of the retained samples
+			fix = WaterLevelStatistics.fixDate(env, working, retained.size()+1);
+			isIrregular = ! SampleDate.of(working.time).isFullDate();
+		}
+
+		if (copy.isProvisional()) {
+			tallies.provisional(fix, null);
+			provisional = working;
+			provisionalAppended = copy;
+			provisionalIrregular = isIrregular;
+			return;
+		}
+		retained.add(working);
+		tallies.dateMessage(fix);
+		if (isIrregular) {
+			irregular++;
+			return;
+		}
+		if (WaterLevelStatistics.isBelowLand(working)) {
+			belowLand++;
+		} else {
+			aboveDatum++;
+		}
+		if (latestTime != null && working.time.compareTo(latestTime) < 0) {
+			indexed = null; // appended out of date order
+		} else {
+			latestTime = working.time;
+		}
+		if (indexed != null) {
+			index(working);
+		}
+	}
+
+	/**
+	 * @param builder a new builder configured for the request, percentiles, mediation, and intermediate values
+	 * @return the statistics of all the samples appended
+	 */
+	public JsonData calculate(JsonDataBuilder builder) {
+		if ( requiresFullCalculation() ) {
+			List<WLSample> samples = new ArrayList<>(appended.size());
+			for (WLSample sample : appended) {
+				samples.add( copy(sample) );
+			}
+			return new WaterLevelStatistics(env, builder).calculate(spec, samples);
+		}
+		return new Calculation(builder).calculate();
+	}
+
+	private boolean requiresFullCalculation() {
+		if (irregular > 0 || provisionalIrregular || retained.isEmpty()) {
+			return true;
+		}
+		if (provisional != null && provisional.time.compareTo(latestTime) < 0) {
+			return true;
+		}
+		String today = StatisticsCalculator.today();
+		if (provisional != null && isFuture(today, provisionalAppended.time)) {
+			return true;
+		}
+		// a future date becomes an error as today approaches it and never again once it is past
+		for (Iterator<WLSample> samples = future.iterator(); samples.hasNext();) {
+			String time = samples.next().time;
+			if ( isFuture(today, time) ) {
+				return true;
+			} else if (today.compareTo(time) >= 0) {
+				samples.remove();
+			}
+		}
+		return false;
+	}
+	// the same future date test as StatisticsCalculator.checkAllDates
+	private static boolean isFuture(String today, String time) {
+		return today.compareTo(time) == -1;
+	}
+
+	private MediationType prevalentMediation() {
+		// the same as WaterLevelStatistics.findMostPrevalentMediation from the counts
+		if ( ! "USGS".equals(spec.getAgencyCd())) {
+			return MediationType.BelowLand;
+		}
+		int below = belowLand;
+		int above = aboveDatum;
+		if (provisional != null) {
+			if (WaterLevelStatistics.isBelowLand(provisional)) {
+				below++;
+			} else {
+				above++;
+			}
+		}
+		return (above > below) ?MediationType.AboveDatum :MediationType.BelowLand;
+	}
+
+	private void reindex(MediationType mediation) {
+		boolean ascending = ! MediationType.BelowLand.equalSortOrder(mediation);
+		indexed    = mediation;
+		byDate     = new ArrayList<>(retained.size());
+		byValue    = new RankedSamples<>(ascending);
+		byMonth    = new ArrayList<>(12);
+		monthCount = new int[12];
+		for (int m=1; m<=12; m++) {
+			byMonth.add(new HashMap<>());
+		}
+		List<WLSample> sorted = new ArrayList<>(retained);
+		StatisticsCalculator.sortByDateOrder(sorted);
+		for (WLSample sample : sorted) {
+			index(sample);
+		}
+	}
+
+	private void index(WLSample sample) {
+		sample.value = WaterLevelStatistics.mediatedValue(sample, indexed);
+		byDate.add(sample);
+		byValue.add(sample);
+		int month = MonthlyBuckets.monthOf(sample);
+		monthCount[month-1]++;
+		String year = Value.yearUTC(sample.time);
+		YearBucket bucket = byMonth.get(month-1).get(year);
+		if (bucket == null) {
+			bucket = new YearBucket( ! MediationType.BelowLand.equalSortOrder(indexed) );
+			byMonth.get(month-1).put(year, bucket);
+		}
+		bucket.byDate.add(sample);
+		bucket.byValue.add(sample);
+	}
+
+	private static WLSample copy(WLSample sample) {
+		if (sample == null) {
+			return null;
+		}
+		WLSample copy = new WLSample(sample);
+		copy.setProvsional(sample.isProvisional());
+		copy.setUnknown(sample.isUnknown());
+		return copy;
+	}
+
+	/**
+	 * The calculation of WaterLevelStatistics.calculate from the index, see calculateIndexed.
+	 */
+	private class Calculation extends WaterLevelStatistics implements WaterLevelStatistics.MonthYearIndex {
+
+		Calculation(JsonDataBuilder builder) {
+			super(IncrementalWaterLevelStatistics.this.env, builder);
+		}
+
+		JsonData calculate() {
+			tallies.report(env, builder);
+			if (spec.hasAgency()) {
+				builder.mediation( prevalentMediation() );
+			}
+			MediationType mediation = builder.mediation();
+			if (indexed != mediation) {
+				reindex(mediation);
+			}
+			WLSample latestSample = byDate.get(byDate.size()-1);
+			if (provisional != null) {
+				provisional.value = mediatedValue(provisional, mediation);
+				latestSample = provisional;
+			}
+			return calculateIndexed(spec, this, latestSample, latestSample == provisional);
+		}
+
+		@Override
+		public WLSample firstSample() {
+			return byDate.get(0);
+		}
+		@Override
+		public List<WLSample> sortedByValue() {
+			return byValue.asList();
+		}
+		@Override
+		public int sampleCount() {
+			return byValue.size();
+		}
+		@Override
+		public int monthCount(int month) {
+			return monthCount[month-1];
+		}
+
+		@Override
+		public Map<String, List<WLSample>> yearsByValue(int month) {
+			Map<String, YearBucket> buckets = byMonth.get(month-1);
+			List<String> years = new ArrayList<>(buckets.keySet());
+			sortYearsByValue(years, year -> buckets.get(year).byValue.get(0));
+			Map<String, List<WLSample>> yearSamples = new HashMap<>();
+			for (String year : years) {
+				yearSamples.put(year, buckets.get(year).byValue.asList());
+			}
+			return yearSamples;
+		}
+
+		// as sortSamplesByYear of the date ordered month
+		@Override
+		public Map<String, List<WLSample>> yearsByDate(int month, WLSample extra) {
+			Map<String, YearBucket> buckets = byMonth.get(month-1);
+			List<String> years = new ArrayList<>(buckets.keySet());
+			Collections.sort(years);
+
+			Map<String, List<WLSample>> yearSamples = new HashMap<>();
+			for (String year : years) {
+				yearSamples.put(year, Collections.unmodifiableList(buckets.get(year).byDate));
+			}
+			if (extra != null) {
+				String year = Value.yearUTC(extra.time);
+				List<WLSample> samples = new ArrayList<>();
+				if (buckets.containsKey(year)) {
+					samples.addAll(buckets.get(year).byDate);
+				}
+				samples.add(extra);
+				yearSamples.put(year, samples);
+			}
+			return yearSamples;
+		}
+	}
+}
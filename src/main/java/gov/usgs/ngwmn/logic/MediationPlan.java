@@ -0,0 +1,150 @@
+package gov.usgs.ngwmn.logic;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import gov.usgs.ngwmn.logic.WaterlevelMediator.MediationResult;
+import gov.usgs.ngwmn.logic.WaterlevelMediator.Measure;
+import gov.usgs.wma.statistics.logic.SigFigMathUtil;
+
+/**
+ * The water level mediations of a PCODE, unit, and datum at a site. Everything but the value
+ * is the same for the samples of a site, so the PCODE, unit, and datum lookups, the site
+ * elevation parse, the direction, and the validation are resolved once by the plan and the
+ * mediation of each value is a negate and an add, or the reason it cannot be mediated.
+ */
+public final class MediationPlan {
+
+	/**
+	 * The conversion of a value in one mediation.
+	 */
+	static final class Conversion {
+		// a sample without a PCODE is below ground level as it is
+		static final Conversion RAW = new Conversion(null, null, false, null);
+		
+		// an unrecognized PCODE is reported before the value is checked
+		private final MediationResult unrecognized;
+		private final MediationResult invalid;
+		private final boolean negate;
+		private final BigDecimal elevation;
+		
+		private Conversion(MediationResult unrecognized, MediationResult invalid, boolean negate, BigDecimal elevation) {
+			this.unrecognized = unrecognized;
+			this.invalid = invalid;
+			this.negate = negate;
+			this.elevation = elevation;
+		}
+		/**
+		 * @param invalid the reason the values cannot be converted, null if they can
+		 * @param negate true if the value direction is reversed
+		 * @param elevation the site elevation added to the value, null if it is not added
+		 */
+		Conversion(MediationResult invalid, boolean negate, BigDecimal elevation) {
+			this(null, invalid, negate, elevation);
+		}
+		static Conversion unrecognized(MediationResult unrecognized) {
+			return new Conversion(unrecognized, null, false, null);
+		}
+		
+		MediationResult convert(String valueStr) {
+			if (this == RAW) {
+				return MediationResult.of(WaterlevelMediator.toBigDecimal(valueStr));
+			}
+			if (unrecognized != null) {
+				return unrecognized;
+			}
+			BigDecimal value = WaterlevelMediator.toBigDecimal(valueStr);
+			if (value == null) {
+				return MediationResult.invalid(WaterlevelMediator.NA_NO_VALUE, " : valueStr=%s", valueStr);
+			}
+			if (invalid != null) {
+				return invalid;
+			}
+			BigDecimal directionalValue = negate ?value.negate() :value;
+			return MediationResult.of(elevation == null
+					?directionalValue
+					:SigFigMathUtil.sigFigAdd(elevation, directionalValue));
+		}
+	}
+	
+	private final String unitStr;
+	private final String pcodeStr;
+	private final String measureDatumStr;
+	private final String siteElevationStr;
+	private final String siteDatumStr;
+	
+	private final Conversion belowGroundLevel;
+	private final Conversion aboveSiteDatum;
+	
+	private MediationPlan(String unitStr, String pcodeStr, String measureDatumStr, String siteElevationStr, String siteDatumStr) {
+		this.unitStr = unitStr;
+		this.pcodeStr = pcodeStr;
+		this.measureDatumStr = measureDatumStr;
+		this.siteElevationStr = siteElevationStr;
+		this.siteDatumStr = siteDatumStr;
+		
+		Measure measure = new Measure(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
+		belowGroundLevel = WaterlevelMediator.planBelowGroundLevel(measure, unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
+		aboveSiteDatum   = WaterlevelMediator.planAboveSiteDatum(measure, unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
+	}
+	
+	/**
+	 * @return the plan of the measure of every value, see {@link Cache} for the plans of many samples
+	 */
+	public static MediationPlan of(String unitStr, String pcodeStr, String measureDatumStr, String siteElevationStr, String siteDatumStr) {
+		return new MediationPlan(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
+	}
+	
+	/**
+	 * @see WaterlevelMediator#mediateBelowGroundLevel(String, String, String, String, String, String)
+	 */
+	public MediationResult mediateBelowGroundLevel(String valueStr) {
+		return belowGroundLevel.convert(valueStr);
+	}
+	/**
+	 * @see WaterlevelMediator#mediateAboveSiteDatum(String, String, String, String, String, String)
+	 */
+	public MediationResult mediateAboveSiteDatum(String valueStr) {
+		return aboveSiteDatum.convert(valueStr);
+	}
+	
+	boolean isPlanOf(String unitStr, String pcodeStr, String measureDatumStr, String siteElevationStr, String siteDatumStr) {
+		return Objects.equals(this.pcodeStr, pcodeStr)
+				&& Objects.equals(this.unitStr, unitStr)
+				&& Objects.equals(this.measureDatumStr, measureDatumStr)
+				&& Objects.equals(this.siteElevationStr, siteElevationStr)
+				&& Objects.equals(this.siteDatumStr, siteDatumStr);
+	}
+	
+	/**
+	 * The plans of the measures seen, such as those of a site document. The samples of a site
+	 * nearly all have the same measure so the last plan is checked before the plans are looked up.
+	 * It is not thread safe, it is intended for one document at a time.
+	 */
+	public static class Cache {
+		private final Map<List<String>, MediationPlan> plans = new HashMap<>();
+		private MediationPlan last;
+		
+		/**
+		 * @return the plan of the measure, it is resolved the first time it is seen
+		 */
+		public MediationPlan get(String unitStr, String pcodeStr, String measureDatumStr, String siteElevationStr, String siteDatumStr) {
+			if (last == null || ! last.isPlanOf(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr)) {
+				List<String> key = Arrays.asList(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
+				last = plans.computeIfAbsent(key, measure -> of(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr));
+			}
+			return last;
+		}
+		
+		/**
+		 * @return the number of different measures seen
+		 */
+		public int size() {
+			return plans.size();
+		}
+	}
+}
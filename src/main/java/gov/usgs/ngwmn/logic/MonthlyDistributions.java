@@ -0,0 +1,89 @@
+package gov.usgs.ngwmn.logic;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.logic.MonthlyMedians;
+import gov.usgs.wma.statistics.logic.SortedRanks;
+import gov.usgs.wma.statistics.logic.SigFigMathUtil;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The historical distribution of each month of a site, the month samples normalized to one median
+ * per year as the latest percentile normalized them, the median of each year in date order, see
+ * MonthlyMedians.byDate(int). A new reading is ranked in its month the way the latest percentile
+ * ranks the latest sample, in place of the median of its year-month, by binary search without
+ * calculating the statistics again.
+ *
+ * The distributions are not modified once made and may be shared by concurrent requests.
+ */
+public class MonthlyDistributions {
+
+	private final MediationType mediation;
+	private final List<SortedRanks<WLSample>> months;
+
+	/**
+	 * @param mediation the mediation the months were calculated with, it is their value order
+	 * @param months the twelve months of year medians
+	 */
+	public MonthlyDistributions(MediationType mediation, List<List<WLSample>> months) {
+		this.mediation = mediation;
+		Comparator<Value> order = MediationType.BelowLand.equalSortOrder(mediation)
+				?Value.SORT_VALUE_DESCENDING :Value.SORT_VALUE_ASCENDING;
+		this.months = new ArrayList<>(12);
+		for (List<WLSample> month : months) {
+			// already in value order from the month medians, the sort is a single pass then
+			List<WLSample> sorted = new ArrayList<>(month);
+			Collections.sort(sorted, order);
+			this.months.add( new SortedRanks<>(Collections.unmodifiableList(sorted), order) );
+		}
+	}
+
+	/**
+	 * @param mediation the mediation of the calculation
+	 * @param medians the month medians of a calculation once it is done
+	 */
+	public static MonthlyDistributions of(MediationType mediation, MonthlyMedians<WLSample> medians) {
+		List<List<WLSample>> months = new ArrayList<>(12);
+		for (int m=1; m<=12; m++) {
+			months.add( medians.byDate(m) );
+		}
+		return new MonthlyDistributions(mediation, months);
+	}
+
+	public MediationType getMediation() {
+		return mediation;
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the number of year medians of the month
+	 */
+	public int size(int month) {
+		return months.get(month-1).size();
+	}
+
+	/**
+	 * @param reading a new reading of the site, its value in the mediation of the distributions
+	 * @return the percentile of the reading in its month, as the latest percentile is given,
+	 *         or null if the reading has no month or its month has no samples
+	 */
+	public BigDecimal percentileOf(WLSample reading) {
+		int month = MonthlyBuckets.monthOf(reading);
+		if (month == 0 || reading.getValue() == null || months.get(month-1).size() == 0) {
+			return null;
+		}
+		SortedRanks<WLSample> ranks = months.get(month-1);
+		int rank  = ranks.rankReplacing(reading);
+		int count = ranks.sizeReplacing(reading);
+		BigDecimal percentile = StatisticsCalculator.percentileOfRank(rank, count, reading.getValue());
+		return SigFigMathUtil.sigFigMultiply(percentile, WaterLevelStatistics.NUM_100.setScale(percentile.scale()));
+	}
+}
@@ -35,6 +35,10 @@ public class WaterLevelMonthlyStats extends MonthlyStatistics<WLSample> {
 		return sortBy;
 	}
 	@Override
+	public boolean isAscendingByQualifier() {
+		return ! MediationType.BelowLand .equalSortOrder(builder.mediation());
+	}
+	@Override
 	public boolean doesThisMonthQualifyForStats(List<WLSample> monthSamples) {
 		int monthYears = uniqueYears(monthSamples);
 		boolean qualified = super.doesThisMonthQualifyForStats(monthSamples)
@@ -7,8 +7,11 @@ import static org.apache.commons.lang.StringUtils.*;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,12 +22,17 @@ import gov.usgs.ngwmn.model.PCode;
 import gov.usgs.ngwmn.model.Specifier;
 import gov.usgs.ngwmn.model.WLSample;
 import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.logic.MonthlyMedians;
 import gov.usgs.wma.statistics.logic.MonthlyStatistics;
 import gov.usgs.wma.statistics.logic.OverallStatistics;
+import gov.usgs.wma.statistics.logic.SortedRanks;
 import gov.usgs.wma.statistics.logic.SigFigMathUtil;
+import gov.usgs.wma.statistics.logic.SortedRuns;
 import gov.usgs.wma.statistics.logic.StatisticsCalculator;
 import gov.usgs.wma.statistics.model.JsonData;
 import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
+import gov.usgs.wma.statistics.model.SampleSeries;
 import gov.usgs.wma.statistics.model.Value;
 
 public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
@@ -44,6 +52,8 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 	// Package level access for unit testing
 	MonthlyStatistics<WLSample> monthlyStats;
 	OverallStatistics<WLSample> overallStatistics;
+	// the month medians of the calculation, see monthlyDistributions()
+	MonthlyMedians<WLSample> monthMedians;
 	
 	
 	public WaterLevelStatistics(Properties env, JsonDataBuilder builder) {
@@ -68,6 +78,16 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 		return monthlyStats;
 	}
 	
+	/**
+	 * @return the month distributions of the last calculation, null if there was none or it had errors
+	 */
+	public MonthlyDistributions monthlyDistributions() {
+		if (monthMedians == null) {
+			return null;
+		}
+		return MonthlyDistributions.of(builder.mediation(), monthMedians);
+	}
+	
 	@Override
 	protected void removeProvisional(List<WLSample> samplesByDate, String dataSetId) {
 		removeProvisionalButNotMostRecent(samplesByDate, dataSetId);
@@ -79,15 +99,8 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 	 * @param mySiteId for logging purposes if there are nulls removed to ID the site with nulls
 	 */
 	protected void removeProvisionalButNotMostRecent(List<WLSample> samples, String mySiteId) {
-		// retain most recent sample
-		WLSample latestSample = samples.get(samples.size()-1);
-		
-		super.removeProvisional(samples, mySiteId);
-		
-		// but only add it back in if it is provisional
-		if (latestSample.isProvisional()) {
-			samples.add(latestSample);
-		}
+		// retain most recent sample, only if it is provisional would it have been removed
+		super.removeProvisional(samples, mySiteId, true);
 	}
 	protected void removeMostRecentProvisional(List<WLSample> samples, List<WLSample> sortedByValue) {
 		WLSample maxDate =samples.get(samples.size()-1);
@@ -120,11 +133,21 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 			MediationType mediation = findMostPrevalentMediation(spec, samples);
 			builder.mediation(mediation);
 		}
-		convertToMediatedValue(spec, samples, builder.mediation());
-		List<WLSample> sortedByValue  = new ArrayList<>(samplesByDate);
-		monthlyStats.sortValueByQualifier(sortedByValue);
+		return calculateConditioned(spec, samplesByDate);
+	}
+
+	/**
+	 * The statistics of samples already conditioned, in the mediation of the builder. The samples
+	 * are given the value of the mediation, the conditioning does not depend on it.
+	 * @param spec the site of the samples
+	 * @param samplesByDate the conditioned samples in date order, the most recent provisional sample is removed
+	 */
+	protected JsonData calculateConditioned(Specifier spec, List<WLSample> samplesByDate) {
+		convertToMediatedValue(spec, samplesByDate, builder.mediation());
+		List<WLSample> sortedByValue  = sortValueByQualifier(samplesByDate);
+		monthMedians = new MonthlyMedians<>(monthlyStats, samplesByDate);
 		
-		overallStats(samplesByDate, sortedByValue);
+		overallStats(samplesByDate, sortedByValue, monthMedians);
 		
 		if ( isNotBlank( builder.get(RECORD_YEARS) ) ) {
 			BigDecimal years = new BigDecimal( builder.get(RECORD_YEARS) );
@@ -134,7 +157,7 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 			try {
 				// removed the overall qualification "optimization" because overall requires the monthly medians
 				builder.collect(); // collect all stats into a monthly obj
-				monthlyStats.monthlyStats(sortedByValue);
+				monthlyStats.monthlyStats(monthMedians);
 			} catch (Exception e) {
 				// if anything goes wrong here we still want the overall
 				LOGGER.warn("Data for this ID {}:{}, had an unhandled exception. {}", spec.getAgencyCd(), spec.getSiteNo(), e);
@@ -154,84 +177,333 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 	}
 
 	/**
-	 * This overrides the median of all values with a median of monthly median values
+	 * Sorts a copy of the samples by value in the mediation order. The sort runs on a
+	 * columnar SampleSeries when the values fit and falls back to the List sort otherwise.
+	 * @param samplesByDate the conditioned samples, they are not reordered
+	 * @return a new list of the samples sorted by value
+	 */
+	protected List<WLSample> sortValueByQualifier(List<WLSample> samplesByDate) {
+		SampleSeries series = SampleSeries.of(samplesByDate, WLSample::valueOfAboveDatum);
+		if (series == null) {
+			List<WLSample> sortedByValue = new ArrayList<>(samplesByDate);
+			monthlyStats.sortValueByQualifier(sortedByValue);
+			return sortedByValue;
+		}
+		return series.sortByValue( monthlyStats.isAscendingByQualifier() ).toList(samplesByDate);
+	}
+
+	/**
+	 * This overrides the median of all values with a median of monthly median values.
+	 * Each month of medians is already in value order, so the median is merged from the months
+	 * rather than copying and sorting them.
 	 */
 	protected void normalizedOverallMedian() {
-		// get a local list of values that will not destroy the original and be of WLSample instance
-		List<WLSample> normalized = builder.getIntermediateValuesList().stream()
-				.map(value -> new WLSample(value.value))
-				.collect(Collectors.toList());
-		// sort the values by the qualifier order - typically BelowLand, and register the median
-		monthlyStats.sortValueByQualifier(normalized);
-		BigDecimal medianValue = valueOfPercentile(normalized, MEDIAN_PERCENTILE, Value::valueOf);
+		SortedRuns<Value> runs = new SortedRuns<>(builder.getIntermediateValuesList(), valueOrder());
+		BigDecimal medianValue = valueOfPercentile(runs, MEDIAN_PERCENTILE);
 		builder.newOverallMedian(medianValue.toPlainString());
 	}
 
 	protected void overallLatestPercentile(List<WLSample> samplesByDate) {
+		overallLatestPercentile(samplesByDate, new MonthlyMedians<>(monthlyStats, samplesByDate));
+	}
+	/**
+	 * @param samplesByDate the samples in date order
+	 * @param medians the month medians of the same samples
+	 */
+	protected void overallLatestPercentile(List<WLSample> samplesByDate, MonthlyMedians<WLSample> medians) {
 		// get the latest (most recent) sample
 		int last = samplesByDate.size()-1;
 		WLSample latestSample = samplesByDate.get(last);
-		// get the sample for the same month as the latest sample
-		String month = Value.padMonth(Value.monthUTC(latestSample.time));
-		List<WLSample> monthSamples = monthlyStats.filterValuesByGivenMonth(samplesByDate, month);
-		// get the medians for each year-month
-		List<WLSample> normalizeMutlipleYearlyValues = 
-				monthlyStats.medianMonthlyValues(monthSamples,  monthlyStats.sortFunctionByQualifier());
-		// the most recent must now be added into the collection and replace of the year-month it represents
-		replaceLatestSample(normalizeMutlipleYearlyValues, latestSample);
+		// get the medians for each year-month of the same month as the latest sample
+		int latestMonth = MonthlyBuckets.monthOf(latestSample);
+		List<WLSample> normalizeMutlipleYearlyValues = medians.byDate(latestMonth);
+		monthlyStats.recordMedians(normalizeMutlipleYearlyValues, medians.sampleCount(latestMonth));
+		latestPercentile(normalizeMutlipleYearlyValues, latestSample);
+	}
+	/**
+	 * @param normalizeMutlipleYearlyValues the medians for each year of the latest sample month in value order,
+	 *        the latest sample is ranked in place of the median of its year-month and the list is not modified
+	 * @param latestSample the most recent sample
+	 */
+	protected void latestPercentile(List<WLSample> normalizeMutlipleYearlyValues, WLSample latestSample) {
+		SortedRanks<WLSample> ranks = new SortedRanks<>(normalizeMutlipleYearlyValues, valueOrder());
+		// the most recent must now be ranked in the collection in place of the year-month it represents
+		int rank  = ranks.rankReplacing(latestSample);
+		int count = ranks.sizeReplacing(latestSample);
 		// get the percentile of the latest sample
-		BigDecimal latestPercentile = percentileOfValue(normalizeMutlipleYearlyValues, latestSample, Value::valueOf);
+		BigDecimal latestPercentile = percentileOfRank(rank, count, latestSample.getValue());
 		latestPercentile = SigFigMathUtil.sigFigMultiply(latestPercentile, NUM_100.setScale(latestPercentile.scale()));
 		builder.latestPercentile(latestPercentile.toPlainString());
 	}
 
+	/**
+	 * Adds the latest sample to the sorted medians in place of the median of its year-month.
+	 * @param normalizeMutlipleYearlyValues the medians for each year of the latest sample month in value order
+	 * @param latestSample the most recent sample
+	 */
 	protected void replaceLatestSample(List<WLSample> normalizeMutlipleYearlyValues, WLSample latestSample) {
-		if (normalizeMutlipleYearlyValues.contains(latestSample)) {
-			return; // if it happens to be in there leave it be
-		}
-		// initial conditions and values
-		int        compareToVal  = MediationType.BelowLand.equalSortOrder(builder.mediation()) ?1 :-1;
-		int        elements      = normalizeMutlipleYearlyValues.size();
-		String     latestYrMonth = latestSample.getTime().substring(0, 7);
-		BigDecimal latestValue   = latestSample.getValue();
-		boolean    isInserting   = true;
-		boolean    isRemoving    = true;
-		// search for the removing current month and the inserting location for latest sample
-		for (int s=0; s<elements && (isRemoving || isInserting); s++) {
-			String yearMonth = ((Value)normalizeMutlipleYearlyValues.get(s)).getTime().substring(0, 7);
-			BigDecimal value = ((Value)normalizeMutlipleYearlyValues.get(s)).getValue();
-			// the data is already sorted, if we exceed the value in the comapreTo direction then insert
-			if (isInserting && latestValue.compareTo(value) == compareToVal) {
-				normalizeMutlipleYearlyValues.add(s, latestSample);
-				elements++; s++;
-				isInserting = false;
-			}
-			// if year-month of the latest sample is found then remove it
-			if (yearMonth.equals(latestYrMonth)) {
-				normalizeMutlipleYearlyValues.remove(s);
-				elements--; s--;
-				isRemoving = false;
-			}
-		}
-		if (isInserting) {
-			normalizeMutlipleYearlyValues.add(latestSample);
-		}
-	}	
+		// if it happens to be in there it is left be
+		SortedRanks.replace(normalizeMutlipleYearlyValues, valueOrder(), latestSample);
+	}
+
+	// the value order of the medians, see WaterLevelMonthlyStats.sortValueByQualifier
+	private Comparator<Value> valueOrder() {
+		boolean ascending = ! MediationType.BelowLand.equalSortOrder(builder.mediation());
+		return ascending ?Value.SORT_VALUE_ASCENDING :Value.SORT_VALUE_DESCENDING;
+	}
+
 	protected void overallStats(List<WLSample> samplesByDate, List<WLSample> sortedByValue) {
+		overallStats(samplesByDate, sortedByValue, new MonthlyMedians<>(monthlyStats, samplesByDate));
+	}
+	/**
+	 * @param samplesByDate the samples in date order
+	 * @param sortedByValue the same samples in value order
+	 * @param medians the month medians of the same samples,
+	 *        the most recent provisional sample is removed from them along with the lists
+	 */
+	protected void overallStats(List<WLSample> samplesByDate, List<WLSample> sortedByValue, MonthlyMedians<WLSample> medians) {
 		if (samplesByDate == null || samplesByDate.size() == 0) {
 			builder.recordYears("0");
 			builder.sampleCount(0);
 			builder.collect();
 			return;
 		}
-		overallLatestPercentile(samplesByDate);
+		overallLatestPercentile(samplesByDate, medians);
+		WLSample latestSample = samplesByDate.get(samplesByDate.size()-1);
+		int sampleCount = samplesByDate.size();
 		overallStatistics.overallStats(samplesByDate, sortedByValue);
+		if (samplesByDate.size() < sampleCount) {
+			medians.remove(latestSample);
+		}
 		// it might make sense to put the builder.collect() call here, it could;
 		// however, most of the tests were written without it here to inspect the
 		// the result prior to collect. If the tests are rewritten to inspect the
 		// JsonOverall object then collect() could be called here. It is call after this.
 	}
 	
+	/**
+	 * The samples of a calculation indexed by month and year rather than held in a date ordered list,
+	 * see IncrementalWaterLevelStatistics and ApproximateWaterLevelStatistics. The year maps are those
+	 * sortSamplesByYear makes of the month list, the years put in a new HashMap in the order the month
+	 * list first has them, so that the year medians are those of a full calculation.
+	 *
+	 * The insertion order is not lost in the HashMap. Years that share a bucket, 2000 and 2011 of a
+	 * sixteen bucket map for one, iterate in the order they were put. That is the order of equal year
+	 * medians once they are sorted, and equal values may differ in significant figures, 1.5 and 1.50.
+	 */
+	protected interface MonthYearIndex {
+		/**
+		 * @return the first of the earliest retained samples, as the stable date sort
+		 */
+		WLSample firstSample();
+		/**
+		 * @return the retained samples in value order, without a most recent provisional sample
+		 */
+		List<WLSample> sortedByValue();
+		/**
+		 * @return the number of retained samples
+		 */
+		int sampleCount();
+		/**
+		 * @param month the month number 1 to 12
+		 * @return the number of retained samples of the month
+		 */
+		int monthCount(int month);
+		/**
+		 * @param month the month number 1 to 12
+		 * @return each year of the value ordered month, see sortYearsByValue
+		 */
+		Map<String, List<WLSample>> yearsByValue(int month);
+		/**
+		 * @param month the month number 1 to 12
+		 * @param extra a sample to add to the end of its year, or null
+		 * @return each year of the date ordered month
+		 */
+		Map<String, List<WLSample>> yearsByDate(int month, WLSample extra);
+	}
+	
+	/**
+	 * The calculation of calculate(spec, samples) from a month and year index of conditioned samples,
+	 * in the same order of operations so that the messages and intermediate values are in the same order.
+	 * @param spec the site, for logging
+	 * @param index the retained samples in the mediation of the builder
+	 * @param latestSample the most recent sample
+	 * @param provisional true if the latest sample is provisional, it is not in the index and only ranked
+	 */
+	protected JsonData calculateIndexed(Specifier spec, MonthYearIndex index, WLSample latestSample, boolean provisional) {
+		// the year medians of the latest month with the latest sample in place of its year-month
+		int latestMonth = MonthlyBuckets.monthOf(latestSample);
+		if (latestMonth != 0) {
+			WLSample extra = provisional ?latestSample :null;
+			int count = index.monthCount(latestMonth) + (provisional ?1 :0);
+			List<WLSample> normalizeMutlipleYearlyValues = monthlyStats.medianMonthlyValues(
+					index.yearsByDate(latestMonth, extra), count, monthlyStats.sortFunctionByQualifier());
+			latestPercentile(normalizeMutlipleYearlyValues, latestSample);
+		}
+
+		// the same as OverallStatistics.overallStats with the most recent provisional sample removed
+		WLSample firstSample = index.firstSample();
+		builder.latestValue(latestSample.value.toString());
+		builder.minDate(firstSample.time);
+		builder.maxDate(latestSample.time);
+		builder.recordYears( yearDiff(latestSample.time, firstSample.time).toString() );
+		if (provisional) {
+			builder.message( env.getMessage(ENV_MESSAGE_PROVISIONAL_RULE) );
+		}
+		List<WLSample> sortedByValue = index.sortedByValue();
+		builder.minValue(sortedByValue.get(0).value.toString());
+		builder.maxValue(sortedByValue.get(sortedByValue.size()-1).value.toString());
+		builder.sampleCount(index.sampleCount());
+		BigDecimal median = valueOfPercentile(sortedByValue, MEDIAN_PERCENTILE, Value::valueOf);
+		builder.median(median.toString());
+
+		if ( isNotBlank( builder.get(RECORD_YEARS) ) ) {
+			try {
+				builder.collect(); // collect all stats into a monthly obj
+				Function<List<WLSample>, List<WLSample>> sortBy = monthlyStats.sortFunctionByQualifier();
+				for (int m=1; m<=12; m++) {
+					Map<String, List<WLSample>> yearSamples = index.yearsByValue(m);
+					List<WLSample> normalizeMutlipleYearlyValues =
+							monthlyStats.medianMonthlyValues(yearSamples, index.monthCount(m), sortBy);
+					monthlyStats.monthlyStats(m, normalizeMutlipleYearlyValues, yearSamples.size());
+				}
+			} catch (Exception e) {
+				// if anything goes wrong here we still want the overall
+				LOGGER.warn("Data for this ID {}:{}, had an unhandled exception. {}", spec.getAgencyCd(), spec.getSiteNo(), e);
+			}
+		}
+
+		normalizedOverallMedian();
+
+		if ( ! builder.hasMonthly() ) {
+			String msg = env.getMessage(ENV_MESSAGE_MONTHLY_RULE, Days406.intValue());
+			builder.message(msg);
+		}
+		return builder.build();
+	}
+	
+	/**
+	 * Sorts the years of a month in the order sortSamplesByYear first sees them in the value ordered
+	 * month, each year at its first sample by value and years of equal first values by date.
+	 * @param years the years of the month
+	 * @param firstByValue the first sample by value of a year
+	 */
+	protected void sortYearsByValue(List<String> years, Function<String, WLSample> firstByValue) {
+		boolean ascending = ! MediationType.BelowLand.equalSortOrder(builder.mediation());
+		Collections.sort(years, (a, b) -> {
+			int compare = firstByValue.apply(a).value.compareTo( firstByValue.apply(b).value );
+			if (compare != 0) {
+				return ascending ?compare :-compare;
+			}
+			return a.compareTo(b);
+		});
+	}
+	
+	/**
+	 * The conditioning of StatisticsCalculator.conditioning for samples given one at a time. The null
+	 * and provisional samples are counted, and the date messages and errors are kept in the order given.
+	 * The most recent provisional sample is retained, so its date message or error is held apart until
+	 * the next sample shows it was not the last.
+	 */
+	protected static class ConditioningTallies {
+		private int nullCount;
+		private final StringBuilder nullRows = new StringBuilder();
+		private int provisionalCount;
+		private final List<String> dateMessages = new ArrayList<>();
+		private final List<String> dateErrors = new ArrayList<>();
+		private String provisionalMessage;
+		private String provisionalError;
+
+		/**
+		 * @param row the one based row of the null sample in the samples given
+		 */
+		public void omitNull(int row) {
+			nullRows.append(nullCount++ == 0 ?"" :", ").append(row);
+		}
+		/**
+		 * @param message the date fix message of the provisional sample, or null
+		 * @param error the date error of the provisional sample, or null
+		 */
+		public void provisional(String message, String error) {
+			provisionalCount++;
+			provisionalMessage = message;
+			provisionalError   = error;
+		}
+		/**
+		 * The last provisional sample was not the most recent and is removed with its date message and error.
+		 */
+		public void notLast() {
+			provisionalMessage = null;
+			provisionalError   = null;
+		}
+		public void dateMessage(String message) {
+			if (message != null) {
+				dateMessages.add(message);
+			}
+		}
+		public void dateError(String error) {
+			if (error != null) {
+				dateErrors.add(error);
+			}
+		}
+
+		/**
+		 * Adds the conditioning messages and errors to the builder in the order conditioning does.
+		 */
+		public void report(Properties env, JsonDataBuilder builder) {
+			if (nullCount > 0) {
+				String plural = nullCount!=1 ?"s" :"";
+				builder.message( env.getMessage(ENV_MESSAGE_OMIT_NULL, nullCount, plural, plural, nullRows.toString()) );
+			}
+			if (provisionalCount > 0) {
+				builder.message( env.getMessage(ENV_MESSAGE_OMIT_PROVISIONAL, provisionalCount, provisionalCount==1?"":"s") );
+			}
+			builder.messages(dateMessages);
+			builder.errors(dateErrors);
+			if (provisionalMessage != null) {
+				builder.message(provisionalMessage);
+			}
+			if (provisionalError != null) {
+				builder.error(provisionalError);
+			}
+		}
+	}
+	
+	/**
+	 * The missing month and day fix of StatisticsCalculator.checkAllDates for a sample given alone.
+	 * @param env the messages
+	 * @param sample the sample, its time is fixed
+	 * @param row the one based row of the sample in the retained samples
+	 * @return the date fix message or null if the date was not fixed
+	 */
+	protected static String fixDate(Properties env, WLSample sample, int row) {
+		if ( isBlank(sample.time) ) {
+			return null;
+		}
+		String fixed = fixMissingMonthAndDay(sample.time);
+		int delta = fixed.length() - sample.time.length();
+		sample.time = fixed;
+		if (delta <= 0) {
+			return null;
+		}
+		String key = (delta <= 3) ?ENV_MESSAGE_DATE_FIX_DAY :ENV_MESSAGE_DATE_FIX_MONTH;
+		return env.getMessage(key, row, sample.toCSV());
+	}
+	
+	/**
+	 * @param sample the sample to mediate
+	 * @param mediation the mediation of the calculation
+	 * @return the value convertToMediatedValue assigns to the sample
+	 */
+	protected static BigDecimal mediatedValue(WLSample sample, MediationType mediation) {
+		if (mediation == MediationType.AboveDatum) {
+			return sample.valueAboveDatum;
+		} else if (mediation == MediationType.BelowLand) {
+			return sample.valueBelowLand;
+		}
+		return sample.value;
+	}
+	
 
 	/**
 	 * Helper method that checks all USGS site PCODEs for the most prevalent mediation.
@@ -248,12 +520,7 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 		int half = samples.size()/2+1; // add one for rounding up simply
 		
 		for (WLSample sample : samples) {
-			PCode pcode = PCode.get(sample.pcode);
-			
-			if (pcode.isUnrecognized() || pcode.isUnspecified() // default is below
-					// and there are below datum
-					|| DepthDatum.BLS.equals(pcode.getDatum()) 
-					|| DepthDatum.LAND_SURFACE.equals(pcode.getDatum()) ) {
+			if ( isBelowLand(sample) ) {
 				countBelowLand++;
 			} else { // otherwise we are above
 				countAboveDatum++;
@@ -269,6 +536,17 @@ public class WaterLevelStatistics extends StatisticsCalculator<WLSample> {
 		
 		return MediationType.BelowLand; // default
 	}
+	/**
+	 * @param sample the sample to inspect
+	 * @return true if the sample PCODE is below land surface, the default, rather than above a datum
+	 */
+	protected static boolean isBelowLand(WLSample sample) {
+		PCode pcode = PCode.get(sample.pcode);
+		return pcode.isUnrecognized() || pcode.isUnspecified() // default is below
+				// and there are below datum
+				|| DepthDatum.BLS.equals(pcode.getDatum()) 
+				|| DepthDatum.LAND_SURFACE.equals(pcode.getDatum());
+	}
 	/**
 	 * Helper method to change out the value (below surface) to valueAboveDatum if above datum mediation is most prevalent.
 	 * Otherwise, it will return the default which is below surface mediated.
@@ -9,7 +9,6 @@ import org.slf4j.LoggerFactory;
 import gov.usgs.ngwmn.model.DepthDatum;
 import gov.usgs.ngwmn.model.PCode;
 import gov.usgs.ngwmn.model.Unit;
-import gov.usgs.wma.statistics.logic.SigFigMathUtil;
 
 
 public class WaterlevelMediator {
@@ -56,32 +55,66 @@ public class WaterlevelMediator {
 			String pcodeStr, String measureDatumStr,
 			String siteElevationStr, String siteDatumStr) 
 					throws ValidationException {
-            
+		return mediateBelowGroundLevel(valueStr, unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr)
+				.valueOrThrow();
+	}
+	
+	
+	/**
+	 * Like {@link #mediateToDistanceBelowGroundLevel(String, String, String, String, String, String)}
+	 * without an exception for a sample that cannot be mediated, the result has the reason instead.
+	 * Many samples of a site should be mediated with a {@link MediationPlan} instead.
+	 * 
+	 * @return the mediated value below ground level or the reason it could not be mediated
+	 */
+	public static MediationResult mediateBelowGroundLevel(
+			String valueStr, String unitStr,
+			String pcodeStr, String measureDatumStr,
+			String siteElevationStr, String siteDatumStr) {
+		return MediationPlan.of(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr)
+				.mediateBelowGroundLevel(valueStr);
+	}
+	
+	
+	/**
+	 * Resolves the validation, direction, and elevation of the below ground level mediation
+	 * once for every value of the measure.
+	 */
+	static MediationPlan.Conversion planBelowGroundLevel(Measure measure, String unitStr,
+			String pcodeStr, String measureDatumStr,
+			String siteElevationStr, String siteDatumStr) {
 		
-		if ( specialBelowGroundLevelCondition(valueStr, pcodeStr) ) {
-			return toBigDecimal(valueStr);
+		if ( specialBelowGroundLevelCondition(measure.pcode) ) {
+			return MediationPlan.Conversion.RAW;
 		};
 
-		Measure measure = initialValidation(valueStr, unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
+		MediationResult invalid = pcodeValidation(measure, pcodeStr);
+		if (invalid != null) {
+			return MediationPlan.Conversion.unrecognized(invalid);
+		}
+		invalid = initialValidation(measure, unitStr, measureDatumStr);
 		
 		// There is different validation if we are dealing with a measurement
 		// that is already from the land surface (no conversion needed)
 		// vs a measurement that is above an external datum.
 		
-		BigDecimal directionalValue = negateIfConditionTrue(measure, measure.pcode.isUp());
+		boolean negate = measure.pcode.isUp();
 		
-		if (measure.pcode.getDatum().isLocalLandSurface()) {
-			datumUnitValidation(measure);
-			return directionalValue;
+		if (invalid != null) {
+			return new MediationPlan.Conversion(invalid, negate, null);
+		} else if (measure.pcode.getDatum().isLocalLandSurface()) {
+			invalid = datumUnitValidation(measure);
+			return new MediationPlan.Conversion(invalid, negate, null);
 		} else {
 			
-			elevationValidation(measure, siteElevationStr, siteDatumStr);
-			unitValidation(measure, siteElevationStr, siteDatumStr);
-			datumValidation(measure);
-			datumUnitValidation(measure);
+			if ((invalid = elevationValidation(measure, siteElevationStr, siteDatumStr)) == null
+					&& (invalid = unitValidation(measure, siteElevationStr, siteDatumStr)) == null
+					&& (invalid = datumValidation(measure)) == null) {
+				invalid = datumUnitValidation(measure);
+			}
 
-			// Everything looks OK - calculate the adjusted valueStr
-            return SigFigMathUtil.sigFigAdd(measure.siteElevation, directionalValue);
+			// Everything looks OK - the value is added to the site elevation
+			return new MediationPlan.Conversion(invalid, negate, measure.siteElevation);
 		}
 	}
 	
@@ -91,12 +124,11 @@ public class WaterlevelMediator {
 	 * for a special case of a non-USGS site which has no PCode.
 	 * Assume the value is measure downward from the surface.
 	 * 
-	 * @param valueStr
-	 * @param pcodeStr
-	 * @throws ValidationException when the raw value should be used
+	 * @param pcode
+	 * @return true when the raw value should be used
 	 */
-	protected static boolean specialBelowGroundLevelCondition(String valueStr, String pcodeStr) throws ValidationException {
-		if (PCode.get(pcodeStr).isUnspecified()) {
+	protected static boolean specialBelowGroundLevelCondition(PCode pcode) {
+		if (pcode.isUnspecified()) {
 			return true;
 		}
 		return false;
@@ -114,12 +146,13 @@ public class WaterlevelMediator {
 	 * @param measure
 	 * @param siteElevationStr
 	 * @param siteDatumStr
-	 * @throws ValidationException when the site elevation is missing
+	 * @return the invalid result when the site elevation is missing, otherwise null
 	 */
-	protected static void elevationValidation(Measure measure, String siteElevationStr, String siteDatumStr) throws ValidationException {
+	protected static MediationResult elevationValidation(Measure measure, String siteElevationStr, String siteDatumStr) {
 		if (measure.siteElevation == null) {
-			throw new ValidationException(NA_NO_SITE_ELEVATION + " Site elevation: " + siteElevationStr + "'");
+			return MediationResult.invalid(NA_NO_SITE_ELEVATION, " Site elevation: %s'", siteElevationStr);
 		}
+		return null;
 	}
 	
 
@@ -130,33 +163,35 @@ public class WaterlevelMediator {
 	 * @param measure
 	 * @param siteElevationStr
 	 * @param siteDatumStr
-	 * @throws ValidationException when the units are mismatched
+	 * @return the invalid result when the units are mismatched, otherwise null
 	 */
-	protected static void unitValidation(Measure measure, String siteElevationStr, String siteDatumStr) throws ValidationException {
+	protected static MediationResult unitValidation(Measure measure, String siteElevationStr, String siteDatumStr) {
 		// Always need these values for this conversion & these consistency checks
 		if (measure.siteDatum.isUnspecified() || measure.siteDatum.isUnrecognized()) {
-			throw new ValidationException(NA_NO_SITE_DATUM + " Site datum: " + siteDatumStr + "'");
+			return MediationResult.invalid(NA_NO_SITE_DATUM, " Site datum: %s'", siteDatumStr);
 		}
 		// TODO why does the new version require a pcode unit null check?
 		if (! measure.unit.isUnspecified() && measure.pcode.getUnit() != null && ! measure.pcode.getUnit().equals(measure.unit)) {
-			throw new ValidationException(NA_PCODE_UNIT_DECLAIRED_UNIT_MISMATCH + " pcode unit: '" + measure.pcode.getUnit() + "' measure unit: '" + measure.unit + "'");
+			return MediationResult.invalid(NA_PCODE_UNIT_DECLAIRED_UNIT_MISMATCH, " pcode unit: '%s' measure unit: '%s'", measure.pcode.getUnit(), measure.unit);
 		}
+		return null;
 	}
 	
 	
 	/**
 	 * Helper method that ensures datum and units match between measure, datum, and PCODE datum
 	 * @param measure
-	 * @throws ValidationException measure and PCODE datum or units are mismatched
+	 * @return the invalid result when the measure and PCODE datum or units are mismatched, otherwise null
 	 */
-	protected static void datumUnitValidation(Measure measure) throws ValidationException {
+	protected static MediationResult datumUnitValidation(Measure measure) {
 		// Specific check measure related to the PCode
 		if (! measure.datum.isUnspecified() && ! measure.pcode.getDatum().equals(measure.datum)) {
-			throw new ValidationException(NA_PCODE_MEASURE_DATUM_MISMATCH + " pcode datum: '" + measure.pcode.getDatum() + "' measure datum: '" + measure.datum + "'"); 
+			return MediationResult.invalid(NA_PCODE_MEASURE_DATUM_MISMATCH, " pcode datum: '%s' measure datum: '%s'", measure.pcode.getDatum(), measure.datum); 
 		}
 		if (! measure.unit.isUnspecified() && ! measure.pcode.getUnit().equals(measure.unit)) {
-			throw new ValidationException(NA_PCODE_UNIT_DECLAIRED_UNIT_MISMATCH + " pcode unit: '" + measure.pcode.getUnit() + "' measure unit: '" + measure.unit + "'"); 
+			return MediationResult.invalid(NA_PCODE_UNIT_DECLAIRED_UNIT_MISMATCH, " pcode unit: '%s' measure unit: '%s'", measure.pcode.getUnit(), measure.unit); 
 		}
+		return null;
 	}
 	
 
@@ -165,67 +200,58 @@ public class WaterlevelMediator {
 	 *  matches measured datum.
 	 * 
 	 * @param measure
-	 * @throws ValidationException when the datum are mismatched
+	 * @return the invalid result when the datum are mismatched, otherwise null
 	 */
-	protected static void datumValidation(Measure measure) throws ValidationException{
+	protected static MediationResult datumValidation(Measure measure) {
 		// TODO this effective condition does not seem to have a unit test
 		if (! measure.pcode.getDatum().equals(measure.effectiveDatum)) {
-			throw new ValidationException(NA_PCODE_MEASURE_DATUM_MISMATCH + " pcode datum: '" + measure.pcode.getDatum() + "' measure datum: '" + measure.effectiveDatum + "'"); 
+			return MediationResult.invalid(NA_PCODE_MEASURE_DATUM_MISMATCH, " pcode datum: '%s' measure datum: '%s'", measure.pcode.getDatum(), measure.effectiveDatum); 
 		}			
 		if (! measure.pcode.getDatum().equals(measure.siteDatum)) {
-			throw new ValidationException(NA_SITE_PCODE_DATUM_MISMATCH + " pcode datum: '" + measure.pcode.getDatum() + "' site datum: '" + measure.siteDatum + "'"); 
+			return MediationResult.invalid(NA_SITE_PCODE_DATUM_MISMATCH, " pcode datum: '%s' site datum: '%s'", measure.pcode.getDatum(), measure.siteDatum); 
 		}
+		return null;
 	}
 	
 	
 	/**
-	 * Helper method that negates the given value based on a condition. The condition may
-	 * be anything but in the use cases it is based on the PCODE direction. When used above a
-	 * datum the direction is different than blow land surface. Additionally, there may be
-	 * default directionality if no PCODE is given.
+	 * Helper method used in both mediations to ensure the PCODE is recognized, it is checked first.
 	 * 
 	 * @param measure
-	 * @param condition
-	 * @return negated value true; otherwise, original value
+	 * @param pcodeStr
+	 * @return the invalid result when the PCODE is unrecognized, otherwise null
 	 */
-	protected static BigDecimal negateIfConditionTrue(Measure measure, boolean condition) {
-		return (condition) ?measure.value.negate() :measure.value;
+	protected static MediationResult pcodeValidation(Measure measure, String pcodeStr) {
+		if (measure.pcode.isUnrecognized()) {
+			return MediationResult.invalid(NA_NO_PCODE, " Value: '%s'", pcodeStr);
+		}
+		return null;
 	}
-
-
+	
+	
 	/**
 	 * Helper method used in both mediations to ensure certain values where given.
 	 * The collective nature of this grouping is organic and pulled for the original
 	 * mediating methods as a copy/paste block.
 	 * 
-	 * We also create an instance of the structure used to pass all values between validation checks.
+	 * The PCODE is checked by {@link #pcodeValidation(Measure, String)} and the value by the plan
+	 * between the two.
 	 * 
-	 * @param valueStr
+	 * @param measure the structure used to pass all values between validation checks
 	 * @param unitStr
-	 * @param pcodeStr
 	 * @param measureDatumStr
-	 * @param siteElevation
-	 * @param siteDatumStr
-	 * @return
-	 * @throws ValidationException when the measure value is missing or the PCODE, datum, or units are unrecognized. 
+	 * @return the invalid result when the datum or units are unrecognized, otherwise null
 	 */
-	protected static Measure initialValidation(String valueStr, String unitStr, String pcodeStr, String measureDatumStr, String siteElevation, String siteDatumStr) 
-			throws ValidationException {
+	protected static MediationResult initialValidation(Measure measure, String unitStr, String measureDatumStr) {
 		LOGGER.trace("enter");
-		Measure measure = new Measure(valueStr, unitStr, pcodeStr, measureDatumStr, siteElevation, siteDatumStr);
-		
-		if (measure.pcode.isUnrecognized()) {
-			throw new ValidationException(NA_NO_PCODE + " Value: '" + pcodeStr + "'");
-		} else if (measure.value == null) {
-			throw new ValidationException(NA_NO_VALUE + " : valueStr=" + valueStr );
-		} else  if (measure.datum.isUnrecognized()) {
-			throw new ValidationException(NA_NO_MEASURE_DATUM + " Value: '" + measureDatumStr + "'");
+		if (measure.datum.isUnrecognized()) {
+			return MediationResult.invalid(NA_NO_MEASURE_DATUM, " Value: '%s'", measureDatumStr);
 		} else if (measure.unit.isUnrecognized()) {
-			throw new ValidationException(NA_NO_UNIT + " Value: '" + unitStr + "'");
+			return MediationResult.invalid(NA_NO_UNIT, " Value: '%s'", unitStr);
 		}
 		
 		LOGGER.trace("exit");
-		return measure;
+		return null;
 	}
 
 
@@ -251,35 +277,70 @@ public class WaterlevelMediator {
 			String pcodeStr, String measureDatumStr,
 			String siteElevationStr, String siteDatumStr) 
 				throws ValidationException {
+		return mediateAboveSiteDatum(valueStr, unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr)
+				.valueOrThrow();
+	}
+	
+	
+	/**
+	 * Like {@link #mediateToDistanceAboveSiteDatum(String, String, String, String, String, String)}
+	 * without an exception for a sample that cannot be mediated, the result has the reason instead.
+	 * 
+	 * @return the mediated value above the site datum or the reason it could not be mediated
+	 */
+	public static MediationResult mediateAboveSiteDatum(
+			String valueStr, String unitStr,
+			String pcodeStr, String measureDatumStr,
+			String siteElevationStr, String siteDatumStr) {
+		return MediationPlan.of(unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr)
+				.mediateAboveSiteDatum(valueStr);
+	}
+	
+	
+	/**
+	 * Resolves the validation, direction, and elevation of the above site datum mediation
+	 * once for every value of the measure.
+	 */
+	static MediationPlan.Conversion planAboveSiteDatum(Measure measure, String unitStr,
+			String pcodeStr, String measureDatumStr,
+			String siteElevationStr, String siteDatumStr) {
 
-		Measure measure = initialValidation(valueStr, unitStr, pcodeStr, measureDatumStr, siteElevationStr, siteDatumStr);
-		unitValidation(measure, siteElevationStr, siteDatumStr);
+		MediationResult invalid = pcodeValidation(measure, pcodeStr);
+		if (invalid != null) {
+			return MediationPlan.Conversion.unrecognized(invalid);
+		}
+		if ((invalid = initialValidation(measure, unitStr, measureDatumStr)) == null) {
+			invalid = unitValidation(measure, siteElevationStr, siteDatumStr);
+		}
 		
 		// There is different validation if we are dealing with a measurement that
 		// is from the land surface vs a measurement that is based on external datum.
-		BigDecimal directionalValue = negateIfConditionTrue(measure,measure.pcode.isUnspecified() || ! measure.pcode.isUp());
+		boolean negate = measure.pcode.isUnspecified() || ! measure.pcode.isUp();
 		
-		if (measure.pcode.isUnspecified()) {
-			elevationValidation(measure, siteElevationStr, siteDatumStr);
-			// Everything looks OK - calculate the adjusted valueStr
-            return SigFigMathUtil.sigFigAdd(measure.siteElevation, directionalValue);
+		if (invalid != null) {
+			return new MediationPlan.Conversion(invalid, negate, null);
+		} else if (measure.pcode.isUnspecified()) {
+			invalid = elevationValidation(measure, siteElevationStr, siteDatumStr);
+			// Everything looks OK - the value is added to the site elevation
+			return new MediationPlan.Conversion(invalid, negate, measure.siteElevation);
 			
 		} else if (measure.pcode.getDatum().isLocalLandSurface()) {
 			
 			// Need to convert from measurement to local land surface to the
 			// site datum.  Site datum measurements are assumed to be up from the datum.
-			elevationValidation(measure, siteElevationStr, siteDatumStr);
-			datumUnitValidation(measure);
+			if ((invalid = elevationValidation(measure, siteElevationStr, siteDatumStr)) == null) {
+				invalid = datumUnitValidation(measure);
+			}
 			
-			// Everything looks OK - calculate the adjusted valueStr
-            return SigFigMathUtil.sigFigAdd(measure.siteElevation, directionalValue);
+			// Everything looks OK - the value is added to the site elevation
+			return new MediationPlan.Conversion(invalid, negate, measure.siteElevation);
 		} else {
 			// Convert from a datum based measurement (not from land surface) to
 			// the site datum...  In theory.  In reality, we do not convert b/t
 			// datums, so we just check to ensure they are relative to the same datum.
 			// If they are not, return some form of NA.
-			datumUnitValidation(measure);
-			return directionalValue;
+			invalid = datumUnitValidation(measure);
+			return new MediationPlan.Conversion(invalid, negate, null);
 		}
 	} 
 	
@@ -300,6 +361,74 @@ public class WaterlevelMediator {
 	}
 	
 	
+	/**
+	 * The mediated value or the reason the value could not be mediated. Mediating agency data
+	 * without a site elevation fails for every sample, so the failure is not an exception and
+	 * its message is only formatted when it is asked for.
+	 */
+	public static final class MediationResult {
+		private static final MediationResult NULL_VALUE = new MediationResult(null, null, null, null);
+		
+		private final BigDecimal value;
+		private final String reason;
+		private final String detailFormat;
+		private final Object[] details;
+		
+		private MediationResult(BigDecimal value, String reason, String detailFormat, Object[] details) {
+			this.value = value;
+			this.reason = reason;
+			this.detailFormat = detailFormat;
+			this.details = details;
+		}
+		
+		static MediationResult of(BigDecimal value) {
+			return (value == null) ?NULL_VALUE :new MediationResult(value, null, null, null);
+		}
+		/**
+		 * @param reason one of the NA reasons
+		 * @param detailFormat the format of the details appended to the reason
+		 */
+		static MediationResult invalid(String reason, String detailFormat, Object ... details) {
+			return new MediationResult(null, reason, detailFormat, details);
+		}
+		
+		/**
+		 * @return true if the value was mediated, it may still be null for a null raw value without a PCODE
+		 */
+		public boolean isMediated() {
+			return reason == null;
+		}
+		/**
+		 * @return the mediated value, null if it could not be mediated
+		 */
+		public BigDecimal getValue() {
+			return value;
+		}
+		/**
+		 * @return the NA reason constant the value could not be mediated, null if it was mediated
+		 */
+		public String getReason() {
+			return reason;
+		}
+		/**
+		 * @return the reason with the details of the sample, null if it was mediated
+		 */
+		public String getMessage() {
+			return isMediated() ?null :reason + String.format(detailFormat, details);
+		}
+		/**
+		 * @return the mediated value
+		 * @throws ValidationException with the message when it could not be mediated
+		 */
+		public BigDecimal valueOrThrow() throws ValidationException {
+			if ( ! isMediated() ) {
+				throw new ValidationException(getMessage());
+			}
+			return value;
+		}
+	}
+	
+	
 	/**
 	 * Private exception for managing mediation validation issues.
 	 * It is not used outside this WaterlevelMediator class and best not be in its own file.
@@ -316,11 +445,10 @@ public class WaterlevelMediator {
 	
 	/**
 	 * Private container/structure to hold the many values validated and required for mediating well depth
-	 * It is not used outside this WaterlevelMediator class and best not be in its own file.
+	 * It is not used outside this WaterlevelMediator class and its MediationPlan and best not be in its own file.
 	 * @author duselman
 	 */
 	protected static class Measure {
-		private final BigDecimal value;
 		private final PCode pcode;
 		private final DepthDatum datum;
 		private final Unit unit;
@@ -328,8 +456,7 @@ public class WaterlevelMediator {
 		private final BigDecimal siteElevation;
 		private final DepthDatum effectiveDatum;
 		
-		public Measure(String valueStr, String unitStr, String pcodeStr, String measureDatumStr, String siteElevation, String siteDatumStr) {
-			this.value = toBigDecimal(valueStr);
+		public Measure(String unitStr, String pcodeStr, String measureDatumStr, String siteElevation, String siteDatumStr) {
 			this.pcode = PCode.get(pcodeStr);
 			this.datum = DepthDatum.get(measureDatumStr);
 			this.unit  = Unit.get(unitStr);
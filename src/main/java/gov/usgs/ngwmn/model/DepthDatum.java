@@ -1,5 +1,10 @@
 package gov.usgs.ngwmn.model;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 
@@ -29,6 +34,24 @@ public enum DepthDatum {
 	private final boolean unrecognized;     // If we do not recognize the datum name.  Not the same as null.
 	private final boolean unspecified;      // If the name is empty or null.
 	
+	// the constant names, and then the names and aliases ignoring case in constant order
+	private static final Map<String, DepthDatum> CONSTANTS;
+	private static final Map<String, DepthDatum> NAMES;
+	static {
+		Map<String, DepthDatum> constants = new HashMap<>();
+		Map<String, DepthDatum> names = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (DepthDatum depthDatum : values()) {
+			constants.put(depthDatum.name(), depthDatum);
+			names.putIfAbsent(depthDatum.name, depthDatum);
+			for (String a : depthDatum.alias) {
+				names.putIfAbsent(a, depthDatum);
+			}
+		}
+		CONSTANTS = Collections.unmodifiableMap(constants);
+		NAMES = Collections.unmodifiableMap(names);
+	}
+	private static final LookupCache<DepthDatum> LOOKUP = new LookupCache<>(DepthDatum::lookup);
+	
 	/**
 	 * This is a constructor for the DepthDatum enumeration.
 	 * 
@@ -86,30 +109,23 @@ public enum DepthDatum {
 	 * @return The matching DepthDatum, UNSPECIFIED, or UNRECOGNIZED.  Never null.
 	 */
 	public static DepthDatum get(String name) {
+		if (name == null) {
+			return UNSPECIFIED;
+		}
+		return LOOKUP.get(name);
+	}
+	private static DepthDatum lookup(String name) {
 		
 		name = StringUtils.trimToNull(name);
 		
 		if (name == null) {
 			return UNSPECIFIED;
 		} else {
-		
-			try {
-
-				return DepthDatum.valueOf(name);
-
-			} catch (Exception exception) {
-
-				for (DepthDatum depthDatum : DepthDatum.values()) {
-					if (depthDatum.name.equalsIgnoreCase(name)) return depthDatum;
-					
-					for (String a : depthDatum.alias) {
-						if (a.equalsIgnoreCase(name)) return depthDatum;
-					}
-					
-				}
-
-				return UNRECOGNIZED;
+			DepthDatum depthDatum = CONSTANTS.get(name);
+			if (depthDatum == null) {
+				depthDatum = NAMES.getOrDefault(name, UNRECOGNIZED);
 			}
+			return depthDatum;
 		}
 	}
 	/**
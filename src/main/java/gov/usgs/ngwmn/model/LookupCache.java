@@ -0,0 +1,47 @@
+package gov.usgs.ngwmn.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A cache of the constants of the raw code strings, as they are in the data, so that the
+ * trimming and matching is done once for each distinct string rather than for each sample.
+ * The number of entries is bounded so a feed of arbitrary strings cannot grow it without limit,
+ * strings seen after it is full are resolved each time.
+ *
+ * @param <E> the constant type
+ */
+final class LookupCache<E> {
+
+	static final int MAX_ENTRIES = 1024;
+
+	private final Function<String, E> resolve;
+	private final Map<String, E> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * @param resolve the constant of a raw string, it is never given null
+	 */
+	LookupCache(Function<String, E> resolve) {
+		this.resolve = resolve;
+	}
+
+	/**
+	 * @param raw the code as it is in the data, not null
+	 * @return the constant of the code
+	 */
+	E get(String raw) {
+		E constant = cache.get(raw);
+		if (constant == null) {
+			constant = resolve.apply(raw);
+			if (cache.size() < MAX_ENTRIES) {
+				cache.put(raw, constant);
+			}
+		}
+		return constant;
+	}
+
+	int size() {
+		return cache.size();
+	}
+}
@@ -1,5 +1,9 @@
 package gov.usgs.ngwmn.model;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.util.StringUtils;
 
 /**
@@ -36,6 +40,19 @@ public enum PCode {
 	private final boolean unrecognized;	// If we do not recognize the name.
 	private final boolean unspecified;  // If the pcode is empty or null.
 	
+	// the codes of the PCode constants, the constant name without the leading P
+	private static final Map<String, PCode> CODES;
+	static {
+		Map<String, PCode> codes = new HashMap<>();
+		for (PCode pcode : values()) {
+			if (pcode.name().startsWith("P")) {
+				codes.put(pcode.name().substring(1), pcode);
+			}
+		}
+		CODES = Collections.unmodifiableMap(codes);
+	}
+	private static final LookupCache<PCode> LOOKUP = new LookupCache<>(PCode::lookup);
+	
 	PCode(String code, DepthDatum datum, Unit unit, boolean isUp, boolean unrecognized, boolean unspecified, String description) {
 		this.code = code;
 		this.datum = datum;
@@ -57,20 +74,14 @@ public enum PCode {
 	 * @return The matching PCode, UNSPECIFIED, or UNRECOGNIZED.  Never null.
 	 */
 	public static PCode get(String name) {
-		
-		name = StringUtils.trimAllWhitespace(name);
-		
 		if (name == null) {
 			return UNSPECIFIED;
-		} else {
-			try {
-				PCode p = PCode.valueOf("P" + name);
-				return p;
-			} catch (Exception e) {
-				return UNRECOGNIZED;
-			}
 		}
-		
+		return LOOKUP.get(name);
+	}
+	private static PCode lookup(String name) {
+		name = StringUtils.trimAllWhitespace(name);
+		return CODES.getOrDefault(name, UNRECOGNIZED);
 	}
 	
 	public String getCode() {
@@ -1,5 +1,10 @@
 package gov.usgs.ngwmn.model;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
 import org.apache.commons.lang.StringUtils;
 
 /**
@@ -19,6 +24,22 @@ public enum Unit {
 	private final boolean unrecognized;	// Returned from get() if we do not recognize the datum name.  Not the same as null.
 	private final boolean unspecified;  // If the unit is empty or null.
 	
+	// the constant names, and then the abbreviations and names ignoring case in constant order
+	private static final Map<String, Unit> CONSTANTS;
+	private static final Map<String, Unit> NAMES;
+	static {
+		Map<String, Unit> constants = new HashMap<>();
+		Map<String, Unit> names = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (Unit unit : values()) {
+			constants.put(unit.name(), unit);
+			names.putIfAbsent(unit.abbr, unit);
+			names.putIfAbsent(unit.name, unit);
+		}
+		CONSTANTS = Collections.unmodifiableMap(constants);
+		NAMES = Collections.unmodifiableMap(names);
+	}
+	private static final LookupCache<Unit> LOOKUP = new LookupCache<>(Unit::lookup);
+	
 	Unit(String name, String abbr, boolean unrecognized, boolean unspecified) {
 		this.name = name;
 		this.abbr = abbr;
@@ -40,6 +61,12 @@ public enum Unit {
 	 * @return The matching Unit, UNSPECIFIED, or UNRECOGNIZED.  Never null.
 	 */
 	public static Unit get(String name) {
+		if (name == null) {
+			return UNSPECIFIED;
+		}
+		return LOOKUP.get(name);
+	}
+	private static Unit lookup(String name) {
 		
 		name = StringUtils.trimToNull(name);
 		
@@ -54,19 +81,11 @@ public enum Unit {
 				name = name.substring(0, name.indexOf(' '));
 			}
 
-			try {
-
-				return Unit.valueOf(name);
-
-			} catch (Exception e) {
-
-				for (Unit u : Unit.values()) {
-					if (u.abbr.equalsIgnoreCase(name)) return u;
-					if (u.name.equalsIgnoreCase(name)) return u;
-				}
-
-				return UNRECOGNIZED;
+			Unit unit = CONSTANTS.get(name);
+			if (unit == null) {
+				unit = NAMES.getOrDefault(name, UNRECOGNIZED);
 			}
+			return unit;
 		}
 	}
 
@@ -1,29 +1,24 @@
 package gov.usgs.ngwmn.model;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
+import gov.usgs.ngwmn.logic.MediationPlan;
 import gov.usgs.ngwmn.logic.WaterlevelMediator;
-import gov.usgs.ngwmn.logic.WaterlevelMediator.ValidationException;
+import gov.usgs.ngwmn.logic.WaterlevelMediator.MediationResult;
 import gov.usgs.wma.statistics.model.Value;
 
 public class WLSample extends Value {
@@ -85,68 +80,228 @@ public class WLSample extends Value {
 	}
 	
 		
-	public static List<WLSample> extractSamples(Reader source, String agencyCd, String siteNo, Elevation elevation) throws IOException, ParserConfigurationException, SAXException {
+	/**
+	 * Extracts all the samples from a WaterML2 XML document into a list.
+	 * This collects the samples from {@link #streamSamples(Reader, String, String, Elevation, Consumer)}.
+	 * 
+	 * @param source the XML document reader, it is closed when the document has been read
+	 * @param agencyCd the site agency for logging bad values
+	 * @param siteNo the site number for logging bad values
+	 * @param elevation the site elevation and datum used to mediate the sample values
+	 * @return the list of valid and mediated samples in document order
+	 * @throws XMLStreamException if the XML is malformed
+	 */
+	public static List<WLSample> extractSamples(Reader source, String agencyCd, String siteNo, Elevation elevation) throws XMLStreamException {
+		List<WLSample> samples = new ArrayList<>();
+		int rows = streamSamples(source, agencyCd, siteNo, elevation, samples::add);
+		LOGGER.trace( "xml rows  " + rows );
+		return samples;
+	}
+	
+	/**
+	 * Streams the samples from a WaterML2 XML document one wml2:TimeValuePair at a time.
+	 * Only the current time value pair is held in memory rather than the entire document.
+	 * Each valid sample is mediated and then handed to the consumer in document order.
+	 * 
+	 * @param source the XML document reader, it is closed when the document has been read
+	 * @param agencyCd the site agency for logging bad values
+	 * @param siteNo the site number for logging bad values
+	 * @param elevation the site elevation and datum used to mediate the sample values
+	 * @param consumer the receiver of each valid sample
+	 * @return the number of time value pair rows read, including those that were not valid
+	 * @throws XMLStreamException if the XML is malformed
+	 */
+	public static int streamSamples(Reader source, String agencyCd, String siteNo, Elevation elevation,
+			Consumer<WLSample> consumer) throws XMLStreamException {
 		String mySiteId = agencyCd+":"+siteNo;
 		// well surface elevation for mediated elevation
 		String siteElevation = (elevation.value != null) ?elevation.value.toString() :null;
+		// the samples of a site nearly all share one mediation plan
+		MediationPlan.Cache plans = new MediationPlan.Cache();
 		
-		// place holder list
-		List<WLSample> samples = new ArrayList<>();
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		
+		int rows = 0;
+		try (Reader reader = source) {
+			XMLStreamReader xml = factory.createXMLStreamReader(reader);
+			try {
+				TimeValuePair pair = null;
+				while (xml.hasNext()) {
+					switch (xml.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						if (TimeValuePair.isElement(xml, TimeValuePair.TVP)) {
+							pair = new TimeValuePair();
+						} else if (pair != null) {
+							pair.startElement(xml);
+						}
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+					case XMLStreamConstants.SPACE:
+						if (pair != null) {
+							pair.characters(xml);
+						}
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (pair != null && TimeValuePair.isElement(xml, TimeValuePair.TVP)) {
+							WLSample sample = pair.toSample(rows++, mySiteId, siteElevation, elevation.datum, plans);
+							if (sample != null) {
+								consumer.accept(sample);
+							}
+							pair = null;
+						} else if (pair != null) {
+							pair.endElement(xml);
+						}
+						break;
+					default:
+						break;
+					}
+				}
+			} finally {
+				xml.close();
+			}
+		} catch (IOException e) {
+			// only the close can throw, the entire document has been read by now
+			LOGGER.warn("Water Level XML reader did not close for site:{} {}", mySiteId, e.getMessage());
+		}
+		return rows;
+	}
+	
+	/**
+	 * The raw text of one wml2:TimeValuePair as the XML streams by. Like the former DOM
+	 * extraction, the first occurrence of each element within the pair is used and
+	 * line breaks are removed from the element text.
+	 */
+	private static class TimeValuePair {
+		static final String[] TVP      = {"wml2", "TimeValuePair"};
+		static final String[] TIME     = {"wml2", "time"};
+		static final String[] VALUE    = {"wml2", "value"};
+		static final String[] COMMENT  = {"wml2", "comment"};
+		static final String[] STATUS   = {"wml2", "status"};
+		static final String[] QUANTITY = {"swe",  "Quantity"};
+		static final String[] UOM      = {"swe",  "uom"};
+		static final String[] SWE_VALUE= {"swe",  "value"};
+		static final String[] NWIS     = {"gwdp", "nwis"};
+		
+		String time;
+		String value;
+		String units;
+		String comment;
+		String pcode;
+		String direction;
+		String status;
 		
-		// transform XML from CLOB stream to DOM
-		StringBuilder xml = new StringBuilder();
+		// element depth within the time value pair and the depth of the open sections
+		int depth;
+		int valueDepth;
+		int quantityDepth;
+		boolean valueSeen;
+		boolean quantitySeen;
+		boolean uomSeen;
+		boolean nwisSeen;
 		
-		try ( BufferedReader reader = new BufferedReader(source) ) {
-			String line = "";
-			while ( (line=reader.readLine()) != null) {
-				xml.append(line);
+		// the element text currently being collected
+		String[] textElement;
+		int textDepth;
+		StringBuilder text = new StringBuilder();
+		
+		static boolean isElement(XMLStreamReader xml, String[] name) {
+			return name[1].equals(xml.getLocalName()) && name[0].equals(xml.getPrefix());
+		}
+		
+		void startElement(XMLStreamReader xml) {
+			depth++;
+			if (textElement != null) {
+				return; // nested text is included in the text of the element being collected
+			}
+			if (valueDepth > 0) {
+				if (quantityDepth > 0) {
+					startQuantityElement(xml);
+				} else if ( ! quantitySeen && isElement(xml, QUANTITY)) {
+					quantitySeen  = true;
+					quantityDepth = depth;
+				}
+			} else if ( ! valueSeen && isElement(xml, VALUE)) {
+				valueSeen  = true;
+				valueDepth = depth;
+			} else if (time == null && isElement(xml, TIME)) {
+				startText(TIME);
+			} else if (comment == null && isElement(xml, COMMENT)) {
+				startText(COMMENT);
+			} else if (status == null && isElement(xml, STATUS)) {
+				startText(STATUS);
+			}
+		}
+		void startQuantityElement(XMLStreamReader xml) {
+			if ( ! uomSeen && isElement(xml, UOM)) {
+				uomSeen   = true;
+				units     = xml.getAttributeValue(null, "code");
+			} else if ( ! nwisSeen && isElement(xml, NWIS)) {
+				nwisSeen  = true;
+				pcode     = xml.getAttributeValue(null, "pcode");
+				direction = xml.getAttributeValue(null, "direction");
+			} else if (value == null && isElement(xml, SWE_VALUE)) {
+				startText(SWE_VALUE);
 			}
 		}
+		void startText(String[] element) {
+			textElement = element;
+			textDepth   = depth;
+			text.setLength(0);
+		}
 		
-		InputStream is       = new ByteArrayInputStream(xml.toString().getBytes());
-		DocumentBuilder doc  = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-		Document document    = doc.parse(is);
-
-		// fetch out the time series list and prepare to parse to ORM POJO
-		NodeList elements    = document.getElementsByTagName("wml2:TimeValuePair");
-		samples              = new ArrayList<>(elements.getLength());
-		LOGGER.trace( "xml rows  " + elements.getLength() );
+		void characters(XMLStreamReader xml) {
+			if (textElement == null) {
+				return;
+			}
+			int start = xml.getTextStart();
+			int end   = start + xml.getTextLength();
+			char[] chars = xml.getTextCharacters();
+			for (int c=start; c<end; c++) {
+				// the original extraction joined the document lines
+				if (chars[c] != '\n' && chars[c] != '\r') {
+					text.append(chars[c]);
+				}
+			}
+		}
 		
-		// transform each all rows
-		for (int e=0; e<elements.getLength(); e++) {
-			// FIRST, EXTRACT DATA FROM DOM
-			
-			// TODO I know this is more cumbersome than XPATH. XPATH stopped working
-			// get current time series element
-			Element el       = (Element) elements.item(e);
-			// get the sample element for value and units
-			Element quantity = (Element) ((Element) el.getElementsByTagName("wml2:value").item(0)).getElementsByTagName("swe:Quantity").item(0);
-			String units     = quantity.getElementsByTagName("swe:uom").item(0).getAttributes().getNamedItem("code").getTextContent();
-			String value     = quantity.getElementsByTagName("swe:value").item(0).getTextContent();
-			String time      = el.getElementsByTagName("wml2:time").item(0).getTextContent();
-			// get the comment text
-			String comment   = el.getElementsByTagName("wml2:comment").item(0).getTextContent();
-			// get the PCODE element if there is one
-			NodeList nwis    = quantity.getElementsByTagName("gwdp:nwis");
-			String pcode     = null;
-			String direction = null;
-			if (nwis.getLength() > 0) {
-				NamedNodeMap attrs = nwis.item(0).getAttributes();
-				pcode        = attrs.getNamedItem("pcode").getTextContent();
-				direction    = attrs.getNamedItem("direction").getTextContent();
+		void endElement(XMLStreamReader xml) {
+			if (textElement != null && depth == textDepth) {
+				String content = text.toString();
+				if (textElement == TIME) {
+					time = content;
+				} else if (textElement == SWE_VALUE) {
+					value = content;
+				} else if (textElement == COMMENT) {
+					comment = content;
+				} else if (textElement == STATUS) {
+					status = content;
+				}
+				textElement = null;
 			}
-			// get provisional status
-			boolean isProvisional = false;
-			NodeList status       =  el.getElementsByTagName("wml2:status");
-			if (status.getLength() > 0) {
-				String provisional= status.item(0).getTextContent();
-				isProvisional     = PROVISIONAL_CODE.equals(provisional);
+			if (depth == quantityDepth) {
+				quantityDepth = 0;
 			}
+			if (depth == valueDepth) {
+				valueDepth = 0;
+			}
+			depth--;
+		}
+		
+		/**
+		 * Validates and mediates the collected pair into a sample.
+		 * @param plans the mediation plans of the site
+		 * @return the new sample or null if the value or time is not valid
+		 */
+		WLSample toSample(int record, String mySiteId, String siteElevation, String siteDatum, MediationPlan.Cache plans) {
+			// get provisional status
+			boolean isProvisional = PROVISIONAL_CODE.equals(status);
 			
-			// SECOND, VALIDATE AND MEDIATE VALUES
-			
-			if ( checkBadValue(value, e, mySiteId) || checkBadTime(time, e, mySiteId) ) {
-				continue;
+			if ( checkBadValue(value, record, mySiteId) || checkBadTime(time, record, mySiteId) ) {
+				return null;
 			}
 
 			// calculate the water levels based on well surface elevation
@@ -155,31 +310,31 @@ public class WLSample extends Value {
 			BigDecimal valueAboveDatum = null;
 			
 			if ( ! isUnknown(value) ) {
-				try {
-					valueBelowLand = WaterlevelMediator
-						.mediateToDistanceBelowGroundLevel(value, units, pcode, null, siteElevation, elevation.datum);
-				} catch (ValidationException ve) {
+				MediationPlan plan = plans.get(units, pcode, null, siteElevation, siteDatum);
+				MediationResult belowLand = plan.mediateBelowGroundLevel(value);
+				if (belowLand.isMediated()) {
+					valueBelowLand = belowLand.getValue();
+				} else {
 					// The WLSample only allows BigDecimal for the resulting values,
 					// so our string explanation will need to be moved to the comment.
-					comment+=  ((comment != null) ?": " :"") + ve.getMessage();
+					comment+=  ((comment != null) ?": " :"") + belowLand.getMessage();
 				}
 				
 				// added for NGWMN-1184 for statistics to mediate with most prevalent PCODE
 				// not dry because of both value and comment side effects and only a single return value in java
-				try {
-					valueAboveDatum = WaterlevelMediator
-						.mediateToDistanceAboveSiteDatum(value, units, pcode, null, siteElevation, elevation.datum);
-				} catch (ValidationException ve) {
+				MediationResult aboveDatum = plan.mediateAboveSiteDatum(value);
+				if (aboveDatum.isMediated()) {
+					valueAboveDatum = aboveDatum.getValue();
+				} else {
 					// The WLSample only allows BigDecimal for the resulting values,
 					// so our string explanation will need to be moved to the comment.
-					comment += ((comment != null) ?": " :"") + ve.getMessage();
+					comment += ((comment != null) ?": " :"") + aboveDatum.getMessage();
 				}
 				
 				// Ignore: parsing issues on this will already be logged as a comment b/c
 				// the same conversion will have failed in the mediate method above.
 				 originalValue = WaterlevelMediator.toBigDecimal(value);
 			}
-			// THIRD, CONSTRUCT A VALID & MEDIATED INSTANCE
 			
 			// construct Water Level Sample POJO
 			Boolean isUp = "up".equalsIgnoreCase(direction);
@@ -188,11 +343,8 @@ public class WLSample extends Value {
 			sample.setUnknown( isUnknown(value) ); // TODO make final
 			// setting unknown values to provisional avoids statistics calculations since it purges them
 			sample.setProvsional(isProvisional || sample.isUnknown() );
-			samples.add(sample);
+			return sample;
 		}
-		
-		return samples;
 	}
-	
 
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package gov.usgs.wma.statistics.app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The durable progress of a batch run, an append only file of a line for each completed site:
+ * its key, a tab, and the hash of its data and the run parameters. A restarted run skips the
+ * sites completed with the same hash, so a run that died part way resumes where it was, and a
+ * rerun with changed files recalculates only the sites whose hash changed.
+ *
+ * Each line is forced to the disk before the next site is recorded. A line cut short by a crash
+ * is dropped when the journal is opened. The last line of a site is its latest completion.
+ */
+public class BatchJournal implements Closeable {
+
+	private final Path file;
+	private final FileChannel channel;
+	private final Map<String, String> completed = new ConcurrentHashMap<>();
+
+	private BatchJournal(Path file, FileChannel channel) {
+		this.file = file;
+		this.channel = channel;
+	}
+
+	/**
+	 * @param file the journal, it is created if it does not exist
+	 * @return the journal with the sites completed so far
+	 */
+	public static BatchJournal open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		BatchJournal journal = new BatchJournal(file, channel);
+		try {
+			journal.load();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		return journal;
+	}
+
+	private void load() throws IOException {
+		byte[] content = Files.readAllBytes(file);
+		int complete = content.length;
+		while (complete > 0 && content[complete-1] != '\n') {
+			complete--;
+		}
+		for (String line : new String(content, 0, complete, StandardCharsets.UTF_8).split("\n")) {
+			int tab = line.lastIndexOf('\t');
+			if (tab > 0) {
+				completed.put(line.substring(0, tab), line.substring(tab+1));
+			}
+		}
+		// drop a partial last line so the next line is not appended to it
+		channel.truncate(complete);
+		channel.position(complete);
+	}
+
+	/**
+	 * @return true if the site was completed with the same hash
+	 */
+	public boolean isComplete(String key, String hash) {
+		return hash.equals(completed.get(key));
+	}
+
+	/**
+	 * Records the site as complete, it is on the disk when this returns.
+	 * @param key the site key, it may not have a tab or line break
+	 */
+	public synchronized void complete(String key, String hash) throws IOException {
+		ByteBuffer line = ByteBuffer.wrap((key + '\t' + hash + '\n').getBytes(StandardCharsets.UTF_8));
+		while (line.hasRemaining()) {
+			channel.write(line);
+		}
+		channel.force(false);
+		completed.put(key, hash);
+	}
+
+	/**
+	 * @return the number of sites completed
+	 */
+	public int size() {
+		return completed.size();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * @param parameters the run parameters that change the statistics
+	 * @param data the site file content
+	 * @return the hex SHA-256 of the parameters and data
+	 */
+	public static String hash(String parameters, byte[] data) {
+		return ContentHash.of(parameters, data);
+	}
+}
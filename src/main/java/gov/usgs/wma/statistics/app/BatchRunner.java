@@ -0,0 +1,517 @@
+package gov.usgs.wma.statistics.app;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gov.usgs.ngwmn.logic.WaterLevelStatistics;
+import gov.usgs.ngwmn.model.Elevation;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.JsonOverall;
+
+/**
+ * Calculates the statistics of a directory of WaterML2 site files from the command line rather
+ * than one service call per site. The files are found by their AGENCY_SITE_WATERLEVEL.xml names,
+ * parsed and calculated on a work stealing pool sized to the machine, and each result is written
+ * as soon as it is done, one site per line as NDJSON or CSV. The throughput and the percentiles of
+ * the per site latency are reported at the end.
+ *
+ * With a journal the completed sites are recorded as they are written so that a restarted run
+ * skips them, see {@link BatchJournal}. The output file is then appended rather than replaced.
+ * A journal of completed sites with a missing or empty output file is refused rather than
+ * leaving those sites out of the new output.
+ *
+ * usage: BatchRunner directory [--format ndjson|csv] [--output file] [--threads n]
+ *                              [--elevation value] [--datum datum] [--medians] [--journal file]
+ */
+public class BatchRunner {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchRunner.class);
+
+	public static final String SITE_FILE_SUFFIX = "_WATERLEVEL.xml";
+
+	public static final String USAGE = "usage: BatchRunner directory [--format ndjson|csv] [--output file] [--threads n]"
+			+ " [--elevation value] [--datum datum] [--medians] [--journal file]";
+
+	protected static final String[] CSV_COLUMNS = {
+			"SITE_ID", "AGENCY_CD", "SITE_NO", "MILLIS",
+			"RECORD_YEARS", "SAMPLE_COUNT", "LATEST_VALUE", "LATEST_PCTILE",
+			"MIN_VALUE", "MEDIAN", "MAX_VALUE", "MIN_DATE", "MAX_DATE", "CALC_DATE",
+			"MEDIATION", "MONTHS", "ERRORS"};
+
+	public enum Format {
+		NDJSON,
+		CSV
+	}
+
+	private final Properties env;
+	private final Format format;
+	private final int threads;
+	private final Elevation elevation;
+	private final boolean medians;
+	private final ObjectMapper mapper = new ObjectMapper();
+	private BatchJournal journal;
+	private boolean header = true;
+
+	/**
+	 * @param threads the number of workers, the available processors when less than one
+	 * @param elevation the site elevation and datum used to mediate the sample values of every site
+	 * @param medians true to include the intermediate monthly medians
+	 */
+	public BatchRunner(Properties env, Format format, int threads, Elevation elevation, boolean medians) {
+		this.env = env;
+		this.format = format;
+		this.threads = (threads < 1) ?Runtime.getRuntime().availableProcessors() :threads;
+		this.elevation = elevation;
+		this.medians = medians;
+	}
+
+	/**
+	 * @param journal the completed sites to skip and record, or null for none
+	 */
+	public BatchRunner setJournal(BatchJournal journal) {
+		this.journal = journal;
+		return this;
+	}
+	/**
+	 * @param header false to leave out the CSV header, like when appending to earlier output
+	 */
+	public BatchRunner setHeader(boolean header) {
+		this.header = header;
+		return this;
+	}
+
+	public static void main(String[] args) {
+		System.exit( run(args, System.out, System.err) );
+	}
+
+	/**
+	 * @return the process exit status, 0 when every site was calculated, 1 when any site failed,
+	 *         and 2 for bad arguments or a journal without the output it was recorded with
+	 */
+	protected static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+		Path directory = null;
+		Path output = null;
+		Path journalFile = null;
+		Format format = Format.NDJSON;
+		int threads = 0;
+		BigDecimal elevationValue = null;
+		String datum = null;
+		boolean medians = false;
+		try {
+			for (int a=0; a<args.length; a++) {
+				switch (args[a]) {
+				case "--format":
+					format = Format.valueOf(args[++a].toUpperCase());
+					break;
+				case "--output":
+					output = Paths.get(args[++a]);
+					break;
+				case "--threads":
+					threads = Integer.parseInt(args[++a]);
+					break;
+				case "--elevation":
+					elevationValue = new BigDecimal(args[++a]);
+					break;
+				case "--datum":
+					datum = args[++a];
+					break;
+				case "--medians":
+					medians = true;
+					break;
+				case "--journal":
+					journalFile = Paths.get(args[++a]);
+					break;
+				default:
+					if (args[a].startsWith("--") || directory != null) {
+						throw new IllegalArgumentException(args[a]);
+					}
+					directory = Paths.get(args[a]);
+				}
+			}
+		} catch (RuntimeException e) {
+			// a missing value, an unknown format or option, or a number that does not parse
+			stderr.println("Invalid argument " + e.getMessage());
+			directory = null;
+		}
+		if (directory == null || ! Files.isDirectory(directory)) {
+			stderr.println(USAGE);
+			return 2;
+		}
+
+		BatchJournal journal = null;
+		try {
+			Properties env = Properties.fromResource("/application.properties");
+			BatchRunner runner = new BatchRunner(env, format, threads, new Elevation(elevationValue, datum), medians);
+			Report report;
+			if (journalFile != null) {
+				journal = BatchJournal.open(journalFile);
+				runner.setJournal(journal);
+			}
+			if (output == null) {
+				Writer out = new BufferedWriter(new OutputStreamWriter(stdout, StandardCharsets.UTF_8));
+				report = runner.run(directory, out);
+			} else {
+				// a resumed run adds to the output of the sites already done
+				boolean append = journal != null && Files.exists(output) && Files.size(output) > 0;
+				if ( ! append && journal != null && journal.size() > 0) {
+					// the sites in the journal would be skipped and missing from the new output
+					stderr.println("The journal " + journalFile + " has " + journal.size()
+							+ " completed sites but the output " + output + " is missing or empty");
+					return 2;
+				}
+				runner.setHeader( ! append );
+				OpenOption mode = append ?StandardOpenOption.APPEND :StandardOpenOption.TRUNCATE_EXISTING;
+				try (Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+					report = runner.run(directory, out);
+				}
+			}
+			stderr.println(report);
+			return (report.failed == 0) ?0 :1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			stderr.println("Interrupted");
+			return 1;
+		} catch (IOException e) {
+			stderr.println(e);
+			return 1;
+		} finally {
+			if (journal != null) {
+				try {
+					journal.close();
+				} catch (IOException e) {
+					stderr.println(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param directory the directory searched for site files, including its sub directories
+	 * @param out receives each site result as it is done, it is flushed but not closed
+	 * @return the throughput and latency of the sites
+	 */
+	public Report run(Path directory, Writer out) throws IOException, InterruptedException {
+		List<Path> files = siteFiles(directory);
+		ExecutorService workers = Executors.newWorkStealingPool(threads);
+		CompletionService<SiteResult> done = new ExecutorCompletionService<>(workers);
+		Report report = new Report(threads);
+		try {
+			for (Path file : files) {
+				String key = directory.relativize(file).toString();
+				done.submit(() -> calculate(file, key));
+			}
+			if (format == Format.CSV && header) {
+				out.write(String.join(",", CSV_COLUMNS));
+				out.write('\n');
+			}
+			for (int f=0; f<files.size(); f++) {
+				SiteResult result;
+				try {
+					result = done.take().get();
+				} catch (ExecutionException e) {
+					// calculate reports its own failures, this would be an Error
+					throw new IllegalStateException(e.getCause());
+				}
+				if (result.skipped) {
+					report.skip();
+					continue;
+				}
+				write(result, out);
+				out.flush();
+				report.add(result);
+				// recorded once written, a failure to read or parse is tried again by the next run
+				if (journal != null && result.json != null) {
+					journal.complete(result.key, result.hash);
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+		report.finish();
+		return report;
+	}
+
+	/**
+	 * The largest files are first so that a large site is not the last one running on a single worker.
+	 * @return the site files in the directory and its sub directories, by size from the largest
+	 */
+	public static List<Path> siteFiles(Path directory) throws IOException {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			List<Path> files = paths
+					.filter(path -> path.getFileName().toString().endsWith(SITE_FILE_SUFFIX))
+					.filter(Files::isRegularFile)
+					.collect(Collectors.toList());
+			Map<Path, Long> sizes = new LinkedHashMap<>();
+			for (Path file : files) {
+				sizes.put(file, Files.size(file));
+			}
+			files.sort(Comparator.comparing((Path file) -> sizes.get(file)).reversed().thenComparing(Path::toString));
+			return files;
+		}
+	}
+
+	/**
+	 * @param file an AGENCY_SITE_WATERLEVEL.xml file, the site is after the last underscore so the agency may have them
+	 * @return the site of the file, without an agency when the name has no underscore
+	 */
+	public static Specifier specifier(Path file) {
+		String id = siteId(file);
+		int separator = id.lastIndexOf('_');
+		if (separator < 0) {
+			return new Specifier("", id);
+		}
+		return new Specifier(id.substring(0, separator), id.substring(separator+1));
+	}
+	public static String siteId(Path file) {
+		String name = file.getFileName().toString();
+		return name.substring(0, name.length() - SITE_FILE_SUFFIX.length());
+	}
+
+	/**
+	 * @param key the site key in the journal
+	 * @return the site statistics, the reason they could not be calculated, or a skipped result
+	 *         when the journal has the site with the same hash, it does not throw
+	 */
+	protected SiteResult calculate(Path file, String key) {
+		String id = siteId(file);
+		Specifier spec = specifier(file).setElevation(elevation);
+		long start = System.nanoTime();
+		int sampleCount = 0;
+		String hash = null;
+		try {
+			// read once for both the hash and the parse
+			byte[] data = Files.readAllBytes(file);
+			hash = BatchJournal.hash(parameters(), data);
+			if (journal != null && journal.isComplete(key, hash)) {
+				return new SiteResult(id, spec, key, hash);
+			}
+			List<WLSample> samples;
+			try (Reader xml = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8)) {
+				samples = WLSample.extractSamples(xml, spec.getAgencyCd(), spec.getSiteNo(), elevation);
+			}
+			sampleCount = samples.size();
+			JsonDataBuilder builder = new JsonDataBuilder(env).includeIntermediateValues(medians);
+			JsonData json = new WaterLevelStatistics(env, builder).calculate(spec, samples);
+			return new SiteResult(id, spec, key, hash, sampleCount, System.nanoTime() - start, json, null);
+		} catch (Exception e) {
+			LOGGER.warn("Site {} failed: {}", id, e.toString());
+			return new SiteResult(id, spec, key, hash, sampleCount, System.nanoTime() - start, null, e.toString());
+		}
+	}
+
+	/**
+	 * @return the run parameters that change the statistics of a site, part of its journal hash
+	 */
+	protected String parameters() {
+		return "elevation=" + elevation.value + " datum=" + elevation.datum + " medians=" + medians;
+	}
+
+	protected void write(SiteResult result, Writer out) throws IOException {
+		if (format == Format.CSV) {
+			out.write(toCsv(result));
+		} else {
+			Map<String, Object> line = new LinkedHashMap<>();
+			line.put("id",       result.id);
+			line.put("agencyCd", result.spec.getAgencyCd());
+			line.put("siteNo",   result.spec.getSiteNo());
+			line.put("samples",  result.samples);
+			line.put("millis",   result.millis());
+			if (result.json != null) {
+				line.put("statistics", result.json);
+			} else {
+				line.put("error", result.error);
+			}
+			out.write(mapper.writeValueAsString(line));
+		}
+		out.write('\n');
+	}
+
+	protected static String toCsv(SiteResult result) {
+		JsonData json = result.json;
+		JsonOverall overall = (json == null) ?null :json.getOverall();
+		List<String> errors = (json == null) ?Arrays.asList(result.error) :json.getErrors();
+		List<Object> row = new ArrayList<>();
+		row.addAll(Arrays.asList(result.id, result.spec.getAgencyCd(), result.spec.getSiteNo(), result.millis()));
+		if (overall == null) {
+			row.addAll(Arrays.asList(new Object[CSV_COLUMNS.length - 6]));
+		} else {
+			row.addAll(Arrays.asList(overall.recordYears, overall.sampleCount, overall.latestValue, overall.latestPercentile,
+					overall.valueMin, overall.valueMedian, overall.valueMax, overall.dateMin, overall.dateMax, overall.dateCalc,
+					overall.getMediation()));
+		}
+		row.add(json == null ?0 :json.getMonthly().size());
+		// one site per line, a parse exception message has line breaks
+		row.add(String.join("; ", errors).replaceAll("\\s*[\\r\\n]+\\s*", " "));
+
+		StringBuilder csv = new StringBuilder();
+		String sep = "";
+		for (Object value : row) {
+			csv.append(sep).append(csvValue(value));
+			sep = ",";
+		}
+		return csv.toString();
+	}
+	// quoted when it has a separator, quote, or line break
+	protected static String csvValue(Object value) {
+		String text = (value == null) ?"" :value.toString();
+		if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\r') >= 0 || text.indexOf('\n') >= 0) {
+			return '"' + text.replace("\"", "\"\"") + '"';
+		}
+		return text;
+	}
+
+	public static class SiteResult {
+		public final String id;
+		public final Specifier spec;
+		public final String key;
+		public final String hash;
+		public final int samples;
+		public final long nanos;
+		public final JsonData json;
+		public final String error;
+		public final boolean skipped;
+
+		public SiteResult(String id, Specifier spec, String key, String hash, int samples, long nanos, JsonData json, String error) {
+			this.id = id;
+			this.spec = spec;
+			this.key = key;
+			this.hash = hash;
+			this.samples = samples;
+			this.nanos = nanos;
+			this.json = json;
+			this.error = error;
+			this.skipped = false;
+		}
+		/**
+		 * A site skipped because it was completed with the same hash.
+		 */
+		public SiteResult(String id, Specifier spec, String key, String hash) {
+			this.id = id;
+			this.spec = spec;
+			this.key = key;
+			this.hash = hash;
+			this.samples = 0;
+			this.nanos = 0;
+			this.json = null;
+			this.error = null;
+			this.skipped = true;
+		}
+		public long millis() {
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+	}
+
+	/**
+	 * The throughput of a run and the percentiles of the per site latency, the time from the start
+	 * of the parse of a site to the end of its statistics. The sites skipped by the journal are
+	 * counted apart and are not in the throughput.
+	 */
+	public static class Report {
+		private final int threads;
+		private final long start = System.nanoTime();
+		private long elapsed;
+		private int sites;
+		private int failed;
+		private int skipped;
+		private long samples;
+		private final List<Long> latencies = new ArrayList<>();
+		private long[] sorted = new long[0];
+
+		public Report(int threads) {
+			this.threads = threads;
+		}
+
+		void add(SiteResult result) {
+			sites++;
+			samples += result.samples;
+			if (result.json == null || result.json.hasErrors()) {
+				failed++;
+			}
+			latencies.add(result.nanos);
+		}
+		void skip() {
+			skipped++;
+		}
+		void finish() {
+			elapsed = System.nanoTime() - start;
+			sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+		}
+
+		public int sites() {
+			return sites;
+		}
+		public int failed() {
+			return failed;
+		}
+		public int skipped() {
+			return skipped;
+		}
+		public long samples() {
+			return samples;
+		}
+		public double sitesPerSecond() {
+			return perSecond(sites);
+		}
+		public double samplesPerSecond() {
+			return perSecond(samples);
+		}
+		private double perSecond(long count) {
+			return (elapsed == 0) ?0 :count * 1e9 / elapsed;
+		}
+		/**
+		 * @param percent the percentile 0 to 100
+		 * @return the nearest rank latency in milliseconds
+		 */
+		public double latencyMillis(double percent) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int rank = (int) Math.ceil(percent / 100 * sorted.length);
+			return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)] / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d sites (%d failed, %d skipped), %d samples in %.3f s on %d threads%n"
+					+ "throughput %.1f sites/s, %.0f samples/s%n"
+					+ "latency ms p50 %.1f, p90 %.1f, p99 %.1f, max %.1f",
+					sites, failed, skipped, samples, elapsed / 1e9, threads,
+					sitesPerSecond(), samplesPerSecond(),
+					latencyMillis(50), latencyMillis(90), latencyMillis(99), latencyMillis(100));
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package gov.usgs.wma.statistics.app;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The hex SHA-256 of content given in parts, the key of a cached, stored, or journaled result.
+ * Strings are hashed as their UTF-8 bytes. An instance hashes once and is not thread safe.
+ */
+public class ContentHash {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+
+	public ContentHash() {
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public ContentHash update(String text) {
+		return update(text.getBytes(StandardCharsets.UTF_8));
+	}
+	public ContentHash update(byte[] bytes) {
+		digest.update(bytes);
+		return this;
+	}
+	public ContentHash update(byte b) {
+		digest.update(b);
+		return this;
+	}
+
+	/**
+	 * @return the lower case hex of the hash of the content so far
+	 */
+	public String hex() {
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+		for (int b=0; b<hash.length; b++) {
+			hex[2*b]   = HEX[(hash[b] >> 4) & 0xF];
+			hex[2*b+1] = HEX[hash[b] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * @param parameters the parameters that change a result of the data
+	 * @param data the content
+	 * @return the hex SHA-256 of the parameters, a new line, and the data
+	 */
+	public static String of(String parameters, byte[] data) {
+		return new ContentHash().update(parameters).update((byte) '\n').update(data).hex();
+	}
+}
@@ -1,10 +1,16 @@
 package gov.usgs.wma.statistics.app;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.stereotype.Service;
 
 
@@ -15,6 +21,8 @@ public class Properties {
 	
 	public static final String ENV_INVALID_MEDIATION   = "app.error.invalid.mediation";
 	public static final String ENV_INVALID_MEDIANS     = "app.error.invalid.medians";
+	public static final String ENV_INVALID_APPROXIMATE = "app.error.invalid.approximate";
+	public static final String ENV_INVALID_DAILY       = "app.error.invalid.daily";
 	public static final String ENV_INVALID_PERCENTILE  = "app.error.invalid.percentile";
 	public static final String ENV_INVALID_ROW_COLS    = "app.error.invalid.row.cols";
 	public static final String ENV_INVALID_ROW_AGING   = "app.error.invalid.row.aging";
@@ -22,6 +30,8 @@ public class Properties {
 	public static final String ENV_INVALID_ROW_FORMAT  = "app.error.invalid.row.format";
 	public static final String ENV_INVALID_ROW_DATE_BLANK   = "app.error.invalid.row.date.blank";
 	public static final String ENV_INVALID_ROW_DATE_FUTURE  = "app.error.invalid.row.date.future";
+	public static final String ENV_INVALID_BATCH_DATASET    = "app.error.invalid.batch.dataset";
+	public static final String ENV_MISSING_SITE             = "app.error.missing.site";
 	
 	public static final String ENV_MESSAGE_PROVISIONAL_RULE = "app.message.provisional.rule";
 	public static final String ENV_MESSAGE_MONTHLY_RULE     = "app.message.monthly.rule";
@@ -31,6 +41,7 @@ public class Properties {
 	public static final String ENV_MESSAGE_DATE_FIX_MONTH   = "app.message.date.fix.month";
 	public static final String ENV_MESSAGE_OMIT_NULL        = "app.message.omit.null";
 	public static final String ENV_MESSAGE_OMIT_PROVISIONAL = "app.message.omit.provisional";
+	public static final String ENV_MESSAGE_DAILY_AGGREGATE  = "app.message.daily.aggregate";
 	
 	
 	@Autowired
@@ -39,6 +50,24 @@ public class Properties {
 		this.env = env;
 		return this;
 	}
+	
+	/**
+	 * The properties outside of a Spring context, like the command line tools.
+	 * @param resource the class path properties file, like /application.properties
+	 * @return the properties of the resource
+	 */
+	public static Properties fromResource(String resource) throws IOException {
+		java.util.Properties props = new java.util.Properties();
+		try (InputStream in = Properties.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new FileNotFoundException(resource);
+			}
+			props.load(in);
+		}
+		StandardEnvironment spring = new StandardEnvironment();
+		spring.getPropertySources().addFirst(new PropertiesPropertySource(resource, props));
+		return new Properties().setEnvironment(spring);
+	}
     
 	public String getMessage(String messageName, Object ... args) {
 		String msg = env.getProperty(messageName, "");
@@ -42,9 +42,29 @@ public class SwaggerConfig {
 	public static final String StatsService_MEDIANS_DEFAULT      =BOOLEAN_FALSE;
 	public static final String StatsService_CALCULATE_MEDIANS    ="If true, returns the intermediate values used in the calculations. For monthly percentiles it is required that no month have more weight than any other. When a month has multiple values, the median is used. This feature returns these intermediate values. The defaule is " + StatsService_MEDIANS_DEFAULT;
 	
+	public static final String StatsService_APPROXIMATE_DEFAULT  =BOOLEAN_FALSE;
+	public static final String StatsService_CALCULATE_APPROXIMATE="If true, the percentiles are estimated from a quantile sketch of each month and year in constant memory rather than calculated from all the samples. This is intended for very long series like decades of 15 minute readings. The overall RANK_ERROR is the bound on the rank error of the estimates as a fraction of the samples; it is 0 when they are exact. The results are not cached. The default is " + StatsService_APPROXIMATE_DEFAULT;
+	
+	public static final String StatsService_DAILY_DEFAULT        ="none";
+	public static final String StatsService_DAILY_VALUES         ="none,median,mean";
+	public static final String StatsService_CALCULATE_DAILY      ="Reduces high frequency data, like a continuous sensor feed, to one median or mean value per day before the statistics are calculated. The most recent sample is kept as it is for the latest value and percentile. The default is " + StatsService_DAILY_DEFAULT;
+	
 	public static final String StatsService_PERCENTILES_DEFAULT  ="10,25,50,75,90";
 	public static final String StatsService_CALCULATE_PERCENTILES="A comma delimited list of percentiles like the default " + StatsService_PERCENTILES_DEFAULT;
 	
+	public static final String StatsService_BATCH_NOTES          ="Like the calculate endpoint, this returns statistics for each of many datasets in one request. The datasets are calculated concurrently and the response maps each dataset ID to its statistics. An error in one dataset is reported in its statistics and does not affect the others.";
+	public static final String StatsService_CSV_NOTES            ="Like the calculate endpoint, this returns statistics. The CSV data is the text/csv POST body rather than a form parameter. It is parsed as it is read so that large data is not held in memory while it is decoded.";
+	public static final String StatsService_CACHE_NOTES          ="Returns the calculate result cache hit and miss counts and the number of cached results. Results are cached by their data and parameters and are cleared daily because the statistics depend on the current date.";
+	public static final String StatsService_MEDIATIONS_NOTES     ="Like the calculate endpoint, this returns statistics, for both the BelowLand and the AboveDatum mediations keyed by mediation. The data is parsed and conditioned once and only the value dependent sorts and percentiles are calculated for each mediation.";
+	public static final String StatsService_BATCH_DATA           ="A JSON object mapping each dataset ID to its CSV time series data of the format \"UTC, Value, [P]\" separated by new line.";
+	
+	public static final String SiteStatsService_CALCULATE_NOTES  ="Like the calculate endpoint, this returns statistics and also stores them for the site. The stored statistics are returned without calculation when the same data and parameters are posted again on the same day.";
+	public static final String SiteStatsService_STORED_NOTES     ="Returns the stored statistics of the site. When they were not calculated today, they are calculated again from the stored data because the latest percentile and monthly statistics depend on the current date.";
+	public static final String SiteStatsService_CLASSIFY_NOTES   ="Returns the percentile of each new reading in the historical distribution of its month at the site, ranked as the latest percentile is in place of the median of its year-month. The month distributions of the stored data are kept in memory, so the readings are ranked without calculating the statistics again. The readings are in the mediation of the stored statistics.";
+	public static final String SiteStatsService_CLASSIFY_READINGS="The new readings as CSV of the format \"UTC, Value\" separated by new line.";
+	public static final String SiteStatsService_EXAMPLE_READINGS ="2019-06-10T04:15:00-05:00, 11.000\n2019-07-10T04:15:00-05:00, 2.000";
+	public static final String SiteStatsService_SITE_ID          ="The site identifier, like USGS:405010073414901, the statistics are stored under.";
+	
 	public static final String StatsService_EXAMPLE_ENCODED      ="data=2005-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2006-06-10T04%3A15%3A00-05%3A00%2C+22.000%0D%0A2007-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2008-06-10T04%3A15%3A00-05%3A00%2C+2.000%0D%0A2009-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2010-06-10T04%3A15%3A00-05%3A00%2C+20.000%0D%0A2011-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2012-06-10T04%3A15%3A00-05%3A00%2C+2.000%0D%0A2013-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2014-06-10T04%3A15%3A00-05%3A00%2C+10.000%0D%0A2015-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2016-06-10T04%3A15%3A00-05%3A00%2C+43.000%0D%0A2017-06-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2018-06-10T04%3A15%3A00-05%3A00%2C+11.000%0D%0A2005-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2006-07-10T04%3A15%3A00-05%3A00%2C+22.000%0D%0A2007-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2008-07-10T04%3A15%3A00-05%3A00%2C+2.000%0D%0A2009-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2010-07-10T04%3A15%3A00-05%3A00%2C+20.000%0D%0A2011-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2012-07-10T04%3A15%3A00-05%3A00%2C+2.000%0D%0A2013-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2014-07-10T04%3A15%3A00-05%3A00%2C+10.000%0D%0A2015-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2016-07-10T04%3A15%3A00-05%3A00%2C+43.000%0D%0A2017-07-10T04%3A15%3A00-05%3A00%2C+1.000%0D%0A2018-06-10T04%3A15%3A00-05%3A00%2C+11.000%0D%0A%09%09%09";
 	public static final String StatsService_EXAMPLE_RAW
 			="2005-06-10T04:15:00-05:00, 1.000\n"
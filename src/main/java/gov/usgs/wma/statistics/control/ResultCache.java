@@ -0,0 +1,136 @@
+package gov.usgs.wma.statistics.control;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import gov.usgs.wma.statistics.app.ContentHash;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * A bounded cache of calculated statistics keyed on a hash of the parsed samples and the
+ * request parameters. The least recently used entry is evicted when the cache is full and
+ * entries older than the maximum age are not returned.
+ *
+ * The statistics depend on the day they are calculated, CALC_DATE and the 406 day rule for
+ * monthly statistics, so the entire cache is cleared when the day rolls over.
+*
+ * JsonData is mutable, so the cache holds a copy of the statistics put and returns a copy on
+ * each hit. A caller that adds a message to its result does not change the cached statistics.
+ */
+public class ResultCache {
+
+	private static class Entry {
+		final JsonData json;
+		final long created;
+		Entry(JsonData json, long created) {
+			this.json = json;
+			this.created = created;
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxAgeMillis;
+	private final LongSupplier clock;
+	private final Supplier<String> today;
+
+	private final Map<String, Entry> entries;
+	private String day;
+
+	private final AtomicLong hits   = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * @param maxEntries the number of results retained
+	 * @param maxAgeMillis the age at which a result is no longer returned
+	 */
+	public ResultCache(int maxEntries, long maxAgeMillis) {
+		this(maxEntries, maxAgeMillis, System::currentTimeMillis, StatisticsCalculator::today);
+	}
+	protected ResultCache(int maxEntries, long maxAgeMillis, LongSupplier clock, Supplier<String> today) {
+		this.maxEntries = maxEntries;
+		this.maxAgeMillis = maxAgeMillis;
+		this.clock = clock;
+		this.today = today;
+		// access order so that the eldest entry is the least recently used
+		this.entries = new LinkedHashMap<String, Entry>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > ResultCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * The key is a SHA-256 hash of each sample time, value (with its scale because that is its
+	 * significant figures), and provisional state in order, followed by the parameters.
+	 * @param samples the parsed samples
+	 * @param params the request parameters that affect the statistics
+	 * @return the hex hash key
+	 */
+	public static String key(List<? extends Value> samples, String ... params) {
+		ContentHash hash = new ContentHash();
+		StringBuilder row = new StringBuilder(64);
+		for (Value sample : samples) {
+			row.setLength(0);
+			BigDecimal value = sample.value;
+			row.append(sample.time).append('\t')
+				.append(value).append('\t')
+				.append(sample.isProvisional() ?Value.PROVISIONAL_CODE :Value.APPROVED_CODE).append('\n');
+			hash.update(row.toString());
+		}
+		for (String param : params) {
+			hash.update("\t" + param);
+		}
+		return hash.hex();
+	}
+
+	/**
+	 * @param key the key from {@link #key(List, String...)}
+	 * @return a copy of the cached statistics or null if there are none current
+	 */
+	public synchronized JsonData get(String key) {
+		rollover();
+		Entry entry = entries.get(key);
+		if (entry != null && clock.getAsLong() - entry.created > maxAgeMillis) {
+			entries.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.json.copy();
+	}
+
+	public synchronized void put(String key, JsonData json) {
+		rollover();
+		entries.put(key, new Entry(json.copy(), clock.getAsLong()));
+	}
+
+	private void rollover() {
+		String now = today.get();
+		if ( ! now.equals(day) ) {
+			entries.clear();
+			day = now;
+		}
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+	public long hits() {
+		return hits.get();
+	}
+	public long misses() {
+		return misses.get();
+	}
+}
@@ -0,0 +1,274 @@
+package gov.usgs.wma.statistics.control;
+
+import static gov.usgs.wma.statistics.app.Properties.*;
+import static gov.usgs.wma.statistics.app.SwaggerConfig.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import gov.usgs.ngwmn.logic.MonthlyDistributions;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.ContentHash;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.dao.StatisticsStore;
+import gov.usgs.wma.statistics.dao.StatisticsStore.Entry;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.JsonClassified;
+import gov.usgs.wma.statistics.model.JsonClassified.JsonReading;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+/**
+ * The statistics of a site are calculated once and then served from the store. They are
+ * recalculated from the stored data when their CALC_DATE is not today, because the latest
+ * percentile and the monthly rules depend on the day, or when the posted data differs.
+ *
+ * New readings are classified against the month distributions of the stored data. They are kept
+ * in memory for the most recently classified sites, so that a reading is ranked by binary search
+ * rather than by calculating the statistics of the site again.
+ */
+@RestController
+@RequestMapping("/statistics/site")
+@CrossOrigin(origins = "*") // no credentials by default
+public class SiteStatsService {
+	private static Logger LOGGER = org.slf4j.LoggerFactory.getLogger(SiteStatsService.class);
+
+	private static final String MEDIANS = "false";
+
+	// the sites whose month distributions are kept for classifying readings
+	static final int DISTRIBUTION_SITES = 1000;
+
+	static class Distributions {
+		final String inputHash;
+		final String day;
+		final MonthlyDistributions months;
+		Distributions(String inputHash, String day, MonthlyDistributions months) {
+			this.inputHash = inputHash;
+			this.day = day;
+			this.months = months;
+		}
+	}
+	// access order so that the eldest entry is the least recently used
+	final Map<String, Distributions> distributions = Collections.synchronizedMap(
+			new LinkedHashMap<String, Distributions>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Distributions> eldest) {
+					return size() > DISTRIBUTION_SITES;
+				}
+			});
+
+	@Autowired
+	Properties env;
+	public SiteStatsService setProperties(Properties env) {
+		this.env = env;
+		return this;
+	}
+	@Autowired
+	StatsService stats;
+	public SiteStatsService setStatsService(StatsService stats) {
+		this.stats = stats;
+		return this;
+	}
+	@Autowired
+	StatisticsStore store;
+	public SiteStatsService setStore(StatisticsStore store) {
+		this.store = store;
+		return this;
+	}
+
+	@ApiOperation(
+			value = "Calculate and Store Site Statistics Service",
+			notes = SiteStatsService_CALCULATE_NOTES
+		)
+	@PostMapping(value = "/{siteId}",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE,
+			consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE
+		)
+	public JsonData calculate(
+			@ApiParam(
+					value  = SiteStatsService_SITE_ID,
+					required = true
+				)
+			@PathVariable
+			String siteId,
+			@ApiParam(
+					value  = StatsService_CALCULATE_DATA,
+					example= StatsService_EXAMPLE_RAW,
+					required = true
+				)
+			@RequestParam
+			String data,
+			@ApiParam(
+					name="mediation",
+					value=StatsService_CALCULATE_MEDIATION,
+					defaultValue=StatsService_MEDIATION_DEFAULT,
+					allowableValues=StatsService_MEDIATION_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(
+					name="mediation",
+					defaultValue="BelowLand"
+					)
+			String mediation,
+			@ApiParam(
+					value=StatsService_CALCULATE_PERCENTILES,
+					defaultValue=StatsService_PERCENTILES_DEFAULT,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_PERCENTILES_DEFAULT)
+			String percentiles) {
+
+		LOGGER.trace("entered");
+		String hash = inputHash(data, mediation, percentiles);
+		Entry stored = store.find(siteId);
+		if (stored != null && stored.inputHash.equals(hash) && stored.isCalculatedOn(StatisticsCalculator.today())) {
+			LOGGER.trace("exited: stored");
+			return stored.json;
+		}
+		JsonData json = calculateAndStore(siteId, hash, data, mediation, percentiles);
+		LOGGER.trace("exited");
+		return json;
+	}
+
+	@ApiOperation(
+			value = "Stored Site Statistics Service",
+			notes = SiteStatsService_STORED_NOTES
+		)
+	@GetMapping(value = "/{siteId}",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE
+		)
+	public JsonData stored(
+			@ApiParam(
+					value  = SiteStatsService_SITE_ID,
+					required = true
+				)
+			@PathVariable
+			String siteId) {
+
+		LOGGER.trace("entered");
+		Entry stored = store.find(siteId);
+		if (stored == null) {
+			String msg = env.getError(ENV_MISSING_SITE, siteId);
+			return new JsonDataBuilder(env).error(msg).build();
+		}
+		if (stored.isCalculatedOn(StatisticsCalculator.today())) {
+			LOGGER.trace("exited: stored");
+			return stored.json;
+		}
+		JsonData json = calculateAndStore(siteId, stored.inputHash, stored.data, stored.mediation(), stored.percentiles);
+		LOGGER.trace("exited: recalculated");
+		return json;
+	}
+
+	@ApiOperation(
+			value = "Classify Site Readings Service",
+			notes = SiteStatsService_CLASSIFY_NOTES
+		)
+	@PostMapping(value = "/{siteId}/classify",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE,
+			consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE
+		)
+	public JsonClassified classify(
+			@ApiParam(
+					value  = SiteStatsService_SITE_ID,
+					required = true
+				)
+			@PathVariable
+			String siteId,
+			@ApiParam(
+					value  = SiteStatsService_CLASSIFY_READINGS,
+					example= SiteStatsService_EXAMPLE_READINGS,
+					required = true
+				)
+			@RequestParam
+			String readings) {
+
+		LOGGER.trace("entered");
+		JsonClassified classified = new JsonClassified();
+		Entry stored = store.find(siteId);
+		if (stored == null) {
+			classified.addErrors(Collections.singletonList(env.getError(ENV_MISSING_SITE, siteId)));
+			return classified;
+		}
+		JsonDataBuilder builder = new JsonDataBuilder(env);
+		MonthlyDistributions months = monthlyDistributions(stored, builder);
+		if (months == null) {
+			classified.addErrors(builder.errors().collect(Collectors.toList()));
+			return classified;
+		}
+		// the readings are given in the mediation of the stored data
+		builder.mediation(months.getMediation());
+		List<WLSample> samples = stats.validateAndParseCsvData(readings, builder);
+		if ( builder.hasErrors() ) {
+			classified.addErrors(builder.errors().collect(Collectors.toList()));
+			return classified;
+		}
+		for (WLSample sample : samples) {
+			BigDecimal percentile = months.percentileOf(sample);
+			int month = MonthlyBuckets.monthOf(sample);
+			String years = month == 0 ?"0" :""+months.size(month);
+			classified.addReading(new JsonReading(sample.getTime(), sample.getValue().toPlainString(),
+					percentile == null ?null :percentile.toPlainString(), years));
+		}
+		LOGGER.trace("exited");
+		return classified;
+	}
+
+	/**
+	 * The month distributions of the stored data, they are calculated again when the stored data
+	 * changes or the day rolls over, the same as the stored statistics are.
+	 * @return the distributions or null if the stored data has errors
+	 */
+	protected MonthlyDistributions monthlyDistributions(Entry stored, JsonDataBuilder builder) {
+		String today = StatisticsCalculator.today();
+		Distributions kept = distributions.get(stored.siteId);
+		if (kept != null && kept.inputHash.equals(stored.inputHash) && kept.day.equals(today)) {
+			return kept.months;
+		}
+		MonthlyDistributions months = stats.monthlyDistributions(builder, stored.data, stored.mediation());
+		if (months != null) {
+			distributions.put(stored.siteId, new Distributions(stored.inputHash, today, months));
+		}
+		return months;
+	}
+
+	/**
+	 * Only statistics without errors are stored, the others are returned to report the errors.
+	 */
+	protected JsonData calculateAndStore(String siteId, String hash, String data, String mediation, String percentiles) {
+		JsonData json = stats.calculate(new JsonDataBuilder(env), data, mediation, MEDIANS, percentiles);
+		if (json != null && json.isOk()) {
+			store.save(new Entry(siteId, hash, percentiles, data, json));
+			distributions.remove(siteId);
+		}
+		return json;
+	}
+
+	/**
+	 * @return the hash of the data and the parameters that change the statistics
+	 */
+	static String inputHash(String data, String mediation, String percentiles) {
+		byte[] bytes = data == null ?new byte[0] :data.getBytes(StandardCharsets.UTF_8);
+		return ContentHash.of(mediation + "\t" + percentiles, bytes);
+	}
+}
@@ -4,19 +4,43 @@ import static gov.usgs.wma.statistics.app.Properties.*;
 import static gov.usgs.wma.statistics.app.SwaggerConfig.*;
 import static org.apache.commons.lang.StringUtils.*;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import gov.usgs.ngwmn.logic.ApproximateWaterLevelStatistics;
+import gov.usgs.ngwmn.logic.DailyAggregation;
+import gov.usgs.ngwmn.logic.DailyAggregation.Method;
+import gov.usgs.ngwmn.logic.DualMediationStatistics;
+import gov.usgs.ngwmn.logic.MonthlyDistributions;
 import gov.usgs.ngwmn.logic.WaterLevelStatistics;
 import gov.usgs.ngwmn.model.MediationType;
 import gov.usgs.ngwmn.model.Specifier;
@@ -37,6 +61,19 @@ public class StatsService {
 
 	private static final String INCLUDE_MEDIANS = "true";
 	
+	static final String TEXT_CSV_VALUE = "text/csv";
+	// the CSV read size and the initial row buffer, it grows for longer rows
+	static final int CSV_CHUNK = 8192;
+	static final int CSV_ROW   = 128;
+	
+	// the batch datasets calculated at once, and those waiting for a worker before the request thread calculates them itself
+	static final int BATCH_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	static final int BATCH_QUEUE   = BATCH_THREADS * 4;
+	
+	// dashboards post the same series repeatedly, keep enough results for them for an hour
+	static final int  CACHE_ENTRIES = 1000;
+	static final long CACHE_AGE     = TimeUnit.HOURS.toMillis(1);
+	
 	@Autowired
 	Properties env;
 	public StatsService setProperties(Properties env) {
@@ -44,6 +81,29 @@ public class StatsService {
 		return this;
 	}
 	
+	ExecutorService batchWorkers = newBatchWorkers(BATCH_THREADS, BATCH_QUEUE);
+	ResultCache cache = new ResultCache(CACHE_ENTRIES, CACHE_AGE);
+	
+	/**
+	 * A fixed size pool with a bounded queue. When the queue is full the submitting request
+	 * calculates the dataset itself, which throttles a large batch rather than queue it all.
+	 */
+	protected static ExecutorService newBatchWorkers(int threads, int queue) {
+		AtomicInteger count = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queue),
+				runnable -> {
+					Thread worker = new Thread(runnable, "stats-batch-" + count.incrementAndGet());
+					worker.setDaemon(true);
+					return worker;
+				},
+				new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+	@PreDestroy
+	public void shutdown() {
+		batchWorkers.shutdownNow();
+	}
+	
 	@ApiOperation(
 			value = "Calculate Statistics Service",
 			notes = StatsService_CALCULATE_NOTES
@@ -86,18 +146,132 @@ public class StatsService {
 					allowEmptyValue=true
 					)
 			@RequestParam(defaultValue=StatsService_PERCENTILES_DEFAULT)
-			String percentiles) {
+			String percentiles,
+			@ApiParam(
+					value=StatsService_CALCULATE_APPROXIMATE,
+					defaultValue=StatsService_APPROXIMATE_DEFAULT,
+					allowableValues=BOOLEAN_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_APPROXIMATE_DEFAULT)
+			String approximate,
+			@ApiParam(
+					value=StatsService_CALCULATE_DAILY,
+					defaultValue=StatsService_DAILY_DEFAULT,
+					allowableValues=StatsService_DAILY_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_DAILY_DEFAULT)
+			String daily) {
+		
+		return calculate(new JsonDataBuilder(env), data, mediation, medians, percentiles, approximate, daily);
+	}
+	@ApiOperation(
+			value = "Calculate Statistics Service - CSV body",
+			notes = StatsService_CSV_NOTES
+		)
+	@PostMapping(value = "/calculate",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE,
+			consumes = TEXT_CSV_VALUE
+		)
+	public JsonData calculateCsv(
+			@ApiParam(
+					value  = StatsService_CALCULATE_DATA,
+					example= StatsService_EXAMPLE_RAW,
+					required = true
+				)
+			Reader data,
+			@ApiParam(
+					name="mediation",
+					value=StatsService_CALCULATE_MEDIATION,
+					defaultValue=StatsService_MEDIATION_DEFAULT,
+					allowableValues=StatsService_MEDIATION_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(
+					name="mediation",
+					defaultValue="BelowLand"
+					)
+			String mediation,
+			@ApiParam(
+					value=StatsService_CALCULATE_MEDIANS,
+					defaultValue=StatsService_MEDIANS_DEFAULT,
+					allowableValues=BOOLEAN_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue="false")
+			String medians,
+			@ApiParam(
+					value=StatsService_CALCULATE_PERCENTILES,
+					defaultValue=StatsService_PERCENTILES_DEFAULT,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_PERCENTILES_DEFAULT)
+			String percentiles,
+			@ApiParam(
+					value=StatsService_CALCULATE_APPROXIMATE,
+					defaultValue=StatsService_APPROXIMATE_DEFAULT,
+					allowableValues=BOOLEAN_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_APPROXIMATE_DEFAULT)
+			String approximate,
+			@ApiParam(
+					value=StatsService_CALCULATE_DAILY,
+					defaultValue=StatsService_DAILY_DEFAULT,
+					allowableValues=StatsService_DAILY_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_DAILY_DEFAULT)
+			String daily) {
 		
-		return calculate(new JsonDataBuilder(env), data, mediation, medians, percentiles);
+		return calculate(new JsonDataBuilder(env), data, mediation, medians, percentiles, approximate, daily);
+	}
+	// the exact calculations of every sample for easier testing
+	public JsonData calculate(String data, String mediation, String medians, String percentiles) {
+		return calculate(data, mediation, medians, percentiles, StatsService_APPROXIMATE_DEFAULT, StatsService_DAILY_DEFAULT);
+	}
+	public JsonData calculateCsv(Reader data, String mediation, String medians, String percentiles) {
+		return calculateCsv(data, mediation, medians, percentiles, StatsService_APPROXIMATE_DEFAULT, StatsService_DAILY_DEFAULT);
 	}
 	// helper method for easier testing
 	public JsonData calculate(JsonDataBuilder builder, String data,
 			String mediation, String medians, String percentiles) {
+		return calculate(builder, data, mediation, medians, percentiles, StatsService_APPROXIMATE_DEFAULT, StatsService_DAILY_DEFAULT);
+	}
+	public JsonData calculate(JsonDataBuilder builder, String data,
+			String mediation, String medians, String percentiles, String approximate, String daily) {
+		// a null data is handled, as any other exception, by the reader calculate
+		Reader reader = data == null ?null :new StringReader(data);
+		return calculate(builder, reader, mediation, medians, percentiles, approximate, daily);
+	}
+	public JsonData calculate(JsonDataBuilder builder, Reader data,
+			String mediation, String medians, String percentiles) {
+		return calculate(builder, data, mediation, medians, percentiles, StatsService_APPROXIMATE_DEFAULT, StatsService_DAILY_DEFAULT);
+	}
+	public JsonData calculate(JsonDataBuilder builder, Reader data,
+			String mediation, String medians, String percentiles, String approximate, String daily) {
 		try {
 			LOGGER.trace("entered");
 			
 			validateParamMediation(mediation, builder);
-			List<WLSample> samples = validateAndParseCsvData(data, builder);
+			Method method = validateParamDaily(daily, builder);
+			if ( validateParamApproximate(approximate, builder) ) {
+				// the samples are sketched as they are parsed, they are neither held nor cached
+				ApproximateWaterLevelStatistics approximateStats = new ApproximateWaterLevelStatistics(env, builder);
+				DailyAggregation aggregation = new DailyAggregation(env, builder, method, approximateStats);
+				parseCsvData(data, builder, aggregation);
+				aggregation.finish();
+				validateParamMedians(medians, builder);
+				validateParamPercentiles(percentiles, builder);
+				JsonData json = approximateStats.calculate(new Specifier());
+				LOGGER.trace("exited");
+				return json;
+			}
+			List<WLSample> samples = new ArrayList<>();
+			DailyAggregation aggregation = new DailyAggregation(env, builder, method, samples::add);
+			parseCsvData(data, builder, aggregation);
+			aggregation.finish();
 			validateParamMedians(medians, builder);
 			validateParamPercentiles(percentiles, builder);
 
@@ -109,7 +283,14 @@ public class StatsService {
 			if ( builder.hasErrors() ) {
 				json = builder.build();
 			} else {
-				json = new WaterLevelStatistics(env, builder).calculate(spec, samples);
+				// the key must be made before the calculation conditions the samples
+				// and it is of the mediation the builder calculates, not the parameter string
+				String key = ResultCache.key(samples, builder.mediation().name(), medians, percentiles, method.name());
+				json = cache.get(key);
+				if (json == null) {
+					json = new WaterLevelStatistics(env, builder).calculate(spec, samples);
+					cache.put(key, json);
+				}
 			}
 			LOGGER.trace("exited");
 			return json;
@@ -119,6 +300,207 @@ public class StatsService {
 		}
 	}
 
+	@ApiOperation(
+			value = "Calculate Statistics of Both Mediations Service",
+			notes = StatsService_MEDIATIONS_NOTES
+		)
+	@PostMapping(value = "/calculate/mediations",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE,
+			consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE
+		)
+	public Map<String, JsonData> calculateMediations(
+			@ApiParam(
+					value  = StatsService_CALCULATE_DATA,
+					example= StatsService_EXAMPLE_RAW,
+					required = true
+				)
+			@RequestParam
+			String data,
+			@ApiParam(
+					value=StatsService_CALCULATE_MEDIANS,
+					defaultValue=StatsService_MEDIANS_DEFAULT,
+					allowableValues=BOOLEAN_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue="false")
+			String medians,
+			@ApiParam(
+					value=StatsService_CALCULATE_PERCENTILES,
+					defaultValue=StatsService_PERCENTILES_DEFAULT,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_PERCENTILES_DEFAULT)
+			String percentiles) {
+
+		Reader reader = data == null ?null :new StringReader(data);
+		return calculateMediations(new JsonDataBuilder(env), new JsonDataBuilder(env), reader, medians, percentiles);
+	}
+	/**
+	 * The data is parsed and conditioned once for both mediations, see DualMediationStatistics.
+	 * Each result is cached as the calculate endpoint of its mediation would cache it.
+	 * @return the BelowLand and the AboveDatum statistics keyed by the mediation name, or null on an exception
+	 */
+	public Map<String, JsonData> calculateMediations(JsonDataBuilder belowLand, JsonDataBuilder aboveDatum,
+			Reader data, String medians, String percentiles) {
+		try {
+			LOGGER.trace("entered");
+			belowLand.mediation(MediationType.BelowLand);
+			aboveDatum.mediation(MediationType.AboveDatum);
+			List<WLSample> samples = validateAndParseCsvData(data, belowLand);
+			// the rows are the same for both
+			aboveDatum.errors(belowLand.errors().collect(Collectors.toList()));
+			for (JsonDataBuilder builder : Arrays.asList(belowLand, aboveDatum)) {
+				validateParamMedians(medians, builder);
+				validateParamPercentiles(percentiles, builder);
+			}
+
+			Map<String, JsonData> results = new LinkedHashMap<>();
+			if ( belowLand.hasErrors() || aboveDatum.hasErrors() ) {
+				results.put(MediationType.BelowLand.name(),  belowLand.build());
+				results.put(MediationType.AboveDatum.name(), aboveDatum.build());
+				LOGGER.trace("exited: errors");
+				return results;
+			}
+			// the keys must be made before the calculation conditions the samples
+			String method = Method.NONE.name();
+			String belowLandKey  = ResultCache.key(samples, belowLand.mediation().name(),  medians, percentiles, method);
+			String aboveDatumKey = ResultCache.key(samples, aboveDatum.mediation().name(), medians, percentiles, method);
+			JsonData belowLandJson  = cache.get(belowLandKey);
+			JsonData aboveDatumJson = cache.get(aboveDatumKey);
+			if (belowLandJson == null || aboveDatumJson == null) {
+				Map<MediationType, JsonData> calculated = new DualMediationStatistics(env, belowLand, aboveDatum)
+						.calculate(new Specifier(), samples);
+				belowLandJson  = calculated.get(MediationType.BelowLand);
+				aboveDatumJson = calculated.get(MediationType.AboveDatum);
+				cache.put(belowLandKey,  belowLandJson);
+				cache.put(aboveDatumKey, aboveDatumJson);
+			}
+			results.put(MediationType.BelowLand.name(),  belowLandJson);
+			results.put(MediationType.AboveDatum.name(), aboveDatumJson);
+			LOGGER.trace("exited");
+			return results;
+		} catch (Exception e) {
+			LOGGER.error("exited: ", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Calculates the statistics of the data for the month distributions of its samples, which
+	 * are not part of the JSON results and so are not in the result cache.
+	 * @param builder collects the parameter and row errors
+	 * @return the month distributions or null if there are errors
+	 */
+	public MonthlyDistributions monthlyDistributions(JsonDataBuilder builder, String data, String mediation) {
+		try {
+			LOGGER.trace("entered");
+			validateParamMediation(mediation, builder);
+			List<WLSample> samples = validateAndParseCsvData(data, builder);
+			if ( builder.hasErrors() ) {
+				return null;
+			}
+			WaterLevelStatistics stats = new WaterLevelStatistics(env, builder);
+			stats.calculate(new Specifier(), samples);
+			LOGGER.trace("exited");
+			return stats.monthlyDistributions();
+		} catch (Exception e) {
+			LOGGER.error("exited: ", e);
+			return null;
+		}
+	}
+
+	@ApiOperation(
+			value = "Calculate Statistics Cache Counters",
+			notes = StatsService_CACHE_NOTES
+		)
+	@GetMapping(value = "/calculate/cache",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE
+		)
+	public Map<String, Long> cacheCounters() {
+		Map<String, Long> counters = new LinkedHashMap<>();
+		counters.put("hits",   cache.hits());
+		counters.put("misses", cache.misses());
+		counters.put("size",   (long) cache.size());
+		return counters;
+	}
+
+	@ApiOperation(
+			value = "Calculate Statistics Batch Service",
+			notes = StatsService_BATCH_NOTES
+		)
+	@PostMapping(value = "/calculate/batch",
+			produces = MediaType.APPLICATION_JSON_UTF8_VALUE,
+			consumes = MediaType.APPLICATION_JSON_VALUE
+		)
+	public Map<String, JsonData> calculateBatch(
+			@ApiParam(
+					value  = StatsService_BATCH_DATA,
+					required = true
+				)
+			@RequestBody
+			Map<String, String> data,
+			@ApiParam(
+					name="mediation",
+					value=StatsService_CALCULATE_MEDIATION,
+					defaultValue=StatsService_MEDIATION_DEFAULT,
+					allowableValues=StatsService_MEDIATION_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(
+					name="mediation",
+					defaultValue="BelowLand"
+					)
+			String mediation,
+			@ApiParam(
+					value=StatsService_CALCULATE_MEDIANS,
+					defaultValue=StatsService_MEDIANS_DEFAULT,
+					allowableValues=BOOLEAN_VALUES,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue="false")
+			String medians,
+			@ApiParam(
+					value=StatsService_CALCULATE_PERCENTILES,
+					defaultValue=StatsService_PERCENTILES_DEFAULT,
+					allowEmptyValue=true
+					)
+			@RequestParam(defaultValue=StatsService_PERCENTILES_DEFAULT)
+			String percentiles) {
+		
+		LOGGER.trace("entered");
+		Map<String, JsonData> results = new LinkedHashMap<>();
+		if (data == null) {
+			return results;
+		}
+		// each dataset has its own builder so that an error in one does not affect another
+		Map<String, Future<JsonData>> pending = new LinkedHashMap<>();
+		for (Map.Entry<String, String> dataset : data.entrySet()) {
+			String csv = dataset.getValue();
+			pending.put(dataset.getKey(), batchWorkers.submit(
+					() -> calculate(new JsonDataBuilder(env), csv, mediation, medians, percentiles)));
+		}
+		for (Map.Entry<String, Future<JsonData>> dataset : pending.entrySet()) {
+			String id = dataset.getKey();
+			JsonData json = null;
+			try {
+				json = dataset.getValue().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				dataset.getValue().cancel(true);
+			} catch (ExecutionException e) {
+				LOGGER.error("batch dataset " + id + ": ", e.getCause());
+			}
+			if (json == null) {
+				// calculate returns null when a dataset has an unhandled exception
+				String msg = env.getError(ENV_INVALID_BATCH_DATASET, id);
+				json = new JsonDataBuilder(env).error(msg).build();
+			}
+			results.put(id, json);
+		}
+		LOGGER.trace("exited");
+		return results;
+	}
+
 	protected void validateParamPercentiles(String percentiles, JsonDataBuilder builder) {
 		if ( ! StatsService_PERCENTILES_DEFAULT.equals(percentiles) ) {
 			builder.percentiles(percentiles.split(","));
@@ -138,6 +520,35 @@ public class StatsService {
 		}
 	}
 
+	/**
+	 * @return true if the approximate statistics are requested
+	 */
+	protected boolean validateParamApproximate(String approximate, JsonDataBuilder builder) {
+		if (isNotBlank(approximate)) {
+			if ( ! (BOOLEAN_FALSE.equalsIgnoreCase(approximate) || BOOLEAN_TRUE.equalsIgnoreCase(approximate)) ) {
+				String msg = env.getError(ENV_INVALID_APPROXIMATE, approximate);
+				builder.error(msg);
+			}
+		}
+		return BOOLEAN_TRUE.equalsIgnoreCase(approximate);
+	}
+
+	/**
+	 * @return the daily aggregation requested, NONE if it is blank or invalid
+	 */
+	protected Method validateParamDaily(String daily, JsonDataBuilder builder) {
+		if (isBlank(daily)) {
+			return Method.NONE;
+		}
+		try {
+			return Method.valueOf(daily.trim().toUpperCase());
+		} catch (Exception e) {
+			String msg = env.getError(ENV_INVALID_DAILY, daily, Method.validMethods());
+			builder.error(msg);
+			return Method.NONE;
+		}
+	}
+
 	protected void validateParamMedians(String medians, JsonDataBuilder builder) {
 		if (isNotBlank(medians)) {
 			if ( ! (BOOLEAN_FALSE.equalsIgnoreCase(medians) || BOOLEAN_TRUE.equalsIgnoreCase(medians)) ) {
@@ -151,67 +562,159 @@ public class StatsService {
 
 	// TODO should this be here, in a csv util class/lib, or someplace else.
 	public List<WLSample> validateAndParseCsvData(String data, JsonDataBuilder builder){
-		String[] rows = data.split("\r?\n");
-		return validateAndParseCsvData(rows, builder);
+		try {
+			return validateAndParseCsvData(new StringReader(data), builder);
+		} catch (IOException e) {
+			// a StringReader does not throw IOException
+			throw new IllegalStateException(e);
+		}
 	}
 	public List<WLSample> validateAndParseCsvData(String[] data, JsonDataBuilder builder) {
-		
 		boolean mediation = MediationType.AboveDatum.equalSortOrder( builder.mediation() );
-		
 		List<WLSample> samples = new ArrayList<>(data.length);
+		for (int r=0; r<data.length; r++) {
+			char[] row = data[r].toCharArray();
+			parseCsvRow(row, row.length, r, mediation, builder, samples::add);
+		}
+		return samples;
+	}
+	/**
+	 * @param data the CSV data, it is read to the end but not closed
+	 * @param builder collects the row errors
+	 * @return the samples in the order given
+	 */
+	public List<WLSample> validateAndParseCsvData(Reader data, JsonDataBuilder builder) throws IOException {
+		List<WLSample> samples = new ArrayList<>();
+		parseCsvData(data, builder, samples::add);
+		return samples;
+	}
+	/**
+	 * Parses the CSV rows as they are read. Each row is tokenized in place in a reused
+	 * buffer so the data is never held as a whole string nor as arrays of row strings.
+	 * Rows are separated by new line, a carriage return before it is trimmed with the row.
+	 * @param data the CSV data, it is read to the end but not closed
+	 * @param builder collects the row errors
+	 * @param samples receives each sample in the order given as it is parsed
+	 */
+	public void parseCsvData(Reader data, JsonDataBuilder builder, Consumer<WLSample> samples) throws IOException {
+		boolean mediation = MediationType.AboveDatum.equalSortOrder( builder.mediation() );
 		
-		String msg = "";
+		char[] chunk = new char[CSV_CHUNK];
+		char[] row   = new char[CSV_ROW];
+		int length   = 0;
+		int r        = 0;
 		
-		for (int r=0; r<data.length; r++) {
-			String row = "";
-			try {
-				if (isNotBlank(msg)) {
-					LOGGER.trace(msg);
-					msg = "";
-				}
-				row = data[r].trim();
-				if ( 0 == row.length() || row.charAt(0) == '#') {
-					continue; // skip empty and comment rows
+		for (int read = data.read(chunk); read != -1; read = data.read(chunk)) {
+			for (int c=0; c<read; c++) {
+				char ch = chunk[c];
+				if (ch == '\n') {
+					parseCsvRow(row, length, r++, mediation, builder, samples);
+					length = 0;
+				} else {
+					if (length == row.length) {
+						row = Arrays.copyOf(row, length * 2);
+					}
+					row[length++] = ch;
 				}
-				
-				String[] cols = row.split(",");
-				if (cols.length < 2 || cols.length > 3) {
-					msg = env.getError(ENV_INVALID_ROW_COLS, r, row);
-					builder.error(msg);
-					continue;
+			}
+		}
+		if (length > 0) {
+			parseCsvRow(row, length, r, mediation, builder, samples);
+		}
+	}
+	
+	/**
+	 * Tokenizes one row of the form time,value[,aging] where aging is A or P (or a word starting
+	 * with one). Like String.trim() and String.split(",") the row and each column are trimmed
+	 * and trailing empty columns are ignored.
+	 * @param row the row buffer
+	 * @param length the number of row characters in the buffer
+	 * @param r the zero based row number for error messages
+	 */
+	protected void parseCsvRow(char[] row, int length, int r, boolean mediation,
+			JsonDataBuilder builder, Consumer<WLSample> samples) {
+		int start = 0;
+		int end   = length;
+		while (start < end && row[start] <= ' ') {
+			start++;
+		}
+		while (end > start && row[end-1] <= ' ') {
+			end--;
+		}
+		if (start == end || row[start] == '#') {
+			return; // skip empty and comment rows
+		}
+		String msg = null;
+		try {
+			int columnsEnd = end;
+			while (columnsEnd > start && row[columnsEnd-1] == ',') {
+				columnsEnd--;
+			}
+			int timeEnd  = indexOf(row, ',', start, columnsEnd);
+			int valueEnd = indexOf(row, ',', timeEnd+1, columnsEnd);
+			int agingEnd = indexOf(row, ',', valueEnd+1, columnsEnd);
+			if (columnsEnd == start || timeEnd == columnsEnd || agingEnd < columnsEnd) {
+				msg = env.getError(ENV_INVALID_ROW_COLS, r, new String(row, start, end-start));
+				return;
+			}
+			
+			String time = trimmed(row, start, timeEnd);
+			int valueStart = trimStart(row, timeEnd+1, valueEnd);
+			BigDecimal value = new BigDecimal(row, valueStart, trimEnd(row, valueStart, valueEnd) - valueStart);
+			WLSample sample = new WLSample(time, value, "ft", value, "", mediation, "", value);
+			
+			if (valueEnd < columnsEnd) {
+				// only the first letter matters to allow full words like Provisional
+				int agingStart = trimStart(row, valueEnd+1, agingEnd);
+				if (agingStart == agingEnd) {
+					msg = env.getError(ENV_INVALID_ROW_FORMAT, r, new String(row, start, end-start));
+					return;
 				}
-				
-				String time = cols[0].trim();
-				String val  = cols[1].trim();
-				
-				BigDecimal value = new BigDecimal(val);
-				WLSample sample = new WLSample(time, value, "ft", value, "", mediation, "", value);
-				
-				if (cols.length == 3) {
-					// Trim to remove whitespace and substring to convert full words like Provisional
-					String aging = cols[2].trim().substring(0, 1);
-					
-					if (Value.PROVISIONAL_CODE.equalsIgnoreCase(aging)) {
-						// approved is default
-						sample.setProvsional(true);
-					} else if ( ! Value.APPROVED_CODE.equalsIgnoreCase(aging) ) {
-						// first checked for Provisional, then Approved; if neither then error.
-						msg = env.getError(ENV_INVALID_ROW_AGING, r, row);
-						builder.error(msg);
-					}
+				char aging = Character.toUpperCase( row[agingStart] );
+				if (aging == Value.PROVISIONAL_CODE.charAt(0)) {
+					// approved is default
+					sample.setProvsional(true);
+				} else if (aging != Value.APPROVED_CODE.charAt(0)) {
+					// first checked for Provisional, then Approved; if neither then error (the sample is retained).
+					msg = env.getError(ENV_INVALID_ROW_AGING, r, new String(row, start, end-start));
 				}
-				samples.add(sample);
-			} catch (NumberFormatException e) {
-				msg = env.getError(ENV_INVALID_ROW_VALUE, r, row);
-				builder.error(msg);
-			} catch (Exception e) {
-				// this will seldom be a case, it is a catch all
-				msg = env.getError(ENV_INVALID_ROW_FORMAT, r, row);
+			}
+			samples.accept(sample);
+		} catch (NumberFormatException e) {
+			msg = env.getError(ENV_INVALID_ROW_VALUE, r, new String(row, start, end-start));
+		} catch (Exception e) {
+			// this will seldom be a case, it is a catch all
+			msg = env.getError(ENV_INVALID_ROW_FORMAT, r, new String(row, start, end-start));
+		} finally {
+			if (msg != null) {
+				LOGGER.trace(msg);
 				builder.error(msg);
 			}
 		}
-		
-		return samples;
+	}
+	private static int indexOf(char[] row, char ch, int from, int end) {
+		for (int c=from; c<end; c++) {
+			if (row[c] == ch) {
+				return c;
+			}
+		}
+		return end;
+	}
+	private static int trimStart(char[] row, int start, int end) {
+		while (start < end && row[start] <= ' ') {
+			start++;
+		}
+		return start;
+	}
+	private static int trimEnd(char[] row, int start, int end) {
+		while (end > start && row[end-1] <= ' ') {
+			end--;
+		}
+		return end;
+	}
+	private static String trimmed(char[] row, int start, int end) {
+		start = trimStart(row, start, end);
+		return new String(row, start, trimEnd(row, start, end) - start);
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package gov.usgs.wma.statistics.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonMonthly;
+import gov.usgs.wma.statistics.model.JsonOverall;
+
+/**
+ * The statistics of each site in the embedded H2 database, see schema.sql. A site has one
+ * SITE_OVERALL row with the CSV data and parameters it was calculated from, and a SITE_MONTHLY
+ * row for each percentile of each month. Saving a site replaces its previous statistics.
+ *
+ * The input hash identifies the data and parameters so that a caller can tell if the stored
+ * statistics are of the same input, and the CALC_DATE if they are current.
+ */
+@Repository
+public class StatisticsStore {
+
+	static final String SELECT_OVERALL = "SELECT SITE_ID, INPUT_HASH, PERCENTILES, INPUT_DATA, MESSAGES,"
+			+ " RECORD_YEARS, SAMPLE_COUNT, LATEST_PCTILE, LATEST_VALUE, MAX_VALUE, MEDIAN_VALUE, MIN_VALUE,"
+			+ " CALC_DATE, MAX_DATE, MIN_DATE, MEDIATION"
+			+ " FROM SITE_OVERALL WHERE SITE_ID = ?";
+	static final String SELECT_MONTHLY = "SELECT SITE_ID, MONTH_NUM, PCTILE, PCTILE_VALUE, RECORD_YEARS, SAMPLE_COUNT"
+			+ " FROM SITE_MONTHLY WHERE SITE_ID = ? ORDER BY MONTH_NUM, PCTILE";
+	static final String DELETE_MONTHLY = "DELETE FROM SITE_MONTHLY WHERE SITE_ID = ?";
+	static final String DELETE_OVERALL = "DELETE FROM SITE_OVERALL WHERE SITE_ID = ?";
+	static final String INSERT_OVERALL = "INSERT INTO SITE_OVERALL (SITE_ID, INPUT_HASH, PERCENTILES, INPUT_DATA, MESSAGES,"
+			+ " RECORD_YEARS, SAMPLE_COUNT, LATEST_PCTILE, LATEST_VALUE, MAX_VALUE, MEDIAN_VALUE, MIN_VALUE,"
+			+ " CALC_DATE, MAX_DATE, MIN_DATE, MEDIATION)"
+			+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	static final String INSERT_MONTHLY = "INSERT INTO SITE_MONTHLY (SITE_ID, MONTH_NUM, PCTILE, PCTILE_VALUE, RECORD_YEARS, SAMPLE_COUNT)"
+			+ " VALUES (?, ?, ?, ?, ?, ?)";
+
+	// the stored messages are one per line
+	static final String MESSAGE_SEPARATOR = "\n";
+
+	/**
+	 * The statistics of a site and the input they were calculated from.
+	 */
+	public static class Entry {
+		public final String siteId;
+		public final String inputHash;
+		public final String percentiles;
+		public final String data;
+		public final JsonData json;
+
+		public Entry(String siteId, String inputHash, String percentiles, String data, JsonData json) {
+			this.siteId = siteId;
+			this.inputHash = inputHash;
+			this.percentiles = percentiles;
+			this.data = data;
+			this.json = json;
+		}
+
+		/**
+		 * @return the mediation the statistics were calculated with
+		 */
+		public String mediation() {
+			return json.getOverall().getMediation().name();
+		}
+		/**
+		 * @return true if the statistics were calculated on the given day
+		 */
+		public boolean isCalculatedOn(String day) {
+			return day.equals(json.getOverall().dateCalc);
+		}
+	}
+
+	@Autowired
+	JdbcTemplate jdbc;
+	public StatisticsStore setJdbcTemplate(JdbcTemplate jdbc) {
+		this.jdbc = jdbc;
+		return this;
+	}
+
+	/**
+	 * The overall and monthly rows are read in one transaction so that a concurrent save is not half read.
+	 * @return the stored statistics of the site, null if there are none
+	 */
+	@Transactional(readOnly = true)
+	public Entry find(String siteId) {
+		List<Entry> found = jdbc.query(SELECT_OVERALL, StatisticsStore::mapOverall, siteId);
+		if (found.isEmpty()) {
+			return null;
+		}
+		Entry entry = found.get(0);
+		List<Object[]> rows = jdbc.query(SELECT_MONTHLY, StatisticsStore::mapMonthly, siteId);
+		monthly(rows).forEach(entry.json::putMonthly);
+		return entry;
+	}
+
+	/**
+	 * Replaces the statistics of the site, the monthly rows are inserted in one batch.
+	 */
+	@Transactional
+	public void save(Entry entry) {
+		jdbc.update(DELETE_MONTHLY, entry.siteId);
+		jdbc.update(DELETE_OVERALL, entry.siteId);
+		jdbc.update(INSERT_OVERALL, overallRow(entry));
+		List<Object[]> rows = monthlyRows(entry.siteId, entry.json);
+		if ( ! rows.isEmpty() ) {
+			jdbc.batchUpdate(INSERT_MONTHLY, rows);
+		}
+	}
+
+	/**
+	 * @return the SITE_OVERALL column values in the INSERT_OVERALL order
+	 */
+	static Object[] overallRow(Entry entry) {
+		JsonOverall overall = entry.json.getOverall();
+		return new Object[] {
+				entry.siteId, entry.inputHash, entry.percentiles, entry.data,
+				String.join(MESSAGE_SEPARATOR, entry.json.getMessages()),
+				overall.recordYears, overall.sampleCount, overall.latestPercentile, overall.latestValue,
+				overall.valueMax, overall.valueMedian, overall.valueMin,
+				overall.dateCalc, overall.dateMax, overall.dateMin, overall.getMediation().name()
+		};
+	}
+
+	static Entry mapOverall(ResultSet rs, int rowNum) throws SQLException {
+		JsonData json = new JsonData();
+		json.setOverall(new JsonOverall(
+				rs.getString("RECORD_YEARS"), rs.getInt("SAMPLE_COUNT"),
+				rs.getString("LATEST_PCTILE"), rs.getString("LATEST_VALUE"),
+				rs.getString("MAX_VALUE"), rs.getString("MEDIAN_VALUE"), rs.getString("MIN_VALUE"),
+				rs.getString("CALC_DATE"), rs.getString("MAX_DATE"), rs.getString("MIN_DATE"),
+				MediationType.valueOf(rs.getString("MEDIATION"))));
+		String messages = rs.getString("MESSAGES");
+		if (messages != null && ! messages.isEmpty()) {
+			json.addMessages(Arrays.asList(messages.split(MESSAGE_SEPARATOR)));
+		}
+		return new Entry(rs.getString("SITE_ID"), rs.getString("INPUT_HASH"), rs.getString("PERCENTILES"),
+				rs.getString("INPUT_DATA"), json);
+	}
+
+	/**
+	 * @return a row for each percentile of each month in the INSERT_MONTHLY column order
+	 */
+	static List<Object[]> monthlyRows(String siteId, JsonData json) {
+		List<Object[]> rows = new ArrayList<>();
+		for (Map.Entry<String, JsonMonthly> month : json.getMonthly().entrySet()) {
+			JsonMonthly stats = month.getValue();
+			for (Map.Entry<String, String> percentile : stats.percentiles.entrySet()) {
+				rows.add(new Object[] {siteId, month.getKey(), percentile.getKey(), percentile.getValue(),
+						stats.recordYears, stats.sampleCount});
+			}
+		}
+		return rows;
+	}
+
+	static Object[] mapMonthly(ResultSet rs, int rowNum) throws SQLException {
+		return new Object[] {rs.getString("SITE_ID"), rs.getString("MONTH_NUM"), rs.getString("PCTILE"),
+				rs.getString("PCTILE_VALUE"), rs.getString("RECORD_YEARS"), rs.getInt("SAMPLE_COUNT")};
+	}
+
+	/**
+	 * @param rows the rows of {@link #monthlyRows(String, JsonData)} grouped by month
+	 * @return the monthly statistics by month
+	 */
+	static Map<String, JsonMonthly> monthly(List<Object[]> rows) {
+		Map<String, JsonMonthly> monthly = new LinkedHashMap<>();
+		Map<String, String> percentiles = new LinkedHashMap<>();
+		for (int r=0; r<rows.size(); r++) {
+			Object[] row = rows.get(r);
+			percentiles.put((String) row[2], (String) row[3]);
+			if (r+1 == rows.size() || ! row[1].equals(rows.get(r+1)[1])) {
+				monthly.put((String) row[1], new JsonMonthly((String) row[4], (Integer) row[5], percentiles));
+				percentiles.clear();
+			}
+		}
+		return monthly;
+	}
+}
@@ -0,0 +1,108 @@
+package gov.usgs.wma.statistics.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The month and year medians of a single calculation. The month index is built once, and each
+ * month is normalized to one median per year the first time it is asked for and then kept. The
+ * latest percentile, the monthly statistics, and the month distributions are each handed the
+ * instance of their calculation rather than normalizing the month again.
+ *
+ * A month has two normalizations. The latest percentile takes the median of each year with its
+ * samples in date order, see byDate(int), and the monthly statistics take it with them in value
+ * order, see byValue(int). When a year has more than one sample the two medians differ, so each
+ * is kept apart. The value order medians are selected from the date ordered years rather than
+ * sorting the month, see MonthlyStatistics.normalizeMonthByValue.
+ *
+ * Nothing is recorded in the builder here, the caller records the medians it uses.
+ */
+public class MonthlyMedians<S extends Value> {
+
+	private final MonthlyStatistics<S> stats;
+	private final MonthlyBuckets<S> byMonth;
+	private final List<List<S>> byDate;
+	private final List<List<S>> byValue;
+
+	/**
+	 * @param stats the monthly statistics that normalize the months, and their value order
+	 * @param samplesByDate the samples of the calculation in date order
+	 */
+	public MonthlyMedians(MonthlyStatistics<S> stats, List<S> samplesByDate) {
+		this.stats   = stats;
+		this.byMonth = new MonthlyBuckets<>(samplesByDate);
+		byDate       = twelve();
+		byValue      = twelve();
+	}
+
+	private static <T> List<T> twelve() {
+		List<T> months = new ArrayList<>(12);
+		for (int m=1; m<=12; m++) {
+			months.add(null);
+		}
+		return months;
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the number of samples in the month
+	 */
+	public int sampleCount(int month) {
+		return byMonth.size(month);
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the number of years with samples in the month
+	 */
+	public int yearCount(int month) {
+		return byMonth.yearCount(month);
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the month normalized to the median of each year in date order, sorted by value, read only
+	 */
+	public List<S> byDate(int month) {
+		List<S> medians = byDate.get(month-1);
+		if (medians == null) {
+			medians = Collections.unmodifiableList(
+					stats.normalizeMonth(byMonth.years(month), stats.sortFunctionByQualifier()) );
+			byDate.set(month-1, medians);
+		}
+		return medians;
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the month normalized to the median of each year in value order, sorted by value, read only
+	 */
+	public List<S> byValue(int month) {
+		List<S> medians = byValue.get(month-1);
+		if (medians == null) {
+			medians = Collections.unmodifiableList(
+					stats.normalizeMonthByValue(byMonth.years(month), stats.sortFunctionByQualifier()) );
+			byValue.set(month-1, medians);
+		}
+		return medians;
+	}
+
+	/**
+	 * Removes the sample from its month, the month is normalized again the next time it is asked for.
+	 * @param sample the sample instance to remove
+	 * @return true if the sample was indexed and is now removed
+	 */
+	public boolean remove(S sample) {
+		if ( ! byMonth.remove(sample) ) {
+			return false;
+		}
+		int month = MonthlyBuckets.monthOf(sample);
+		byDate.set(month-1, null);
+		byValue.set(month-1, null);
+		return true;
+	}
+}
@@ -4,11 +4,14 @@ import static gov.usgs.wma.statistics.app.Properties.*;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -16,6 +19,7 @@ import org.slf4j.LoggerFactory;
 
 import gov.usgs.wma.statistics.app.Properties;
 import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.MonthlyBuckets;
 import gov.usgs.wma.statistics.model.Value;
 
 public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S> {
@@ -50,6 +54,26 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 	public Function<List<S>, List<S>> sortFunctionByQualifier() {
 		return StatisticsCalculator::sortByValueOrderAscending;
 	}
+	/**
+	 * Override in subclass along with sortFunctionByQualifier.
+	 * @return true when the value order of sortFunctionByQualifier is ascending
+	 */
+	public boolean isAscendingByQualifier() {
+		return true;
+	}
+	/**
+	 * The median of samples in any order as makeMedian makes it of the samples in value order.
+	 * The ranks of the median are selected rather than sorted, see OrderStatistics.
+	 * @param samples the samples in any order, they are not reordered
+	 * @return a new sample of the median value
+	 */
+	protected S selectMedian(List<S> samples) {
+		OrderStatistics ranks = OrderStatistics.of(samples, isAscendingByQualifier());
+		if (ranks == null) {
+			return makeMedian( sortFunctionByQualifier().apply(new ArrayList<>(samples)) );
+		}
+		return makeMedian(samples, ranks::indexOf);
+	}
 	
 	
 	public List<S> filterValuesByGivenMonth(List<S> samples, final String month) {
@@ -70,35 +94,32 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 	 * @return a map of monthly maps of percentile data
 	 */
 	public boolean monthlyStats(List<S> sortedByValue) {
+		if (sortedByValue == null || sortedByValue.size() == 0) {
+			return false;
+		}
+		return monthlyStats(new MonthlyBuckets<>(sortedByValue));
+	}
+	/**
+	 * @param byMonth all site samples indexed by month with each month in sorted order by value
+	 * @return a map of monthly maps of percentile data
+	 */
+	public boolean monthlyStats(MonthlyBuckets<S> byMonth) {
 		LOGGER.trace("entered");
 		
 		boolean monthlyCalculated = false;
-		if (sortedByValue == null || sortedByValue.size() == 0) {
+		if (byMonth == null || byMonth.isEmpty()) {
 			return monthlyCalculated;
 		}
 		
 		for(int m=1; m<=12; m++) {
-			String month = ""+m;
-			List<S> monthSamples = filterValuesByGivenMonth(sortedByValue, month);
-			Map<String, List<S>> sortSamplesByYear = sortSamplesByYear(monthSamples);
+			List<S> monthSamples = byMonth.month(m);
 			
 			// this needs to be calculated regardless of the month's qualification for use in other statistics
-			// namely: overall median and latest percentile. (At the moment, the latest percentile recalculates.)
+			// namely: overall median and latest percentile. (A calculation shares them, see MonthlyMedians.)
 			List<S> normalizeMutlipleYearlyValues = medianMonthlyValues(monthSamples,  sortFunctionByQualifier());
 			
-			if ( doesThisMonthQualifyForStats(normalizeMutlipleYearlyValues) ) {
+			if ( monthlyStats(m, normalizeMutlipleYearlyValues, byMonth.yearCount(m)) ) {
 				monthlyCalculated = true;
-				generatePercentiles(normalizeMutlipleYearlyValues, builder.buildPercentiles());
-				builder.month(month);
-				
-				List<Value> monthYearlyMedians = generateMonthYearlyPercentiles(normalizeMutlipleYearlyValues);
-				
-				builder.minP50(monthYearlyMedians.get(0).value.toString());
-				builder.maxP50(monthYearlyMedians.get( monthYearlyMedians.size()-1 ).value.toString());
-				builder.sampleCount(normalizeMutlipleYearlyValues.size());
-
-				builder.recordYears(""+sortSamplesByYear.keySet().size());
-				builder.collect();
 			}
 		}
 		
@@ -106,6 +127,53 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 		return monthlyCalculated;
 	}
 	
+	/**
+	 * The monthly statistics of a calculation from the month medians it shares with the latest percentile.
+	 * The value ordered medians of each month are recorded, as medianMonthlyValues does, before they are used.
+	 * @param medians the month and year medians of the calculation
+	 * @return true if any month qualified and its statistics were collected
+	 */
+	public boolean monthlyStats(MonthlyMedians<S> medians) {
+		LOGGER.trace("entered");
+		
+		boolean monthlyCalculated = false;
+		for(int m=1; m<=12; m++) {
+			List<S> normalizeMutlipleYearlyValues = medians.byValue(m);
+			recordMedians(normalizeMutlipleYearlyValues, medians.sampleCount(m));
+			
+			if ( monthlyStats(m, normalizeMutlipleYearlyValues, medians.yearCount(m)) ) {
+				monthlyCalculated = true;
+			}
+		}
+		
+		LOGGER.trace("exited");
+		return monthlyCalculated;
+	}
+	
+	/**
+	 * @param month the month number 1 to 12
+	 * @param normalizeMutlipleYearlyValues the month samples normalized to one value per year in value order
+	 * @param recordYears the number of years with samples in the month
+	 * @return true if the month qualified and its statistics were collected
+	 */
+	public boolean monthlyStats(int month, List<S> normalizeMutlipleYearlyValues, int recordYears) {
+		if ( ! doesThisMonthQualifyForStats(normalizeMutlipleYearlyValues) ) {
+			return false;
+		}
+		generatePercentiles(normalizeMutlipleYearlyValues, builder.buildPercentiles());
+		builder.month(""+month);
+		
+		List<Value> monthYearlyMedians = generateMonthYearlyPercentiles(normalizeMutlipleYearlyValues);
+		
+		builder.minP50(monthYearlyMedians.get(0).value.toString());
+		builder.maxP50(monthYearlyMedians.get( monthYearlyMedians.size()-1 ).value.toString());
+		builder.sampleCount(normalizeMutlipleYearlyValues.size());
+
+		builder.recordYears(""+recordYears);
+		builder.collect();
+		return true;
+	}
+	
 	/**
 	 * The non-GWW case will be that there must be value while the GWW case will be that there must be ten years.
 	 * @param normalizeMutlipleYearlyValues
@@ -116,29 +184,28 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 	}
 
 	/**
-	 * @param samples a many year single month filtered sample list in value order
+	 * @param samples a many year single month filtered sample list, the years in value order
 	 * @return a list of new samples holding the yearly medians in value order
 	 */
 	@SuppressWarnings("unchecked")
 	protected List<Value> generateMonthYearlyPercentiles(List<S> samples) {
-		samples = new ArrayList<>(samples);
 		List<Value> monthYearlyMedians = new LinkedList<>(); 
 
-		while (samples.size() > 0) {
-			// calculate a year's median
-			final String year = Value.yearUTC(samples.get(0).time);
-			// using predicate because spring 3.x includes cglib that cannot compile lambdas
-			Predicate<S> yearly = new Predicate<S>() {
-				@Override
-				public boolean test(S sample) {
-					return year.equals( Value.yearUTC(sample.time) );
-				}
-			};
-			List<S> yearSamples = samples.stream().filter(yearly).collect(Collectors.toList());
-			BigDecimal value = valueOfPercentile( yearSamples, MEDIAN_PERCENTILE, S::valueOf);
+		// group the years in a single pass, in the order each year is first seen
+		Map<String, List<S>> yearSamples = new LinkedHashMap<>();
+		for (S sample : samples) {
+			String year = Value.yearUTC(sample.time);
+			List<S> yearly = yearSamples.get(year);
+			if (yearly == null) {
+				yearly = new ArrayList<>();
+				yearSamples.put(year, yearly);
+			}
+			yearly.add(sample);
+		}
+		// calculate each year's median, a year of one sample is its own median
+		for (List<S> yearly : yearSamples.values()) {
+			BigDecimal value = (yearly.size() == 1) ?yearly.get(0).value :selectMedian(yearly).value;
 			monthYearlyMedians.add( new Value("",value) );
-			// remove the current year
-			samples.removeAll(yearSamples);
 		}
 		// this cast works
 		sortValueByQualifier((List<S>)monthYearlyMedians);
@@ -147,14 +214,45 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 	
 	public List<S> medianMonthlyValues(List<S> monthSamples, Function<List<S>, List<S>> sortBy) {
 		int sampleCount = monthSamples.size();
-		List<S> normalizedSamples = new LinkedList<>();
-
 		Map<String, List<S>> yearSamples = sortSamplesByYear(monthSamples);
-		for (String year : yearSamples.keySet()) {
-			List<S> samples = yearSamples.get(year);
+		List<S> normalizedSamples = medianMonthlyValues(yearSamples, sampleCount, sortBy);
+		
+		if (sampleCount > normalizedSamples.size()) {
+			// have to remove the original values from the monthly list, in one pass rather than removeAll per year
+			BitSet keep = new BitSet(sampleCount);
+			int s = 0;
+			for (S sample : monthSamples) {
+				if ( yearSamples.get( Value.yearUTC(sample.time) ).size() == 1 ) {
+					keep.set(s);
+				}
+				s++;
+			}
+			retainByMask(monthSamples, keep);
+		}
+		return normalizedSamples;
+	}
+	/**
+	 * @param yearSamples the month samples by year, the iteration order of the years is the order of
+	 *        the normalized samples before they are sorted
+	 * @param sampleCount the number of samples in the month
+	 * @param sortBy the value order of the normalized samples
+	 * @return the samples normalized to the median of each year with more than one sample
+	 */
+	public List<S> medianMonthlyValues(Map<String, List<S>> yearSamples, int sampleCount, Function<List<S>, List<S>> sortBy) {
+		List<S> normalizedSamples = normalizeMonth(yearSamples, sortBy);
+		recordMedians(normalizedSamples, sampleCount);
+		return normalizedSamples;
+	}
+	/**
+	 * The normalization of medianMonthlyValues without recording the medians.
+	 * @param yearSamples the month samples by year, the median of each year is made in the sample order
+	 * @param sortBy the value order of the normalized samples
+	 * @return a new list of the samples normalized to the median of each year with more than one sample
+	 */
+	public List<S> normalizeMonth(Map<String, List<S>> yearSamples, Function<List<S>, List<S>> sortBy) {
+		List<S> normalizedSamples = new ArrayList<>(yearSamples.size());
+		for (List<S> samples : yearSamples.values()) {
 			if (samples.size() > 1) {
-				// have to remove the original values from the monthly list
-				monthSamples.removeAll(samples);
 				S medianSample = makeMedian(samples);
 				normalizedSamples.add(medianSample);
 			}
@@ -162,7 +260,53 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 				normalizedSamples.addAll(samples);
 			}
 		}
-		normalizedSamples = sortBy.apply(normalizedSamples);
+		return sortBy.apply(normalizedSamples);
+	}
+	/**
+	 * The normalization of the value ordered month from its years in date order. Rather than sort
+	 * the month, the median ranks of each year are selected, see OrderStatistics. The years are put
+	 * in a new HashMap in the order a value ordered month first has them, by the first sample of each
+	 * year in value order and then by year, so equal medians are in the order of normalizeMonth of
+	 * sortSamplesByYear of the value ordered month.
+	 * @param yearsByDate the month samples by year, each year in date order
+	 * @param sortBy the value order of the normalized samples
+	 * @return a new list of the samples normalized to the median of each year in value order
+	 */
+	public List<S> normalizeMonthByValue(Map<String, List<S>> yearsByDate, Function<List<S>, List<S>> sortBy) {
+		boolean ascending = isAscendingByQualifier();
+		Map<String, S> firstOf  = new HashMap<>();
+		Map<String, S> medianOf = new HashMap<>();
+		for (Map.Entry<String, List<S>> year : yearsByDate.entrySet()) {
+			List<S> samples = year.getValue();
+			OrderStatistics ranks = OrderStatistics.of(samples, ascending);
+			if (ranks == null) {
+				List<S> sorted = sortBy.apply(new ArrayList<>(samples));
+				firstOf.put(year.getKey(), sorted.get(0));
+				medianOf.put(year.getKey(), (sorted.size() > 1) ?makeMedian(sorted) :sorted.get(0));
+			} else {
+				firstOf.put(year.getKey(), samples.get(ranks.indexOf(0)));
+				medianOf.put(year.getKey(), (samples.size() > 1) ?makeMedian(samples, ranks::indexOf) :samples.get(0));
+			}
+		}
+		List<String> years = new ArrayList<>(yearsByDate.keySet());
+		Collections.sort(years, (a, b) -> {
+			int order = firstOf.get(a).value.compareTo(firstOf.get(b).value);
+			order = ascending ?order :-order;
+			return (order != 0) ?order :a.compareTo(b);
+		});
+		Map<String, S> yearMedians = new HashMap<>();
+		for (String year : years) {
+			yearMedians.put(year, medianOf.get(year));
+		}
+		return sortBy.apply( new ArrayList<>(yearMedians.values()) );
+	}
+	/**
+	 * Records normalized month medians in the intermediate values, and the monthly medians message
+	 * when the month had years with more than one sample.
+	 * @param normalizedSamples the month medians in value order
+	 * @param sampleCount the number of samples in the month
+	 */
+	public void recordMedians(List<S> normalizedSamples, int sampleCount) {
 		builder.intermediateValues(normalizedSamples);
 		
 		if (sampleCount > normalizedSamples.size()) {
@@ -171,7 +315,6 @@ public class MonthlyStatistics<S extends Value> extends StatisticsCalculator<S>
 			String msg = env.getMessage(ENV_MESSAGE_MONTHLY_MEDIANS, monthName);
 			builder.message(msg);
 		}
-		return normalizedSamples;
 	}
 	
 }
@@ -0,0 +1,194 @@
+package gov.usgs.wma.statistics.logic;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * Selects order statistics, the value of a given rank, from primitive keys without sorting them.
+ * A percentile only needs the one or two values either side of its index, Y[k] and Y[k+1], and
+ * a selection finds each of them in expected linear time where a sort is n log n.
+ *
+ * The selection is an introselect: a quickselect with a median of three pivot that falls back
+ * to a heap sort of the remaining range should the partitions degrade. Equal keys are ranked by
+ * their original position, the order a stable sort would leave them in, so the selected element
+ * is always the one at that rank of the sorted List. This matters because equal values may have
+ * different significant figures, 1.0 and 1.00, and the interpolation uses the one selected.
+ *
+ * Each selection partitions the keys about the rank found. The ranks already found are kept and
+ * later selections only search between them, so selecting k and then k+1 costs little more than k.
+ */
+public class OrderStatistics {
+
+	// ranges this small are simply sorted
+	private static final int INSERTION_SORT = 16;
+
+	private final long[] keys;
+	private final int[] index;
+	private final boolean ascending;
+	private final BitSet found;
+
+	/**
+	 * @param keys the keys in their original order, they are copied and not modified
+	 * @param ascending true for ascending order (AboveDatum) and false for descending order (BelowLand)
+	 */
+	public OrderStatistics(long[] keys, boolean ascending) {
+		this.keys      = keys.clone();
+		this.index     = new int[keys.length];
+		this.ascending = ascending;
+		this.found     = new BitSet(keys.length);
+		for (int k=0; k<keys.length; k++) {
+			index[k] = k;
+		}
+	}
+
+	/**
+	 * The keys of sample values are the values at their largest scale, so that 1.5 and 1.50 are equal keys.
+	 * @param samples the samples in their original order
+	 * @param ascending true for ascending order (AboveDatum) and false for descending order (BelowLand)
+	 * @return the order statistics of the sample values, or null if a value is null or they do not fit a long
+	 */
+	public static OrderStatistics of(List<? extends Value> samples, boolean ascending) {
+		int scale = Integer.MIN_VALUE;
+		for (Value sample : samples) {
+			if (sample == null || sample.value == null) {
+				return null;
+			}
+			scale = Math.max(scale, sample.value.scale());
+		}
+		long[] keys = new long[samples.size()];
+		int k = 0;
+		try {
+			for (Value sample : samples) {
+				BigDecimal value = sample.value;
+				keys[k++] = value.setScale(scale).unscaledValue().longValueExact();
+			}
+		} catch (ArithmeticException e) {
+			return null;
+		}
+		return new OrderStatistics(keys, ascending);
+	}
+
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * @param rank the zero based rank in the sort order
+	 * @return the original position of the key with the given rank
+	 */
+	public int indexOf(int rank) {
+		if (rank < 0 || rank >= keys.length) {
+			throw new IndexOutOfBoundsException("rank " + rank + " of " + keys.length);
+		}
+		if ( ! found.get(rank) ) {
+			// only the keys between the nearest ranks already found can have this rank
+			int left  = found.previousSetBit(rank) + 1;
+			int right = found.nextSetBit(rank);
+			right = (right < 0) ?keys.length-1 :right-1;
+			select(left, right, rank);
+			found.set(rank);
+		}
+		return index[rank];
+	}
+
+	/**
+	 * @param rank the zero based rank in the sort order
+	 * @return the key with the given rank
+	 */
+	public long keyOf(int rank) {
+		indexOf(rank);
+		return keys[rank];
+	}
+
+	// rearranges the inclusive range so the given rank holds its key and the range is partitioned about it
+	private void select(int left, int right, int rank) {
+		int depth = 2 * (32 - Integer.numberOfLeadingZeros(right - left + 1));
+		while (right - left >= INSERTION_SORT) {
+			if (depth-- == 0) {
+				heapSort(left, right);
+				return;
+			}
+			int pivot = partition(left, right, medianOfThree(left, (left+right) >>> 1, right));
+			if (rank == pivot) {
+				return;
+			} else if (rank < pivot) {
+				right = pivot - 1;
+			} else {
+				left  = pivot + 1;
+			}
+		}
+		insertionSort(left, right);
+	}
+
+	// true when the key at position a is ordered before the key at position b
+	private boolean before(int a, int b) {
+		if (keys[a] != keys[b]) {
+			return ascending ?keys[a] < keys[b] :keys[a] > keys[b];
+		}
+		return index[a] < index[b];
+	}
+
+	private int medianOfThree(int a, int b, int c) {
+		if (before(a, b)) {
+			return before(b, c) ?b :before(a, c) ?c :a;
+		}
+		return before(a, c) ?a :before(b, c) ?c :b;
+	}
+
+	// the keys are distinct with their positions so a single pass partition is balanced on equal values
+	private int partition(int left, int right, int pivot) {
+		swap(pivot, right);
+		int store = left;
+		for (int k=left; k<right; k++) {
+			if (before(k, right)) {
+				swap(k, store++);
+			}
+		}
+		swap(store, right);
+		return store;
+	}
+
+	private void insertionSort(int left, int right) {
+		for (int k=left+1; k<=right; k++) {
+			for (int j=k; j>left && before(j, j-1); j--) {
+				swap(j, j-1);
+			}
+		}
+	}
+
+	private void heapSort(int left, int right) {
+		int size = right - left + 1;
+		for (int parent=size/2-1; parent>=0; parent--) {
+			siftDown(left, parent, size);
+		}
+		for (int last=size-1; last>0; last--) {
+			swap(left, left+last);
+			siftDown(left, 0, last);
+		}
+	}
+	private void siftDown(int offset, int parent, int size) {
+		while (2*parent+1 < size) {
+			int child = 2*parent+1;
+			if (child+1 < size && before(offset+child, offset+child+1)) {
+				child++;
+			}
+			if ( ! before(offset+parent, offset+child) ) {
+				return;
+			}
+			swap(offset+parent, offset+child);
+			parent = child;
+		}
+	}
+
+	private void swap(int a, int b) {
+		long key = keys[a];
+		keys[a]  = keys[b];
+		keys[b]  = key;
+		int pos  = index[a];
+		index[a] = index[b];
+		index[b] = pos;
+	}
+}
@@ -0,0 +1,350 @@
+package gov.usgs.wma.statistics.logic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import gov.usgs.wma.statistics.logic.SigFigMathUtil.CustomRoundingRule;
+
+/**
+ * The significant figure arithmetic of {@link SigFigMathUtil} on scaled long values.
+ *
+ * A decimal is an unscaled long and a scale, just as BigDecimal represents a compact value,
+ * and the rules are the same. Addition and subtraction round the exact result to the least
+ * scale of the terms. Multiplication and division round the exact result to the least precision
+ * of the factors. The rounding mode comes from the same CustomRoundingRule; however, only rules
+ * that depend on the sign of the value may be used here, see {@link CustomRoundingRule#valueRule(int)}.
+ *
+ * Each operation writes its result into a {@link Fixed} holder and returns true. It returns false,
+ * leaving the result unchanged, if a value overflows a long or the rounding rule is not sign based.
+ * The caller then uses the BigDecimal implementation, so the results are always identical.
+ */
+public class SigFigFixedPoint {
+
+	private static final long[] POWERS_OF_TEN = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+		10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+		1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+	};
+	private static final int MAX_DIGITS = 18;
+	// the one long value that is not used so that it may signal overflow
+	private static final long OVERFLOW = Long.MIN_VALUE;
+
+	/**
+	 * A mutable scaled long decimal so that a calculation may reuse its holders.
+	 */
+	public static final class Fixed {
+		public long unscaled;
+		public int  scale;
+
+		public Fixed() {
+		}
+		public Fixed(long unscaled, int scale) {
+			set(unscaled, scale);
+		}
+		public Fixed set(long unscaled, int scale) {
+			this.unscaled = unscaled;
+			this.scale    = scale;
+			return this;
+		}
+		/**
+		 * @param value the value to hold
+		 * @return true if the value fits in a long of at most 18 digits. A subclass, like ScientificDecimal,
+		 *  is not held because it may count its significant figures differently than its digits.
+		 */
+		public boolean set(BigDecimal value) {
+			if (value == null || value.getClass() != BigDecimal.class || value.precision() > MAX_DIGITS) {
+				return false;
+			}
+			set(value.unscaledValue().longValue(), value.scale());
+			return true;
+		}
+		public BigDecimal toBigDecimal() {
+			return BigDecimal.valueOf(unscaled, scale);
+		}
+		@Override
+		public String toString() {
+			return toBigDecimal().toString();
+		}
+	}
+
+	private SigFigFixedPoint() {
+	}
+
+	/**
+	 * @param value the unscaled value
+	 * @return the number of decimal digits, zero has a precision of one like BigDecimal
+	 */
+	public static int precision(long value) {
+		if (value == Long.MIN_VALUE) {
+			return 19;
+		}
+		long abs = Math.abs(value);
+		int digits = 1;
+		while (digits <= MAX_DIGITS && abs >= POWERS_OF_TEN[digits]) {
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * @return the value times ten to the given power or OVERFLOW if it will not fit
+	 */
+	private static long scaleUp(long value, int power) {
+		if (value == 0) {
+			return 0;
+		}
+		if (power > MAX_DIGITS) {
+			return OVERFLOW;
+		}
+		long scaled = value * POWERS_OF_TEN[power];
+		if (scaled / POWERS_OF_TEN[power] != value) {
+			return OVERFLOW;
+		}
+		return scaled;
+	}
+
+	/**
+	 * Divides and rounds in the manner of BigDecimal.
+	 * @param dividend the value to round
+	 * @param divisor positive divisor
+	 * @param mode the rounding mode, UNNECESSARY is not supported
+	 * @return the rounded quotient or OVERFLOW if the mode is not supported
+	 */
+	static long divideAndRound(long dividend, long divisor, RoundingMode mode) {
+		int sign = (dividend < 0) ?-1 :1;
+		return round(dividend / divisor, sign, Math.abs(dividend % divisor), divisor, mode);
+	}
+
+	/**
+	 * @param quotient the truncated quotient
+	 * @param sign the sign of the exact quotient, needed when the truncated quotient is zero
+	 * @param remainder the magnitude of the remainder
+	 * @param divisor the positive divisor
+	 * @param mode the rounding mode, UNNECESSARY is not supported
+	 * @return the rounded quotient or OVERFLOW if the mode is not supported
+	 */
+	private static long round(long quotient, int sign, long remainder, long divisor, RoundingMode mode) {
+		if (remainder == 0) {
+			return quotient;
+		}
+		int half = Long.compare(remainder, divisor - remainder);
+		boolean increment;
+		switch (mode) {
+			case UP:        increment = true;          break;
+			case DOWN:      increment = false;         break;
+			case CEILING:   increment = sign > 0;      break;
+			case FLOOR:     increment = sign < 0;      break;
+			case HALF_UP:   increment = half >= 0;     break;
+			case HALF_DOWN: increment = half > 0;      break;
+			case HALF_EVEN: increment = half > 0 || (half == 0 && (quotient & 1) != 0); break;
+			default: return OVERFLOW;
+		}
+		return increment ?quotient + sign :quotient;
+	}
+
+	/**
+	 * Rounds an exact value to the given scale, like BigDecimal.setScale(scale, mode)
+	 */
+	private static boolean roundToScale(long exact, int exactScale, int scale, RoundingMode mode, Fixed result) {
+		int drop = exactScale - scale;
+		if (drop <= 0) {
+			long scaled = scaleUp(exact, -drop);
+			if (scaled == OVERFLOW) {
+				return false;
+			}
+			result.set(scaled, scale);
+			return true;
+		}
+		if (drop > MAX_DIGITS) {
+			return false;
+		}
+		long rounded = divideAndRound(exact, POWERS_OF_TEN[drop], mode);
+		if (rounded == OVERFLOW) {
+			return false;
+		}
+		result.set(rounded, scale);
+		return true;
+	}
+
+	/**
+	 * Rounds an exact value to the given precision, like BigDecimal.round(MathContext), this includes
+	 * the additional digit dropped should the rounding carry into a new digit (999 to 1000).
+	 */
+	private static boolean roundToPrecision(long exact, int exactScale, int precision, RoundingMode mode, Fixed result) {
+		long value = exact;
+		long scale = exactScale;
+		int drop = precision(value) - precision;
+		while (drop > 0) {
+			scale -= drop;
+			value  = divideAndRound(value, POWERS_OF_TEN[drop], mode);
+			if (value == OVERFLOW) {
+				return false;
+			}
+			drop = precision(value) - precision;
+		}
+		if (scale != (int) scale) {
+			return false;
+		}
+		result.set(value, (int) scale);
+		return true;
+	}
+
+	/**
+	 * The sum of two values rounded to the least scale, see SigFigMathUtil.sigFigAdd
+	 */
+	public static boolean add(Fixed augend, Fixed addend, CustomRoundingRule rule, Fixed result) {
+		return addOrSubtract(augend, addend, 1, rule, result);
+	}
+
+	/**
+	 * The difference of two values rounded to the least scale, see SigFigMathUtil.sigFigSubtract
+	 */
+	public static boolean subtract(Fixed minuend, Fixed subtrahend, CustomRoundingRule rule, Fixed result) {
+		return addOrSubtract(minuend, subtrahend, -1, rule, result);
+	}
+
+	private static boolean addOrSubtract(Fixed a, Fixed b, int sign, CustomRoundingRule rule, Fixed result) {
+		long aUnscaled = a.unscaled, bUnscaled = b.unscaled;
+		int  aScale    = a.scale,    bScale    = b.scale;
+		int  maxScale  = Math.max(aScale, bScale);
+		int  minScale  = Math.min(aScale, bScale);
+		if ((long) maxScale - minScale > MAX_DIGITS) {
+			return false;
+		}
+		aUnscaled = scaleUp(aUnscaled, maxScale - aScale);
+		bUnscaled = scaleUp(bUnscaled, maxScale - bScale);
+		if (aUnscaled == OVERFLOW || bUnscaled == OVERFLOW) {
+			return false;
+		}
+		bUnscaled *= sign;
+		long exact = aUnscaled + bUnscaled;
+		if (((aUnscaled ^ exact) & (bUnscaled ^ exact)) < 0) {
+			return false; // overflow
+		}
+		RoundingMode mode = (rule == null) ?null :rule.valueRule(Long.signum(exact));
+		if (mode == null) {
+			return false;
+		}
+		return roundToScale(exact, maxScale, minScale, mode, result);
+	}
+
+	/**
+	 * The product of two values rounded to the least precision, see SigFigMathUtil.sigFigMultiply
+	 */
+	public static boolean multiply(Fixed multiplicand, Fixed multiplier, CustomRoundingRule rule, Fixed result) {
+		int precision = Math.min(precision(multiplicand.unscaled), precision(multiplier.unscaled));
+		return multiply(multiplicand, multiplier, precision, rule, result);
+	}
+
+	/**
+	 * The product of two values rounded to the precision of the multiplicand, see SigFigMathUtil.sigFigMultiplyByExact
+	 */
+	public static boolean multiplyByExact(Fixed multiplicand, Fixed exactMultiplier, CustomRoundingRule rule, Fixed result) {
+		return multiply(multiplicand, exactMultiplier, precision(multiplicand.unscaled), rule, result);
+	}
+
+	private static boolean multiply(Fixed a, Fixed b, int precision, CustomRoundingRule rule, Fixed result) {
+		long exactScale = (long) a.scale + b.scale;
+		if (exactScale != (int) exactScale || rule == null) {
+			return false;
+		}
+		long exact;
+		try {
+			exact = Math.multiplyExact(a.unscaled, b.unscaled);
+		} catch (ArithmeticException overflow) {
+			return false;
+		}
+		if (exact == OVERFLOW) {
+			return false;
+		}
+		RoundingMode mode = rule.productRule(Long.signum(a.unscaled), Long.signum(b.unscaled));
+		if (mode == null) {
+			return false;
+		}
+		return roundToPrecision(exact, (int) exactScale, precision, mode, result);
+	}
+
+	/**
+	 * The quotient of two values rounded to the least precision, see SigFigMathUtil.sigFigDivide
+	 */
+	public static boolean divide(Fixed numerator, Fixed denominator, CustomRoundingRule rule, Fixed result) {
+		int precision = Math.min(precision(numerator.unscaled), precision(denominator.unscaled));
+		return divide(numerator, denominator, precision, rule, result);
+	}
+
+	/**
+	 * The quotient of two values rounded to the precision of the numerator, see SigFigMathUtil.sigFigDivideByExact
+	 */
+	public static boolean divideByExact(Fixed numerator, Fixed exactDenominator, CustomRoundingRule rule, Fixed result) {
+		return divide(numerator, exactDenominator, precision(numerator.unscaled), rule, result);
+	}
+
+	// The BigDecimal.divide(divisor, MathContext) rules: the quotient has exactly the given precision
+	// unless it is exact, then trailing zeros are removed down to the preferred scale of the difference of scales.
+	private static boolean divide(Fixed a, Fixed b, int precision, CustomRoundingRule rule, Fixed result) {
+		long n = a.unscaled, d = b.unscaled;
+		long preferredScale = (long) a.scale - b.scale;
+		if (d == 0 || rule == null || n == OVERFLOW || d == OVERFLOW
+				|| precision > MAX_DIGITS || preferredScale != (int) preferredScale) {
+			return false; // division by zero is left to BigDecimal to throw
+		}
+		if (n == 0) {
+			result.set(0, (int) preferredScale);
+			return true;
+		}
+		RoundingMode mode = rule.productRule(Long.signum(n), Long.signum(d));
+		if (mode == null) {
+			return false;
+		}
+		int  sign = Long.signum(n) * Long.signum(d);
+		long absN = Math.abs(n), absD = Math.abs(d);
+
+		// choose the power, k, so that absN * 10^k / absD has the given precision
+		int power = precision - 1 - (precision(absN) - precision(absD));
+		long quotient = 0, remainder = 0, divisor = absD;
+		for (int attempt=0; attempt<2; attempt++) {
+			long dividend = absN;
+			divisor = absD;
+			if (power >= 0) {
+				dividend = scaleUp(absN, power);
+			} else {
+				divisor  = scaleUp(absD, -power);
+			}
+			if (dividend == OVERFLOW || divisor == OVERFLOW) {
+				return false;
+			}
+			quotient  = dividend / divisor;
+			remainder = dividend % divisor;
+			if (quotient >= POWERS_OF_TEN[precision-1]) {
+				break;
+			}
+			power++;
+		}
+		if (quotient < POWERS_OF_TEN[precision-1]) {
+			return false; // not expected, the two attempts always span a digit
+		}
+		long scale = preferredScale + power;
+		if (remainder != 0) {
+			// round the signed quotient, the remainder against the divisor decides
+			long rounded = round(sign*quotient, sign, remainder, divisor, mode);
+			if (rounded == OVERFLOW) {
+				return false;
+			}
+			quotient = Math.abs(rounded);
+			if (quotient >= POWERS_OF_TEN[precision]) {
+				quotient /= 10; // the rounding carried into a new digit, 999 to 1000
+				scale--;
+			}
+		} else {
+			while (scale > preferredScale && quotient % 10 == 0) {
+				quotient /= 10;
+				scale--;
+			}
+		}
+		if (scale != (int) scale) {
+			return false;
+		}
+		result.set(sign*quotient, (int) scale);
+		return true;
+	}
+}
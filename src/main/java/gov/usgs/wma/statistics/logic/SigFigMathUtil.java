@@ -9,6 +9,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.usgs.wma.statistics.logic.SigFigFixedPoint.Fixed;
+
 /**
  * The purpose of this class is to provide a simplistic, consistent method to
  * add, subtract, multiply and divide BigDecimals in a manner that applies the
@@ -38,6 +40,14 @@ public class SigFigMathUtil {
     public static interface CustomRoundingRule {
     	RoundingMode valueRule(BigDecimal value);
     	RoundingMode productRule(BigDecimal a, BigDecimal b);
+    	// The fixed point arithmetic only has the sign of the value. A rule that depends on more than
+    	// the sign returns null and the BigDecimal arithmetic is used instead. See SigFigFixedPoint.
+    	default RoundingMode valueRule(int signum) {
+    		return null;
+    	}
+    	default RoundingMode productRule(int signumA, int signumB) {
+    		return null;
+    	}
     }
     
     // March 30 2017 - discovered that Java round negative values away from zero towards positive and negative infinity.
@@ -80,6 +90,14 @@ public class SigFigMathUtil {
         	}
         	return valueRule(sign);
     	}
+    	@Override
+    	public RoundingMode valueRule(int signum) {
+    		return signum >= 0 ?DEFAULT_ROUNDING_MODE_POSITIVE_VALUE :DEFAULT_ROUNDING_MODE_NEGATIVE_VALUE;
+    	}
+    	@Override
+    	public RoundingMode productRule(int signumA, int signumB) {
+    		return valueRule(signumA == signumB ?1 :-1);
+    	}
     }
         
     // July  30 2018 - Change of specification - they want the default Java behavior back.
@@ -97,6 +115,14 @@ public class SigFigMathUtil {
     	public RoundingMode productRule(BigDecimal a, BigDecimal b) {
     		return ROUNDING_MODE;
     	}
+    	@Override
+    	public RoundingMode valueRule(int signum) {
+    		return ROUNDING_MODE;
+    	}
+    	@Override
+    	public RoundingMode productRule(int signumA, int signumB) {
+    		return ROUNDING_MODE;
+    	}
     }
     
     /**
@@ -169,12 +195,7 @@ public class SigFigMathUtil {
             LOGGER.warn("BigDecimal arg was null.");
             return null;
         }
-
-        List<BigDecimal> bdList = new ArrayList<>(2);
-        bdList.add(augend);
-        bdList.add(addend);
-
-        return sigFigAdd(bdList);
+        return sigFigAdd(augend, addend, DEFAULT_ROUNDING_RULE);
     }
 
     /**
@@ -198,6 +219,10 @@ public class SigFigMathUtil {
             LOGGER.warn("RoundingMode arg was null. Did you mean to use the 2 arg method that applies the default rounding mode?");
             return null;
         }
+        BigDecimal sum = fixedPoint(SigFigFixedPoint::add, augend, addend, rm);
+        if (sum != null) {
+            return sum;
+        }
         List<BigDecimal> bdList = new ArrayList<>(2);
         bdList.add(augend);
         bdList.add(addend);
@@ -284,12 +309,7 @@ public class SigFigMathUtil {
             LOGGER.warn("BigDecimal arg was null. Can not determine scale.");
             return null;
         }
-
-        List<BigDecimal> bdList = new ArrayList<>(2);
-        bdList.add(minuend);
-        bdList.add(subtrahend);
-
-        return sigFigSubtract(bdList);
+        return sigFigSubtract(minuend, subtrahend, DEFAULT_ROUNDING_RULE);
     }
 
     /**
@@ -313,6 +333,10 @@ public class SigFigMathUtil {
             LOGGER.warn("RoundingMode arg was null. Did you mean to use the 2 arg method that applies the default rounding mode?");
             return null;
         }
+        BigDecimal difference = fixedPoint(SigFigFixedPoint::subtract, minuend, subtrahend, rm);
+        if (difference != null) {
+            return difference;
+        }
         List<BigDecimal> bdList = new ArrayList<>(2);
         bdList.add(minuend);
         bdList.add(subtrahend);
@@ -320,6 +344,28 @@ public class SigFigMathUtil {
         return sigFigSubtract(bdList, rm);
     }
 
+    /**
+     * One of the two value operations of SigFigFixedPoint.
+     */
+    private static interface FixedPointOperation {
+        boolean apply(Fixed a, Fixed b, CustomRoundingRule rm, Fixed result);
+    }
+
+    /**
+     * Performs the operation in fixed point when both values fit in a long.
+     *
+     * @return the result or null if the BigDecimal arithmetic must be used.
+     */
+    private static BigDecimal fixedPoint(FixedPointOperation operation, BigDecimal a, BigDecimal b, CustomRoundingRule rm) {
+        Fixed fixedA = new Fixed();
+        Fixed fixedB = new Fixed();
+        Fixed result = new Fixed();
+        if (fixedA.set(a) && fixedB.set(b) && operation.apply(fixedA, fixedB, rm, result)) {
+            return result.toBigDecimal();
+        }
+        return null;
+    }
+
     /**
      *
      * @param bdList List of BigDecimals that will determine which one has the
@@ -386,8 +432,11 @@ public class SigFigMathUtil {
             LOGGER.warn("RoundingMode arg was null. Did you mean to use the 2 arg method that applies the default rounding mode?");
             return null;
         }
+        BigDecimal product = fixedPoint(SigFigFixedPoint::multiply, multiplicand, multiplier, rm);
+        if (product != null) {
+            return product;
+        }
         BigDecimal leastPreciseBD = getLeastPrecise(multiplicand, multiplier);
-        BigDecimal product = null;
 
         MathContext mc = new MathContext(leastPreciseBD.precision(), rm.productRule(multiplicand, multiplier));
         product = multiplicand.multiply(multiplier, mc);
@@ -411,8 +460,12 @@ public class SigFigMathUtil {
             LOGGER.warn("RoundingMode arg was null. Did you mean to use the 2 arg method that applies the default rounding mode?");
             return null;
         }
+        BigDecimal product = fixedPoint(SigFigFixedPoint::multiplyByExact, multiplicand, exactMultiplier, rm);
+        if (product != null) {
+            return product;
+        }
         MathContext mc = new MathContext(multiplicand.precision(), rm.productRule(multiplicand, exactMultiplier));
-        BigDecimal product = multiplicand.multiply(exactMultiplier, mc);
+        product = multiplicand.multiply(exactMultiplier, mc);
 
         return product;
     }
@@ -470,7 +523,10 @@ public class SigFigMathUtil {
             return null;
         }
 
-        BigDecimal quotient = null;
+        BigDecimal quotient = fixedPoint(SigFigFixedPoint::divide, numerator, denominator, rm);
+        if (quotient != null) {
+            return quotient;
+        }
         BigDecimal leastPreciseBD = getLeastPrecise(numerator, denominator);
 
         MathContext mc = new MathContext(leastPreciseBD.precision(), rm.productRule(numerator, denominator));
@@ -514,8 +570,12 @@ public class SigFigMathUtil {
             return null;
         }
 
+        BigDecimal quotient = fixedPoint(SigFigFixedPoint::divideByExact, numerator, exactDenominator, rm);
+        if (quotient != null) {
+            return quotient;
+        }
         MathContext mc = new MathContext(numerator.precision(), rm.productRule(numerator, exactDenominator));
-        BigDecimal quotient = numerator.divide(exactDenominator, mc);
+        quotient = numerator.divide(exactDenominator, mc);
 
         return quotient;
     }
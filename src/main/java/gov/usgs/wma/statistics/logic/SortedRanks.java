@@ -0,0 +1,177 @@
+package gov.usgs.wma.statistics.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The ranks of samples sorted by value, found by binary search rather than a scan of the list.
+ * A new reading is ranked where an insert would put it, after the equal values, and it may be
+ * ranked as it would be in place of the sample of its year-month. That is the latest percentile,
+ * the latest sample ranked among the year medians of its month, without modifying the list.
+ *
+ * The list must be sorted in the given order and it is not modified, see replace(List, Comparator, S). The year-month index is
+ * made on the first replacement, the normalized month samples have one sample per year-month.
+ * Once the index is made the ranks may be shared by concurrent readers of an unchanging list.
+ */
+public class SortedRanks<S extends Value> {
+
+	private final List<S> samples;
+	private final Comparator<? super S> order;
+	// the first rank of each year-month
+	private volatile Map<String, Integer> yearMonths;
+
+	/**
+	 * @param sortedSamples the samples sorted in the given order
+	 * @param order the sort order of the samples
+	 */
+	public SortedRanks(List<S> sortedSamples, Comparator<? super S> order) {
+		this.samples = (sortedSamples instanceof RandomAccess) ?sortedSamples :new ArrayList<>(sortedSamples);
+		this.order   = order;
+	}
+
+	public int size() {
+		return samples.size();
+	}
+
+	public S get(int rank) {
+		return samples.get(rank);
+	}
+
+	/**
+	 * The same as List.indexOf for samples, which are equal only to themselves, but only the
+	 * samples of equal value are searched.
+	 * @param sample the sample to find
+	 * @return the rank of the sample instance or -1 if it is not one of the samples
+	 */
+	public int indexOf(S sample) {
+		for (int rank = lowerBound(sample); rank < samples.size(); rank++) {
+			S other = samples.get(rank);
+			if (other == sample) {
+				return rank;
+			}
+			if (order.compare(sample, other) != 0) {
+				break;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param reading a new reading
+	 * @return the rank the reading would have if it were added, after the samples of equal value
+	 */
+	public int rankOf(S reading) {
+		int low  = 0;
+		int high = samples.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (order.compare(reading, samples.get(mid)) < 0) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	// the rank of the first sample of equal value
+	private int lowerBound(S sample) {
+		int low  = 0;
+		int high = samples.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (order.compare(samples.get(mid), sample) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param reading a new reading
+	 * @return the rank of the first sample of the same year-month, YYYY-MM, or -1 if there is none
+	 */
+	public int rankOfYearMonth(S reading) {
+		Map<String, Integer> index = yearMonths;
+		if (index == null) {
+			// made whole before it is published, concurrent readers may each make one
+			index = new HashMap<>();
+			for (int rank=0; rank<samples.size(); rank++) {
+				index.putIfAbsent(yearMonth(samples.get(rank)), rank);
+			}
+			yearMonths = index;
+		}
+		Integer rank = index.get( yearMonth(reading) );
+		return (rank == null) ?-1 :rank;
+	}
+
+	private static String yearMonth(Value sample) {
+		return sample.getTime().substring(0, 7);
+	}
+
+	/**
+	 * The reading replaces the sample of its year-month, or it is added if there is none.
+	 * A reading that is already one of the samples is left in place.
+	 * @param reading a new reading
+	 * @return the rank of the reading once it replaces the sample of its year-month
+	 */
+	public int rankReplacing(S reading) {
+		int rank = indexOf(reading);
+		if (rank >= 0) {
+			return rank;
+		}
+		rank = rankOf(reading);
+		int replaced = rankOfYearMonth(reading);
+		if (replaced >= 0 && replaced < rank) {
+			rank--;
+		}
+		return rank;
+	}
+
+	/**
+	 * @param reading a new reading
+	 * @return the number of samples once the reading replaces the sample of its year-month
+	 */
+	public int sizeReplacing(S reading) {
+		if (indexOf(reading) >= 0 || rankOfYearMonth(reading) >= 0) {
+			return samples.size();
+		}
+		return samples.size() + 1;
+	}
+
+	/**
+	 * Replaces the sample of the reading year-month with the reading, or adds it if there is none, at
+	 * its rankReplacing. The samples between the two ranks move one place rather than the list removing
+	 * one sample and inserting another. A reading that is already one of the samples is left in place.
+	 * @param sortedSamples the samples sorted in the given order, they are modified
+	 * @param order the sort order of the samples
+	 * @param reading a new reading
+	 */
+	public static <S extends Value> void replace(List<S> sortedSamples, Comparator<? super S> order, S reading) {
+		SortedRanks<S> ranks = new SortedRanks<>(sortedSamples, order);
+		if (ranks.indexOf(reading) >= 0) {
+			return;
+		}
+		int rank     = ranks.rankReplacing(reading);
+		int replaced = ranks.rankOfYearMonth(reading);
+		if (replaced < 0) {
+			sortedSamples.add(rank, reading);
+			return;
+		}
+		if (replaced < rank) {
+			Collections.rotate(sortedSamples.subList(replaced, rank+1), -1);
+		} else if (replaced > rank) {
+			Collections.rotate(sortedSamples.subList(rank, replaced+1), 1);
+		}
+		sortedSamples.set(rank, reading);
+	}
+}
@@ -0,0 +1,122 @@
+package gov.usgs.wma.statistics.logic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import gov.usgs.wma.statistics.model.Value;
+
+/**
+ * The values of a list made of sorted runs, by rank, without copying or sorting the list. The
+ * runs are found in a single pass and merged, k-way with a heap of the run heads, only as far as
+ * the highest rank asked for. The intermediate values are the month medians appended month after
+ * month, each month already sorted, so their median is a merge of half of them.
+ *
+ * Equal values are ranked by their position in the list, the order a stable sort would leave
+ * them in, so the value of a rank is the same instance a sorted copy would have there. This
+ * matters because equal values may have different significant figures, 1.0 and 1.00.
+ */
+public class SortedRuns<S extends Value> {
+
+	private final List<S> values;
+	private final Comparator<? super S> order;
+	// the start of each run and the next value of each run to merge
+	private final int[] start;
+	private final int[] end;
+	private final int[] next;
+	// the runs with values left to merge, a heap ordered by the next value of each run
+	private final int[] heap;
+	private int heapSize;
+	private final List<S> merged;
+
+	/**
+	 * @param values the values, any list is correct but the fewer the runs the less the merge costs
+	 * @param order the sort order, the same order the runs are sorted in
+	 */
+	public SortedRuns(List<S> values, Comparator<? super S> order) {
+		this.values = (values instanceof RandomAccess) ?values :new ArrayList<>(values);
+		this.order  = order;
+
+		List<Integer> starts = new ArrayList<>();
+		for (int v=0; v<this.values.size(); v++) {
+			if (v == 0 || order.compare(this.values.get(v-1), this.values.get(v)) > 0) {
+				starts.add(v);
+			}
+		}
+		int runs = starts.size();
+		start = new int[runs];
+		end   = new int[runs];
+		next  = new int[runs];
+		heap  = new int[runs];
+		for (int r=0; r<runs; r++) {
+			start[r] = starts.get(r);
+			end[r]   = (r+1 < runs) ?starts.get(r+1) :this.values.size();
+			next[r]  = start[r];
+			heap[r]  = r;
+		}
+		// the run heads are in run order, a valid heap needs sifting
+		heapSize = runs;
+		for (int h=heapSize/2-1; h>=0; h--) {
+			siftDown(h);
+		}
+		merged = new ArrayList<>();
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	/**
+	 * @return the number of sorted runs found
+	 */
+	public int runs() {
+		return start.length;
+	}
+
+	/**
+	 * @param rank the zero based rank in the sort order
+	 * @return the value of the given rank
+	 */
+	public S get(int rank) {
+		if (rank < 0 || rank >= values.size()) {
+			throw new IndexOutOfBoundsException("rank " + rank + " of " + values.size());
+		}
+		while (merged.size() <= rank) {
+			int run = heap[0];
+			merged.add( values.get(next[run]++) );
+			if (next[run] == end[run]) {
+				heap[0] = heap[--heapSize];
+			}
+			siftDown(0);
+		}
+		return merged.get(rank);
+	}
+
+	private void siftDown(int h) {
+		while (true) {
+			int first = h;
+			int left  = 2*h+1;
+			int right = left+1;
+			if (left < heapSize && isBefore(heap[left], heap[first])) {
+				first = left;
+			}
+			if (right < heapSize && isBefore(heap[right], heap[first])) {
+				first = right;
+			}
+			if (first == h) {
+				return;
+			}
+			int run = heap[h];
+			heap[h] = heap[first];
+			heap[first] = run;
+			h = first;
+		}
+	}
+
+	// the run with the lower next value, or for equal values the earlier run, is merged first
+	private boolean isBefore(int run, int other) {
+		int compare = order.compare(values.get(next[run]), values.get(next[other]));
+		return compare < 0 || (compare == 0 && run < other);
+	}
+}
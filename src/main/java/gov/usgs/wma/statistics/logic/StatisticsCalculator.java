@@ -10,17 +10,21 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.text.DateFormatSymbols;
-import java.text.ParseException;
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +34,8 @@ import gov.usgs.ngwmn.model.Specifier;
 import gov.usgs.wma.statistics.app.Properties;
 import gov.usgs.wma.statistics.model.JsonData;
 import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.SampleDate;
+import gov.usgs.wma.statistics.model.SampleSeries;
 import gov.usgs.wma.statistics.model.Value;
 
 /**
@@ -46,8 +52,6 @@ public class StatisticsCalculator<S extends Value> {
 	public static final BigDecimal MEDIAN_PERCENTILE = new BigDecimal("0.500000000");
 	//protected static final BigDecimal HUNDRED = new BigDecimal("100");
 	protected static final BigDecimal TWELVE  = new BigDecimal("12");
-	// Calendar returns millis for days and after a diff we need the number of days
-	protected static final long MILLISECONDS_PER_DAY = 1000 * 60 * 60 * 24;// ms * sec * min * hr == ms/day
 
 	private static final String[] MONTH_NAMES = new DateFormatSymbols().getMonths();
 
@@ -94,10 +98,28 @@ public class StatisticsCalculator<S extends Value> {
 		removeNulls(samples, spec.getAgencyCd()+":"+spec.getSiteNo());
 		removeProvisional(samples, spec.toString());
 		checkAllDates(samples);
-		sortByDateOrder(samples); // ensure date order
+		sortByDate(samples); // ensure date order
 		return samples;
 	}
 	
+	/**
+	 * The conditioning date sort, the order of sortByDateOrder. The samples are sorted on the epoch days
+	 * of a SampleSeries, see SampleSeries.sortByDate(List), and by the List sort when they cannot be.
+	 * @param samples the samples to sort in place
+	 */
+	protected void sortByDate(List<S> samples) {
+		SampleSeries series = SampleSeries.of(samples);
+		if (series == null || ! series.sortByDate(samples)) {
+			sortByDateOrder(samples);
+			return;
+		}
+		ListIterator<S> sorted = samples.listIterator();
+		for (S sample : series.toList(samples)) {
+			sorted.next();
+			sorted.set(sample);
+		}
+	}
+	
 	
 	public void checkAllDates(List<S> samples) {
 
@@ -146,10 +168,22 @@ public class StatisticsCalculator<S extends Value> {
 			return BigDecimal.ZERO;
 		}
 		BigDecimal sampleValue = valueOf.apply(sample);
-		
+		return percentileOfRank(samples.indexOf(sample), samples.size(), sampleValue);
+	}
+	/**
+	 * This returns the percentile of a given rank, see SortedRanks for ranks without a List scan.
+	 * @param rank the zero based rank of the sample in value order, -1 for a sample not ranked
+	 * @param count the number of samples ranked
+	 * @param sampleValue the value of the sample, its precision is the precision of the percentile
+	 * @return percentile fraction. 50th percentile would  return 0.50
+	 */
+	public static BigDecimal percentileOfRank(int rank, int count, BigDecimal sampleValue) {
+		if (count == 0 || sampleValue == null) {
+			return BigDecimal.ZERO;
+		}
 		// add one because of java zero based index vs the one based index of mathematics
-		BigDecimal index = new BigDecimal( samples.indexOf(sample) + 1 );
-		BigDecimal n     = new BigDecimal(samples.size());
+		BigDecimal index = new BigDecimal( rank + 1 );
+		BigDecimal n     = new BigDecimal(count);
 		BigDecimal n1    = n.add(BigDecimal.ONE);
 		BigDecimal n1inv = BigDecimal.ONE.divide(n1, 10, RoundingMode.HALF_EVEN);
 
@@ -189,10 +223,50 @@ public class StatisticsCalculator<S extends Value> {
 	 */
 	public BigDecimal valueOfPercentile(List<S> samples, BigDecimal percentileAsFraction, int precision,
 			Function<S, BigDecimal> valueOf) {
+		// samples are required (no null nor zero sample count)
+		if (samples == null) {
+			return BigDecimal.ZERO; //- TODO is this the behavior we want? - returning 0
+		}
+		return valueOfPercentile(samples.size(), percentileAsFraction, index -> valueOf.apply(samples.get(index)));
+	}
+	/**
+	 * This returns the interpolated sample value of a given percentile of a columnar series.
+	 * It is the same calculation as the List of samples.
+	 * @param samples the series ordered by the value
+	 * @param percentileAsFraction a value between 0 and 1 inclusive for the fractional percent to compute. 50% is .5
+	 * @return the interpolated value of the requested percentile
+	 */
+	public static BigDecimal valueOfPercentile(SampleSeries samples, BigDecimal percentileAsFraction) {
+		if (samples == null) {
+			return BigDecimal.ZERO;
+		}
+		return valueOfPercentile(samples.size(), percentileAsFraction, samples::value);
+	}
+	/**
+	 * This returns the interpolated sample value of a given percentile of sorted runs of values.
+	 * Only the runs up to the ranks needed are merged. It is the same calculation as the values
+	 * sorted with a stable sort.
+	 * @param samples the values in sorted runs
+	 * @param percentileAsFraction a value between 0 and 1 inclusive for the fractional percent to compute. 50% is .5
+	 * @return the interpolated value of the requested percentile
+	 */
+	public static BigDecimal valueOfPercentile(SortedRuns<?> samples, BigDecimal percentileAsFraction) {
+		if (samples == null) {
+			return BigDecimal.ZERO;
+		}
+		return valueOfPercentile(samples.size(), percentileAsFraction, rank -> samples.get(rank).value);
+	}
+	/**
+	 * The percentile calculation shared by all sample stores.
+	 * @param count the number of ordered values
+	 * @param percentileAsFraction a value between 0 and 1 inclusive for the fractional percent to compute.
+	 * @param valueAt the value at the given zero based index in value order
+	 * @return the interpolated value of the requested percentile
+	 */
+	public static BigDecimal valueOfPercentile(int count, BigDecimal percentileAsFraction, IntFunction<BigDecimal> valueAt) {
 		
 		// protection from null and ranges
-		if (   samples == null                                          // samples are required (no null nor zero sample count)
-			|| samples.size()==0                                        // avoid ArrayIndexOutOfBoundsException
+		if (   count==0                                                 // avoid ArrayIndexOutOfBoundsException
 			// proper fraction range
 			|| percentileAsFraction == null                             // percentile  avoid NullPointerException
 			|| percentileAsFraction.compareTo(BigDecimal.ZERO) < 0      // less than 0% is undefined
@@ -201,31 +275,30 @@ public class StatisticsCalculator<S extends Value> {
 		}
 		
 		// total records, n, n+1, and its inverse, 1/(n+1)
-		BigDecimal n     = new BigDecimal(samples.size());              // the number of records
+		BigDecimal n     = new BigDecimal(count);                       // the number of records
 		BigDecimal n1    = n.add(BigDecimal.ONE);                       // one more than the number of records
 		BigDecimal n1inv = BigDecimal.ONE.divide(n1, 10, RoundingMode.HALF_UP); // 1/(n+1) presume 10 digits
 
 		// manage boundary condition near   0 percentile
 		if (percentileAsFraction.compareTo(n1inv) <= 0 ) {
-			return valueOf.apply(samples.get(0));
+			return valueAt.apply(0);
 		}
 		// manage boundary condition near 100 percentile
 		if (percentileAsFraction.compareTo(n.multiply(n1inv)) >= 0) {
-			return valueOf.apply(samples.get( samples.size()-1 ));
+			return valueAt.apply( count-1 );
 		}
 		
 		// pct float index, p, and its parts. the int index, k, and the decimal fraction, d.
 		BigDecimal p     = percentileAsFraction.multiply(n1);           // raw index to be used with faction
 		BigDecimal k     = new BigDecimal( p.intValue() );              // the integer index value
+		BigDecimal d     = p.subtract(k);                               // the decimal index value (or fraction between two indexes)
 		
 		// Y[k] and Y[k+1] (but java is zero based indexing thus k-1 and k)
-		BigDecimal yk    = valueOf.apply(samples.get(k.intValue()-1));  // first index value
-		BigDecimal yk1   = valueOf.apply(samples.get(k.intValue()));    // second index value
+		BigDecimal yk    = valueAt.apply(k.intValue()-1);               // first index value
+		BigDecimal yk1   = valueAt.apply(k.intValue());                 // second index value
 		
 		// percentile calculation Y(p) = Y[k] + d(Y[k+1] - Y[k])
 		BigDecimal diff  = sigFigSubtract(yk1, yk);                     // delta between the two values
-		
-		BigDecimal d     = p.subtract(k);                               // the decimal index value (or fraction between two indexes)
 		BigDecimal delta = sigFigMultiply(diff, d);                     // the fraction of the difference of two values k and k+1
 		BigDecimal yp    = sigFigAdd(yk, delta);                        // and finally, the percentile value 
 		return yp;
@@ -235,13 +308,29 @@ public class StatisticsCalculator<S extends Value> {
 		return valueOfPercentile(samples, percentileAsFraction, percentileAsFraction.precision(), valueOf);
 	}
 	/**
+	 * The values are read from the ordered samples once for all the percentiles, into a SampleSeries
+	 * when they fit one. The samples are often a LinkedList and each percentile would otherwise walk
+	 * it for every value.
 	 * @param samples for a given sample set in order 
 	 * @return map of 10th 25th 50th 75th and 90th percentiles for the given list
 	 */
 	protected JsonDataBuilder generatePercentiles(List<S> samples, Map<String, BigDecimal> percentiles) {
+		SampleSeries series = SampleSeries.of(samples);
+		if (series != null) {
+			for(String percentile : percentiles.keySet()) {
+				BigDecimal pctValue = valueOfPercentile(series, percentiles.get(percentile));
+				builder.putPercentile(percentile, pctValue.toString());
+			}
+			return builder;
+		}
+		BigDecimal[] values = new BigDecimal[samples.size()];
+		int s = 0;
+		for (S sample : samples) {
+			values[s++] = Value.valueOf(sample);
+		}
 		for(String percentile : percentiles.keySet()) {
 			BigDecimal pct = percentiles.get(percentile);
-			BigDecimal pctValue = valueOfPercentile(samples, pct, Value::valueOf);
+			BigDecimal pctValue = valueOfPercentile(values.length, pct, index -> values[index]);
 			builder.putPercentile(percentile, pctValue.toString());
 		}
 		return builder;
@@ -281,58 +370,103 @@ public class StatisticsCalculator<S extends Value> {
 	 * @param mySiteId for logging purposes if there are nulls removed to ID the site with nulls
 	 */
 	protected void removeProvisional(List<S> samples, String mySiteId) {
-		List<S> provisionalSamples = new LinkedList<>();
+		removeProvisional(samples, mySiteId, false);
+	}
+	/**
+	 * This removes provisional value samples from a collection of samples in a single pass.
+	 * @param samples the samples to examine in temporal order
+	 * @param mySiteId for logging purposes if there are nulls removed to ID the site with nulls
+	 * @param retainLast when true the last sample is kept even if it is provisional; however, it is still counted
+	 */
+	protected void removeProvisional(List<S> samples, String mySiteId, boolean retainLast) {
+		int count = 0;
+		int last  = samples.size()-1;
+		BitSet keep = new BitSet(samples.size());
 		
-		for (int s=0; s<samples.size(); s++) {
-			S sample = samples.get(s);
+		int s = 0;
+		for (S sample : samples) {
 			if ( sample == null || sample.isProvisional()) {
-				provisionalSamples.add(sample);
+				count++;
+				if (retainLast && s == last && sample != null) {
+					keep.set(s);
+				}
+			} else {
+				keep.set(s);
 			}
+			s++;
 		}
-		samples.removeAll(provisionalSamples);
+		retainByMask(samples, keep);
 		
-		if (provisionalSamples.size() > 0) {
-			int count = provisionalSamples.size();
+		if (count > 0) {
 			String msg = env.getMessage(ENV_MESSAGE_OMIT_PROVISIONAL, count, count==1?"":"s");
 			builder.message(msg);
 		}
 	}
 	
 	/**
-	 * This removes null value samples from a collection of samples.
+	 * This removes null value samples from a collection of samples in a single pass.
 	 * @param samples the samples to examine
 	 * @param mySiteId for logging purposes if there are nulls removed to ID the site with nulls
 	 */
 	public void removeNulls(List<S> samples, String mySiteId) {
-		List<S> nullSamples = new LinkedList<>();
+		int nullCount = 0;
+		BitSet keep = new BitSet(samples.size());
+		String sep = "";
+		StringBuilder rows = new StringBuilder();
 		
+		int row = 0;
 		for (S sample : samples) {
+			row++;
 			// TODO decide on actual rules and understand why there are nulls
 			// actually, I now think that the DAO filters out nulls 
 			if (sample == null || sample.value==null || sample.time==null) {
-				nullSamples.add(sample);
+				nullCount++;
+				rows.append(sep).append(row);
+				sep = ", ";
+			} else {
+				keep.set(row-1);
 			}
 		}
 		
-		if (nullSamples.size() > 0) {
-			String plural = nullSamples.size()!=1 ?"s" :"";
-			// tried to use Java Streams but did not compile
-			String sep = "";
-			StringBuilder buff = new StringBuilder();
-			for (S sample: nullSamples) {
-				buff.append(sep).append(""+(samples.indexOf(sample)+1));
-				sep = ", ";
-			}
-			String msg = env.getMessage(ENV_MESSAGE_OMIT_NULL, nullSamples.size(), plural, plural, buff.toString());
+		if (nullCount > 0) {
+			String plural = nullCount!=1 ?"s" :"";
+			String msg = env.getMessage(ENV_MESSAGE_OMIT_NULL, nullCount, plural, plural, rows.toString());
 			builder.message(msg);
+			retainByMask(samples, keep);
+		}
+	}
+	
+	/**
+	 * Compacts the list in place retaining only the elements with their index set in the mask.
+	 * This is linear for both random access and linked lists, unlike removeAll.
+	 * @param samples the list to compact, its relative order is unchanged
+	 * @param keep the mask of indexes to retain
+	 */
+	public static <T> void retainByMask(List<T> samples, BitSet keep) {
+		int size = samples.size();
+		if (keep.nextClearBit(0) >= size) {
+			return; // nothing to remove
+		}
+		if (samples instanceof RandomAccess) {
+			int kept = 0;
+			for (int s = keep.nextSetBit(0); s >= 0 && s < size; s = keep.nextSetBit(s+1)) {
+				samples.set(kept++, samples.get(s));
+			}
+			samples.subList(kept, size).clear();
+		} else {
+			int s = 0;
+			for (Iterator<T> iter = samples.iterator(); iter.hasNext(); s++) {
+				iter.next();
+				if ( ! keep.get(s) ) {
+					iter.remove();
+				}
+			}
 		}
-		
-		samples.removeAll(nullSamples);
 	}
 	
 	
 	public static String today() {
-		return DATE_FORMAT_FULL.format(new Date());
+		return SampleDate.today();
 	}
 	
 	public static <V extends Value> void sortByDateOrder(List<V> samples) {
@@ -350,11 +484,22 @@ public class StatisticsCalculator<S extends Value> {
 
 	
 	// This method must be overridden by subclasses that do not use Value for samples
-	@SuppressWarnings("unchecked")
 	protected S makeMedian(List<S> samples) {
+		return makeMedian(samples, rank -> rank);
+	}
+	/**
+	 * The median of the samples as makeMedian makes it of them in the order of the given ranks.
+	 * @param samples the samples, they are not reordered
+	 * @param indexOf the index in the samples of a given rank, see OrderStatistics.indexOf(int)
+	 * @return a new sample of the median value with the time of the middle rank
+	 */
+	@SuppressWarnings("unchecked")
+	protected S makeMedian(List<S> samples, IntUnaryOperator indexOf) {
+		List<S> list = (samples instanceof RandomAccess) ?samples :new ArrayList<>(samples);
 		// years median in the this month
-		BigDecimal median = valueOfPercentile(samples, MEDIAN_PERCENTILE, Value::valueOf);
-		S base = samples.get( (int)(samples.size()/2) );
+		BigDecimal median = valueOfPercentile(list.size(), MEDIAN_PERCENTILE,
+				rank -> Value.valueOf( list.get(indexOf.applyAsInt(rank)) ));
+		S base = list.get( indexOf.applyAsInt(list.size()/2) );
 		Value medianSample = new Value(base.time, median);
 		return (S)medianSample;
 	}
@@ -375,39 +520,36 @@ public class StatisticsCalculator<S extends Value> {
 	}
 	
 	public static BigDecimal yearDiff(String maxDate, String minDate) {
-		BigDecimal diff = new BigDecimal(yearUTC(maxDate))
-				.subtract( new BigDecimal(yearUTC(minDate)) )
-				.add( new BigDecimal(monthUTC(maxDate))
-						.subtract(new BigDecimal(monthUTC(minDate)))
-						.divide(TWELVE, 1, RoundingMode.HALF_EVEN)
-					);
+		int years  = Integer.parseInt(yearUTC(maxDate))  - Integer.parseInt(yearUTC(minDate));
+		int months = Integer.parseInt(monthUTC(maxDate)) - Integer.parseInt(monthUTC(minDate));
+		BigDecimal diff = BigDecimal.valueOf(years)
+				.add( BigDecimal.valueOf(months).divide(TWELVE, 1, RoundingMode.HALF_EVEN) );
 		return diff;
 	}
 	
 	
+	/**
+	 * The whole calendar days between two YYYY-MM-DD dates, any time of day is ignored.
+	 */
 	public static BigDecimal daysDiff(String maxDate, String minDate) {
-		
-		BigDecimal days  = BigDecimal.ZERO;
-		try {
-			Date begin   = DATE_FORMAT_FULL.parse(minDate);
-			Date end     = DATE_FORMAT_FULL.parse(maxDate);
-			
-			Calendar cal = Calendar.getInstance();
-
-			cal.setTime(begin);
-			long start   = cal.getTimeInMillis();
-			
-			cal.setTime(end);
-			long stop    = cal.getTimeInMillis();
-			
-			long diff    = stop - start;
-			days         = new BigDecimal ( diff/MILLISECONDS_PER_DAY ); 
-			
-		} catch (ParseException e) {
-			throw new IllegalArgumentException("Bad dates: '" + minDate + "' or '" + maxDate +"'");
+		return daysDiff(new Value(maxDate, BigDecimal.ZERO), new Value(minDate, BigDecimal.ZERO));
+	}
+	/**
+	 * The whole calendar days between the dates of two samples, any time of day is ignored.
+	 * The date each sample has already parsed is used rather than parsing its time again.
+	 */
+	public static BigDecimal daysDiff(Value maxSample, Value minSample) {
+		long start = epochDay(minSample);
+		long stop  = epochDay(maxSample);
+		if (start == SampleDate.NO_DATE || stop == SampleDate.NO_DATE) {
+			throw new IllegalArgumentException("Bad dates: '" + minSample.time + "' or '" + maxSample.time +"'");
 		}
-		
-		return days;
+		return BigDecimal.valueOf(stop - start);
+	}
+	// a date that is not a full date, like month 13, rolls over as the lenient SimpleDateFormat did
+	private static long epochDay(Value sample) {
+		SampleDate date = sample.date();
+		return date.isFullDate() ?date.epochDay() :SampleDate.lenientEpochDay(sample.time);
 	}
 	
 	/**
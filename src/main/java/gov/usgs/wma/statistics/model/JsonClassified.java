@@ -0,0 +1,61 @@
+package gov.usgs.wma.statistics.model;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.annotations.ApiModel;
+
+/**
+ * New readings ranked in the historical distribution of their month at a site.
+ * {
+ *	"readings": [
+ *	  {"DATE": "2018-06-10", "VALUE": "11.000", "PCTILE": "31.250", "RECORD_YEARS": "15"}
+ *	],
+ *	"errors": []
+ * }
+ * The PCTILE is null when the site has no samples in the month of the reading.
+ */
+@ApiModel
+public class JsonClassified {
+
+	public static class JsonReading {
+		@JsonProperty("DATE")
+		public final String date;
+		@JsonProperty("VALUE")
+		public final String value;
+		@JsonProperty("PCTILE")
+		public final String percentile;
+		@JsonProperty("RECORD_YEARS")
+		public final String recordYears; // the years in the distribution of the month
+
+		public JsonReading(String date, String value, String percentile, String recordYears) {
+			this.date        = date;
+			this.value       = value;
+			this.percentile  = percentile;
+			this.recordYears = recordYears;
+		}
+	}
+
+	@JsonProperty
+	List<JsonReading> readings = new LinkedList<>();
+	@JsonProperty
+	List<String> errors = new LinkedList<>();
+
+	public List<JsonReading> getReadings() {
+		return readings;
+	}
+	public void addReading(JsonReading reading) {
+		readings.add(reading);
+	}
+	public List<String> getErrors() {
+		return errors;
+	}
+	public void addErrors(List<String> msgs) {
+		errors.addAll(msgs);
+	}
+	public boolean isOk() {
+		return errors.isEmpty();
+	}
+}
@@ -26,15 +26,27 @@ public class JsonData {
 	public JsonOverall getOverall() {
 		return overall;
 	}
+	public void setOverall(JsonOverall overall) {
+		this.overall = overall;
+	}
 	public Map<String, JsonMonthly> getMonthly() {
 		return monthly;
 	}
+	public void putMonthly(String month, JsonMonthly stats) {
+		monthly.put(month, stats);
+	}
 	public boolean hasMonthly() {
 		return ! monthly.isEmpty();
 	}
 	public String getMedians() {
 		return medians;
 	}
+	public List<String> getMessages() {
+		return messages;
+	}
+	public List<String> getErrors() {
+		return errors;
+	}
 	public void addMessage(String msg) {
 		messages.add(msg);
 	}
@@ -53,4 +65,18 @@ public class JsonData {
 	public boolean hasErrors() {
 		return ! isOk();
 	}
+	
+	/**
+	 * A copy that can be changed without changing this. The overall and monthly statistics
+	 * are immutable and are shared, the monthly map and the message lists are copied.
+	 */
+	public JsonData copy() {
+		JsonData copy = new JsonData();
+		copy.overall = overall;
+		copy.monthly.putAll(monthly);
+		copy.medians = medians;
+		copy.messages.addAll(messages);
+		copy.errors.addAll(errors);
+		return copy;
+	}
 }
@@ -4,12 +4,11 @@ import static gov.usgs.wma.statistics.app.Properties.*;
 import static gov.usgs.wma.statistics.model.Value.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,6 +37,7 @@ public class JsonDataBuilder {
 	public static final String P50_MAX       = "P50_MAX";
 	public static final String RECORD_YEARS  = "RECORD_YEARS";
 	public static final String SAMPLE_COUNT  = "SAMPLE_COUNT";
+	public static final String RANK_ERROR    = "RANK_ERROR";
 
 	// default percentiles
 	public static final String P10           = "10";
@@ -67,7 +67,7 @@ public class JsonDataBuilder {
 	 * This is a collection of all the normalized values.
 	 * Is used for the overall percentile value.
 	 */
-	List<Value> intermediateValuesList = new LinkedList<>();
+	List<Value> intermediateValuesList = new ArrayList<>();
 	/*
 	 * The string of all intermediate values to return to the requester.
 	 */
@@ -151,6 +151,11 @@ public class JsonDataBuilder {
 		return this;
 	}
 	
+	public JsonDataBuilder rankError(String value) {
+		values.put(RANK_ERROR, value);
+		return this;
+	}
+	
 	public JsonDataBuilder month(String value) {
 		try {
 			int intValue = Integer.parseInt(value);
@@ -259,14 +264,14 @@ public class JsonDataBuilder {
 	}
 
 	private JsonDataBuilder buildOverall(String recordYears, int sampleCount) {
-		this.values.put(CALC_DATE, DATE_FORMAT_FULL.format(new Date()));
+		this.values.put(CALC_DATE, SampleDate.today());
 		this.values.put(MEDIATION, mediation.toString());
 		
 		jsonData.overall = new JsonOverall(recordYears, sampleCount,
 				values.get(LATEST_PCTILE), values.get(LATEST_VALUE), 
 				values.get(MAX_VALUE), values.get(MEDIAN), values.get(MIN_VALUE),
 				values.get(CALC_DATE), values.get(MAX_DATE), values.get(MIN_DATE), 
-				mediation);
+				mediation, values.get(RANK_ERROR));
 
 		return this;
 	}
@@ -276,7 +281,7 @@ public class JsonDataBuilder {
 				jo.latestPercentile, jo.latestValue, jo.valueMax, 
 				newMedian, 
 				jo.valueMin, jo.dateCalc, jo.dateMax, jo.dateMin, 
-				mediation);
+				mediation, jo.rankError);
 		
 		jsonData.overall = overall;
 		return this;
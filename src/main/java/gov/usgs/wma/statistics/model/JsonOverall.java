@@ -1,5 +1,6 @@
 package gov.usgs.wma.statistics.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import gov.usgs.ngwmn.model.MediationType;
@@ -43,10 +44,23 @@ public class JsonOverall extends JsonStats {
 	
 	@JsonProperty("MEDIATION")
 	MediationType mediation;
+	
+	/**
+	 * The normalized rank error bound of approximate statistics, only present when they are approximate.
+	 */
+	@JsonProperty("RANK_ERROR")
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public final String rankError;
 
 	public JsonOverall(String recordYears, int sampleCount, String latestPercentile, String latestValue, String valueMax,
 			String valueMedian, String valueMin, String dateCalc, String dateMax, String dateMin,
 			MediationType mediation) {
+		this(recordYears, sampleCount, latestPercentile, latestValue, valueMax, valueMedian, valueMin,
+				dateCalc, dateMax, dateMin, mediation, null);
+	}
+	public JsonOverall(String recordYears, int sampleCount, String latestPercentile, String latestValue, String valueMax,
+			String valueMedian, String valueMin, String dateCalc, String dateMax, String dateMin,
+			MediationType mediation, String rankError) {
 		super(recordYears, sampleCount);
 		this.latestPercentile = latestPercentile;
 		this.latestValue = latestValue;
@@ -57,6 +71,11 @@ public class JsonOverall extends JsonStats {
 		this.dateMax = dateMax;
 		this.dateMin = dateMin;
 		this.mediation = mediation;
+		this.rankError = rankError;
+	}
+	
+	public MediationType getMediation() {
+		return mediation;
 	}
 	
 	
@@ -0,0 +1,152 @@
+package gov.usgs.wma.statistics.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A single pass index of samples into the twelve calendar months and, within each month,
+ * into the years with samples for that month. The samples retain the order of the list
+ * the index is built from, so an index of a date ordered list has date ordered months and
+ * an index of a value ordered list has value ordered months.
+ *
+ * The monthly statistics visit each month once and the latest percentile only needs the
+ * latest month. Rather than filter the entire series for each month, and then again by year,
+ * the index is built once and shared.
+ */
+public class MonthlyBuckets<S extends Value> {
+
+	private final List<List<S>> months;
+	private final List<Map<String, List<S>>> years;
+
+	/**
+	 * @param samples the samples to index. Samples without a YYYY-MM month are not indexed.
+	 */
+	public MonthlyBuckets(List<S> samples) {
+		months = new ArrayList<>(12);
+		years  = new ArrayList<>(12);
+		for (int m=1; m<=12; m++) {
+			months.add(new ArrayList<>());
+			years.add(new HashMap<>());
+		}
+		if (samples != null) {
+			for (S sample : samples) {
+				int month = monthOf(sample);
+				if (month > 0) {
+					months.get(month-1).add(sample);
+				}
+			}
+		}
+		for (int m=1; m<=12; m++) {
+			indexYears(m);
+		}
+	}
+
+	/**
+	 * @param sample the sample to inspect
+	 * @return the month number 1 to 12 from the sample time, YYYY-MM, or zero if there is no such month
+	 */
+	public static int monthOf(Value sample) {
+		if (sample == null) {
+			return 0;
+		}
+		return sample.date().month();
+	}
+
+	// the year map is a new HashMap like StatisticsCalculator.sortSamplesByYear so it iterates years the same way,
+	// a cleared map keeps its capacity and could iterate them in another order
+	private void indexYears(int month) {
+		Map<String, List<S>> yearSamples = new HashMap<>();
+		years.set(month-1, yearSamples);
+		for (S sample : months.get(month-1)) {
+			String year = Value.yearUTC(sample.time);
+			List<S> samples = yearSamples.get(year);
+			if (samples == null) {
+				samples = new ArrayList<>();
+				yearSamples.put(year, samples);
+			}
+			samples.add(sample);
+		}
+	}
+
+	public boolean isEmpty() {
+		for (List<S> month : months) {
+			if ( ! month.isEmpty() ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return a new list of the month samples that the caller may modify
+	 */
+	public List<S> month(int month) {
+		return new ArrayList<>( months.get(month-1) );
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the number of samples in the given month
+	 */
+	public int size(int month) {
+		return months.get(month-1).size();
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the month samples by year, this is a read only view
+	 */
+	public Map<String, List<S>> years(int month) {
+		return Collections.unmodifiableMap( years.get(month-1) );
+	}
+
+	/**
+	 * @param month the month number 1 to 12
+	 * @return the number of unique years with samples in the given month
+	 */
+	public int yearCount(int month) {
+		return years.get(month-1).size();
+	}
+
+	/**
+	 * Removes the given sample instance from the index.
+	 * It searches from the end of the month because the sample removed is typically the most recent.
+	 * @param sample the sample instance to remove
+	 * @return true if the sample was indexed and is now removed
+	 */
+	public boolean remove(S sample) {
+		int month = monthOf(sample);
+		if (month == 0) {
+			return false;
+		}
+		List<S> monthSamples = months.get(month-1);
+		for (int s=monthSamples.size()-1; s>=0; s--) {
+			if (monthSamples.get(s) == sample) {
+				monthSamples.remove(s);
+				indexYears(month);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Reorders each month, and its years, with the given sort. When the sort is stable and the index
+	 * was built from a date ordered list then each month is in the same order as a filter of the
+	 * entire series sorted by value.
+	 * @param sortBy the sort to apply to each month, see MonthlyStatistics.sortFunctionByQualifier()
+	 * @return this index for chaining
+	 */
+	public MonthlyBuckets<S> sortEachMonth(Function<List<S>, List<S>> sortBy) {
+		for (int m=1; m<=12; m++) {
+			months.set(m-1, new ArrayList<>( sortBy.apply(months.get(m-1)) ));
+			indexYears(m);
+		}
+		return this;
+	}
+}
@@ -0,0 +1,293 @@
+package gov.usgs.wma.statistics.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A mergeable quantile sketch of samples in value order, the KLL sketch of Karnin, Lang, and Liberty.
+ * It retains at most about three times k samples however many are added, so the percentiles of a
+ * very long series can be estimated in constant memory. The rank of any sample estimated from the
+ * sketch is within {@link #rankError()} of its true rank as a fraction of the count.
+ *
+ * The samples are held in levels, a sample at level h stands for 2^h samples. When the sketch is full
+ * the lowest level over its capacity is sorted and every other sample, from a random first one, is
+ * promoted to the next level. Until the first compaction the sketch holds every sample and is exact.
+ *
+ * Sketches of the same k and order merge into a sketch with the same error bound, so the sketches
+ * of partitions of a series, months or years, merge for the whole series.
+ *
+ * Samples of equal value are in date order, and then in the order they were added, like a stable
+ * sort of the samples by date and then by value. The minimum and maximum are always exact.
+ */
+public class QuantileSketch<S extends Value> {
+
+	/** the default k, a rank error of 1.3% */
+	public static final int DEFAULT_K = 200;
+
+	// the capacity of each lower level is this fraction of the one above it, but never less than the minimum
+	private static final double CAPACITY_DECAY = 2.0 / 3.0;
+	private static final int    CAPACITY_MIN   = 8;
+
+	// the empirical single rank error of a KLL sketch at 99% confidence, from the DataSketches library
+	private static final double ERROR_FACTOR   = 2.296;
+	private static final double ERROR_EXPONENT = 0.9723;
+
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+
+	private final int k;
+	private final boolean ascending;
+	private final Comparator<Value> order;
+	private final List<List<S>> levels = new ArrayList<>();
+	private long count;
+	private S min;
+	private S max;
+	private long random = SEED;
+
+	// the retained samples in order with their cumulative weights, built when first needed after a change
+	private List<S> sorted;
+	private long[] cumulative;
+
+	/**
+	 * @param ascending true for ascending value order (AboveDatum) and false for descending order (BelowLand)
+	 */
+	public QuantileSketch(boolean ascending) {
+		this(DEFAULT_K, ascending);
+	}
+	/**
+	 * @param k the accuracy, the rank error is about 2.3/k
+	 * @param ascending true for ascending value order (AboveDatum) and false for descending order (BelowLand)
+	 */
+	public QuantileSketch(int k, boolean ascending) {
+		if (k < CAPACITY_MIN) {
+			throw new IllegalArgumentException("k must be at least " + CAPACITY_MIN);
+		}
+		this.k = k;
+		this.ascending = ascending;
+		Comparator<Value> byValue = (a, b) -> a.value.compareTo(b.value);
+		this.order = (ascending ?byValue :byValue.reversed()).thenComparing(Value.TIME_COMPARATOR);
+		levels.add(new ArrayList<>());
+	}
+
+	public int getK() {
+		return k;
+	}
+	public boolean isAscending() {
+		return ascending;
+	}
+	/**
+	 * @return the number of samples added, not the number retained
+	 */
+	public long count() {
+		return count;
+	}
+	public boolean isEmpty() {
+		return count == 0;
+	}
+	/**
+	 * @return the number of samples retained
+	 */
+	public int retained() {
+		int retained = 0;
+		for (List<S> level : levels) {
+			retained += level.size();
+		}
+		return retained;
+	}
+	/**
+	 * @return true if every sample added is retained and the ranks are exact
+	 */
+	public boolean isExact() {
+		return levels.size() == 1;
+	}
+	/**
+	 * @return the normalized rank error bound, zero when the sketch is exact
+	 */
+	public double rankError() {
+		return isExact() ?0 :ERROR_FACTOR / Math.pow(k, ERROR_EXPONENT);
+	}
+
+	/**
+	 * @param sample the sample to add, it must have a value and a time
+	 */
+	public void add(S sample) {
+		if (min == null || order.compare(sample, min) < 0) {
+			min = sample;
+		}
+		if (max == null || order.compare(sample, max) >= 0) {
+			max = sample;
+		}
+		levels.get(0).add(sample);
+		count++;
+		sorted = null;
+		compress();
+	}
+
+	/**
+	 * Merges the samples of another sketch into this one as if they were added after those of this one.
+	 * @param other a sketch with the same k and order, it is not modified
+	 */
+	public void merge(QuantileSketch<S> other) {
+		if (other.k != k || other.ascending != ascending) {
+			throw new IllegalArgumentException("sketches of different k or order do not merge");
+		}
+		if (other.isEmpty()) {
+			return;
+		}
+		if (min == null || order.compare(other.min, min) < 0) {
+			min = other.min;
+		}
+		if (max == null || order.compare(other.max, max) >= 0) {
+			max = other.max;
+		}
+		for (int h=0; h<other.levels.size(); h++) {
+			if (h == levels.size()) {
+				levels.add(new ArrayList<>());
+			}
+			levels.get(h).addAll(other.levels.get(h));
+		}
+		count += other.count;
+		sorted = null;
+		compress();
+	}
+
+	/**
+	 * @return the retained samples, in the order they were added while the sketch is exact
+	 */
+	public List<S> samples() {
+		List<S> samples = new ArrayList<>(retained());
+		for (List<S> level : levels) {
+			samples.addAll(level);
+		}
+		return samples;
+	}
+
+	/**
+	 * @return a read only view of count samples in value order where each index is the retained sample
+	 *         of that estimated rank, each get is O(log k)
+	 */
+	public List<S> asList() {
+		return new View();
+	}
+
+	private class View extends AbstractList<S> implements RandomAccess {
+		@Override
+		public S get(int index) {
+			return sampleOfRank(index);
+		}
+		@Override
+		public int size() {
+			return Math.toIntExact(count);
+		}
+	}
+
+	/**
+	 * @param rank the zero based rank in value order
+	 * @return the retained sample that stands for the given rank
+	 */
+	public S sampleOfRank(long rank) {
+		if (rank < 0 || rank >= count) {
+			throw new IndexOutOfBoundsException("rank " + rank + " of " + count);
+		}
+		if (rank == 0) {
+			return min;
+		}
+		if (rank == count-1) {
+			return max;
+		}
+		if (sorted == null) {
+			sort();
+		}
+		// the first retained sample whose cumulative weight is beyond the rank
+		int low  = 0;
+		int high = cumulative.length - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cumulative[mid] > rank) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return sorted.get(low);
+	}
+
+	private void sort() {
+		List<S> samples = new ArrayList<>(retained());
+		long[] weights = new long[retained()];
+		for (int h=0; h<levels.size(); h++) {
+			for (S sample : levels.get(h)) {
+				weights[samples.size()] = 1L << h;
+				samples.add(sample);
+			}
+		}
+		// sort the positions so each weight stays with its sample, the sort is stable
+		List<Integer> positions = new ArrayList<>(samples.size());
+		for (int p=0; p<samples.size(); p++) {
+			positions.add(p);
+		}
+		Collections.sort(positions, (a, b) -> order.compare(samples.get(a), samples.get(b)));
+
+		sorted = new ArrayList<>(samples.size());
+		cumulative = new long[samples.size()];
+		long total = 0;
+		for (int p=0; p<positions.size(); p++) {
+			int position = positions.get(p);
+			sorted.add(samples.get(position));
+			total += weights[position];
+			cumulative[p] = total;
+		}
+	}
+
+	private int capacity(int level) {
+		int depth = levels.size() - 1 - level;
+		return Math.max(CAPACITY_MIN, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+	}
+
+	private void compress() {
+		while (true) {
+			int total = 0;
+			for (int h=0; h<levels.size(); h++) {
+				total += capacity(h);
+			}
+			if (retained() <= total) {
+				return;
+			}
+			for (int h=0; h<levels.size(); h++) {
+				if (levels.get(h).size() >= capacity(h)) {
+					compact(h);
+					break;
+				}
+			}
+		}
+	}
+
+	// promotes every other sample of the sorted level to the next level, an odd one out stays
+	private void compact(int h) {
+		if (h+1 == levels.size()) {
+			levels.add(new ArrayList<>());
+		}
+		List<S> level = levels.get(h);
+		Collections.sort(level, order);
+		S odd = (level.size() % 2 == 1) ?level.remove(level.size()-1) :null;
+		List<S> next = levels.get(h+1);
+		for (int s=nextBit(); s<level.size(); s+=2) {
+			next.add(level.get(s));
+		}
+		level.clear();
+		if (odd != null) {
+			level.add(odd);
+		}
+	}
+
+	// xorshift, the offsets need only be unbiased
+	private int nextBit() {
+		random ^= random << 13;
+		random ^= random >>> 7;
+		random ^= random << 17;
+		return (int) (random >>> 63);
+	}
+}
@@ -0,0 +1,161 @@
+package gov.usgs.wma.statistics.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An order statistic tree of samples in value order. Adding a sample and finding the sample
+ * of a given rank are both O(log n), so the medians and percentiles of a series that grows one
+ * sample at a time never require the series to be sorted again.
+ *
+ * Samples of equal value rank in the order they were added. When the samples are added in date
+ * order this is the order of the stable sort of the date ordered list, so the rank of every
+ * sample is its index in the List sorted by value.
+ *
+ * The tree is a treap, a binary search tree balanced by a random priority per node, with the
+ * size of each subtree on its node. The priorities are seeded so a series always has the same shape.
+ */
+public class RankedSamples<S extends Value> {
+
+	private static final long SEED = 0x9E3779B97F4A7C15L;
+
+	private static class Node<S> {
+		final S sample;
+		final long order;
+		final int priority;
+		int size = 1;
+		Node<S> left;
+		Node<S> right;
+
+		Node(S sample, long order, int priority) {
+			this.sample   = sample;
+			this.order    = order;
+			this.priority = priority;
+		}
+	}
+
+	private final boolean ascending;
+	private Node<S> root;
+	private long added;
+	private long random = SEED;
+
+	/**
+	 * @param ascending true for ascending value order (AboveDatum) and false for descending order (BelowLand)
+	 */
+	public RankedSamples(boolean ascending) {
+		this.ascending = ascending;
+	}
+
+	public int size() {
+		return size(root);
+	}
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * @param sample the sample to add, it must have a value
+	 */
+	public void add(S sample) {
+		Node<S> node = new Node<>(sample, added++, nextPriority());
+		root = insert(root, node);
+	}
+
+	/**
+	 * @param rank the zero based index in value order
+	 * @return the sample of the given rank
+	 */
+	public S get(int rank) {
+		if (rank < 0 || rank >= size()) {
+			throw new IndexOutOfBoundsException("rank " + rank + " of " + size());
+		}
+		Node<S> node = root;
+		while (true) {
+			int left = size(node.left);
+			if (rank < left) {
+				node = node.left;
+			} else if (rank > left) {
+				rank -= left + 1;
+				node = node.right;
+			} else {
+				return node.sample;
+			}
+		}
+	}
+
+	/**
+	 * @return a read only view of the samples in value order, each get is O(log n)
+	 */
+	public List<S> asList() {
+		return new View();
+	}
+
+	private class View extends AbstractList<S> implements RandomAccess {
+		@Override
+		public S get(int index) {
+			return RankedSamples.this.get(index);
+		}
+		@Override
+		public int size() {
+			return RankedSamples.this.size();
+		}
+	}
+
+	// true when a is ordered before b
+	private boolean before(Node<S> a, Node<S> b) {
+		int compare = a.sample.value.compareTo(b.sample.value);
+		if (compare != 0) {
+			return ascending ?compare < 0 :compare > 0;
+		}
+		return a.order < b.order;
+	}
+
+	private Node<S> insert(Node<S> tree, Node<S> node) {
+		if (tree == null) {
+			return node;
+		}
+		tree.size++;
+		if (before(node, tree)) {
+			tree.left = insert(tree.left, node);
+			if (tree.left.priority > tree.priority) {
+				tree = rotateRight(tree);
+			}
+		} else {
+			tree.right = insert(tree.right, node);
+			if (tree.right.priority > tree.priority) {
+				tree = rotateLeft(tree);
+			}
+		}
+		return tree;
+	}
+
+	private Node<S> rotateRight(Node<S> tree) {
+		Node<S> left = tree.left;
+		tree.left  = left.right;
+		left.right = tree;
+		left.size  = tree.size;
+		tree.size  = 1 + size(tree.left) + size(tree.right);
+		return left;
+	}
+	private Node<S> rotateLeft(Node<S> tree) {
+		Node<S> right = tree.right;
+		tree.right = right.left;
+		right.left = tree;
+		right.size = tree.size;
+		tree.size  = 1 + size(tree.left) + size(tree.right);
+		return right;
+	}
+
+	private static int size(Node<?> node) {
+		return (node == null) ?0 :node.size;
+	}
+
+	// xorshift, the priorities need only be well mixed
+	private int nextPriority() {
+		random ^= random << 13;
+		random ^= random >>> 7;
+		random ^= random << 17;
+		return (int) (random >>> 32);
+	}
+}
@@ -0,0 +1,181 @@
+package gov.usgs.wma.statistics.model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * An immutable date of a sample time parsed once from the UTC string, YYYY-MM-DD followed by
+ * any time of day. The year, month, and day are taken from their positions in the string, like
+ * Value.yearUTC(time) and Value.monthUTC(time), so a sample missing its day or month still has
+ * the parts it does have.
+ *
+ * This replaces the shared SimpleDateFormat instances which are not thread safe. The static
+ * validators are hand written to accept exactly what the lenient SimpleDateFormat accepted
+ * without the cost of the parse exceptions.
+ */
+public final class SampleDate {
+
+	/** the epoch day of a date that cannot be parsed */
+	public static final long NO_DATE = Long.MIN_VALUE;
+
+	private final int year;
+	private final int month;
+	private final int day;
+	private final LocalDate date;
+
+	private SampleDate(int year, int month, int day) {
+		this.year  = year;
+		this.month = month;
+		this.day   = day;
+		LocalDate date = null;
+		if (year > 0 && month > 0 && day > 0 && day <= LocalDate.of(year, month, 1).lengthOfMonth()) {
+			date = LocalDate.of(year, month, day);
+		}
+		this.date = date;
+	}
+
+	/**
+	 * @param time the UTC time string
+	 * @return the date parts found in the time, it is never null
+	 */
+	public static SampleDate of(String time) {
+		int year  = digits(time, 0, 4, 1, 9999);
+		int month = digits(time, 5, 7, 1, 12);
+		int day   = digits(time, 8, 10, 1, 31);
+		return new SampleDate(year, month, day);
+	}
+
+	// the ASCII digits value in the range, or zero
+	private static int digits(String time, int start, int end, int min, int max) {
+		if (time == null || time.length() < end) {
+			return 0;
+		}
+		int value = 0;
+		for (int c=start; c<end; c++) {
+			int digit = time.charAt(c) - '0';
+			if (digit < 0 || digit > 9) {
+				return 0;
+			}
+			value = value*10 + digit;
+		}
+		return (value >= min && value <= max) ?value :0;
+	}
+
+	/**
+	 * @return the four digit year or zero if the time does not start with one
+	 */
+	public int year() {
+		return year;
+	}
+	/**
+	 * @return the month number 1 to 12 or zero if there is no such month
+	 */
+	public int month() {
+		return month;
+	}
+	/**
+	 * @return the day of month or zero if there is no such day
+	 */
+	public int day() {
+		return day;
+	}
+	/**
+	 * @return true if the time has a valid year, month, and day
+	 */
+	public boolean isFullDate() {
+		return date != null;
+	}
+	/**
+	 * @return the date or null if it is not a full date
+	 */
+	public LocalDate toLocalDate() {
+		return date;
+	}
+	/**
+	 * @return the days since 1970-01-01 or NO_DATE if it is not a full date
+	 */
+	public long epochDay() {
+		return (date == null) ?NO_DATE :date.toEpochDay();
+	}
+
+	/**
+	 * @return today as YYYY-MM-DD in the server time zone
+	 */
+	public static String today() {
+		return LocalDate.now().format(Value.DATE_FORMATTER_FULL);
+	}
+
+	/**
+	 * The time has a year when, after any leading white space, it has an optionally negative
+	 * number. This is the lenient SimpleDateFormat("yyyy") parse without the exceptions.
+	 * @param time the UTC time string
+	 * @return true if the time starts with a year
+	 */
+	public static boolean isValidYear(String time) {
+		if (time == null) {
+			return false;
+		}
+		int c = skipWhitespace(time, 0);
+		if (c < time.length() && time.charAt(c) == '-') {
+			c++;
+		}
+		return c < time.length() && Character.isDigit(time.charAt(c));
+	}
+
+	/**
+	 * Days since 1970-01-01 as the lenient SimpleDateFormat("yyyy-MM-dd") parses a date. Each
+	 * number may be preceded by white space and may be negative, and a month or day out of range
+	 * rolls over into the next (or previous) month or year. Anything after the day is ignored.
+	 * Unlike GregorianCalendar, java.time is Gregorian before 1582 too.
+	 * @param date the date string
+	 * @return the epoch day or NO_DATE if the string does not start with a date
+	 */
+	public static long lenientEpochDay(String date) {
+		if (date == null) {
+			return NO_DATE;
+		}
+		long[] field = new long[3];
+		int c = 0;
+		for (int f=0; f<field.length; f++) {
+			if (f > 0) {
+				if (c >= date.length() || date.charAt(c) != '-') {
+					return NO_DATE;
+				}
+				c++;
+			}
+			c = skipWhitespace(date, c);
+			boolean negative = c < date.length() && date.charAt(c) == '-';
+			if (negative) {
+				c++;
+			}
+			int start = c;
+			long number = 0;
+			for (; c < date.length() && Character.isDigit(date.charAt(c)); c++) {
+				if (c - start >= 9) {
+					return NO_DATE; // well beyond any date
+				}
+				number = number*10 + Character.digit(date.charAt(c), 10);
+			}
+			if (c == start) {
+				return NO_DATE;
+			}
+			field[f] = negative ?-number :number;
+		}
+		try {
+			return LocalDate.of(0, 1, 1)
+					.plusYears(field[0])
+					.plusMonths(field[1] - 1)
+					.plusDays(field[2] - 1)
+					.toEpochDay();
+		} catch (DateTimeException e) {
+			return NO_DATE;
+		}
+	}
+
+	private static int skipWhitespace(String text, int c) {
+		while (c < text.length() && Character.isWhitespace(text.charAt(c))) {
+			c++;
+		}
+		return c;
+	}
+}
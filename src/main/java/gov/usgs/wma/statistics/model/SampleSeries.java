@@ -0,0 +1,426 @@
+package gov.usgs.wma.statistics.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * A columnar, primitive store of a sample series. Rather than a heap object per sample
+ * with a String time and several BigDecimals, each sample is a position across parallel
+ * arrays: the SampleDate epoch day of the sample in an int, the unscaled value at a shared scale,
+ * the optional above datum value, and the provisional status in a BitSet.
+ *
+ * The shared scale is the largest scale of the column so that every value compares as a
+ * simple long. The original scale of each value is retained in a byte in order to preserve
+ * the significant figures of the measured value when it is converted back to a BigDecimal.
+ *
+ * Not all series can be represented. If a value will not fit in a long at the shared scale,
+ * or its own scale will not fit in a byte, then {@link #of(List, Function)} returns null and
+ * the List of samples must be used instead.
+ *
+ * Sorting reorders all the columns in place. The source row of each sample is retained so that
+ * the sorted order may be applied to the original sample list with {@link #toList(List)}. The
+ * conditioning sorts the samples by date, and the water level statistics sort them by value,
+ * on a series; the percentiles read their values from one.
+ */
+public class SampleSeries {
+	/** the epoch day of a sample that is not a full date, see SampleDate.NO_DATE */
+	public static final int NO_DATE = Integer.MIN_VALUE;
+
+	private static final long[] POWERS_OF_TEN = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+		10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+		1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+	};
+
+	private int size;
+	private final int[] row;
+	private final int[] epochDay;
+	private final BitSet provisional;
+
+	private final Column value;
+	private final Column aboveDatum;
+
+	/**
+	 * One decimal column of the series at a shared scale.
+	 */
+	private static class Column {
+		final long[] unscaled;
+		final byte[] scale;
+		final BitSet missing;
+		final int sharedScale;
+
+		Column(int size, int sharedScale) {
+			this.unscaled    = new long[size];
+			this.scale       = new byte[size];
+			this.missing     = new BitSet(size);
+			this.sharedScale = sharedScale;
+		}
+
+		BigDecimal get(int index) {
+			if (missing.get(index)) {
+				return null;
+			}
+			int drop = sharedScale - scale[index];
+			return BigDecimal.valueOf(unscaled[index] / POWERS_OF_TEN[drop], scale[index]);
+		}
+	}
+
+	private SampleSeries(int size, Column value, Column aboveDatum) {
+		this.size        = size;
+		this.row         = new int[size];
+		this.epochDay    = new int[size];
+		this.provisional = new BitSet(size);
+		this.value       = value;
+		this.aboveDatum  = aboveDatum;
+	}
+
+	/**
+	 * Constructs a series from samples in their given order.
+	 *
+	 * @param samples the samples must all have a value (nulls removed)
+	 * @param aboveDatumOf optional second value for each sample, like WLSample::valueOfAboveDatum. It may be null.
+	 * @return the series or null if the samples cannot be represented in fixed point.
+	 */
+	public static <S extends Value> SampleSeries of(List<S> samples, Function<S, BigDecimal> aboveDatumOf) {
+		if (samples == null) {
+			return null;
+		}
+		int size = samples.size();
+		Column value = column(samples, Value::valueOf, false);
+		if (value == null) {
+			return null;
+		}
+		Column aboveDatum = null;
+		if (aboveDatumOf != null) {
+			aboveDatum = column(samples, aboveDatumOf, true);
+			if (aboveDatum == null) {
+				return null;
+			}
+		}
+		SampleSeries series = new SampleSeries(size, value, aboveDatum);
+		for (int s=0; s<size; s++) {
+			S sample = samples.get(s);
+			series.row[s]      = s;
+			long day = sample.date().epochDay();
+			series.epochDay[s] = (day == SampleDate.NO_DATE) ?NO_DATE :(int)day;
+			series.provisional.set(s, sample.isProvisional());
+		}
+		return series;
+	}
+	public static <S extends Value> SampleSeries of(List<S> samples) {
+		return of(samples, null);
+	}
+
+	private static <S extends Value> Column column(List<S> samples, Function<S, BigDecimal> valueOf, boolean allowMissing) {
+		int sharedScale = 0;
+		for (S sample : samples) {
+			BigDecimal val = (sample == null) ?null :valueOf.apply(sample);
+			if (val == null) {
+				if ( ! allowMissing) {
+					return null;
+				}
+			} else if (val.scale() < 0 || val.scale() > Byte.MAX_VALUE) {
+				return null;
+			} else {
+				sharedScale = Math.max(sharedScale, val.scale());
+			}
+		}
+		if (sharedScale >= POWERS_OF_TEN.length) {
+			return null;
+		}
+		Column column = new Column(samples.size(), sharedScale);
+		for (int s=0; s<samples.size(); s++) {
+			BigDecimal val = valueOf.apply(samples.get(s));
+			if (val == null) {
+				column.missing.set(s);
+				continue;
+			}
+			try {
+				column.unscaled[s] = val.setScale(sharedScale).unscaledValue().longValueExact();
+				column.scale[s]    = (byte) val.scale();
+			} catch (ArithmeticException e) {
+				return null; // too large for a long at the shared scale
+			}
+		}
+		return column;
+	}
+
+	public int size() {
+		return size;
+	}
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	/**
+	 * @return the index of the sample in the list the series was constructed from
+	 */
+	public int row(int index) {
+		return row[index];
+	}
+	/**
+	 * @return the days since 1970-01-01 or NO_DATE if the sample is not a full date
+	 */
+	public int epochDay(int index) {
+		return epochDay[index];
+	}
+	/**
+	 * @return the year of the sample or zero if it has NO_DATE
+	 */
+	public int year(int index) {
+		return (epochDay[index] == NO_DATE) ?0 :LocalDate.ofEpochDay(epochDay[index]).getYear();
+	}
+	/**
+	 * @return the month number, 1 to 12, of the sample or zero if it has NO_DATE
+	 */
+	public int month(int index) {
+		return (epochDay[index] == NO_DATE) ?0 :LocalDate.ofEpochDay(epochDay[index]).getMonthValue();
+	}
+	public boolean isProvisional(int index) {
+		return provisional.get(index);
+	}
+	/**
+	 * @return the value at the shared scale suitable for comparison
+	 */
+	public long unscaledValue(int index) {
+		return value.unscaled[index];
+	}
+	public int valueScale() {
+		return value.sharedScale;
+	}
+	/**
+	 * @return the value with its original scale
+	 */
+	public BigDecimal value(int index) {
+		return value.get(index);
+	}
+	/**
+	 * @return the above datum value with its original scale or null if there is none
+	 */
+	public BigDecimal aboveDatum(int index) {
+		return (aboveDatum == null) ?null :aboveDatum.get(index);
+	}
+
+	/**
+	 * Compacts the series in place retaining only the samples with their bit set.
+	 * The relative order of the retained samples is unchanged.
+	 *
+	 * @param keep the mask of samples, by series index, to retain
+	 * @return this series for chaining
+	 */
+	public SampleSeries retain(BitSet keep) {
+		int kept = 0;
+		for (int s=0; s<size; s++) {
+			if (keep.get(s)) {
+				move(s, kept++);
+			}
+		}
+		provisional.clear(kept, size);
+		value.missing.clear(kept, size);
+		if (aboveDatum != null) {
+			aboveDatum.missing.clear(kept, size);
+		}
+		size = kept;
+		return this;
+	}
+	private void move(int from, int to) {
+		if (from == to) {
+			return;
+		}
+		row[to]      = row[from];
+		epochDay[to] = epochDay[from];
+		provisional.set(to, provisional.get(from));
+		moveColumn(value, from, to);
+		if (aboveDatum != null) {
+			moveColumn(aboveDatum, from, to);
+		}
+	}
+	private static void moveColumn(Column column, int from, int to) {
+		column.unscaled[to] = column.unscaled[from];
+		column.scale[to]    = column.scale[from];
+		column.missing.set(to, column.missing.get(from));
+	}
+
+	/**
+	 * Sorts the series in place by date. Like the List sort, samples on the same day retain their order.
+	 * @return this series for chaining
+	 */
+	public SampleSeries sortByDate() {
+		return permute(sortedOrder(toLongs(epochDay), true));
+	}
+
+	/**
+	 * Sorts the series in place in the order of StatisticsCalculator.sortByDateOrder, the time strings.
+	 * When every time starts with a YYYY-MM-DD date the string order of different days is their epoch
+	 * day order, so the series is sorted on the epoch days and only the samples of the same day compare
+	 * their times.
+	 * @param source the sample list used to construct this series
+	 * @return true if the series is sorted, false and unchanged if a time does not start with a YYYY-MM-DD date
+	 */
+	public boolean sortByDate(List<? extends Value> source) {
+		List<? extends Value> samples = randomAccess(source);
+		for (int s=0; s<size; s++) {
+			String time = samples.get(row[s]).time;
+			if (epochDay[s] == NO_DATE || time.charAt(4) != '-' || time.charAt(7) != '-') {
+				return false;
+			}
+		}
+		int[] order = sortedOrder(toLongs(epochDay), true);
+		Comparator<Integer> byTime = (a, b) -> samples.get(row[a]).time.compareTo( samples.get(row[b]).time );
+		int start = 0;
+		while (start < size) {
+			int end = start + 1;
+			while (end < size && epochDay[order[end]] == epochDay[order[start]]) {
+				end++;
+			}
+			if (end - start > 1) {
+				// a stable sort of the day by time, as the List sort leaves equal times
+				List<Integer> day = new ArrayList<>(end - start);
+				for (int s=start; s<end; s++) {
+					day.add(order[s]);
+				}
+				Collections.sort(day, byTime);
+				for (int s=start; s<end; s++) {
+					order[s] = day.get(s - start);
+				}
+			}
+			start = end;
+		}
+		permute(order);
+		return true;
+	}
+
+	private static long[] toLongs(int[] values) {
+		long[] longs = new long[values.length];
+		for (int s=0; s<values.length; s++) {
+			longs[s] = values[s];
+		}
+		return longs;
+	}
+
+	private static <T> List<T> randomAccess(List<T> list) {
+		return (list instanceof RandomAccess) ?list :new ArrayList<>(list);
+	}
+
+	/**
+	 * Sorts the series in place by value. Like the List sort, samples of equal value retain their order.
+	 * @param ascending true for ascending order (AboveDatum) and false for descending order (BelowLand)
+	 * @return this series for chaining
+	 */
+	public SampleSeries sortByValue(boolean ascending) {
+		return permute(sortedOrder(value.unscaled.clone(), ascending));
+	}
+
+	/**
+	 * A stable merge sort of the series indexes by the given keys.
+	 * @return the series indexes in key order
+	 */
+	private int[] sortedOrder(long[] keys, boolean ascending) {
+		int[] order = new int[size];
+		for (int s=0; s<size; s++) {
+			order[s] = s;
+		}
+		int[]  orderBuffer = new int[size];
+		long[] keysBuffer  = new long[size];
+		for (int width=1; width<size; width*=2) {
+			for (int left=0; left<size; left+=2*width) {
+				int mid = Math.min(left+width, size);
+				int end = Math.min(left+2*width, size);
+				int a = left, b = mid, out = left;
+				while (a < mid && b < end) {
+					boolean takeB = ascending ?keys[b] < keys[a] :keys[b] > keys[a];
+					if (takeB) {
+						keysBuffer[out]    = keys[b];
+						orderBuffer[out++] = order[b++];
+					} else {
+						keysBuffer[out]    = keys[a];
+						orderBuffer[out++] = order[a++];
+					}
+				}
+				while (a < mid) {
+					keysBuffer[out]    = keys[a];
+					orderBuffer[out++] = order[a++];
+				}
+				while (b < end) {
+					keysBuffer[out]    = keys[b];
+					orderBuffer[out++] = order[b++];
+				}
+			}
+			long[] swapKeys = keys;
+			keys = keysBuffer;
+			keysBuffer = swapKeys;
+			int[] swapOrder = order;
+			order = orderBuffer;
+			orderBuffer = swapOrder;
+		}
+		return order;
+	}
+
+	private SampleSeries permute(int[] order) {
+		int[] rows  = new int[size];
+		int[] days  = new int[size];
+		BitSet prov = new BitSet(size);
+		for (int s=0; s<size; s++) {
+			rows[s] = row[order[s]];
+			days[s] = epochDay[order[s]];
+			prov.set(s, provisional.get(order[s]));
+		}
+		System.arraycopy(rows, 0, row, 0, size);
+		System.arraycopy(days, 0, epochDay, 0, size);
+		provisional.clear();
+		provisional.or(prov);
+		permuteColumn(value, order);
+		if (aboveDatum != null) {
+			permuteColumn(aboveDatum, order);
+		}
+		return this;
+	}
+	private void permuteColumn(Column column, int[] order) {
+		long[] unscaled = new long[size];
+		byte[] scale    = new byte[size];
+		BitSet missing  = new BitSet(size);
+		for (int s=0; s<size; s++) {
+			unscaled[s] = column.unscaled[order[s]];
+			scale[s]    = column.scale[order[s]];
+			missing.set(s, column.missing.get(order[s]));
+		}
+		System.arraycopy(unscaled, 0, column.unscaled, 0, size);
+		System.arraycopy(scale, 0, column.scale, 0, size);
+		column.missing.clear();
+		column.missing.or(missing);
+	}
+
+	/**
+	 * @return the number of unique years in the series, samples with NO_DATE are not counted.
+	 */
+	public int uniqueYears() {
+		BitSet years = new BitSet();
+		for (int s=0; s<size; s++) {
+			if (epochDay[s] != NO_DATE) {
+				years.set( year(s) );
+			}
+		}
+		return years.cardinality();
+	}
+
+	/**
+	 * Applies the current series order to the samples the series was constructed from.
+	 *
+	 * @param source the original sample list used to construct this series
+	 * @return a new list of the source samples in series order
+	 */
+	public <S> List<S> toList(List<S> source) {
+		List<S> samples = randomAccess(source);
+		List<S> ordered = new ArrayList<>(size);
+		for (int s=0; s<size; s++) {
+			ordered.add( samples.get(row[s]) );
+		}
+		return ordered;
+	}
+}
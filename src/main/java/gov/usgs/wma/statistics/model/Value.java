@@ -1,8 +1,8 @@
 package gov.usgs.wma.statistics.model;
 
 import java.math.BigDecimal;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 import java.util.Comparator;
 
 import org.slf4j.Logger;
@@ -13,10 +13,21 @@ import org.slf4j.LoggerFactory;
 public class Value {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Value.class);
 	
+	/** @deprecated a shared SimpleDateFormat is not thread safe, use DATE_FORMATTER_FULL */
+	@Deprecated
 	public static final SimpleDateFormat DATE_FORMAT_FULL  = new SimpleDateFormat("yyyy-MM-dd");
+	/** @deprecated a shared SimpleDateFormat is not thread safe, use DATE_FORMATTER_MONTH */
+	@Deprecated
 	public static final SimpleDateFormat DATE_FORMAT_MONTH = new SimpleDateFormat("yyyy-MM");
+	/** @deprecated a shared SimpleDateFormat is not thread safe, use DATE_FORMATTER_YEAR */
+	@Deprecated
 	public static final SimpleDateFormat DATE_FORMAT_YEAR  = new SimpleDateFormat("yyyy");
 
+	// immutable and thread safe, see SampleDate for parsing sample times
+	public static final DateTimeFormatter DATE_FORMATTER_FULL  = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+	public static final DateTimeFormatter DATE_FORMATTER_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+	public static final DateTimeFormatter DATE_FORMATTER_YEAR  = DateTimeFormatter.ofPattern("yyyy");
+
 	public static final String PROVISIONAL_CODE = "P";
 	public static final String APPROVED_CODE = "A";
 	public static final String UNKNOWN_VALUE = "unknown";
@@ -45,6 +56,22 @@ public class Value {
 	
 	private Boolean provisional; // most values are not provisional and we like the false default
 	
+	// the date parsed from the time, it is parsed again if the time is reassigned
+	private DatedTime dated;
+	
+	/**
+	 * A time and its parsed date. It is immutable and replaced in a single write, so a thread
+	 * that reads it sees either no date or a date with the time it was parsed from.
+	 */
+	private static final class DatedTime {
+		final String time;
+		final SampleDate date;
+		DatedTime(String time) {
+			this.time = time;
+			this.date = SampleDate.of(time);
+		}
+	}
+	
 	public Value(String time, String value) {
 		this.time = time;
 		this.unknown = isUnknown(value);
@@ -135,19 +162,9 @@ public class Value {
 			LOGGER.warn("Water Level Error - time:null record:{} site:{}", record, mySiteId);
 			return true;
 		} else {
-			int formatMatches = 0;
-			try {
-				DATE_FORMAT_YEAR.parse(time);
-				formatMatches++;
-				DATE_FORMAT_MONTH.parse(time);
-				formatMatches++;
-				DATE_FORMAT_FULL.parse(time);
-				formatMatches++;
-			} catch (ParseException e) {
-				if (formatMatches == 0) {
-					LOGGER.warn("Water Level Error - time:'{}' record:{} site:{}", new Object[]{time, record, mySiteId});
-					return true;
-				}
+			if ( ! SampleDate.isValidYear(time) ) {
+				LOGGER.warn("Water Level Error - time:'{}' record:{} site:{}", new Object[]{time, record, mySiteId});
+				return true;
 			}
 		}
 		return false;
@@ -169,6 +186,18 @@ public class Value {
 	public String getTime() {
 		return time;
 	}
+	/**
+	 * @return the date of the time, parsed once
+	 */
+	public SampleDate date() {
+		String time = this.time;
+		DatedTime dated = this.dated;
+		if (dated == null || dated.time != time) {
+			dated = new DatedTime(time);
+			this.dated = dated;
+		}
+		return dated.date;
+	}
 	public String getMonth() {
 		return monthUTC(time);
 	}
@@ -0,0 +1,32 @@
+-- The statistics stored for each site by StatisticsStore, they are replaced when the site is recalculated.
+-- The values are strings, as in the JSON, to preserve their significant figures.
+
+CREATE TABLE IF NOT EXISTS SITE_OVERALL (
+	SITE_ID       VARCHAR(64)  NOT NULL PRIMARY KEY,
+	INPUT_HASH    CHAR(64)     NOT NULL,
+	PERCENTILES   VARCHAR(256) NOT NULL,
+	INPUT_DATA    CLOB         NOT NULL,
+	MESSAGES      CLOB,
+	RECORD_YEARS  VARCHAR(32),
+	SAMPLE_COUNT  INT          NOT NULL,
+	LATEST_PCTILE VARCHAR(64),
+	LATEST_VALUE  VARCHAR(64),
+	MAX_VALUE     VARCHAR(64),
+	MEDIAN_VALUE  VARCHAR(64),
+	MIN_VALUE     VARCHAR(64),
+	CALC_DATE     VARCHAR(10)  NOT NULL,
+	MAX_DATE      VARCHAR(32),
+	MIN_DATE      VARCHAR(32),
+	MEDIATION     VARCHAR(16)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS SITE_MONTHLY (
+	SITE_ID       VARCHAR(64)  NOT NULL,
+	MONTH_NUM     VARCHAR(2)   NOT NULL,
+	PCTILE        VARCHAR(32)  NOT NULL,
+	PCTILE_VALUE  VARCHAR(64),
+	RECORD_YEARS  VARCHAR(32),
+	SAMPLE_COUNT  INT          NOT NULL,
+	PRIMARY KEY (SITE_ID, MONTH_NUM, PCTILE),
+	FOREIGN KEY (SITE_ID) REFERENCES SITE_OVERALL (SITE_ID)
+);
@@ -0,0 +1,176 @@
+package gov.usgs.ngwmn.logic;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.Value;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = { "/application.properties" })
+public class ApproximateWaterLevelStatisticsTest {
+
+	private static final int K = 32;
+	private static final int YEARS = 12;
+	private static final int SAMPLES_PER_MONTH = 400;
+
+	@Autowired
+	Environment spring;
+	Properties env;
+	JsonDataBuilder builder;
+
+	// the exact values of each year and month, keyed YYYY-MM
+	Map<String, List<BigDecimal>> exact;
+	List<BigDecimal> all;
+
+	@Before
+	public void before() {
+		env     = new Properties().setEnvironment(spring);
+		builder = new JsonDataBuilder(env).mediation(MediationType.AboveDatum).includeIntermediateValues(true);
+		exact   = new HashMap<>();
+		all     = new ArrayList<>();
+	}
+
+	// many samples of each month and year, the years end last December so that the site has monthly statistics
+	private List<WLSample> samples() {
+		Random random = new Random(406);
+		int lastYear = LocalDate.now().getYear() - 1;
+		List<WLSample> samples = new ArrayList<>();
+		for (int year=lastYear-YEARS+1; year<=lastYear; year++) {
+			for (int month=1; month<=12; month++) {
+				List<BigDecimal> values = new ArrayList<>();
+				for (int s=0; s<SAMPLES_PER_MONTH; s++) {
+					String time = String.format("%d-%02d-%02dT%02d:%02d:00", year, month, 1 + s/20, s%20, s%60);
+					BigDecimal value = BigDecimal.valueOf(month*1000 + random.nextInt(10000), 2);
+					samples.add(new WLSample(time, value, "ft", value, "", true, "72019", value));
+					values.add(value);
+				}
+				Collections.sort(values);
+				exact.put(String.format("%d-%02d", year, month), values);
+				all.addAll(values);
+			}
+		}
+		Collections.sort(all);
+		return samples;
+	}
+
+	// the value is within the normalized rank error of the median of the sorted values
+	private void assertMedianWithin(String message, List<BigDecimal> sorted, BigDecimal value, double rankError) {
+		int below = 0;
+		int atOrBelow = 0;
+		for (BigDecimal each : sorted) {
+			if (each.compareTo(value) < 0) {
+				below++;
+			}
+			if (each.compareTo(value) <= 0) {
+				atOrBelow++;
+			}
+		}
+		double allowed = rankError * sorted.size() + 1;
+		double median = sorted.size() / 2.0;
+		assertTrue(message + " rank " + below + " to " + atOrBelow + " of " + sorted.size(),
+				atOrBelow >= median - allowed && below <= median + allowed);
+	}
+
+	@Test
+	public void test_calculate_compactedWithinRankError() {
+		List<WLSample> samples = samples();
+		ApproximateWaterLevelStatistics stats = new ApproximateWaterLevelStatistics(env, builder, K);
+
+		JsonData json = stats.calculate(new Specifier(), samples);
+
+		assertTrue(json.isOk());
+		assertTrue(json.hasMonthly());
+		double rankError = Double.parseDouble(json.getOverall().rankError);
+		// every month and year is compacted, so the bound is that of k
+		assertTrue(rankError > 0);
+		assertTrue(rankError < .1);
+
+		assertEquals(all.get(0).toString(), json.getOverall().valueMin);
+		assertEquals(all.get(all.size()-1).toString(), json.getOverall().valueMax);
+		assertEquals(all.size(), json.getOverall().sampleCount);
+		// the year medians of each month, and the latest month again for the latest percentile
+		List<Value> medians = builder.getIntermediateValuesList();
+		assertEquals(YEARS * 13, medians.size());
+		for (Value median : medians) {
+			String yearMonth = median.time.substring(0, 7);
+			assertMedianWithin(yearMonth, exact.get(yearMonth), median.value, rankError);
+		}
+	}
+
+	@Test
+	public void test_calculate_exactUnderK() throws Exception {
+		ApproximateWaterLevelStatistics stats = new ApproximateWaterLevelStatistics(env, builder, 2 * SAMPLES_PER_MONTH);
+		JsonData approx = stats.calculate(new Specifier(), samples());
+		JsonDataBuilder full = new JsonDataBuilder(env).mediation(MediationType.AboveDatum).includeIntermediateValues(true);
+		JsonData exact = new WaterLevelStatistics(env, full).calculate(new Specifier(), samples());
+
+		// every month and year is retained whole by its sketch
+		assertEquals("0", approx.getOverall().rankError);
+		ObjectMapper mapper = new ObjectMapper();
+		String actual = mapper.writeValueAsString(approx).replace(",\"RANK_ERROR\":\"0\"", "");
+		assertEquals(mapper.writeValueAsString(exact), actual);
+	}
+
+	private WLSample sample(String time, String value) {
+		BigDecimal below = new BigDecimal(value);
+		return new WLSample(time, below, "ft", below, "", true, "72019", below.negate());
+	}
+
+	@Test
+	public void test_calculate_equalMediansOfSharedBucketYears() throws Exception {
+		// a year and the year eleven before share a HashMap bucket, their June medians are equal with
+		// different figures and the later year is first by value while the earlier is first by date
+		int lastYear = LocalDate.now().getYear() - 1;
+		List<WLSample> samples = new ArrayList<>();
+		for (int year=lastYear-11; year<=lastYear; year++) {
+			for (int month=1; month<=12; month++) {
+				String time = String.format("%d-%02d-10T12:00:00", year, month);
+				if (month == 6 && year == lastYear-11) {
+					samples.add( sample(time, "1.50") );
+				} else if (month == 6 && year == lastYear) {
+					samples.add( sample(time, "2.0") );
+					samples.add( sample(String.format("%d-06-20T12:00:00", year), "1.0") );
+				} else {
+					samples.add( sample(time, String.format("%d.%d", month, year % 100)) );
+				}
+			}
+		}
+		List<WLSample> copies = new ArrayList<>();
+		for (WLSample sample : samples) {
+			copies.add( new WLSample(sample) );
+		}
+		JsonDataBuilder below = new JsonDataBuilder(env).mediation(MediationType.BelowLand).includeIntermediateValues(true);
+		JsonData approx = new ApproximateWaterLevelStatistics(env, below, K).calculate(new Specifier(), samples);
+		JsonDataBuilder full = new JsonDataBuilder(env).mediation(MediationType.BelowLand).includeIntermediateValues(true);
+		JsonData exact = new WaterLevelStatistics(env, full).calculate(new Specifier(), copies);
+
+		assertTrue(exact.hasMonthly());
+		ObjectMapper mapper = new ObjectMapper();
+		String actual = mapper.writeValueAsString(approx).replace(",\"RANK_ERROR\":\"0\"", "");
+		assertEquals(mapper.writeValueAsString(exact), actual);
+	}
+}
@@ -0,0 +1,179 @@
+package gov.usgs.ngwmn.logic;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import gov.usgs.ngwmn.logic.DailyAggregation.Method;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = { "/application.properties" })
+public class DailyAggregationTest {
+
+	private static final BigDecimal ELEVATION = new BigDecimal("100.0");
+
+	@Autowired
+	Environment spring;
+	Properties env;
+	JsonDataBuilder builder;
+	List<WLSample> samples;
+
+	@Before
+	public void before() {
+		env     = new Properties().setEnvironment(spring);
+		builder = new JsonDataBuilder(env);
+		samples = new ArrayList<>();
+	}
+
+	private WLSample sample(String time, String value) {
+		BigDecimal below = (value == null) ?null :new BigDecimal(value);
+		BigDecimal above = (value == null) ?null :ELEVATION.subtract(below);
+		return new WLSample(time, below, "ft", below, "", true, "72019", above);
+	}
+
+	private DailyAggregation aggregate(Method method, WLSample ... received) {
+		DailyAggregation aggregation = new DailyAggregation(env, builder, method, samples::add);
+		for (WLSample sample : received) {
+			aggregation.accept(sample);
+		}
+		aggregation.finish();
+		return aggregation;
+	}
+
+	@Test
+	public void test_median_oneValuePerDayAndLatestIsRaw() {
+		WLSample single = sample("2000-01-01T12:00:00", "5.0");
+		WLSample latest = sample("2000-01-03T06:00:00", "9.0");
+		aggregate(Method.MEDIAN,
+				single,
+				sample("2000-01-02T00:00:00", "1.0"),
+				sample("2000-01-02T06:00:00", "3.0"),
+				sample("2000-01-02T12:00:00", "2.0"),
+				sample("2000-01-03T00:00:00", "7.0"),
+				sample("2000-01-03T03:00:00", "8.0"),
+				latest);
+
+		assertEquals(4, samples.size());
+		assertSame(single, samples.get(0));
+		// the median at the time of the middle sample
+		assertEquals("2000-01-02T06:00:00", samples.get(1).time);
+		assertEquals(new BigDecimal("2.0"), samples.get(1).value);
+		assertEquals(new BigDecimal("98.0"), samples.get(1).valueAboveDatum);
+		// the latest is passed on as it is and the rest of its day is aggregated
+		assertEquals(new BigDecimal("7.5"), samples.get(2).value);
+		assertEquals(new BigDecimal("92.5"), samples.get(2).valueAboveDatum);
+		assertSame(latest, samples.get(3));
+		assertTrue(builder.messages().anyMatch(msg -> msg.equals("Aggregated 5 samples to 2 daily median values.")));
+	}
+
+	@Test
+	public void test_median_provisionalLatestAggregatesLatestDay() {
+		WLSample provisional = sample("2000-01-03T12:00:00", "5.0");
+		provisional.setProvsional(true);
+		aggregate(Method.MEDIAN,
+				sample("2000-01-02T00:00:00", "1.0"),
+				sample("2000-01-02T06:00:00", "3.0"),
+				sample("2000-01-03T00:00:00", "7.0"),
+				sample("2000-01-03T03:00:00", "8.0"),
+				sample("2000-01-03T06:00:00", "9.0"),
+				provisional);
+
+		// the latest aggregable sample is not the latest of the series so it is not held back
+		assertEquals(3, samples.size());
+		assertEquals(new BigDecimal("2.0"), samples.get(0).value);
+		assertSame(provisional, samples.get(1));
+		assertEquals("2000-01-03T03:00:00", samples.get(2).time);
+		assertEquals(new BigDecimal("8.0"), samples.get(2).value);
+		assertTrue(builder.messages().anyMatch(msg -> msg.equals("Aggregated 5 samples to 2 daily median values.")));
+	}
+
+	@Test
+	public void test_mean() {
+		aggregate(Method.MEAN,
+				sample("2000-01-02T00:00:00", "1.0"),
+				sample("2000-01-02T06:00:00", "3.0"),
+				sample("2000-01-02T12:00:00", "5.0"),
+				sample("2000-01-03T12:00:00", "9.0"));
+
+		assertEquals(2, samples.size());
+		assertEquals(new BigDecimal("3.0"), samples.get(0).value);
+		assertEquals(new BigDecimal("97.0"), samples.get(0).valueAboveDatum);
+	}
+
+	@Test
+	public void test_none_passesEverySampleInOrder() {
+		WLSample[] received = {
+				sample("2000-01-02T06:00:00", "3.0"),
+				sample("2000-01-02T00:00:00", "1.0"),
+				sample("2000-01-02T12:00:00", "2.0"),
+		};
+		aggregate(Method.NONE, received);
+
+		assertEquals(received.length, samples.size());
+		for (int s=0; s<received.length; s++) {
+			assertSame(received[s], samples.get(s));
+		}
+		assertEquals(0, builder.messages().count());
+	}
+
+	@Test
+	public void test_conditionedSamplesArePassedOn() {
+		WLSample provisional = sample("2000-01-02T03:00:00", "4.0");
+		provisional.setProvsional(true);
+		WLSample empty   = sample("2000-01-02T04:00:00", null);
+		WLSample partial = sample("2000-01", "6.0");
+		WLSample blank   = sample("", "6.0");
+		aggregate(Method.MEDIAN,
+				sample("2000-01-02T00:00:00", "1.0"),
+				provisional,
+				empty,
+				partial,
+				blank,
+				sample("2000-01-02T12:00:00", "2.0"),
+				sample("2000-01-02T13:00:00", "2.0"),
+				sample("2000-01-03T12:00:00", "9.0"));
+
+		assertEquals(Arrays.asList("2000-01-02T03:00:00", "2000-01-02T04:00:00", "2000-01", "", "2000-01-02T12:00:00", "2000-01-03T12:00:00"), times());
+		assertSame(provisional, samples.get(0));
+		assertSame(empty, samples.get(1));
+		assertSame(partial, samples.get(2));
+		assertSame(blank, samples.get(3));
+		assertEquals(new BigDecimal("2.0"), samples.get(4).value);
+	}
+
+	@Test
+	public void test_pcodesAreAggregatedApart() {
+		WLSample other = new WLSample("2000-01-02T06:00:00", new BigDecimal("50.0"), "ft", new BigDecimal("50.0"), "", true, "62610", new BigDecimal("50.0"));
+		aggregate(Method.MEDIAN,
+				sample("2000-01-02T00:00:00", "1.0"),
+				other,
+				sample("2000-01-02T12:00:00", "3.0"),
+				sample("2000-01-03T12:00:00", "9.0"));
+
+		assertEquals(3, samples.size());
+		assertEquals(new BigDecimal("2.0"), samples.get(0).value);
+		assertSame(other, samples.get(1));
+	}
+
+	private List<String> times() {
+		List<String> times = new ArrayList<>();
+		for (WLSample sample : samples) {
+			times.add(sample.time);
+		}
+		return times;
+	}
+}
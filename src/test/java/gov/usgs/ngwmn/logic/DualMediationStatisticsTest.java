@@ -0,0 +1,135 @@
+package gov.usgs.ngwmn.logic;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gov.usgs.ngwmn.model.Elevation;
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = { "/application.properties" })
+public class DualMediationStatisticsTest {
+
+	private static final Elevation ELEVATION = new Elevation(new BigDecimal("100.0"), "NAVD88");
+
+	@Autowired
+	Environment spring;
+	Properties env;
+	ObjectMapper mapper;
+
+	@Before
+	public void before() {
+		env    = new Properties().setEnvironment(spring);
+		mapper = new ObjectMapper();
+	}
+
+	private List<WLSample> extractSamples(String agencyCd, String siteNo) throws Exception {
+		String filename = "/sample-data/"+agencyCd+"_"+siteNo+"_WATERLEVEL.xml";
+		InputStream rin = getClass().getResourceAsStream(filename);
+		try (Reader xmlReader = new BufferedReader(new InputStreamReader(rin))) {
+			return WLSample.extractSamples(xmlReader, agencyCd, siteNo, ELEVATION);
+		}
+	}
+
+	private List<WLSample> copies(List<WLSample> samples) {
+		List<WLSample> copies = new ArrayList<>();
+		for (WLSample sample : samples) {
+			WLSample copy = null;
+			if (sample != null) {
+				copy = new WLSample(sample);
+				copy.setProvsional(sample.isProvisional());
+			}
+			copies.add(copy);
+		}
+		return copies;
+	}
+
+	private JsonDataBuilder newBuilder() {
+		return new JsonDataBuilder(env).includeIntermediateValues(true);
+	}
+
+	private String singleCalculation(Specifier spec, List<WLSample> samples, MediationType mediation) throws Exception {
+		JsonDataBuilder builder = newBuilder().mediation(mediation);
+		return mapper.writeValueAsString( new WaterLevelStatistics(env, builder).calculate(spec, copies(samples)) );
+	}
+
+	private WLSample sample(String time, String value, boolean provisional) {
+		BigDecimal below = (value == null) ?null :new BigDecimal(value);
+		BigDecimal above = (value == null) ?null :ELEVATION.value.subtract(below);
+		WLSample sample = new WLSample(time, below, "ft", below, "", true, "72019", above);
+		sample.setProvsional(provisional);
+		return sample;
+	}
+
+	private void assertSameAsSingleCalculations(List<WLSample> samples) throws Exception {
+		// the site is not given so that neither calculation takes the most prevalent mediation
+		Specifier spec = new Specifier();
+		String belowLand  = singleCalculation(spec, samples, MediationType.BelowLand);
+		String aboveDatum = singleCalculation(spec, samples, MediationType.AboveDatum);
+
+		Map<MediationType, JsonData> dual = new DualMediationStatistics(env, newBuilder(), newBuilder())
+				.calculate(spec, copies(samples));
+
+		assertEquals(belowLand,  mapper.writeValueAsString(dual.get(MediationType.BelowLand)));
+		assertEquals(aboveDatum, mapper.writeValueAsString(dual.get(MediationType.AboveDatum)));
+	}
+
+	@Test
+	public void test_sampleData_sameAsSingleCalculations() throws Exception {
+		assertSameAsSingleCalculations( extractSamples("USGS", "405010073414901") );
+		assertSameAsSingleCalculations( extractSamples("MBMG", "3002") );
+	}
+
+	@Test
+	public void test_provisionalAndNulls_sameAsSingleCalculations() throws Exception {
+		List<WLSample> samples = new ArrayList<>();
+		for (int year=2000; year<2020; year++) {
+			samples.add(sample(year + "-06-10", ""+(10 + year % 7), false));
+			samples.add(sample(year + "-06-20", ""+(11 + year % 5), year % 3 == 0));
+			samples.add(sample(year + "-07-10", ""+(12 + year % 4), false));
+		}
+		samples.add(sample("2019-08-10", null, false));
+		// a date fixed with a message, and a recent provisional sample
+		samples.add(sample("2018-05", "14", false));
+		samples.add(sample(LocalDate.now().minusDays(10).toString(), "15", true));
+
+		assertSameAsSingleCalculations(samples);
+	}
+
+	@Test
+	public void test_errors_reportedForBoth() {
+		List<WLSample> samples = new ArrayList<>();
+		samples.add(sample("2018-06-10", "10", false));
+		samples.add(sample(" ", "11", false));
+
+		Map<MediationType, JsonData> dual = new DualMediationStatistics(env, newBuilder(), newBuilder())
+				.calculate(new Specifier(), samples);
+
+		assertTrue(dual.get(MediationType.BelowLand).hasErrors());
+		assertEquals(dual.get(MediationType.BelowLand).getErrors(), dual.get(MediationType.AboveDatum).getErrors());
+	}
+}
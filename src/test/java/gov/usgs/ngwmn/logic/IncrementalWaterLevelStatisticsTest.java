@@ -0,0 +1,196 @@
+package gov.usgs.ngwmn.logic;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gov.usgs.ngwmn.model.Elevation;
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = { "/application.properties" })
+public class IncrementalWaterLevelStatisticsTest {
+
+	private static final Elevation ELEVATION = new Elevation(new BigDecimal("100.0"), "NAVD88");
+	private static final String[] PCODES = {"72019", "62610", "62611", "30210", null};
+
+	@Autowired
+	Environment spring;
+	Properties env;
+	ObjectMapper mapper;
+
+	@Before
+	public void before() {
+		env    = new Properties().setEnvironment(spring);
+		mapper = new ObjectMapper();
+	}
+
+	private List<WLSample> extractSamples(String agencyCd, String siteNo) throws Exception {
+		String filename = "/sample-data/"+agencyCd+"_"+siteNo+"_WATERLEVEL.xml";
+		InputStream rin = getClass().getResourceAsStream(filename);
+		try (Reader xmlReader = new BufferedReader(new InputStreamReader(rin))) {
+			return WLSample.extractSamples(xmlReader, agencyCd, siteNo, ELEVATION);
+		}
+	}
+
+	private JsonDataBuilder newBuilder(MediationType mediation) {
+		JsonDataBuilder builder = new JsonDataBuilder(env);
+		if (mediation != null) {
+			builder.mediation(mediation);
+		}
+		return builder.includeIntermediateValues(true);
+	}
+
+	private String fullCalculation(Specifier spec, List<WLSample> samples, MediationType mediation) throws Exception {
+		List<WLSample> copies = new ArrayList<>();
+		for (WLSample sample : samples) {
+			WLSample copy = null;
+			if (sample != null) {
+				copy = new WLSample(sample);
+				copy.setProvsional(sample.isProvisional());
+			}
+			copies.add(copy);
+		}
+		return mapper.writeValueAsString( new WaterLevelStatistics(env, newBuilder(mediation)).calculate(spec, copies) );
+	}
+
+	// appends the samples one at a time and compares the statistics to the full calculation every so often
+	private void assertSameAsFullCalculation(Specifier spec, List<WLSample> samples, MediationType mediation, int every)
+			throws Exception {
+		IncrementalWaterLevelStatistics incremental = new IncrementalWaterLevelStatistics(env, spec);
+		List<WLSample> appended = new ArrayList<>();
+		for (int s=0; s<samples.size(); s++) {
+			incremental.append(samples.get(s));
+			appended.add(samples.get(s));
+			if (s % every == 0 || s == samples.size()-1) {
+				String expected = fullCalculation(spec, appended, mediation);
+				String actual   = mapper.writeValueAsString( incremental.calculate(newBuilder(mediation)) );
+				assertEquals(spec + " after sample " + (s+1), expected, actual);
+			}
+		}
+		assertEquals(samples.size(), incremental.size());
+	}
+
+	private WLSample sample(String time, String value, String pcode, boolean provisional) {
+		BigDecimal below = (value == null) ?null :new BigDecimal(value);
+		BigDecimal above = (value == null) ?null :ELEVATION.value.subtract(below);
+		WLSample sample = new WLSample(time, below, "ft", below, "", true, pcode, above);
+		sample.setProvsional(provisional);
+		return sample;
+	}
+
+	@Test
+	public void test_sampleData_sameAsFullCalculation() throws Exception {
+		List<WLSample> samples = extractSamples("USGS", "405010073414901");
+		assertSameAsFullCalculation(new Specifier("USGS", "405010073414901"), samples, null, 25);
+	}
+
+	@Test
+	public void test_sampleData_otherAgency_sameAsFullCalculation() throws Exception {
+		List<WLSample> samples = extractSamples("MBMG", "3002");
+		assertSameAsFullCalculation(new Specifier("MBMG", "3002"), samples, null, 25);
+	}
+
+	@Test
+	public void test_sampleData_noAgency_aboveDatum_sameAsFullCalculation() throws Exception {
+		List<WLSample> samples = extractSamples("USGS", "401229074290001");
+		assertSameAsFullCalculation(new Specifier("", "401229074290001"), samples, MediationType.AboveDatum, 25);
+	}
+
+	@Test
+	public void test_provisionalFollowedByNull_isStillMostRecent() throws Exception {
+		List<WLSample> samples = new ArrayList<>();
+		samples.add( sample("2000-01-10T12:00:00", "10.0", "72019", false) );
+		samples.add( sample("2000-02-10T12:00:00", "11.5", "72019", false) );
+		samples.add( sample("2000-03-10T12:00:00", "9.25", "72019", true) );
+		samples.add( sample("2000-03-12T12:00:00", null, "72019", false) );
+		samples.add( null );
+		samples.add( sample("2000-04-10T12:00:00", "12.0", "72019", true) );
+		samples.add( sample("2000-05-10T12:00:00", "12.00", "72019", false) );
+		assertSameAsFullCalculation(new Specifier("USGS", "1"), samples, null, 1);
+	}
+
+	@Test
+	public void test_outOfOrderAndPartialDates_sameAsFullCalculation() throws Exception {
+		List<WLSample> samples = new ArrayList<>();
+		samples.add( sample("2001-06-10T12:00:00", "10.0", "72019", false) );
+		samples.add( sample("2001-06", "10.2", "72019", false) );
+		samples.add( sample("2000-06-11T12:00:00", "10.30", "72019", false) );
+		samples.add( sample("2001", "9.8", "72019", false) );
+		samples.add( sample("2002-07-01T12:00:00", "11", "72019", false) );
+		samples.add( sample("", "11", "72019", false) );
+		samples.add( sample("2002-08-01T12:00:00", "11", "72019", false) );
+		assertSameAsFullCalculation(new Specifier("USGS", "1"), samples, null, 1);
+	}
+
+	@Test
+	public void test_equalMediansOfSharedBucketYears_sameAsFullCalculation() throws Exception {
+		// 2010 and 2021 share a HashMap bucket, their June medians are equal with different figures
+		// and 2021 is first by value while 2010 is first by date
+		List<WLSample> samples = new ArrayList<>();
+		samples.add( sample("2010-06-10T12:00:00", "1.50", "72019", false) );
+		samples.add( sample("2021-06-10T12:00:00", "2.0", "72019", false) );
+		samples.add( sample("2021-06-20T12:00:00", "1.0", "72019", false) );
+		samples.add( sample("2022-07-10T12:00:00", "3.0", "72019", false) );
+		assertSameAsFullCalculation(new Specifier("USGS", "1"), samples, null, 1);
+	}
+
+	@Test
+	public void test_mediationChanges_sameAsFullCalculation() throws Exception {
+		List<WLSample> samples = new ArrayList<>();
+		LocalDate date = LocalDate.of(1995, 1, 15);
+		for (int s=0; s<40; s++) {
+			// below land until the above datum samples are the majority
+			String pcode = (s < 15) ?"72019" :"62610";
+			samples.add( sample(date.toString() + "T12:00:00", "1" + s + ".5", pcode, false) );
+			date = date.plusDays(40);
+		}
+		assertSameAsFullCalculation(new Specifier("USGS", "1"), samples, null, 1);
+	}
+
+	@Test
+	public void test_randomSeries_sameAsFullCalculation() throws Exception {
+		Random random = new Random(12);
+		for (int series=0; series<12; series++) {
+			List<WLSample> samples = new ArrayList<>();
+			LocalDate today = LocalDate.now();
+			LocalDate date = today.minusYears(14).plusDays(random.nextInt(300));
+			int count = 50 + random.nextInt(400);
+			for (int s=0; s<count; s++) {
+				// mostly in date order with some earlier
+				date = (random.nextInt(20) == 0) ?date.minusDays(random.nextInt(400)) :date.plusDays(random.nextInt(40));
+				if (date.isAfter(today)) {
+					date = today.minusDays(random.nextInt(400));
+				}
+				String value = new BigDecimal(random.nextInt(60)).movePointLeft(random.nextInt(3)).add(BigDecimal.TEN).toString();
+				// the first is not provisional, a series of only a provisional sample has no overall statistics
+				boolean provisional = s > 0 && random.nextInt(10) == 0;
+				samples.add( sample(date.toString() + "T12:00:00", value, PCODES[random.nextInt(PCODES.length)], provisional) );
+			}
+			String agency = (series % 2 == 0) ?"USGS" :"MBMG";
+			assertSameAsFullCalculation(new Specifier(agency, "" + series), samples, null, 7);
+		}
+	}
+}
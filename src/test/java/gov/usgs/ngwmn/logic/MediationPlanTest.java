@@ -0,0 +1,61 @@
+package gov.usgs.ngwmn.logic;
+
+import static gov.usgs.ngwmn.logic.WaterlevelMediator.*;
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import gov.usgs.ngwmn.logic.MediationPlan.Cache;
+import gov.usgs.ngwmn.logic.WaterlevelMediator.MediationResult;
+
+public class MediationPlanTest {
+
+	@Test
+	public void test_plan_eachValue() {
+		MediationPlan plan = MediationPlan.of("ft", "72019", null, "100.0", "NAVD88");
+
+		assertEquals(new BigDecimal("10.0"), plan.mediateBelowGroundLevel("10.0").getValue());
+		assertEquals(new BigDecimal("90.0"), plan.mediateAboveSiteDatum("10.0").getValue());
+		assertEquals(new BigDecimal("2.5"),  plan.mediateBelowGroundLevel("2.5").getValue());
+		assertEquals(new BigDecimal("97.5"), plan.mediateAboveSiteDatum("2.5").getValue());
+
+		MediationPlan up = MediationPlan.of("ft", "62611", null, "100.0", "NAVD88");
+		assertEquals(new BigDecimal("90.0"), up.mediateAboveSiteDatum("90.0").getValue());
+		assertEquals(new BigDecimal("10.0"), up.mediateBelowGroundLevel("90.0").getValue());
+	}
+
+	@Test
+	public void test_plan_reasonsInValidationOrder() {
+		// the PCODE, then the value, then the rest
+		MediationPlan unrecognized = MediationPlan.of("ft", "99999", "bogus", "100.0", "NAVD88");
+		assertEquals(NA_NO_PCODE, unrecognized.mediateAboveSiteDatum("dry").getReason());
+
+		MediationPlan datum = MediationPlan.of("ft", "72019", "bogus", "100.0", "NAVD88");
+		MediationResult dry = datum.mediateAboveSiteDatum("dry");
+		assertEquals(NA_NO_VALUE, dry.getReason());
+		assertEquals(NA_NO_VALUE + " : valueStr=dry", dry.getMessage());
+		assertEquals(NA_NO_MEASURE_DATUM, datum.mediateAboveSiteDatum("1.0").getReason());
+		assertEquals(NA_NO_MEASURE_DATUM, datum.mediateBelowGroundLevel("1.0").getReason());
+
+		MediationPlan noElevation = MediationPlan.of("ft", "72019", null, null, "NAVD88");
+		assertTrue(noElevation.mediateBelowGroundLevel("1.0").isMediated());
+		assertSame(noElevation.mediateAboveSiteDatum("1.0"), noElevation.mediateAboveSiteDatum("2.0"));
+	}
+
+	@Test
+	public void test_cache_planPerMeasure() {
+		Cache plans = new Cache();
+
+		MediationPlan feet = plans.get("ft", "72019", null, "100.0", "NAVD88");
+		assertSame(feet, plans.get("ft", "72019", null, "100.0", "NAVD88"));
+		assertSame(feet, plans.get(new String("ft"), "72019", null, "100.0", "NAVD88"));
+
+		MediationPlan meters = plans.get("m", "72019", null, "100.0", "NAVD88");
+		assertNotSame(feet, meters);
+		assertSame(feet, plans.get("ft", "72019", null, "100.0", "NAVD88"));
+		assertSame(meters, plans.get("m", "72019", null, "100.0", "NAVD88"));
+		assertEquals(2, plans.size());
+	}
+}
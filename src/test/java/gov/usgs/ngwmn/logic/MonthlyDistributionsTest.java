@@ -0,0 +1,116 @@
+package gov.usgs.ngwmn.logic;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = { "/application.properties" })
+public class MonthlyDistributionsTest {
+
+	// June of 2005 through 2018, the latest is 11.000
+	private static final String[] JUNE = {"1.000", "22.000", "1.000", "2.000", "1.000", "20.000", "1.000",
+			"2.000", "1.000", "10.000", "1.000", "43.000", "1.000", "11.000"};
+
+	@Autowired
+	Environment spring;
+	Properties env;
+	JsonDataBuilder builder;
+
+	@Before
+	public void before() {
+		env     = new Properties().setEnvironment(spring);
+		builder = new JsonDataBuilder(env);
+		builder.mediation(MediationType.BelowLand);
+	}
+
+	private WLSample reading(String time, String value) {
+		BigDecimal val = new BigDecimal(value);
+		return new WLSample(time, val, "ft", val, "", true, "", val);
+	}
+
+	private List<WLSample> june() {
+		List<WLSample> samples = new ArrayList<>();
+		for (int y=0; y<JUNE.length; y++) {
+			samples.add(reading((2005 + y) + "-06-10T04:15:00-05:00", JUNE[y]));
+		}
+		return samples;
+	}
+
+	@Test
+	public void test_percentileOf_sameAsLatestPercentile() {
+		WaterLevelStatistics stats = new WaterLevelStatistics(env, builder);
+		JsonData json = stats.calculate(new Specifier(), june());
+		MonthlyDistributions months = stats.monthlyDistributions();
+
+		assertEquals(MediationType.BelowLand, months.getMediation());
+		assertEquals(JUNE.length, months.size(6));
+		assertEquals(0, months.size(7));
+
+		// a new reading of the latest year-month is ranked in place of the latest sample
+		WLSample latest = reading("2018-06-20T04:15:00-05:00", "11.000");
+		assertEquals(json.getOverall().latestPercentile, months.percentileOf(latest).toPlainString());
+	}
+
+	@Test
+	public void test_percentileOf_severalSamplesInAYear_sameAsLatestPercentile() {
+		List<WLSample> samples = june();
+		// 2010 is 20.000, 1.000, 30.000 in date order, its median is 1.000 in date order and 20.000 in value order
+		samples.add(6, reading("2010-06-15T04:15:00-05:00", "1.000"));
+		samples.add(7, reading("2010-06-20T04:15:00-05:00", "30.000"));
+		WaterLevelStatistics stats = new WaterLevelStatistics(env, builder);
+		JsonData json = stats.calculate(new Specifier(), samples);
+		MonthlyDistributions months = stats.monthlyDistributions();
+
+		assertEquals(JUNE.length, months.size(6));
+		WLSample latest = reading("2018-06-20T04:15:00-05:00", "11.000");
+		assertEquals(json.getOverall().latestPercentile, months.percentileOf(latest).toPlainString());
+	}
+
+	@Test
+	public void test_percentileOf_newYearsInValueOrder() {
+		WaterLevelStatistics stats = new WaterLevelStatistics(env, builder);
+		stats.calculate(new Specifier(), june());
+		MonthlyDistributions months = stats.monthlyDistributions();
+
+		// below land, the deepest reading is the lowest percentile
+		BigDecimal deepest   = months.percentileOf(reading("2019-06-10T04:15:00-05:00", "50.000"));
+		BigDecimal middle    = months.percentileOf(reading("2019-06-10T04:15:00-05:00", "5.000"));
+		BigDecimal shallowest= months.percentileOf(reading("2019-06-10T04:15:00-05:00", "0.500"));
+		assertTrue(deepest.compareTo(middle) < 0);
+		assertTrue(middle.compareTo(shallowest) < 0);
+
+		// the readings are not added to the distributions
+		assertEquals(JUNE.length, months.size(6));
+	}
+
+	@Test
+	public void test_percentileOf_monthWithoutSamples() {
+		WaterLevelStatistics stats = new WaterLevelStatistics(env, builder);
+		stats.calculate(new Specifier(), june());
+
+		assertNull(stats.monthlyDistributions().percentileOf(reading("2019-07-10T04:15:00-05:00", "5.000")));
+	}
+
+	@Test
+	public void test_monthlyDistributions_noCalculation() {
+		assertNull(new WaterLevelStatistics(env, builder).monthlyDistributions());
+	}
+}
@@ -289,6 +289,48 @@ public class WaterLevelXmlTest {
 		// TODO possibly convert overall to be base on all monthly median data -- this will be a new story
 	}
 
+	@Test
+	public void test_streamSamples_oneTimeValuePairAtATime() throws Exception {
+		// SETUP
+		setup("USGS","401229074290001", new BigDecimal("100.0"),"NAVD88");
+		List<WLSample> streamed = new ArrayList<>();
+
+		// TEST
+		int rows = WLSample.streamSamples(xmlReader, spec.getAgencyCd(), spec.getSiteNo(), spec.getElevation(), streamed::add);
+
+		// ASSERT
+		assertEquals(4811, rows);
+		assertEquals(4811, streamed.size());
+		WLSample first = streamed.get(0);
+		// the line breaks within the element text are removed
+		assertEquals("2005-05-07T00:00:00", first.time);
+		assertEquals(new BigDecimal("6.55"), first.originalValue);
+		assertEquals(new BigDecimal("6.55"), first.valueBelowLand);
+		assertEquals(new BigDecimal("93.5"), first.valueAboveDatum); // 100.0 - 6.55 rounded to the least scale
+		assertEquals("ft", first.units);
+		assertEquals("A", first.comment);
+		assertEquals("72019", first.pcode);
+		assertFalse(first.up);
+		assertFalse(first.isProvisional());
+	}
+
+	@Test
+	public void test_streamSamples_attributesOnManyLines() throws Exception {
+		// the former DOM extraction joined lines and could not parse this file
+		// SETUP
+		setup("sample","site", new BigDecimal("13.6"),"NGVD29");
+		List<WLSample> streamed = new ArrayList<>();
+
+		// TEST
+		WLSample.streamSamples(xmlReader, spec.getAgencyCd(), spec.getSiteNo(), spec.getElevation(), streamed::add);
+
+		// ASSERT
+		assertEquals(170, streamed.size());
+		assertEquals("1983-08-06T00:00:00.000", streamed.get(0).time);
+		assertEquals(new BigDecimal("11.043"), streamed.get(0).value);
+		assertEquals("Wild Guess", streamed.get(0).comment);
+	}
+
 	@Test
 	public void test_lowValuesWithBadDatum() throws Exception {
 		// this test ensures that loading a site mediated above a datum evaluates its overall statistics correctly
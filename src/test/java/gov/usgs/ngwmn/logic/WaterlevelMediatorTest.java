@@ -0,0 +1,64 @@
+package gov.usgs.ngwmn.logic;
+
+import static gov.usgs.ngwmn.logic.WaterlevelMediator.*;
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import gov.usgs.ngwmn.logic.WaterlevelMediator.MediationResult;
+import gov.usgs.ngwmn.logic.WaterlevelMediator.ValidationException;
+
+public class WaterlevelMediatorTest {
+
+	@Test
+	public void test_mediated() throws Exception {
+		MediationResult below = mediateBelowGroundLevel("10.0", "ft", "72019", null, "100.0", "NAVD88");
+		MediationResult above = mediateAboveSiteDatum("10.0", "ft", "72019", null, "100.0", "NAVD88");
+
+		assertTrue(below.isMediated());
+		assertEquals(new BigDecimal("10.0"), below.getValue());
+		assertNull(below.getReason());
+		assertNull(below.getMessage());
+		assertTrue(above.isMediated());
+		assertEquals(new BigDecimal("90.0"), above.getValue());
+		assertEquals(above.getValue(), mediateToDistanceAboveSiteDatum("10.0", "ft", "72019", null, "100.0", "NAVD88"));
+	}
+
+	@Test
+	public void test_missingElevation_reasonWithoutException() {
+		MediationResult above = mediateAboveSiteDatum("10.0", "ft", "72019", null, null, "NAVD88");
+
+		assertFalse(above.isMediated());
+		assertNull(above.getValue());
+		assertEquals(NA_NO_SITE_ELEVATION, above.getReason());
+		assertEquals(NA_NO_SITE_ELEVATION + " Site elevation: null'", above.getMessage());
+		try {
+			mediateToDistanceAboveSiteDatum("10.0", "ft", "72019", null, null, "NAVD88");
+			fail("the throwing mediation should report the same reason");
+		} catch (ValidationException e) {
+			assertEquals(above.getMessage(), e.getMessage());
+		}
+	}
+
+	@Test
+	public void test_unrecognized() {
+		MediationResult below = mediateBelowGroundLevel("10.0", "ft", "99999", null, "100.0", "NAVD88");
+		MediationResult unit  = mediateAboveSiteDatum("10.0", "ft", "62610", null, "100.0", "NGVD29");
+		MediationResult datum = mediateAboveSiteDatum("10.0", "m", "72019", null, "100.0", "NAVD88");
+
+		assertEquals(NA_NO_PCODE + " Value: '99999'", below.getMessage());
+		assertTrue(unit.isMediated());
+		assertEquals(NA_PCODE_UNIT_DECLAIRED_UNIT_MISMATCH, datum.getReason());
+		assertEquals(NA_PCODE_UNIT_DECLAIRED_UNIT_MISMATCH + " pcode unit: 'FEET' measure unit: 'METERS'", datum.getMessage());
+	}
+
+	@Test
+	public void test_noPcode_rawValueEvenIfNotANumber() {
+		MediationResult below = mediateBelowGroundLevel("dry", "ft", null, null, null, null);
+
+		assertTrue(below.isMediated());
+		assertNull(below.getValue());
+	}
+}
@@ -0,0 +1,76 @@
+package gov.usgs.ngwmn.model;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class LookupCacheTest {
+
+	@Test
+	public void test_pcode() {
+		assertEquals(PCode.P72019, PCode.get("72019"));
+		assertEquals(PCode.P72019, PCode.get(" 72 019\n"));
+		assertEquals(PCode.UNSPECIFIED, PCode.get(null));
+		// only null is unspecified, as before
+		assertEquals(PCode.UNRECOGNIZED, PCode.get(""));
+		assertEquals(PCode.UNRECOGNIZED, PCode.get("  "));
+		assertEquals(PCode.UNRECOGNIZED, PCode.get("99999"));
+		assertEquals(PCode.UNRECOGNIZED, PCode.get("NRECOGNIZED"));
+		for (PCode pcode : PCode.values()) {
+			if ( ! pcode.isUnrecognized() && ! pcode.isUnspecified() ) {
+				assertEquals(pcode, PCode.get(pcode.getCode()));
+			}
+		}
+	}
+
+	@Test
+	public void test_unit() {
+		assertEquals(Unit.FEET, Unit.get("ft"));
+		assertEquals(Unit.FEET, Unit.get("FEET"));
+		assertEquals(Unit.FEET, Unit.get(" Feet "));
+		assertEquals(Unit.FEET, Unit.get("ft  ft"));
+		assertEquals(Unit.METERS, Unit.get("M"));
+		assertEquals(Unit.UNSPECIFIED, Unit.get(null));
+		assertEquals(Unit.UNSPECIFIED, Unit.get("  "));
+		assertEquals(Unit.UNSPECIFIED, Unit.get("null"));
+		assertEquals(Unit.UNRECOGNIZED, Unit.get("furlongs"));
+	}
+
+	@Test
+	public void test_depthDatum() {
+		assertEquals(DepthDatum.NAVD88, DepthDatum.get("NAVD88"));
+		assertEquals(DepthDatum.NAVD88, DepthDatum.get(" navd88 "));
+		assertEquals(DepthDatum.LAND_SURFACE, DepthDatum.get("LAND_SURFACE"));
+		assertEquals(DepthDatum.LAND_SURFACE, DepthDatum.get("landsurface"));
+		assertEquals(DepthDatum.MSL, DepthDatum.get("LMSL"));
+		assertEquals(DepthDatum.MSL, DepthDatum.get("lmsl"));
+		assertEquals(DepthDatum.UNSPECIFIED, DepthDatum.get(null));
+		assertEquals(DepthDatum.UNSPECIFIED, DepthDatum.get(""));
+		assertEquals(DepthDatum.UNRECOGNIZED, DepthDatum.get("NAD27"));
+	}
+
+	@Test
+	public void test_cache_resolvedOnceAndBounded() {
+		AtomicInteger resolved = new AtomicInteger();
+		LookupCache<Integer> cache = new LookupCache<>(raw -> {
+			resolved.incrementAndGet();
+			return raw.trim().length();
+		});
+
+		assertEquals(Integer.valueOf(2), cache.get(" ab "));
+		assertEquals(Integer.valueOf(2), cache.get(" ab "));
+		assertEquals(1, resolved.get());
+
+		for (int s=0; s<LookupCache.MAX_ENTRIES * 2; s++) {
+			cache.get("s" + s);
+		}
+		assertEquals(LookupCache.MAX_ENTRIES, cache.size());
+		// those after are resolved each time
+		int before = resolved.get();
+		String last = "s" + (LookupCache.MAX_ENTRIES * 2 - 1);
+		assertEquals(Integer.valueOf(last.length()), cache.get(last));
+		assertEquals(before + 1, resolved.get());
+	}
+}
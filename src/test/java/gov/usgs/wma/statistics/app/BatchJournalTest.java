@@ -0,0 +1,67 @@
+package gov.usgs.wma.statistics.app;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchJournalTest {
+
+	Path file;
+
+	@Before
+	public void before() throws Exception {
+		file = Files.createTempFile("batch", ".journal");
+	}
+
+	@After
+	public void after() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void test_complete_survivesReopen() throws Exception {
+		try (BatchJournal journal = BatchJournal.open(file)) {
+			assertEquals(0, journal.size());
+			journal.complete("USGS_1_WATERLEVEL.xml", "aa");
+			journal.complete("nested/MBMG_2_WATERLEVEL.xml", "bb");
+			journal.complete("USGS_1_WATERLEVEL.xml", "cc");
+			assertTrue(journal.isComplete("USGS_1_WATERLEVEL.xml", "cc"));
+		}
+		try (BatchJournal journal = BatchJournal.open(file)) {
+			assertEquals(2, journal.size());
+			// the last line of a site is its latest completion
+			assertTrue(journal.isComplete("USGS_1_WATERLEVEL.xml", "cc"));
+			assertFalse(journal.isComplete("USGS_1_WATERLEVEL.xml", "aa"));
+			assertTrue(journal.isComplete("nested/MBMG_2_WATERLEVEL.xml", "bb"));
+			assertFalse(journal.isComplete("MBMG_3_WATERLEVEL.xml", "bb"));
+		}
+	}
+
+	@Test
+	public void test_open_dropsPartialLastLine() throws Exception {
+		Files.write(file, "USGS_1\taa\nUSGS_2\tb".getBytes(StandardCharsets.UTF_8));
+		try (BatchJournal journal = BatchJournal.open(file)) {
+			assertEquals(1, journal.size());
+			assertFalse(journal.isComplete("USGS_2", "b"));
+			journal.complete("USGS_3", "cc");
+		}
+		assertEquals("USGS_1\taa\nUSGS_3\tcc\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void test_hash_ofParametersAndData() {
+		byte[] data = "<wml2:Collection/>".getBytes(StandardCharsets.UTF_8);
+		String hash = BatchJournal.hash("medians=false", data);
+
+		assertEquals(64, hash.length());
+		assertEquals(hash, BatchJournal.hash("medians=false", data.clone()));
+		assertNotEquals(hash, BatchJournal.hash("medians=true", data));
+		assertNotEquals(hash, BatchJournal.hash("medians=false", "<wml2:Collection />".getBytes(StandardCharsets.UTF_8)));
+	}
+}
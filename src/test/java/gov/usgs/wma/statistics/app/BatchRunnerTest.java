@@ -0,0 +1,231 @@
+package gov.usgs.wma.statistics.app;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import gov.usgs.ngwmn.logic.WaterLevelStatistics;
+import gov.usgs.ngwmn.model.Elevation;
+import gov.usgs.ngwmn.model.Specifier;
+import gov.usgs.ngwmn.model.WLSample;
+import gov.usgs.wma.statistics.app.BatchRunner.Format;
+import gov.usgs.wma.statistics.app.BatchRunner.Report;
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+
+public class BatchRunnerTest {
+
+	private static final Elevation ELEVATION = new Elevation(new BigDecimal("100.0"), "NAVD88");
+	private static final String[] SITES = {"USGS_405010073414901", "MBMG_3002", "MN_DNR_200105"};
+
+	Properties env;
+	Path directory;
+
+	@Before
+	public void before() throws Exception {
+		env = Properties.fromResource("/application.properties");
+		directory = Files.createTempDirectory("batch");
+		Path nested = Files.createDirectory(directory.resolve("nested"));
+		for (String site : SITES) {
+			Path target = (site.startsWith("MN") ?nested :directory).resolve(site + BatchRunner.SITE_FILE_SUFFIX);
+			try (InputStream in = getClass().getResourceAsStream("/sample-data/" + site + BatchRunner.SITE_FILE_SUFFIX)) {
+				Files.copy(in, target);
+			}
+		}
+		Files.write(directory.resolve("USGS_1" + BatchRunner.SITE_FILE_SUFFIX), "<wml2:Collection".getBytes(StandardCharsets.UTF_8));
+		Files.write(directory.resolve("notes.txt"), "not a site".getBytes(StandardCharsets.UTF_8));
+	}
+
+	@After
+	public void after() throws Exception {
+		try (Stream<Path> paths = Files.walk(directory)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void test_specifier_siteAfterTheLastUnderscore() {
+		Specifier spec = BatchRunner.specifier(Paths.get("data", "MN_DNR_200105" + BatchRunner.SITE_FILE_SUFFIX));
+		assertEquals("MN_DNR", spec.getAgencyCd());
+		assertEquals("200105", spec.getSiteNo());
+
+		spec = BatchRunner.specifier(Paths.get("405010073414901" + BatchRunner.SITE_FILE_SUFFIX));
+		assertEquals("", spec.getAgencyCd());
+		assertEquals("405010073414901", spec.getSiteNo());
+	}
+
+	@Test
+	public void test_siteFiles_nestedAndLargestFirst() throws Exception {
+		List<Path> files = BatchRunner.siteFiles(directory);
+
+		assertEquals(SITES.length + 1, files.size());
+		for (int f=1; f<files.size(); f++) {
+			assertTrue(Files.size(files.get(f-1)) >= Files.size(files.get(f)));
+		}
+	}
+
+	@Test
+	public void test_run_ndjsonSameAsSiteCalculation() throws Exception {
+		BatchRunner runner = new BatchRunner(env, Format.NDJSON, 2, ELEVATION, false);
+		StringWriter out = new StringWriter();
+
+		Report report = runner.run(directory, out);
+
+		String[] lines = out.toString().split("\n");
+		assertEquals(SITES.length + 1, lines.length);
+		assertEquals(SITES.length + 1, report.sites());
+		assertEquals(1, report.failed());
+		assertTrue(report.latencyMillis(50) <= report.latencyMillis(100));
+
+		ObjectMapper mapper = new ObjectMapper();
+		long samples = 0;
+		for (String site : SITES) {
+			Specifier spec = BatchRunner.specifier(Paths.get(site + BatchRunner.SITE_FILE_SUFFIX)).setElevation(ELEVATION);
+			List<WLSample> expected;
+			try (Reader xml = Files.newBufferedReader(BatchRunner.siteFiles(directory).stream()
+					.filter(path -> BatchRunner.siteId(path).equals(site)).findFirst().get())) {
+				expected = WLSample.extractSamples(xml, spec.getAgencyCd(), spec.getSiteNo(), ELEVATION);
+			}
+			samples += expected.size();
+			String statistics = mapper.writeValueAsString(
+					new WaterLevelStatistics(env, new JsonDataBuilder(env)).calculate(spec, expected));
+			// the calculation date is the same day
+			assertTrue(site, Stream.of(lines).anyMatch(line -> line.startsWith("{\"id\":\"" + site + "\"")
+					&& line.endsWith("\"statistics\":" + statistics + "}")));
+		}
+		assertEquals(samples, report.samples());
+		assertTrue(Stream.of(lines).anyMatch(line -> line.startsWith("{\"id\":\"USGS_1\"") && line.contains("\"error\":")));
+	}
+
+	@Test
+	public void test_run_csvQuotesErrors() throws Exception {
+		BatchRunner runner = new BatchRunner(env, Format.CSV, 1, ELEVATION, false);
+		StringWriter out = new StringWriter();
+
+		runner.run(directory, out);
+
+		String csv = out.toString();
+		assertTrue(csv.startsWith(String.join(",", BatchRunner.CSV_COLUMNS) + "\n"));
+		assertTrue(csv.contains("\nMBMG_3002,MBMG,3002,"));
+		assertTrue(csv.contains("\nUSGS_1,USGS,1,"));
+		assertEquals("\"a, \"\"b\"\"\"", BatchRunner.csvValue("a, \"b\""));
+		assertEquals("", BatchRunner.csvValue(null));
+	}
+
+	@Test
+	public void test_run_journalSkipsCompletedAndUnchangedSites() throws Exception {
+		Path journalFile = Files.createTempFile("batch", ".journal");
+		try {
+			StringWriter first = new StringWriter();
+			try (BatchJournal journal = BatchJournal.open(journalFile)) {
+				Report report = new BatchRunner(env, Format.NDJSON, 2, ELEVATION, false).setJournal(journal).run(directory, first);
+				assertEquals(SITES.length + 1, report.sites());
+				assertEquals(0, report.skipped());
+				// the site that did not parse is not complete
+				assertEquals(SITES.length, journal.size());
+			}
+			
+			// change one site, the bad site is tried again
+			Path changed = directory.resolve("MBMG_3002" + BatchRunner.SITE_FILE_SUFFIX);
+			Files.write(changed, "\n<!-- revised -->\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+			StringWriter second = new StringWriter();
+			try (BatchJournal journal = BatchJournal.open(journalFile)) {
+				Report report = new BatchRunner(env, Format.NDJSON, 2, ELEVATION, false).setJournal(journal).run(directory, second);
+				assertEquals(2, report.sites());
+				assertEquals(SITES.length - 1, report.skipped());
+			}
+			String[] lines = second.toString().split("\n");
+			assertEquals(2, lines.length);
+			assertTrue(Stream.of(lines).anyMatch(line -> line.startsWith("{\"id\":\"MBMG_3002\"")));
+			assertTrue(Stream.of(lines).anyMatch(line -> line.startsWith("{\"id\":\"USGS_1\"")));
+			
+			// other parameters are other statistics
+			try (BatchJournal journal = BatchJournal.open(journalFile)) {
+				Report report = new BatchRunner(env, Format.NDJSON, 2, ELEVATION, true).setJournal(journal).run(directory, new StringWriter());
+				assertEquals(SITES.length + 1, report.sites());
+			}
+		} finally {
+			Files.deleteIfExists(journalFile);
+		}
+	}
+
+	@Test
+	public void test_main_journalAppendsOutput() throws Exception {
+		Path output = directory.resolve("out.csv");
+		Path journal = directory.resolve("run.journal");
+		String[] args = {directory.toString(), "--format", "csv", "--output", output.toString(), "--journal", journal.toString(),
+				"--elevation", "100.0", "--datum", "NAVD88"};
+		PrintStream stderr = new PrintStream(new ByteArrayOutputStream());
+
+		BatchRunner.run(args, System.out, stderr);
+		BatchRunner.run(args, System.out, stderr);
+
+		// the header and sites of the first run and the bad site again
+		List<String> lines = Files.readAllLines(output);
+		assertEquals(SITES.length + 3, lines.size());
+		assertEquals(1, lines.stream().filter(line -> line.startsWith("SITE_ID,")).count());
+		assertEquals(2, lines.stream().filter(line -> line.startsWith("USGS_1,")).count());
+	}
+
+	@Test
+	public void test_main_journalWithoutOutputRefused() throws Exception {
+		Path output = directory.resolve("out.csv");
+		Path journal = directory.resolve("run.journal");
+		String[] args = {directory.toString(), "--format", "csv", "--output", output.toString(), "--journal", journal.toString(),
+				"--elevation", "100.0", "--datum", "NAVD88"};
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		PrintStream stderr = new PrintStream(err);
+
+		BatchRunner.run(args, System.out, stderr);
+		long completed = Files.readAllLines(journal).size();
+		Files.delete(output);
+
+		assertEquals(2, BatchRunner.run(args, System.out, stderr));
+		assertTrue(err.toString().contains("missing or empty"));
+		assertFalse(Files.exists(output));
+		assertEquals(completed, Files.readAllLines(journal).size());
+	}
+
+	@Test
+	public void test_main_invalidArguments() {
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		PrintStream stderr = new PrintStream(err);
+
+		assertEquals(2, BatchRunner.run(new String[] {}, System.out, stderr));
+		assertEquals(2, BatchRunner.run(new String[] {directory.toString(), "--format", "xml"}, System.out, stderr));
+		assertEquals(2, BatchRunner.run(new String[] {directory.toString(), "--threads"}, System.out, stderr));
+		assertEquals(2, BatchRunner.run(new String[] {directory.resolve("missing").toString()}, System.out, stderr));
+		assertTrue(err.toString().contains(BatchRunner.USAGE));
+	}
+
+	@Test
+	public void test_main_outputFile() throws Exception {
+		Path output = directory.resolve("out.csv");
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+		int status = BatchRunner.run(new String[] {directory.toString(), "--format", "csv", "--output", output.toString(),
+				"--elevation", "100.0", "--datum", "NAVD88"}, System.out, new PrintStream(err));
+
+		assertEquals(1, status); // the bad site file
+		assertEquals(SITES.length + 2, Files.readAllLines(output).size());
+		assertTrue(err.toString().contains("sites/s"));
+	}
+}
@@ -0,0 +1,25 @@
+package gov.usgs.wma.statistics.app;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class ContentHashTest {
+
+	@Test
+	public void test_hex_knownDigests() {
+		assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", new ContentHash().hex());
+		assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", new ContentHash().update("abc").hex());
+	}
+
+	@Test
+	public void test_update_partsAreTheContent() {
+		String whole = new ContentHash().update("medians=false\n<wml2:Collection />").hex();
+		String parts = new ContentHash().update("medians=false").update((byte) '\n')
+				.update("<wml2:Collection />".getBytes(StandardCharsets.UTF_8)).hex();
+		assertEquals(whole, parts);
+		assertEquals(whole, ContentHash.of("medians=false", "<wml2:Collection />".getBytes(StandardCharsets.UTF_8)));
+	}
+}
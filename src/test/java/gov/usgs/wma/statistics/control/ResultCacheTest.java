@@ -0,0 +1,115 @@
+package gov.usgs.wma.statistics.control;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.Value;
+
+public class ResultCacheTest {
+
+	long now;
+	String today;
+	ResultCache cache;
+	List<Value> samples;
+
+	@Before
+	public void setup() {
+		now = 0;
+		today = "2018-10-17";
+		cache = new ResultCache(2, 1000, () -> now, () -> today);
+
+		samples = new ArrayList<>();
+		samples.add( new Value("2005-06-10T04:15:00-05:00", "1.0") );
+		samples.add( new Value("2006-06-10T04:15:00-05:00", "2.0") );
+	}
+
+	@Test
+	public void test_key_sampleAndParameterSensitive() {
+		String key = ResultCache.key(samples, "BelowLand", "false");
+		assertEquals(64, key.length());
+		assertEquals(key, ResultCache.key(new ArrayList<>(samples), "BelowLand", "false"));
+
+		assertNotEquals(key, ResultCache.key(samples, "AboveDatum", "false"));
+		assertNotEquals(key, ResultCache.key(samples, "BelowLand", "true"));
+
+		// the value scale is its significant figures
+		List<Value> scaled = new ArrayList<>(samples);
+		scaled.set(1, new Value("2006-06-10T04:15:00-05:00", "2.00"));
+		assertNotEquals(key, ResultCache.key(scaled, "BelowLand", "false"));
+
+		List<Value> provisional = new ArrayList<>(samples);
+		provisional.set(1, new Value("2006-06-10T04:15:00-05:00", new BigDecimal("2.0"), true));
+		assertNotEquals(key, ResultCache.key(provisional, "BelowLand", "false"));
+	}
+
+	@Test
+	public void test_get_copyOfCached() {
+		JsonData json = new JsonData();
+		json.addMessage("calculated");
+		cache.put("a", json);
+		json.addMessage("after the put");
+
+		JsonData hit = cache.get("a");
+		assertNotSame(json, hit);
+		assertEquals(1, hit.getMessages().size());
+		hit.addError("changed by the caller");
+		hit.putMonthly("1", null);
+
+		JsonData again = cache.get("a");
+		assertNotSame(hit, again);
+		assertEquals(1, again.getMessages().size());
+		assertTrue(again.isOk());
+		assertFalse(again.hasMonthly());
+	}
+
+	@Test
+	public void test_get_countsHitsAndMisses() {
+		JsonData json = new JsonData();
+		assertNull(cache.get("a"));
+		cache.put("a", json);
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("a"));
+
+		assertEquals(2, cache.hits());
+		assertEquals(1, cache.misses());
+	}
+
+	@Test
+	public void test_put_evictsLeastRecentlyUsed() {
+		cache.put("a", new JsonData());
+		cache.put("b", new JsonData());
+		cache.get("a");
+		cache.put("c", new JsonData());
+
+		assertEquals(2, cache.size());
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+	}
+
+	@Test
+	public void test_get_expiresByAge() {
+		cache.put("a", new JsonData());
+		now = 1000;
+		assertNotNull(cache.get("a"));
+		now = 1001;
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void test_get_clearedAtDateRollover() {
+		cache.put("a", new JsonData());
+		cache.put("b", new JsonData());
+		today = "2018-10-18";
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,165 @@
+package gov.usgs.wma.statistics.control;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import gov.usgs.ngwmn.logic.MonthlyDistributions;
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.wma.statistics.app.Properties;
+import gov.usgs.wma.statistics.app.SwaggerConfig;
+import gov.usgs.wma.statistics.dao.StatisticsStore;
+import gov.usgs.wma.statistics.dao.StatisticsStore.Entry;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+import gov.usgs.wma.statistics.model.JsonClassified;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonOverall;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestPropertySource(locations = { "/application.properties" })
+public class SiteStatsServiceTest {
+
+	private static final String SITE = "USGS:405010073414901";
+	private static final String DATA = SwaggerConfig.StatsService_EXAMPLE_RAW;
+	private static final String PERCENTILES = SwaggerConfig.StatsService_PERCENTILES_DEFAULT;
+
+	@Autowired
+	Environment spring;
+	Properties env;
+	SiteStatsService service;
+	Map<String, Entry> stored;
+	int saves;
+
+	@Before
+	public void setup() {
+		env = new Properties().setEnvironment(spring);
+		stored = new HashMap<>();
+		saves = 0;
+		// a map in place of the database
+		StatisticsStore store = new StatisticsStore() {
+			@Override
+			public Entry find(String siteId) {
+				return stored.get(siteId);
+			}
+			@Override
+			public void save(Entry entry) {
+				saves++;
+				stored.put(entry.siteId, entry);
+			}
+		};
+		service = new SiteStatsService().setProperties(env).setStatsService(new StatsService().setProperties(env)).setStore(store);
+	}
+
+	@Test
+	public void test_calculate_storedUntilTheInputChanges() {
+		JsonData first = service.calculate(SITE, DATA, "BelowLand", PERCENTILES);
+		assertTrue(first.isOk());
+		assertEquals(1, saves);
+		assertSame(first, stored.get(SITE).json);
+
+		JsonData again = service.calculate(SITE, DATA, "BelowLand", PERCENTILES);
+		assertSame(first, again);
+		assertEquals(1, saves);
+
+		JsonData other = service.calculate(SITE, DATA, "AboveDatum", PERCENTILES);
+		assertNotSame(first, other);
+		assertEquals(2, saves);
+		assertEquals("AboveDatum", stored.get(SITE).mediation());
+	}
+
+	@Test
+	public void test_calculate_errorsAreNotStored() {
+		JsonData json = service.calculate(SITE, DATA, "Sideways", PERCENTILES);
+
+		assertTrue(json.hasErrors());
+		assertEquals(0, saves);
+		assertNull(stored.get(SITE));
+	}
+
+	@Test
+	public void test_stored_recalculatedWhenStale() {
+		JsonData current = service.calculate(SITE, DATA, "AboveDatum", "10,50");
+		assertSame(current, service.stored(SITE));
+		assertEquals(1, saves);
+
+		// the same statistics calculated on an earlier day
+		Entry entry = stored.get(SITE);
+		JsonOverall overall = current.getOverall();
+		JsonData earlier = new JsonData();
+		earlier.setOverall(new JsonOverall(overall.recordYears, overall.sampleCount, overall.latestPercentile,
+				overall.latestValue, overall.valueMax, overall.valueMedian, overall.valueMin,
+				"2000-01-01", overall.dateMax, overall.dateMin, overall.getMediation()));
+		stored.put(SITE, new Entry(SITE, entry.inputHash, entry.percentiles, entry.data, earlier));
+
+		JsonData recalculated = service.stored(SITE);
+
+		assertEquals(2, saves);
+		assertEquals(StatisticsCalculator.today(), recalculated.getOverall().dateCalc);
+		assertEquals(overall.valueMedian, recalculated.getOverall().valueMedian);
+		assertEquals("AboveDatum", stored.get(SITE).mediation());
+		assertEquals("10,50", stored.get(SITE).percentiles);
+		assertEquals(entry.inputHash, stored.get(SITE).inputHash);
+	}
+
+	@Test
+	public void test_stored_missingSite() {
+		JsonData json = service.stored(SITE);
+
+		assertTrue(json.hasErrors());
+		assertEquals(env.getError(Properties.ENV_MISSING_SITE, SITE), json.getErrors().get(0));
+	}
+
+	@Test
+	public void test_classify_rankedWithoutRecalculating() {
+		JsonData json = service.calculate(SITE, DATA, "BelowLand", PERCENTILES);
+		String latest = "2018-06-20T04:15:00-05:00, 11.000\n2019-07-10T04:15:00-05:00, 5.000\n2019-08-10T04:15:00-05:00, 5.000";
+
+		JsonClassified classified = service.classify(SITE, latest);
+
+		assertTrue(classified.isOk());
+		assertEquals(3, classified.getReadings().size());
+		// in place of the latest sample, it has its percentile
+		assertEquals(json.getOverall().latestPercentile, classified.getReadings().get(0).percentile);
+		assertEquals("13", classified.getReadings().get(1).recordYears);
+		assertNotNull(classified.getReadings().get(1).percentile);
+		// no samples in August
+		assertEquals("0", classified.getReadings().get(2).recordYears);
+		assertNull(classified.getReadings().get(2).percentile);
+
+		// the distributions are kept until the site is calculated again
+		MonthlyDistributions months = service.distributions.get(SITE).months;
+		service.classify(SITE, latest);
+		assertSame(months, service.distributions.get(SITE).months);
+		service.calculate(SITE, DATA, "AboveDatum", PERCENTILES);
+		assertNull(service.distributions.get(SITE));
+		service.classify(SITE, latest);
+		assertEquals(MediationType.AboveDatum, service.distributions.get(SITE).months.getMediation());
+	}
+
+	@Test
+	public void test_classify_missingSite() {
+		JsonClassified classified = service.classify(SITE, "2018-06-20T04:15:00-05:00, 11.000");
+
+		assertFalse(classified.isOk());
+		assertEquals(env.getError(Properties.ENV_MISSING_SITE, SITE), classified.getErrors().get(0));
+	}
+
+	@Test
+	public void test_classify_invalidReadings() {
+		service.calculate(SITE, DATA, "BelowLand", PERCENTILES);
+
+		JsonClassified classified = service.classify(SITE, "2018-06-20T04:15:00-05:00, deep");
+
+		assertFalse(classified.isOk());
+		assertTrue(classified.getReadings().isEmpty());
+	}
+}
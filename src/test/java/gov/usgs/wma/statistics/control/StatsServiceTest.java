@@ -2,8 +2,13 @@ package gov.usgs.wma.statistics.control;
 
 import static org.junit.Assert.*;
 
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -149,6 +154,111 @@ public class StatsServiceTest {
 		assertEquals(1, parsed.size());
 	}
 	
+	@Test
+	public void test_parseData_agingAndTrailingColumns() {
+		String data = "1999/01/01, 1.00 ,Provisional\n1999/01/02,2.00,a,,\n1999/01/03,3.00,x\n1999/01/04,4.00, ,";
+		List<WLSample> parsed = stats.validateAndParseCsvData(data, builder);
+		
+		// the invalid aging sample is retained with an error while the blank aging is a format error
+		assertEquals(3, parsed.size());
+		assertTrue(parsed.get(0).isProvisional());
+		assertEquals(new BigDecimal("1.00"), parsed.get(0).value);
+		assertFalse(parsed.get(1).isProvisional());
+		assertEquals(2, builder.errors().count());
+		assertTrue(builder.errors().anyMatch(msg -> msg.contains("aging code A|P) on row 2")));
+		assertTrue(builder.errors().anyMatch(msg -> msg.contains("incorrect format) on row 3 [1999/01/04,4.00, ,]")));
+	}
+	
+	@Test
+	public void test_parseData_readerRowsSpanChunks() throws Exception {
+		StringBuilder data = new StringBuilder("# a comment row\r\n");
+		for (int r=0; r<StatsService.CSV_CHUNK; r++) {
+			data.append(2000 + r%18).append("-06-10T04:15:00-05:00, ").append(r).append(".0").append(r%2==0 ?"\r\n" :",P\n");
+		}
+		List<WLSample> parsed = stats.validateAndParseCsvData(new StringReader(data.toString()), builder);
+		
+		assertEquals(StatsService.CSV_CHUNK, parsed.size());
+		assertFalse(builder.hasErrors());
+		for (int r=0; r<parsed.size(); r++) {
+			assertEquals(new BigDecimal(r+".0"), parsed.get(r).value);
+			assertEquals(r%2 == 1, parsed.get(r).isProvisional());
+		}
+	}
+	
+	@Test
+	public void test_calculateCsv_sameAsCalculate() throws Exception {
+		String data = SwaggerConfig.StatsService_EXAMPLE_RAW;
+		
+		JsonData form = stats.calculate(data, MediationType.BelowLand.toString(), SwaggerConfig.BOOLEAN_TRUE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		stats.cache = new ResultCache(0, 0); // not cached so the CSV body is calculated
+		JsonData csv  = stats.calculateCsv(new StringReader(data), MediationType.BelowLand.toString(), SwaggerConfig.BOOLEAN_TRUE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		
+		assertNotSame(form, csv);
+		ObjectMapper mapper = new ObjectMapper();
+		assertEquals(mapper.writeValueAsString(form), mapper.writeValueAsString(csv));
+	}
+	
+	@Test
+	public void test_calculate_approximateSmallSeriesIsExact() throws Exception {
+		String data = SwaggerConfig.StatsService_EXAMPLE_RAW;
+		
+		JsonData exact  = stats.calculate(data, MediationType.BelowLand.toString(), SwaggerConfig.BOOLEAN_TRUE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		JsonData approx = stats.calculate(data, MediationType.BelowLand.toString(), SwaggerConfig.BOOLEAN_TRUE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT, SwaggerConfig.BOOLEAN_TRUE, SwaggerConfig.StatsService_DAILY_DEFAULT);
+		
+		// every month is retained whole by its sketch so only the rank error is added
+		assertEquals("0", approx.getOverall().rankError);
+		ObjectMapper mapper = new ObjectMapper();
+		String expected = mapper.writeValueAsString(exact);
+		String actual   = mapper.writeValueAsString(approx).replace(",\"RANK_ERROR\":\"0\"", "");
+		assertEquals(expected, actual);
+	}
+	
+	@Test
+	public void test_calculate_approximateInvalid() throws Exception {
+		JsonData json = stats.calculate(builder, "1999/01/01,1.00\n1999/01/02,2.00", MediationType.BelowLand.toString(),
+				SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT, "maybe", SwaggerConfig.StatsService_DAILY_DEFAULT);
+		
+		assertTrue(json.hasErrors());
+		assertTrue(builder.errors().anyMatch(msg -> msg.contains("Invalid approximate parameter value, maybe")));
+	}
+	
+	@Test
+	public void test_calculate_dailyMedianKeepsLatestValue() throws Exception {
+		// four samples a day for fourteen years with the latest sample the only one of its day
+		StringBuilder data = new StringBuilder();
+		for (int year=2005; year<=2018; year++) {
+			for (int month=1; month<=12; month++) {
+				for (int hour=0; hour<24; hour+=6) {
+					data.append(String.format("%d-%02d-10T%02d:15:00, %d.%d0\n", year, month, hour, month, hour));
+				}
+			}
+		}
+		data.append("2018-12-11T04:15:00, 17.00\n");
+		String raw = data.toString();
+		
+		JsonData every = stats.calculate(new JsonDataBuilder(env), raw, MediationType.BelowLand.toString(),
+				SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT, SwaggerConfig.BOOLEAN_FALSE, "none");
+		JsonData daily = stats.calculate(builder, raw, MediationType.BelowLand.toString(),
+				SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT, SwaggerConfig.BOOLEAN_FALSE, "median");
+		
+		assertFalse(daily.hasErrors());
+		assertEquals("17.00", daily.getOverall().latestValue);
+		assertEquals(every.getOverall().latestValue, daily.getOverall().latestValue);
+		assertEquals(every.getOverall().latestPercentile, daily.getOverall().latestPercentile);
+		assertEquals(every.getOverall().dateMin.substring(0, 10), daily.getOverall().dateMin.substring(0, 10));
+		assertEquals(14*12 + 1, daily.getOverall().sampleCount);
+		assertTrue(builder.messages().anyMatch(msg -> msg.equals("Aggregated 672 samples to 168 daily median values.")));
+	}
+	
+	@Test
+	public void test_calculate_dailyInvalid() throws Exception {
+		JsonData json = stats.calculate(builder, "1999/01/01,1.00\n1999/01/02,2.00", MediationType.BelowLand.toString(),
+				SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT, SwaggerConfig.BOOLEAN_FALSE, "hourly");
+		
+		assertTrue(json.hasErrors());
+		assertTrue(builder.errors().anyMatch(msg -> msg.contains("Invalid daily parameter value, hourly. Valid values are none, median, mean.")));
+	}
+	
 	@Test
 	public void test_parseData_tooFewColumns() {
 		// the second data row has no commas
@@ -200,6 +310,129 @@ public class StatsServiceTest {
 		assertTrue( msgs.contains("Too few data values for monthly statistics") );
 	}
 	
+	@Test
+	public void test_calculate_cachedBySamplesAndParameters() throws Exception {
+		String data = "1999/01/01,1.00\n1999/01/02,2.00";
+		String same = "# the same samples formatted differently\n 1999/01/01, 1.00 \r\n1999/01/02,2.00,A";
+		String mediation = MediationType.ASCENDING.toString();
+		
+		ObjectMapper mapper = new ObjectMapper();
+		JsonData first = stats.calculate(data, mediation, SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		JsonData again = stats.calculate(same, mediation, SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		assertNotSame(first, again); // each hit is a copy
+		assertEquals(mapper.writeValueAsString(first), mapper.writeValueAsString(again));
+		stats.calculate(data, mediation, SwaggerConfig.BOOLEAN_TRUE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		
+		Map<String, Long> counters = stats.cacheCounters();
+		assertEquals(Long.valueOf(1), counters.get("hits"));
+		assertEquals(Long.valueOf(2), counters.get("misses"));
+		assertEquals(Long.valueOf(2), counters.get("size"));
+	}
+	
+	@Test
+	public void test_calculate_errorsNotCached() throws Exception {
+		String data = "1999/01/01,1.00\n1999/01/02,two";
+		
+		JsonData json = stats.calculate(data, MediationType.ASCENDING.toString(), SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		
+		assertTrue( json.hasErrors() );
+		assertEquals(Long.valueOf(0), stats.cacheCounters().get("size"));
+	}
+	
+	@Test
+	public void test_calculateMediations_sameAsCalculate() throws Exception {
+		String data = SwaggerConfig.StatsService_EXAMPLE_RAW;
+
+		Map<String, JsonData> both = stats.calculateMediations(data, SwaggerConfig.BOOLEAN_TRUE, "10,50");
+
+		assertEquals(2, both.size());
+		stats.cache = new ResultCache(0, 0); // not cached so each mediation is calculated alone
+		ObjectMapper mapper = new ObjectMapper();
+		for (MediationType mediation : Arrays.asList(MediationType.BelowLand, MediationType.AboveDatum)) {
+			JsonData single = stats.calculate(data, mediation.toString(), SwaggerConfig.BOOLEAN_TRUE, "10,50");
+			assertEquals(mapper.writeValueAsString(single), mapper.writeValueAsString(both.get(mediation.toString())));
+		}
+	}
+
+	@Test
+	public void test_calculateMediations_cachedForCalculate() throws Exception {
+		String data = SwaggerConfig.StatsService_EXAMPLE_RAW;
+
+		Map<String, JsonData> both = stats.calculateMediations(data, SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		JsonData aboveDatum = stats.calculate(data, MediationType.AboveDatum.toString(), SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+
+		ObjectMapper mapper = new ObjectMapper();
+		assertEquals(mapper.writeValueAsString(both.get(MediationType.AboveDatum.toString())), mapper.writeValueAsString(aboveDatum));
+		assertEquals(Long.valueOf(1), stats.cacheCounters().get("hits"));
+		assertEquals(Long.valueOf(2), stats.cacheCounters().get("size"));
+	}
+
+	@Test
+	public void test_calculate_cachedByBuilderMediation() throws Exception {
+		String data = SwaggerConfig.StatsService_EXAMPLE_RAW;
+
+		Map<String, JsonData> both = stats.calculateMediations(data, SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		// a builder with a mediation set keeps it over the mediation parameter
+		JsonDataBuilder belowLand = new JsonDataBuilder(env).mediation(MediationType.BelowLand);
+		JsonData json = stats.calculate(belowLand, data, MediationType.AboveDatum.toString(),
+				SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+
+		ObjectMapper mapper = new ObjectMapper();
+		assertEquals(mapper.writeValueAsString(both.get(MediationType.BelowLand.toString())), mapper.writeValueAsString(json));
+		assertEquals(Long.valueOf(2), stats.cacheCounters().get("size"));
+	}
+
+	@Test
+	public void test_calculateMediations_errorsForBoth() throws Exception {
+		Map<String, JsonData> both = stats.calculateMediations("1999/01/01,1.00\n1999/01/02,two",
+				SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+
+		assertTrue(both.get(MediationType.BelowLand.toString()).hasErrors());
+		assertTrue(both.get(MediationType.AboveDatum.toString()).hasErrors());
+		assertEquals(Long.valueOf(0), stats.cacheCounters().get("size"));
+	}
+
+	@Test
+	public void test_calculateBatch_sameAsCalculate() throws Exception {
+		Map<String, String> data = new LinkedHashMap<>();
+		data.put("first",  "1999/01/01,1.00\n1999/01/02,2.00");
+		data.put("second", SwaggerConfig.StatsService_EXAMPLE_RAW);
+		
+		Map<String, JsonData> batch = stats.calculateBatch(data, MediationType.ASCENDING.toString(), SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		
+		assertEquals(Arrays.asList("first", "second"), new ArrayList<>(batch.keySet()));
+		ObjectMapper mapper = new ObjectMapper();
+		for (String id : data.keySet()) {
+			JsonData single = stats.calculate(data.get(id), MediationType.ASCENDING.toString(), SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+			assertEquals(id, mapper.writeValueAsString(single), mapper.writeValueAsString(batch.get(id)));
+		}
+	}
+	
+	@Test
+	public void test_calculateBatch_errorsAreIsolated() throws Exception {
+		// a single worker with a single queue slot so that the request thread also calculates
+		stats.batchWorkers = StatsService.newBatchWorkers(1, 1);
+		Map<String, String> data = new LinkedHashMap<>();
+		data.put("fine",    "1999/01/01,1.00\n1999/01/02,2.00");
+		data.put("badRow",  "1999/01/01,1.00\n1999/01/02,two");
+		data.put("missing", null);
+		data.put("fine2",   "1999/01/01,1.00\n1999/01/02,2.00");
+		data.put("fine3",   "1999/01/01,1.00\n1999/01/02,2.00");
+		
+		Map<String, JsonData> batch = stats.calculateBatch(data, MediationType.ASCENDING.toString(), SwaggerConfig.BOOLEAN_FALSE, SwaggerConfig.StatsService_PERCENTILES_DEFAULT);
+		stats.shutdown();
+		
+		assertEquals(5, batch.size());
+		assertTrue( batch.get("fine").isOk() );
+		assertTrue( batch.get("fine2").isOk() );
+		assertTrue( batch.get("fine3").isOk() );
+		assertTrue( batch.get("badRow").hasErrors() );
+		assertTrue( batch.get("missing").hasErrors() );
+		
+		String json = new ObjectMapper().writeValueAsString(batch.get("missing"));
+		assertTrue( json.contains("Dataset missing could not be calculated.") );
+	}
+	
 	@Test
 	public void test_doesThisMonthQualifyForStats_hasTenYearsData() throws Exception {
 		String data =
@@ -0,0 +1,75 @@
+package gov.usgs.wma.statistics.dao;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import gov.usgs.ngwmn.model.MediationType;
+import gov.usgs.wma.statistics.dao.StatisticsStore.Entry;
+import gov.usgs.wma.statistics.model.JsonData;
+import gov.usgs.wma.statistics.model.JsonMonthly;
+import gov.usgs.wma.statistics.model.JsonOverall;
+
+public class StatisticsStoreTest {
+
+	private static JsonMonthly month(String recordYears, int count, String ... percentiles) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for (int p=0; p<percentiles.length; p+=2) {
+			values.put(percentiles[p], percentiles[p+1]);
+		}
+		return new JsonMonthly(recordYears, count, values);
+	}
+
+	@Test
+	public void test_monthlyRows_roundTrip() {
+		JsonData json = new JsonData();
+		json.putMonthly("1",  month("10", 10, "P10", "1.0", "P50", "5.0", "P50_MIN", "4.0"));
+		json.putMonthly("12", month("11", 11, "P10", "2.0", "P50", "6.0"));
+
+		List<Object[]> rows = StatisticsStore.monthlyRows("USGS:1", json);
+		Map<String, JsonMonthly> monthly = StatisticsStore.monthly(rows);
+
+		assertEquals(5, rows.size());
+		assertEquals("USGS:1", rows.get(0)[0]);
+		assertEquals(json.getMonthly().keySet(), monthly.keySet());
+		for (String month : monthly.keySet()) {
+			JsonMonthly expected = json.getMonthly().get(month);
+			assertEquals(expected.recordYears, monthly.get(month).recordYears);
+			assertEquals(expected.sampleCount, monthly.get(month).sampleCount);
+			assertEquals(expected.percentiles, monthly.get(month).percentiles);
+		}
+	}
+
+	@Test
+	public void test_monthly_noRows() {
+		assertTrue(StatisticsStore.monthly(Collections.emptyList()).isEmpty());
+		assertTrue(StatisticsStore.monthlyRows("USGS:1", new JsonData()).isEmpty());
+	}
+
+	@Test
+	public void test_overallRow_insertOrder() {
+		JsonData json = new JsonData();
+		json.setOverall(new JsonOverall("12.5", 20, "50", "1.0", "9.0", "5.0", "0.5",
+				"2018-08-29", "2018-06-10", "2005-06-10", MediationType.BelowLand));
+		json.addMessage("one");
+		json.addMessage("two");
+		Entry entry = new Entry("USGS:1", "abc", "10,50,90", "2018-06-10,1.0", json);
+
+		Object[] row = StatisticsStore.overallRow(entry);
+
+		// one value for each insert parameter
+		assertEquals(StatisticsStore.INSERT_OVERALL.replaceAll("[^?]", "").length(), row.length);
+		assertEquals("USGS:1", row[0]);
+		assertEquals("one\ntwo", row[4]);
+		assertEquals("2018-08-29", row[12]);
+		assertEquals("BelowLand", row[15]);
+		assertEquals("BelowLand", entry.mediation());
+		assertTrue(entry.isCalculatedOn("2018-08-29"));
+		assertFalse(entry.isCalculatedOn("2018-08-30"));
+	}
+}
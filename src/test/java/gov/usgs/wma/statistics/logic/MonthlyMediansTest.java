@@ -0,0 +1,73 @@
+package gov.usgs.wma.statistics.logic;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.model.JsonDataBuilder;
+import gov.usgs.wma.statistics.model.Value;
+
+public class MonthlyMediansTest {
+
+	List<Value> samples;
+	MonthlyStatistics<Value> stats;
+
+	@Before
+	public void setup() {
+		samples = new LinkedList<>();
+		samples.add( new Value("2005-03-10T04:15:00-05:00", "3.0") );
+		samples.add( new Value("2005-03-15T04:15:00-05:00", "1.0") );
+		samples.add( new Value("2005-03-20T04:15:00-05:00", "2.0") );
+		samples.add( new Value("2006-03-10T04:15:00-05:00", "4.0") );
+		samples.add( new Value("2007-03-10T04:15:00-05:00", "0.5") );
+		stats = new MonthlyStatistics<>(null, new JsonDataBuilder(null));
+	}
+
+	@Test
+	public void test_byValue_medianOfTheValueOrderedYear() {
+		MonthlyMedians<Value> medians = new MonthlyMedians<>(stats, samples);
+
+		assertEquals(3, medians.byValue(3).size());
+		assertEquals("0.5", medians.byValue(3).get(0).value.toString());
+		assertEquals("2.0", medians.byValue(3).get(1).value.toString());
+		assertEquals("4.0", medians.byValue(3).get(2).value.toString());
+		assertEquals(5, medians.sampleCount(3));
+		assertEquals(3, medians.yearCount(3));
+		assertTrue(medians.byValue(1).isEmpty());
+	}
+
+	@Test
+	public void test_byDate_medianOfTheDateOrderedYear() {
+		MonthlyMedians<Value> medians = new MonthlyMedians<>(stats, samples);
+
+		// the middle of 2005 in date order, as the latest percentile takes it
+		assertEquals(3, medians.byDate(3).size());
+		assertEquals("1.0", medians.byDate(3).get(1).value.toString());
+		assertEquals("2.0", medians.byValue(3).get(1).value.toString());
+	}
+
+	@Test
+	public void test_months_areKept() {
+		MonthlyMedians<Value> medians = new MonthlyMedians<>(stats, samples);
+
+		assertSame(medians.byValue(3), medians.byValue(3));
+		assertSame(medians.byDate(3), medians.byDate(3));
+	}
+
+	@Test
+	public void test_remove_normalizesTheMonthAgain() {
+		MonthlyMedians<Value> medians = new MonthlyMedians<>(stats, samples);
+		List<Value> before = medians.byValue(3);
+		Value latest = samples.get(samples.size()-1);
+
+		assertTrue(medians.remove(latest));
+		assertNotSame(before, medians.byValue(3));
+		assertEquals(2, medians.byValue(3).size());
+		assertEquals(2, medians.yearCount(3));
+		assertFalse(medians.remove(latest));
+	}
+}
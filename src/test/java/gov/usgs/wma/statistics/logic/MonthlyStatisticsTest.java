@@ -9,6 +9,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.function.Function;
 
 import org.junit.Before;
@@ -870,4 +871,63 @@ public class MonthlyStatisticsTest {
 		actual = stats.doesThisMonthQualifyForStats(samples);
 		assertFalse(actual);
 	}
+
+	// the value order normalization of sortSamplesByYear of the month sorted by value
+	private void assertSelectedSameAsSorted(MonthlyStatistics<Value> stats, List<Value> monthByDate) {
+		Function<List<Value>, List<Value>> sortBy = stats.sortFunctionByQualifier();
+		List<Value> expected = stats.normalizeMonth(stats.sortSamplesByYear(sortBy.apply(new ArrayList<>(monthByDate))), sortBy);
+		List<Value> actual   = stats.normalizeMonthByValue(stats.sortSamplesByYear(monthByDate), sortBy);
+
+		assertEquals(expected.size(), actual.size());
+		for (int s=0; s<expected.size(); s++) {
+			assertEquals(expected.get(s).time, actual.get(s).time);
+			assertEquals(expected.get(s).value.toPlainString(), actual.get(s).value.toPlainString());
+		}
+	}
+
+	@Test
+	public void test_normalizeMonthByValue_sameAsSortedMonth() {
+		MonthlyStatistics<Value> descending = new MonthlyStatistics<Value>(env, builder) {
+			@Override
+			public Function<List<Value>, List<Value>> sortFunctionByQualifier() {
+				return StatisticsCalculator::sortByValueOrderDescending;
+			}
+			@Override
+			public boolean isAscendingByQualifier() {
+				return false;
+			}
+		};
+		Random random = new Random(1011L);
+		for (int trial=0; trial<100; trial++) {
+			List<Value> month = new ArrayList<>();
+			for (int year=2000; year<2024; year++) {
+				int count = 1 + random.nextInt(5);
+				for (int day=1; day<=count; day++) {
+					// few distinct values in one and two figures, so equal values differ in scale
+					BigDecimal value = BigDecimal.valueOf(random.nextInt(6), 1);
+					if (random.nextBoolean()) {
+						value = value.setScale(2);
+					}
+					month.add( new Value(String.format("%d-06-%02dT12:00:00", year, day), value) );
+				}
+			}
+			assertSelectedSameAsSorted(stats, month);
+			assertSelectedSameAsSorted(descending, month);
+		}
+	}
+
+	@Test
+	public void test_selectMedian_sameAsMakeMedianOfSorted() {
+		List<Value> samples = new ArrayList<>();
+		samples.add( createSample("2005-06-10T12:00:00", "3.0") );
+		samples.add( createSample("2005-06-11T12:00:00", "1.0") );
+		samples.add( createSample("2005-06-12T12:00:00", "2.00") );
+		samples.add( createSample("2005-06-13T12:00:00", "2.0") );
+		Value expected = stats.makeMedian( StatisticsCalculator.sortByValueOrderAscending(new ArrayList<>(samples)) );
+		Value actual   = stats.selectMedian(samples);
+
+		assertEquals(expected.time, actual.time);
+		assertEquals(expected.value.toPlainString(), actual.value.toPlainString());
+		assertEquals("3.0", samples.get(0).value.toPlainString()); // not reordered
+	}
 }
@@ -0,0 +1,85 @@
+package gov.usgs.wma.statistics.logic;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OrderStatisticsTest {
+
+	// the original positions in stable sort order, the order the selection must match
+	private List<Integer> stableOrder(long[] keys, boolean ascending) {
+		List<Integer> order = new ArrayList<>();
+		for (int k=0; k<keys.length; k++) {
+			order.add(k);
+		}
+		Comparator<Integer> byKey = (a, b) -> Long.compare(keys[a], keys[b]);
+		Collections.sort(order, ascending ?byKey :byKey.reversed());
+		return order;
+	}
+
+	private void assertSameAsSort(long[] keys, boolean ascending) {
+		List<Integer> expected = stableOrder(keys, ascending);
+		OrderStatistics ranks = new OrderStatistics(keys, ascending);
+		for (int rank=0; rank<keys.length; rank++) {
+			assertEquals("rank " + rank, (int)expected.get(rank), ranks.indexOf(rank));
+			assertEquals(keys[expected.get(rank)], ranks.keyOf(rank));
+		}
+	}
+
+	@Test
+	public void test_indexOf_sameAsStableSort() {
+		Random random = new Random(20181017L);
+		for (int trial=0; trial<200; trial++) {
+			long[] keys = new long[random.nextInt(300)];
+			int distinct = 1 + random.nextInt(50); // plenty of equal keys
+			for (int k=0; k<keys.length; k++) {
+				keys[k] = random.nextInt(distinct) - distinct/2;
+			}
+			assertSameAsSort(keys, true);
+			assertSameAsSort(keys, false);
+		}
+	}
+
+	@Test
+	public void test_indexOf_orderedAndEqualKeys() {
+		int size = 1000;
+		long[] ascending  = new long[size];
+		long[] descending = new long[size];
+		long[] equal      = new long[size];
+		long[] organPipe  = new long[size];
+		for (int k=0; k<size; k++) {
+			ascending[k]  = k;
+			descending[k] = size - k;
+			equal[k]      = 7;
+			organPipe[k]  = Math.min(k, size - k);
+		}
+		for (long[] keys : new long[][] {ascending, descending, equal, organPipe}) {
+			assertSameAsSort(keys, true);
+			assertSameAsSort(keys, false);
+		}
+	}
+
+	@Test
+	public void test_indexOf_medianPairInAnyOrder() {
+		long[] keys = {50, 10, 40, 20, 30, 20};
+		OrderStatistics ranks = new OrderStatistics(keys, true);
+		// select k+1 before k, the ranks found partition the search either way
+		assertEquals(4, ranks.indexOf(3));
+		assertEquals(5, ranks.indexOf(2)); // the later of the equal keys
+		assertEquals(3, ranks.indexOf(1));
+		assertEquals(1, ranks.indexOf(0));
+		assertEquals(50, ranks.keyOf(5));
+		assertEquals("the keys are copied", 50, keys[0]);
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void test_indexOf_outOfRange() {
+		new OrderStatistics(new long[] {1, 2}, true).indexOf(2);
+	}
+}
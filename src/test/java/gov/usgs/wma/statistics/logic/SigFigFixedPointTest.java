@@ -0,0 +1,181 @@
+package gov.usgs.wma.statistics.logic;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.logic.SigFigFixedPoint.Fixed;
+import gov.usgs.wma.statistics.logic.SigFigMathUtil.CustomRoundingRule;
+import gov.usgs.wma.statistics.logic.SigFigMathUtil.JavaDefaultRoundingRule;
+import gov.usgs.wma.statistics.logic.SigFigMathUtil.MathmaticsPositiveInfinityRoundingRule;
+
+public class SigFigFixedPointTest {
+
+	private static final int TRIALS = 50000;
+
+	private static final CustomRoundingRule[] RULES = {
+		new JavaDefaultRoundingRule(RoundingMode.HALF_UP),
+		new JavaDefaultRoundingRule(RoundingMode.HALF_DOWN),
+		new JavaDefaultRoundingRule(RoundingMode.HALF_EVEN),
+		new JavaDefaultRoundingRule(RoundingMode.UP),
+		new JavaDefaultRoundingRule(RoundingMode.DOWN),
+		new JavaDefaultRoundingRule(RoundingMode.CEILING),
+		new JavaDefaultRoundingRule(RoundingMode.FLOOR),
+		new MathmaticsPositiveInfinityRoundingRule(),
+	};
+
+	// a fixed seed so that any failure is repeatable
+	private final Random random = new Random(20181017L);
+
+	private BigDecimal randomDecimal() {
+		int digits = 1 + random.nextInt(random.nextBoolean() ?6 :18);
+		long unscaled = (long) (random.nextDouble() * Math.pow(10, digits));
+		if (random.nextInt(10) == 0) {
+			unscaled = (random.nextBoolean() ?5 :1) * (long) Math.pow(10, random.nextInt(digits)); // rounding boundaries
+		}
+		if (random.nextInt(20) == 0) {
+			unscaled = 0;
+		}
+		if (random.nextBoolean()) {
+			unscaled = -unscaled;
+		}
+		return BigDecimal.valueOf(unscaled, random.nextInt(14) - 3);
+	}
+
+	private static Fixed fixed(BigDecimal value) {
+		Fixed fixed = new Fixed();
+		assertTrue(fixed.set(value));
+		return fixed;
+	}
+
+	private int computedCount;
+
+	private void assertSame(String message, BigDecimal expected, boolean computed, Fixed actual) {
+		if (computed) {
+			computedCount++;
+			// equals also requires the same scale and so the same significant figures
+			assertEquals(message, expected, actual.toBigDecimal());
+		}
+	}
+
+	@Test
+	public void test_precision() {
+		assertEquals(1,  SigFigFixedPoint.precision(0));
+		assertEquals(1,  SigFigFixedPoint.precision(-9));
+		assertEquals(2,  SigFigFixedPoint.precision(10));
+		assertEquals(18, SigFigFixedPoint.precision(999999999999999999L));
+		assertEquals(19, SigFigFixedPoint.precision(Long.MAX_VALUE));
+		assertEquals(19, SigFigFixedPoint.precision(Long.MIN_VALUE));
+	}
+
+	@Test
+	public void test_examples() {
+		Fixed result = new Fixed();
+		CustomRoundingRule rule = SigFigMathUtil.DEFAULT_ROUNDING_RULE;
+
+		assertTrue(SigFigFixedPoint.add(fixed(new BigDecimal("12.000000")), fixed(new BigDecimal("4.4")), rule, result));
+		assertEquals("16.4", result.toString());
+
+		assertTrue(SigFigFixedPoint.subtract(fixed(new BigDecimal("9.05")), fixed(new BigDecimal("9.0")), rule, result));
+		assertEquals("0.1", result.toString());
+
+		assertTrue(SigFigFixedPoint.multiply(fixed(new BigDecimal("0.1")), fixed(new BigDecimal("0.75")), rule, result));
+		assertEquals("0.08", result.toString());
+
+		// the rounding carry drops one more digit, 9.99 * 1.00 -> 10.0 at three digits
+		assertTrue(SigFigFixedPoint.multiply(fixed(new BigDecimal("9.996")), fixed(new BigDecimal("1.00")), rule, result));
+		assertEquals("10.0", result.toString());
+
+		assertTrue(SigFigFixedPoint.divide(fixed(new BigDecimal("4.1")), fixed(new BigDecimal("2.0")), rule, result));
+		assertEquals("2.1", result.toString());
+
+		assertTrue(SigFigFixedPoint.divideByExact(fixed(new BigDecimal("6.00")), fixed(new BigDecimal("2")), rule, result));
+		assertEquals("3.00", result.toString());
+	}
+
+	@Test
+	public void test_fallback() {
+		Fixed result = new Fixed(42, 0);
+		CustomRoundingRule rule = SigFigMathUtil.DEFAULT_ROUNDING_RULE;
+		CustomRoundingRule notSignBased = new CustomRoundingRule() {
+			public RoundingMode valueRule(BigDecimal value) {
+				return RoundingMode.HALF_UP;
+			}
+			public RoundingMode productRule(BigDecimal a, BigDecimal b) {
+				return RoundingMode.HALF_UP;
+			}
+		};
+		Fixed big = new Fixed(Long.MAX_VALUE/2 + 1, 0);
+
+		assertFalse(SigFigFixedPoint.add(big, big, rule, result));
+		assertFalse(SigFigFixedPoint.multiply(big, new Fixed(3, 0), rule, result));
+		assertFalse(SigFigFixedPoint.add(new Fixed(1, 0), new Fixed(1, 0), notSignBased, result));
+		assertFalse(SigFigFixedPoint.divide(new Fixed(1, 0), new Fixed(0, 0), rule, result));
+		assertFalse(SigFigFixedPoint.add(new Fixed(1, 0), new Fixed(1, 20), rule, result));
+		assertFalse(new Fixed().set(new BigDecimal("1234567890123456789")));
+		assertFalse(new Fixed().set(new ScientificDecimal("1000")));
+		assertEquals("the result is unchanged when it falls back", "42", result.toString());
+	}
+
+	@Test
+	public void test_add_subtract_sameAsBigDecimal() {
+		Fixed result = new Fixed();
+		for (int t=0; t<TRIALS; t++) {
+			BigDecimal a = randomDecimal();
+			BigDecimal b = randomDecimal();
+			CustomRoundingRule rule = RULES[t % RULES.length];
+			int scale = Math.min(a.scale(), b.scale());
+
+			BigDecimal sum = a.add(b);
+			sum = sum.setScale(scale, rule.valueRule(sum));
+			assertSame(a+" + "+b, sum, SigFigFixedPoint.add(fixed(a), fixed(b), rule, result), result);
+
+			BigDecimal difference = a.subtract(b);
+			difference = difference.setScale(scale, rule.valueRule(difference));
+			assertSame(a+" - "+b, difference, SigFigFixedPoint.subtract(fixed(a), fixed(b), rule, result), result);
+		}
+		assertTrue("most values should be computed in fixed point", computedCount > TRIALS);
+	}
+
+	@Test
+	public void test_multiply_sameAsBigDecimal() {
+		Fixed result = new Fixed();
+		for (int t=0; t<TRIALS; t++) {
+			BigDecimal a = randomDecimal();
+			BigDecimal b = randomDecimal();
+			CustomRoundingRule rule = RULES[t % RULES.length];
+
+			MathContext mc = new MathContext(Math.min(a.precision(), b.precision()), rule.productRule(a, b));
+			assertSame(a+" * "+b, a.multiply(b, mc), SigFigFixedPoint.multiply(fixed(a), fixed(b), rule, result), result);
+
+			mc = new MathContext(a.precision(), rule.productRule(a, b));
+			assertSame(a+" *= "+b, a.multiply(b, mc), SigFigFixedPoint.multiplyByExact(fixed(a), fixed(b), rule, result), result);
+		}
+		assertTrue("most values should be computed in fixed point", computedCount > TRIALS/2);
+	}
+
+	@Test
+	public void test_divide_sameAsBigDecimal() {
+		Fixed result = new Fixed();
+		for (int t=0; t<TRIALS; t++) {
+			BigDecimal a = randomDecimal();
+			BigDecimal b = randomDecimal();
+			if (b.signum() == 0) {
+				continue;
+			}
+			CustomRoundingRule rule = RULES[t % RULES.length];
+
+			MathContext mc = new MathContext(Math.min(a.precision(), b.precision()), rule.productRule(a, b));
+			assertSame(a+" / "+b, a.divide(b, mc), SigFigFixedPoint.divide(fixed(a), fixed(b), rule, result), result);
+
+			mc = new MathContext(a.precision(), rule.productRule(a, b));
+			assertSame(a+" /= "+b, a.divide(b, mc), SigFigFixedPoint.divideByExact(fixed(a), fixed(b), rule, result), result);
+		}
+		assertTrue("most values should be computed in fixed point", computedCount > TRIALS/2);
+	}
+}
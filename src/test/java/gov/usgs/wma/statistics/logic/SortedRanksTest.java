@@ -0,0 +1,116 @@
+package gov.usgs.wma.statistics.logic;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.model.Value;
+
+public class SortedRanksTest {
+
+	// yearly medians of one month, few distinct values so equal values are plenty
+	private List<Value> yearlyMedians(Random random, int years, Comparator<Value> order) {
+		List<Value> samples = new ArrayList<>();
+		for (int y=0; y<years; y++) {
+			samples.add(new Value((1950 + y) + "-06-15", new BigDecimal(random.nextInt(10))));
+		}
+		Collections.sort(samples, order);
+		return samples;
+	}
+
+	// the list scan the ranks replace: insert after the equal values then remove the first of the year-month
+	private List<Value> scanReplacing(List<Value> sorted, Value reading, Comparator<Value> order) {
+		List<Value> replaced = new ArrayList<>(sorted);
+		if (replaced.contains(reading)) {
+			return replaced;
+		}
+		String yearMonth = reading.time.substring(0, 7);
+		for (int s=0; s<replaced.size(); s++) {
+			if (replaced.get(s).time.substring(0, 7).equals(yearMonth)) {
+				replaced.remove(s);
+				break;
+			}
+		}
+		int s = 0;
+		while (s < replaced.size() && order.compare(reading, replaced.get(s)) >= 0) {
+			s++;
+		}
+		replaced.add(s, reading);
+		return replaced;
+	}
+
+	@Test
+	public void test_rankReplacing_sameAsListScan() {
+		Random random = new Random(20181017L);
+		for (int trial=0; trial<200; trial++) {
+			Comparator<Value> order = (trial % 2 == 0) ?Value.SORT_VALUE_ASCENDING :Value.SORT_VALUE_DESCENDING;
+			List<Value> sorted = yearlyMedians(random, random.nextInt(60), order);
+			// a reading of an existing year-month or of a new year
+			int year = 1950 + random.nextInt(70);
+			Value reading = new Value(year + "-06-20", new BigDecimal(random.nextInt(10)));
+
+			List<Value> expected = scanReplacing(sorted, reading, order);
+			SortedRanks<Value> ranks = new SortedRanks<>(sorted, order);
+			assertEquals(expected.indexOf(reading), ranks.rankReplacing(reading));
+			assertEquals(expected.size(), ranks.sizeReplacing(reading));
+		}
+	}
+
+	@Test
+	public void test_replace_sameAsListScan() {
+		Random random = new Random(20181017L);
+		for (int trial=0; trial<200; trial++) {
+			Comparator<Value> order = (trial % 2 == 0) ?Value.SORT_VALUE_ASCENDING :Value.SORT_VALUE_DESCENDING;
+			List<Value> sorted = yearlyMedians(random, random.nextInt(60), order);
+			int year = 1950 + random.nextInt(70);
+			Value reading = new Value(year + "-06-20", new BigDecimal(random.nextInt(10)));
+
+			List<Value> expected = scanReplacing(sorted, reading, order);
+			SortedRanks.replace(sorted, order, reading);
+			assertEquals(expected, sorted);
+		}
+	}
+
+	@Test
+	public void test_rankReplacing_existingSample() {
+		List<Value> sorted = yearlyMedians(new Random(20181017L), 20, Value.SORT_VALUE_ASCENDING);
+		SortedRanks<Value> ranks = new SortedRanks<>(sorted, Value.SORT_VALUE_ASCENDING);
+		for (int rank=0; rank<sorted.size(); rank++) {
+			assertEquals(rank, ranks.rankReplacing(sorted.get(rank)));
+			assertEquals(sorted.size(), ranks.sizeReplacing(sorted.get(rank)));
+		}
+	}
+
+	@Test
+	public void test_indexOf_instanceAmongEqualValues() {
+		List<Value> sorted = new LinkedList<>();
+		for (int s=0; s<10; s++) {
+			sorted.add(new Value("2000-01-15", "1.0"));
+		}
+		SortedRanks<Value> ranks = new SortedRanks<>(sorted, Value.SORT_VALUE_ASCENDING);
+		for (int rank=0; rank<sorted.size(); rank++) {
+			assertEquals(rank, ranks.indexOf(sorted.get(rank)));
+		}
+		assertEquals(-1, ranks.indexOf(new Value("2000-01-15", "1.0")));
+		assertEquals(10, ranks.rankOf(new Value("2000-02-15", "1.0")));
+		assertEquals(0,  ranks.rankOf(new Value("2000-02-15", "0.5")));
+	}
+
+	@Test
+	public void test_percentileOfRank_sameAsPercentileOfValue() {
+		List<Value> sorted = yearlyMedians(new Random(20181017L), 30, Value.SORT_VALUE_ASCENDING);
+		for (Value sample : sorted) {
+			assertEquals(StatisticsCalculator.percentileOfValue(sorted, sample, Value::valueOf),
+					StatisticsCalculator.percentileOfRank(sorted.indexOf(sample), sorted.size(), sample.value));
+		}
+		assertEquals(BigDecimal.ZERO, StatisticsCalculator.percentileOfRank(0, 0, BigDecimal.ONE));
+	}
+}
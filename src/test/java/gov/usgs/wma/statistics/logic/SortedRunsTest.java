@@ -0,0 +1,85 @@
+package gov.usgs.wma.statistics.logic;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.model.Value;
+
+public class SortedRunsTest {
+
+	// month runs of yearly medians, sorted as medianMonthlyValues sorts them
+	private List<Value> monthRuns(Random random, int months, int years, Comparator<Value> order) {
+		List<Value> values = new ArrayList<>();
+		for (int m=0; m<months; m++) {
+			List<Value> month = new ArrayList<>();
+			for (int y=0; y<years; y++) {
+				// few distinct values with different scales so equal values are plenty
+				BigDecimal value = new BigDecimal(random.nextInt(20)).movePointLeft(1)
+						.setScale(1 + random.nextInt(2));
+				month.add(new Value("2000-01-01", value));
+			}
+			Collections.sort(month, order);
+			values.addAll(month);
+		}
+		return values;
+	}
+
+	private void assertSameAsStableSort(List<Value> values, Comparator<Value> order) {
+		List<Value> sorted = new ArrayList<>(values);
+		Collections.sort(sorted, order);
+		SortedRuns<Value> runs = new SortedRuns<>(values, order);
+		for (int rank=0; rank<values.size(); rank++) {
+			assertSame("rank " + rank, sorted.get(rank), runs.get(rank));
+		}
+	}
+
+	@Test
+	public void test_get_sameAsStableSort() {
+		Random random = new Random(20181017L);
+		for (int trial=0; trial<100; trial++) {
+			int months = 1 + random.nextInt(13);
+			int years  = random.nextInt(40);
+			assertSameAsStableSort(monthRuns(random, months, years, Value.SORT_VALUE_ASCENDING), Value.SORT_VALUE_ASCENDING);
+			assertSameAsStableSort(monthRuns(random, months, years, Value.SORT_VALUE_DESCENDING), Value.SORT_VALUE_DESCENDING);
+		}
+	}
+
+	@Test
+	public void test_get_unsortedValues() {
+		Random random = new Random(20181017L);
+		List<Value> values = new LinkedList<>();
+		for (int v=0; v<500; v++) {
+			values.add(new Value("2000-01-01", new BigDecimal(random.nextInt(50))));
+		}
+		assertSameAsStableSort(values, Value.SORT_VALUE_ASCENDING);
+	}
+
+	@Test
+	public void test_runs() {
+		List<Value> values = new ArrayList<>();
+		for (String value : new String[] {"1", "2", "3", "1", "1", "2", "0"}) {
+			values.add(new Value("2000-01-01", value));
+		}
+		SortedRuns<Value> runs = new SortedRuns<>(values, Value.SORT_VALUE_ASCENDING);
+		assertEquals(3, runs.runs());
+		assertEquals(7, runs.size());
+		assertEquals("0", runs.get(0).value.toPlainString());
+		assertEquals("3", runs.get(6).value.toPlainString());
+
+		assertEquals(0, new SortedRuns<Value>(new ArrayList<>(), Value.SORT_VALUE_ASCENDING).runs());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void test_get_outOfRange() {
+		new SortedRuns<Value>(new ArrayList<>(), Value.SORT_VALUE_ASCENDING).get(0);
+	}
+}
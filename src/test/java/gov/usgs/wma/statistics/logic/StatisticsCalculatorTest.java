@@ -5,6 +5,8 @@ import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -157,6 +159,15 @@ public class StatisticsCalculatorTest {
 		assertEquals("Expect 406 day", 406, actual.intValue());
 	}
 	@Test
+	public void test_daysDiff_samples() throws Exception {
+		Value first  = createSample("2014-11-14T10:15:00", "1.0");
+		Value latest = createSample("2015-12-25T04:15:00-05:00", "1.0");
+		assertEquals(406, StatisticsCalculator.daysDiff(latest, first).intValue());
+		// a date out of range rolls over like the lenient parse of the time
+		Value rolled = createSample("2015-12-32", "1.0");
+		assertEquals(1, StatisticsCalculator.daysDiff(rolled, createSample("2015-12-31", "1.0")).intValue());
+	}
+	@Test
 	public void test_fixMissingMonthAndDay_doNothing() throws Exception {
 		String expect = "2015-12-12";
 		String actual = StatisticsCalculator.fixMissingMonthAndDay(expect);
@@ -216,6 +227,24 @@ public class StatisticsCalculatorTest {
 		assertEquals("null instance should be removed", 2, samples.size());
 	}
 
+	@Test
+	public void test_retainByMask() throws Exception {
+		BitSet keep = new BitSet();
+		keep.set(0);
+		keep.set(2);
+		keep.set(3);
+		List<String> arrayList  = new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e"));
+		List<String> linkedList = new LinkedList<>(arrayList);
+		StatisticsCalculator.retainByMask(arrayList, keep);
+		StatisticsCalculator.retainByMask(linkedList, keep);
+		assertEquals(Arrays.asList("a", "c", "d"), arrayList);
+		assertEquals(Arrays.asList("a", "c", "d"), linkedList);
+
+		keep.set(0, 3);
+		StatisticsCalculator.retainByMask(arrayList, keep);
+		assertEquals("all retained should be unchanged", 3, arrayList.size());
+	}
+
 	@Test
 	public void test_overallStats_OrderSamples_3() throws Exception {
 		Value min = createSample("2005-06-10T04:15:00-05:00", "1.0");
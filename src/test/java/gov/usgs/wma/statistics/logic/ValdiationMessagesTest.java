@@ -241,6 +241,22 @@ public class ValdiationMessagesTest {
 		assertEquals( "Removed 2 empty samples at rows 2, 3.", actual.get() );
 	}
 	@Test
+	public void test_StatisticsCalculator_OMIT_NULL_rowsFromOriginalIndex() {
+		StatisticsCalculator<Value> stats = new StatisticsCalculator<>(env, builder);
+		
+		List<Value> samples = new LinkedList<>();
+		samples.add( new Value("2000-01-01", new BigDecimal("1.0")) );
+		samples.add( null );
+		samples.add( new Value("2000-01-03", new BigDecimal("1.0")) );
+		samples.add( null );
+		stats.removeNulls(samples, "Test ID");
+		
+		assertEquals(2, samples.size());
+		Optional<String> actual = fetchMessageLike(ENV_MESSAGE_OMIT_NULL, 7);
+		assertTrue( actual.isPresent() );
+		assertEquals( "Removed 2 empty samples at rows 2, 4.", actual.get() );
+	}
+	@Test
 	public void test_StatisticsCalculator_OMIT_PROVISIONAL_0() {
 		StatisticsCalculator<Value> stats = new StatisticsCalculator<>(env, builder);
 		
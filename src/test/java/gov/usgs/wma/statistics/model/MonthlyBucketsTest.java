@@ -0,0 +1,92 @@
+package gov.usgs.wma.statistics.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.logic.MonthlyStatistics;
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+
+public class MonthlyBucketsTest {
+
+	List<Value> samples;
+
+	@Before
+	public void setup() {
+		samples = new LinkedList<>();
+		samples.add( new Value("2005-03-10T04:15:00-05:00", "3.0") );
+		samples.add( new Value("2005-03-20T04:15:00-05:00", "1.0") );
+		samples.add( new Value("2005-04-10T04:15:00-05:00", "2.0") );
+		samples.add( new Value("2006-03-10T04:15:00-05:00", "1.0") );
+		samples.add( new Value("2006-12-10T04:15:00-05:00", "5.0") );
+		samples.add( new Value("2007-03-10T04:15:00-05:00", "2.0") );
+	}
+
+	@Test
+	public void test_monthOf() {
+		assertEquals(1,  MonthlyBuckets.monthOf(new Value("2005-01-10", "1")));
+		assertEquals(12, MonthlyBuckets.monthOf(new Value("2005-12", "1")));
+		assertEquals(0,  MonthlyBuckets.monthOf(new Value("2005-13-10", "1")));
+		assertEquals(0,  MonthlyBuckets.monthOf(new Value("2005-00-10", "1")));
+		assertEquals(0,  MonthlyBuckets.monthOf(new Value("2005", "1")));
+		assertEquals(0,  MonthlyBuckets.monthOf(null));
+	}
+
+	@Test
+	public void test_monthsAndYears_sameAsFilter() {
+		MonthlyBuckets<Value> byMonth = new MonthlyBuckets<>(samples);
+		MonthlyStatistics<Value> stats = new MonthlyStatistics<>(null, new JsonDataBuilder(null));
+
+		for (int m=1; m<=12; m++) {
+			List<Value> expected = stats.filterValuesByGivenMonth(samples, ""+m);
+			assertEquals(expected, byMonth.month(m));
+			assertEquals(stats.sortSamplesByYear(expected).keySet(), byMonth.years(m).keySet());
+		}
+		assertEquals(4, byMonth.month(3).size());
+		assertEquals(4, byMonth.size(3));
+		assertEquals(0, byMonth.size(1));
+		assertEquals(3, byMonth.yearCount(3));
+		assertEquals(2, byMonth.years(3).get("2005").size());
+		assertFalse(byMonth.isEmpty());
+		assertTrue(new MonthlyBuckets<Value>(null).isEmpty());
+	}
+
+	@Test
+	public void test_month_isACopy() {
+		MonthlyBuckets<Value> byMonth = new MonthlyBuckets<>(samples);
+		byMonth.month(3).clear();
+		assertEquals(4, byMonth.month(3).size());
+	}
+
+	@Test
+	public void test_remove() {
+		MonthlyBuckets<Value> byMonth = new MonthlyBuckets<>(samples);
+		Value latest = samples.get(samples.size()-1);
+
+		assertTrue(byMonth.remove(latest));
+		assertEquals(3, byMonth.month(3).size());
+		assertEquals(3, byMonth.size(3));
+		assertEquals(2, byMonth.yearCount(3));
+		assertFalse(byMonth.remove(latest));
+	}
+
+	@Test
+	public void test_sortEachMonth_sameAsFilterOfSortedByValue() {
+		List<Value> sortedByValue = new ArrayList<>(samples);
+		StatisticsCalculator.sortByValueOrderAscending(sortedByValue);
+		MonthlyBuckets<Value> byMonth = new MonthlyBuckets<>(samples)
+				.sortEachMonth(StatisticsCalculator::sortByValueOrderAscending);
+
+		MonthlyStatistics<Value> stats = new MonthlyStatistics<>(null, new JsonDataBuilder(null));
+		for (int m=1; m<=12; m++) {
+			assertEquals(stats.filterValuesByGivenMonth(sortedByValue, ""+m), byMonth.month(m));
+		}
+		assertEquals("2005-03-20T04:15:00-05:00", byMonth.month(3).get(0).time);
+		assertEquals("2006-03-10T04:15:00-05:00", byMonth.month(3).get(1).time);
+	}
+}
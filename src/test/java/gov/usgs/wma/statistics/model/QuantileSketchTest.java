@@ -0,0 +1,105 @@
+package gov.usgs.wma.statistics.model;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantileSketchTest {
+
+	private static Value value(Random random) {
+		return new Value("2000-01-01", new BigDecimal(random.nextInt(100000)).movePointLeft(2), false);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void test_construct_kTooSmall() {
+		new QuantileSketch<Value>(4, true);
+	}
+
+	@Test
+	public void test_asList_exactBelowCapacitySameAsStableSort() {
+		Random random = new Random(3);
+		for (boolean ascending : new boolean[] {true, false}) {
+			QuantileSketch<Value> sketch = new QuantileSketch<>(ascending);
+			List<Value> samples = new ArrayList<>();
+			for (int s=0; s<QuantileSketch.DEFAULT_K; s++) {
+				Value sample = new Value("2000-01-01", new BigDecimal(random.nextInt(20)).movePointLeft(random.nextInt(2)), false);
+				samples.add(sample);
+				sketch.add(sample);
+			}
+			assertTrue(sketch.isExact());
+			assertEquals(0, sketch.rankError(), 0);
+			assertEquals(samples, sketch.samples());
+
+			Collections.sort(samples, (a, b) -> ascending ?a.value.compareTo(b.value) :b.value.compareTo(a.value));
+			List<Value> view = sketch.asList();
+			assertEquals(samples.size(), view.size());
+			for (int s=0; s<samples.size(); s++) {
+				assertSame("rank " + s, samples.get(s), view.get(s));
+			}
+		}
+	}
+
+	@Test
+	public void test_add_retainedIsBoundedAndRanksWithinError() {
+		Random random = new Random(5);
+		QuantileSketch<Value> sketch = new QuantileSketch<>(true);
+		List<Value> samples = new ArrayList<>();
+		for (int s=0; s<100000; s++) {
+			Value sample = value(random);
+			samples.add(sample);
+			sketch.add(sample);
+		}
+		Collections.sort(samples, (a, b) -> a.value.compareTo(b.value));
+
+		assertFalse(sketch.isExact());
+		assertEquals(samples.size(), sketch.count());
+		assertTrue("retained " + sketch.retained(), sketch.retained() < 4 * QuantileSketch.DEFAULT_K);
+		assertSame(samples.get(0), sketch.sampleOfRank(0));
+		assertEquals(samples.get(samples.size()-1).value, sketch.sampleOfRank(samples.size()-1).value);
+
+		long allowed = (long) Math.ceil(sketch.rankError() * samples.size());
+		for (int percent=10; percent<100; percent+=10) {
+			int rank = samples.size() * percent / 100;
+			BigDecimal estimate = sketch.sampleOfRank(rank).value;
+			BigDecimal low  = samples.get((int) Math.max(0, rank - allowed)).value;
+			BigDecimal high = samples.get((int) Math.min(samples.size()-1, rank + allowed)).value;
+			assertTrue(percent + "% " + estimate, low.compareTo(estimate) <= 0 && estimate.compareTo(high) <= 0);
+		}
+	}
+
+	@Test
+	public void test_merge_countAndExtremesExact() {
+		Random random = new Random(9);
+		QuantileSketch<Value> merged = new QuantileSketch<>(false);
+		BigDecimal min = null;
+		BigDecimal max = null;
+		long count = 0;
+		for (int part=0; part<12; part++) {
+			QuantileSketch<Value> sketch = new QuantileSketch<>(false);
+			int size = random.nextInt(5000);
+			for (int s=0; s<size; s++) {
+				Value sample = value(random);
+				sketch.add(sample);
+				min = (min == null || sample.value.compareTo(min) < 0) ?sample.value :min;
+				max = (max == null || sample.value.compareTo(max) > 0) ?sample.value :max;
+			}
+			merged.merge(sketch);
+			count += size;
+		}
+		assertEquals(count, merged.count());
+		// descending order
+		assertEquals(max, merged.sampleOfRank(0).value);
+		assertEquals(min, merged.sampleOfRank(count-1).value);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void test_merge_differentOrder() {
+		new QuantileSketch<Value>(true).merge(new QuantileSketch<Value>(false));
+	}
+}
@@ -0,0 +1,71 @@
+package gov.usgs.wma.statistics.model;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RankedSamplesTest {
+
+	@Test
+	public void test_get_ascendingEqualValuesInOrderAdded() {
+		RankedSamples<Value> ranked = new RankedSamples<>(true);
+		Value one   = new Value("2001-01-01", "1.0");
+		Value two   = new Value("2002-01-01", "2.0");
+		Value other = new Value("2003-01-01", "1.00");
+		ranked.add(two);
+		ranked.add(one);
+		ranked.add(other);
+
+		assertEquals(3, ranked.size());
+		assertSame(one, ranked.get(0));
+		assertSame(other, ranked.get(1));
+		assertSame(two, ranked.get(2));
+	}
+
+	@Test
+	public void test_get_descending() {
+		RankedSamples<Value> ranked = new RankedSamples<>(false);
+		ranked.add( new Value("2001-01-01", "1.0") );
+		ranked.add( new Value("2002-01-01", "3.0") );
+		ranked.add( new Value("2003-01-01", "2.0") );
+
+		assertEquals("3.0", ranked.get(0).value.toString());
+		assertEquals("2.0", ranked.get(1).value.toString());
+		assertEquals("1.0", ranked.get(2).value.toString());
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void test_get_outOfRange() {
+		RankedSamples<Value> ranked = new RankedSamples<>(true);
+		assertTrue(ranked.isEmpty());
+		ranked.get(0);
+	}
+
+	@Test
+	public void test_asList_sameAsStableSort() {
+		Random random = new Random(7);
+		for (boolean ascending : new boolean[] {true, false}) {
+			RankedSamples<Value> ranked = new RankedSamples<>(ascending);
+			List<Value> samples = new ArrayList<>();
+			for (int s=0; s<2000; s++) {
+				Value sample = new Value("2000-01-01", new BigDecimal(random.nextInt(100)).movePointLeft(random.nextInt(2)), false);
+				samples.add(sample);
+				ranked.add(sample);
+			}
+			// Collections.sort is stable so equal values remain in the order added
+			Collections.sort(samples, (a, b) -> ascending ?a.value.compareTo(b.value) :b.value.compareTo(a.value));
+
+			List<Value> view = ranked.asList();
+			assertEquals(samples.size(), view.size());
+			for (int s=0; s<samples.size(); s++) {
+				assertSame("rank " + s, samples.get(s), view.get(s));
+			}
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package gov.usgs.wma.statistics.model;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class SampleDateTest {
+
+	// the times parsed by the former SimpleDateFormat implementation
+	private static final String[] TIMES = {
+		"2005-06-10T04:15:00-05:00", "2005-06-10", "2005-06", "2005", "05", "20050-06-10",
+		" 2005-06-10", "\t2005- 06- 10", "-5-01-01", "2005-13-40", "2005-00-00", "2005--06-10",
+		"2008-02-29", "2007-02-29", "2005-6-1", "2005/06/10", "199/01/01", "2005x", "2005.5",
+		"1,000", "+5", "abc", "", " ", "-", "2005-+06-10", "٢٠٠٥-06-10",
+	};
+
+	@Test
+	public void test_of_positionalParts() {
+		SampleDate date = SampleDate.of("2008-02-29T04:15:00-05:00");
+		assertEquals(2008, date.year());
+		assertEquals(2, date.month());
+		assertEquals(29, date.day());
+		assertTrue(date.isFullDate());
+		assertEquals(LocalDate.of(2008, 2, 29), date.toLocalDate());
+		assertEquals(13938, date.epochDay());
+
+		date = SampleDate.of("2005-06");
+		assertEquals(2005, date.year());
+		assertEquals(6, date.month());
+		assertEquals(0, date.day());
+		assertFalse(date.isFullDate());
+		assertEquals(SampleDate.NO_DATE, date.epochDay());
+
+		assertFalse(SampleDate.of("2007-02-29").isFullDate());
+		assertEquals(0, SampleDate.of("2005-13-10").month());
+		assertEquals(6, SampleDate.of("2005/06/10").month());
+		assertEquals(0, SampleDate.of(null).year());
+	}
+
+	@Test
+	public void test_isValidYear_sameAsSimpleDateFormat() {
+		for (String time : TIMES) {
+			boolean parsed = true;
+			try {
+				new SimpleDateFormat("yyyy").parse(time);
+			} catch (ParseException e) {
+				parsed = false;
+			}
+			assertEquals("[" + time + "]", parsed, SampleDate.isValidYear(time));
+		}
+		assertFalse(SampleDate.isValidYear(null));
+	}
+
+	@Test
+	public void test_lenientEpochDay_sameAsSimpleDateFormat() throws Exception {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		for (String time : TIMES) {
+			long expected = SampleDate.NO_DATE;
+			try {
+				Calendar parsed = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+				parsed.setTime(format.parse(time));
+				// the Gregorian calendar before 1582 is Julian, these are all proleptic Gregorian
+				if (parsed.get(Calendar.YEAR) > 1582) {
+					expected = Math.floorDiv(parsed.getTimeInMillis(), 24*60*60*1000L);
+				} else {
+					continue;
+				}
+			} catch (ParseException e) {
+				// the expected is NO_DATE
+			}
+			assertEquals("[" + time + "]", expected, SampleDate.lenientEpochDay(time));
+		}
+		assertEquals(LocalDate.of(2006, 2, 9).toEpochDay(), SampleDate.lenientEpochDay("2005-13-40"));
+		assertEquals(LocalDate.of(-5, 1, 1).toEpochDay(), SampleDate.lenientEpochDay("-5-01-01"));
+		assertEquals(SampleDate.NO_DATE, SampleDate.lenientEpochDay(null));
+	}
+
+	@Test
+	public void test_date_reparsedWhenTimeChanges() {
+		Value value = new Value("2005-06", "1.0");
+		SampleDate date = value.date();
+		assertSame(date, value.date());
+		assertEquals(0, date.day());
+
+		value.time = "2005-06-15";
+		assertEquals(15, value.date().day());
+	}
+}
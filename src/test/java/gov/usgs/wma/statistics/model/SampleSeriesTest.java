@@ -0,0 +1,172 @@
+package gov.usgs.wma.statistics.model;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gov.usgs.wma.statistics.logic.StatisticsCalculator;
+
+public class SampleSeriesTest {
+
+	List<Value> samples;
+
+	@Before
+	public void setup() {
+		samples = new LinkedList<>();
+		samples.add( new Value("2005-06-10T04:15:00-05:00", "2.0") );
+		samples.add( new Value("2006-06-10T04:15:00-05:00", "1.00") );
+		samples.add( new Value("2007-01-10T04:15:00-05:00", new BigDecimal("3.0"), true) );
+		samples.add( new Value("2008-02-29T04:15:00-05:00", "1.0") );
+		samples.add( new Value("2009-12-10T04:15:00-05:00", "2.00") );
+	}
+
+	@Test
+	public void test_of_preservesOriginalScale() {
+		SampleSeries series = SampleSeries.of(samples);
+
+		assertEquals(5, series.size());
+		assertEquals(2, series.valueScale());
+		assertEquals(200L, series.unscaledValue(0));
+		assertEquals("2.0", series.value(0).toString());
+		assertEquals("1.00", series.value(1).toString());
+		assertNull(series.aboveDatum(0));
+		assertTrue(series.isProvisional(2));
+		assertFalse(series.isProvisional(3));
+	}
+
+	@Test
+	public void test_of_nullWhenNotRepresentable() {
+		assertNull( SampleSeries.of(null) );
+
+		samples.add( new Value("2010-01-01", (BigDecimal)null) );
+		assertNull( SampleSeries.of(samples) );
+
+		samples.remove(samples.size()-1);
+		samples.add( new Value("2010-01-01", "99999999999999999999.0") );
+		assertNull( SampleSeries.of(samples) );
+	}
+
+	@Test
+	public void test_epochDay_yearAndMonth() {
+		SampleSeries series = SampleSeries.of(samples);
+		for (int s=0; s<samples.size(); s++) {
+			assertEquals(samples.get(s).date().epochDay(), series.epochDay(s));
+		}
+		assertEquals(2008, series.year(3));
+		assertEquals(2, series.month(3));
+		assertEquals(5, series.uniqueYears());
+	}
+
+	@Test
+	public void test_sortByValue_ascendingIsStable() {
+		SampleSeries series = SampleSeries.of(samples).sortByValue(true);
+
+		List<Value> expected = new ArrayList<>(samples);
+		StatisticsCalculator.sortByValueOrderAscending(expected);
+		List<Value> actual = series.toList(samples);
+
+		for (int s=0; s<expected.size(); s++) {
+			assertSame(expected.get(s), actual.get(s));
+		}
+		// equal values retain their date order
+		assertEquals("2006-06-10T04:15:00-05:00", actual.get(0).time);
+		assertEquals("2008-02-29T04:15:00-05:00", actual.get(1).time);
+	}
+
+	@Test
+	public void test_sortByValue_descendingIsStable() {
+		SampleSeries series = SampleSeries.of(samples).sortByValue(false);
+
+		List<Value> expected = new ArrayList<>(samples);
+		StatisticsCalculator.sortByValueOrderDescending(expected);
+		List<Value> actual = series.toList(samples);
+
+		for (int s=0; s<expected.size(); s++) {
+			assertSame(expected.get(s), actual.get(s));
+		}
+		assertTrue(series.isProvisional(0));
+		assertEquals("3.0", series.value(0).toString());
+	}
+
+	@Test
+	public void test_sortByDate_restoresDateOrder() {
+		SampleSeries series = SampleSeries.of(samples).sortByValue(true).sortByDate();
+		for (int s=0; s<series.size(); s++) {
+			assertEquals(s, series.row(s));
+		}
+	}
+
+	@Test
+	public void test_retain_compactsInPlace() {
+		BitSet keep = new BitSet();
+		keep.set(1);
+		keep.set(4);
+		SampleSeries series = SampleSeries.of(samples).retain(keep);
+
+		assertEquals(2, series.size());
+		assertEquals(1, series.row(0));
+		assertEquals(4, series.row(1));
+		assertEquals("2.00", series.value(1).toString());
+		assertFalse(series.isProvisional(0));
+	}
+
+	@Test
+	public void test_valueOfPercentile_sameAsList() {
+		List<Value> sorted = new ArrayList<>(samples);
+		StatisticsCalculator.sortByValueOrderAscending(sorted);
+		SampleSeries series = SampleSeries.of(samples).sortByValue(true);
+
+		StatisticsCalculator<Value> calc = new StatisticsCalculator<>(null, new JsonDataBuilder(null));
+		for (String pct : new String[] {"0", ".1", ".25", ".5", ".75", ".9", "1"}) {
+			BigDecimal percentile = new BigDecimal(pct);
+			assertEquals(pct,
+					calc.valueOfPercentile(sorted, percentile, Value::valueOf),
+					StatisticsCalculator.valueOfPercentile(series, percentile));
+		}
+	}
+
+	@Test
+	public void test_sortByDate_sameAsTimeOrder() {
+		List<Value> shuffled = new ArrayList<>();
+		shuffled.add( new Value("2009-12-10T04:15:00-05:00", "2.00") );
+		shuffled.add( new Value("2005-06-10T12:00:00", "2.0") );
+		shuffled.add( new Value("2005-06-10T04:15:00-05:00", "1.0") );
+		shuffled.add( new Value("2005-06-10T04:15:00-05:00", "3.0") );
+		shuffled.add( new Value("2005-06-10", "4.0") );
+		shuffled.add( new Value("1999-01-31", "5.0") );
+		SampleSeries series = SampleSeries.of(shuffled);
+
+		assertTrue(series.sortByDate(shuffled));
+		List<Value> expected = new ArrayList<>(shuffled);
+		StatisticsCalculator.sortByDateOrder(expected);
+		List<Value> actual = series.toList(shuffled);
+		for (int s=0; s<expected.size(); s++) {
+			assertSame(expected.get(s), actual.get(s));
+		}
+	}
+
+	@Test
+	public void test_sortByDate_falseWithoutDates() {
+		List<Value> undated = new ArrayList<>(samples);
+		undated.add( new Value("2005/06/10", "1.0") );
+		SampleSeries series = SampleSeries.of(undated);
+
+		// the date has an epoch day, but its time does not sort with the others as a string
+		assertEquals(LocalDate.of(2005, 6, 10).toEpochDay(), series.epochDay(5));
+		assertFalse(series.sortByDate(undated));
+		assertEquals(0, series.row(0));
+
+		undated.set(5, new Value("2005", "1.0"));
+		series = SampleSeries.of(undated);
+		assertEquals(SampleSeries.NO_DATE, series.epochDay(5));
+		assertFalse(series.sortByDate(undated));
+	}
+}